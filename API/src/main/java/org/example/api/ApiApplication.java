@@ -2,8 +2,10 @@ package org.example.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
 
 @SpringBootApplication
+@PropertySource(value = "classpath:api-defaults.properties", encoding = "UTF-8")
 public class ApiApplication {
 
     public static void main(String[] args) {
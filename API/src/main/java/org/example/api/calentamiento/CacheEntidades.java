@@ -0,0 +1,120 @@
+package org.example.api.calentamiento;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.model.Categoria;
+import org.example.api.model.Curso;
+import org.example.api.model.Usuario;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.jcache.internal.JCacheAccessImpl;
+import org.hibernate.cache.spi.Region;
+import org.hibernate.cache.spi.support.DomainDataRegionTemplate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.Cache;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cache de segundo nivel de Hibernate para el catálogo (Categoria, Curso) y los usuarios (instructores
+ * de las tarjetas y principals). No se guardan las entidades, que pueden haber cambiado mientras la
+ * aplicación estaba parada, sino los ids que estaban en cada región: al arrancar se cargan de la base
+ * en bloques, unas pocas consultas en lugar de una por entidad en las primeras peticiones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheEntidades implements ParticipanteInstantanea {
+
+    // Usuario antes que Curso: las tarjetas de curso usan el instructor
+    private static final List<Class<?>> ENTIDADES = List.of(Categoria.class, Usuario.class, Curso.class);
+    private static final int BLOQUE = 500;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public String getNombre() {
+        return "entidades";
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void escribir(DataOutputStream salida) throws IOException {
+        salida.writeInt(ENTIDADES.size());
+        for (Class<?> entidad : ENTIDADES) {
+            List<Long> ids = idsEnCache(entidad);
+            salida.writeUTF(entidad.getName());
+            salida.writeInt(ids.size());
+            for (Long id : ids) {
+                salida.writeLong(id);
+            }
+        }
+    }
+
+    @Override
+    public void leer(DataInputStream entrada) throws IOException {
+        int regiones = entrada.readInt();
+        for (int r = 0; r < regiones; r++) {
+            String nombre = entrada.readUTF();
+            int n = entrada.readInt();
+            List<Long> ids = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                ids.add(entrada.readLong());
+            }
+
+            ENTIDADES.stream()
+                    .filter(entidad -> entidad.getName().equals(nombre))
+                    .findFirst()
+                    .ifPresent(entidad -> cargar(entidad, ids));
+        }
+    }
+
+    /**
+     * Ids de las entradas de la región de la entidad (el nombre de la región es el de la clase)
+     */
+    private List<Long> idsEnCache(Class<?> entidad) {
+        List<Long> ids = new ArrayList<>();
+        Region region = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegion(entidad.getName());
+        if (region instanceof DomainDataRegionTemplate plantilla
+                && plantilla.getCacheStorageAccess() instanceof JCacheAccessImpl acceso) {
+            for (Object entrada : acceso.getUnderlyingCache()) {
+                if (DefaultCacheKeysFactory.staticGetEntityId(((Cache.Entry<?, ?>) entrada).getKey()) instanceof Long id) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Carga las entidades por bloques de ids; Hibernate las deja en la cache de segundo nivel al leerlas
+     */
+    private void cargar(Class<?> entidad, List<Long> ids) {
+        long inicio = System.currentTimeMillis();
+        for (int i = 0; i < ids.size(); i += BLOQUE) {
+            List<Long> bloque = ids.subList(i, Math.min(i + BLOQUE, ids.size()));
+            transactionTemplate.executeWithoutResult(status -> entityManager
+                    .createQuery("SELECT e FROM " + entidad.getSimpleName() + " e WHERE e.id IN :ids", entidad)
+                    .setParameter("ids", bloque)
+                    .getResultList());
+        }
+        log.info("Cache de {} precargada con {} entidades en {} ms",
+                entidad.getSimpleName(), ids.size(), System.currentTimeMillis() - inicio);
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.api.calentamiento;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.dto.CursoResponse;
+import org.example.api.model.Rol;
+import org.example.api.model.Usuario;
+import org.example.api.recomendaciones.RecomendacionesService;
+import org.example.api.security.JwtService;
+import org.example.api.service.CategoriaService;
+import org.example.api.service.CursoService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+/**
+ * Rutina de calentamiento tras el arranque: recorre varias veces los caminos más calientes
+ * (catálogo, detalle, relacionados, top de vistas, categorías, serialización JSON y JWT) para
+ * que el JIT los compile y las caches se llenen antes de recibir tráfico real.
+ * Hasta que termina, CalentamientoHealthIndicator deja la readiness fuera de servicio.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class Calentamiento {
+
+    private final CursoService cursoService;
+    private final CategoriaService categoriaService;
+    private final RecomendacionesService recomendacionesService;
+    private final JwtService jwtService;
+    private final JsonMapper jsonMapper;
+
+    // 0 desactiva la rutina: la readiness solo espera a la carga de la instantánea
+    @Value("${calentamiento.iteraciones:20}")
+    private int iteraciones;
+
+    @Value("${calentamiento.max-segundos:60}")
+    private long maxSegundos;
+
+    private volatile boolean terminado;
+    private volatile int rondas;
+    private volatile long duracionMs;
+
+    public boolean isTerminado() {
+        return terminado;
+    }
+
+    public int getRondas() {
+        return rondas;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        long inicio = System.currentTimeMillis();
+        long limite = inicio + maxSegundos * 1000;
+        try {
+            Usuario usuario = new Usuario();
+            usuario.setId(0L);
+            usuario.setEmail("calentamiento@localhost");
+            usuario.setRol(Rol.ESTUDIANTE);
+
+            for (int i = 0; i < iteraciones && System.currentTimeMillis() < limite; i++) {
+                ronda(usuario);
+                rondas = i + 1;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Calentamiento interrumpido tras {} rondas: {}", rondas, e.getMessage());
+        } finally {
+            duracionMs = System.currentTimeMillis() - inicio;
+            terminado = true;
+            log.info("Calentamiento terminado: {} rondas en {} ms", rondas, duracionMs);
+        }
+    }
+
+    private void ronda(Usuario usuario) {
+        List<CursoResponse> catalogo = cursoService.obtenerCursosPublicos();
+        categoriaService.obtenerTodasCategorias();
+        cursoService.getTop3CursosConMasVistas();
+        if (!catalogo.isEmpty()) {
+            Long id = catalogo.get(rondas % catalogo.size()).getId();
+            jsonMapper.writeValueAsBytes(cursoService.obtenerCursoPorId(id));
+            jsonMapper.writeValueAsBytes(recomendacionesService.obtenerRelacionados(id, 10));
+        }
+        jsonMapper.writeValueAsBytes(catalogo);
+
+        String token = jwtService.generateToken(usuario);
+        jwtService.isTokenValid(token, usuario);
+    }
+}
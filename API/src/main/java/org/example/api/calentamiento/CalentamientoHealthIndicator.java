@@ -0,0 +1,28 @@
+package org.example.api.calentamiento;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "calentamiento" en /actuator/health y en el grupo readiness: fuera de servicio hasta que se ha
+ * cargado (o descartado) la instantánea de caches y ha terminado la rutina de calentamiento
+ */
+@Component
+@RequiredArgsConstructor
+public class CalentamientoHealthIndicator implements HealthIndicator {
+
+    private final InstantaneaCaches instantaneaCaches;
+    private final Calentamiento calentamiento;
+
+    @Override
+    public Health health() {
+        Health.Builder estado = calentamiento.isTerminado() ? Health.up() : Health.outOfService();
+        return estado
+                .withDetail("instantanea", instantaneaCaches.getResultado())
+                .withDetail("rondas", calentamiento.getRondas())
+                .withDetail("duracionMs", calentamiento.getDuracionMs())
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.api.calentamiento;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.ApiApplication;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantánea del estado calentable en memoria (ver ParticipanteInstantanea): se escribe al cerrar
+ * el contexto (apagado ordenado) y se lee al arrancar, antes de ApplicationReadyEvent, para que
+ * tras un despliegue las primeras peticiones no encuentren todo frío.
+ *
+ * Formato (gzip, cuyo CRC detecta archivos truncados o corruptos): cabecera con el formato, la
+ * versión de la aplicación, la versión de Flyway del esquema, la base de datos y la fecha, y una
+ * sección por participante con su nombre, versión y longitud. Si la cabecera no coincide o la
+ * instantánea supera max-edad-minutos se descarta entera; una sección de otra versión se salta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InstantaneaCaches {
+
+    private static final int MAGICO = 0x55504243;
+    private static final int FORMATO = 1;
+
+    private final List<ParticipanteInstantanea> participantes;
+    private final ObjectProvider<Flyway> flyway;
+    private final ApplicationContext applicationContext;
+
+    @Value("${cache.instantanea.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${cache.instantanea.archivo:cache/instantanea.bin}")
+    private String archivo;
+
+    @Value("${cache.instantanea.max-edad-minutos:1440}")
+    private long maxEdadMinutos;
+
+    @Value("${spring.datasource.url:}")
+    private String baseDatos;
+
+    // Resultado de la carga al arrancar, para el indicador de readiness
+    private volatile String resultado = "pendiente";
+
+    public String getResultado() {
+        return resultado;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void cargar() {
+        Path ruta = Path.of(archivo);
+        if (!habilitada) {
+            resultado = "deshabilitada";
+            return;
+        }
+        if (!Files.exists(ruta)) {
+            resultado = "sin instantánea";
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        try {
+            byte[] contenido;
+            try (InputStream entrada = new GZIPInputStream(Files.newInputStream(ruta))) {
+                contenido = entrada.readAllBytes();
+            }
+            DataInputStream datos = new DataInputStream(new ByteArrayInputStream(contenido));
+
+            String motivo = validarCabecera(datos);
+            if (motivo != null) {
+                resultado = "descartada: " + motivo;
+                log.info("Instantánea de caches descartada ({})", motivo);
+                return;
+            }
+
+            int secciones = datos.readInt();
+            int restauradas = 0;
+            for (int i = 0; i < secciones; i++) {
+                String nombre = datos.readUTF();
+                int version = datos.readInt();
+                byte[] seccion = new byte[datos.readInt()];
+                datos.readFully(seccion);
+                if (restaurar(nombre, version, seccion)) {
+                    restauradas++;
+                }
+            }
+
+            resultado = "cargada (" + restauradas + "/" + secciones + " secciones)";
+            log.info("Instantánea de caches cargada en {} ms: {} de {} secciones",
+                    System.currentTimeMillis() - inicio, restauradas, secciones);
+        } catch (IOException | RuntimeException e) {
+            resultado = "descartada: " + e.getMessage();
+            log.warn("No se pudo leer la instantánea de caches {}: {}", ruta, e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void guardar(ContextClosedEvent event) {
+        // El contexto hijo del puerto de gestión también publica su cierre hacia este: solo cuenta el propio
+        if (!habilitada || event.getApplicationContext() != applicationContext) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        Path ruta = Path.of(archivo).toAbsolutePath();
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(ruta.getParent());
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temporal))))) {
+                salida.writeInt(MAGICO);
+                salida.writeInt(FORMATO);
+                salida.writeUTF(versionAplicacion());
+                salida.writeUTF(versionEsquema());
+                salida.writeUTF(baseDatos);
+                salida.writeLong(System.currentTimeMillis());
+
+                salida.writeInt(participantes.size());
+                for (ParticipanteInstantanea participante : participantes) {
+                    ByteArrayOutputStream seccion = new ByteArrayOutputStream();
+                    participante.escribir(new DataOutputStream(seccion));
+                    salida.writeUTF(participante.getNombre());
+                    salida.writeInt(participante.getVersion());
+                    salida.writeInt(seccion.size());
+                    seccion.writeTo(salida);
+                }
+            }
+            // Un apagado a medias deja el .tmp, nunca una instantánea incompleta
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Instantánea de caches guardada en {} ({} bytes, {} ms)",
+                    ruta, Files.size(ruta), System.currentTimeMillis() - inicio);
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo guardar la instantánea de caches en {}: {}", ruta, e.getMessage());
+        }
+    }
+
+    /**
+     * Motivo por el que la instantánea no sirve para esta aplicación y esta base, o null si sirve
+     */
+    private String validarCabecera(DataInputStream datos) throws IOException {
+        if (datos.readInt() != MAGICO || datos.readInt() != FORMATO) {
+            return "formato desconocido";
+        }
+        String version = datos.readUTF();
+        String esquema = datos.readUTF();
+        String base = datos.readUTF();
+        long creada = datos.readLong();
+
+        if (!version.equals(versionAplicacion())) {
+            return "versión de la aplicación " + version + ", ahora " + versionAplicacion();
+        }
+        if (!esquema.equals(versionEsquema())) {
+            return "versión del esquema " + esquema + ", ahora " + versionEsquema();
+        }
+        if (!base.equals(baseDatos)) {
+            return "otra base de datos";
+        }
+        Duration edad = Duration.ofMillis(System.currentTimeMillis() - creada);
+        if (edad.toMinutes() > maxEdadMinutos) {
+            return "antigua (" + edad.toMinutes() + " min)";
+        }
+        return null;
+    }
+
+    private boolean restaurar(String nombre, int version, byte[] seccion) {
+        Optional<ParticipanteInstantanea> participante = participantes.stream()
+                .filter(p -> p.getNombre().equals(nombre))
+                .findFirst();
+        if (participante.isEmpty()) {
+            return false;
+        }
+        if (participante.get().getVersion() != version) {
+            log.info("Sección {} de la instantánea descartada: versión {}, ahora {}",
+                    nombre, version, participante.get().getVersion());
+            return false;
+        }
+
+        try {
+            participante.get().leer(new DataInputStream(new ByteArrayInputStream(seccion)));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo restaurar la sección {} de la instantánea: {}", nombre, e.getMessage());
+            return false;
+        }
+    }
+
+    // Versión del jar (Implementation-Version); al ejecutar desde el IDE no hay manifiesto
+    private static String versionAplicacion() {
+        return Objects.requireNonNullElse(ApiApplication.class.getPackage().getImplementationVersion(), "desarrollo");
+    }
+
+    private String versionEsquema() {
+        Flyway migraciones = flyway.getIfAvailable();
+        if (migraciones == null) {
+            return "";
+        }
+        MigrationInfo actual = migraciones.info().current();
+        return actual != null ? actual.getVersion().getVersion() : "";
+    }
+}
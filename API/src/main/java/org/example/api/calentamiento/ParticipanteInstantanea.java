@@ -0,0 +1,27 @@
+package org.example.api.calentamiento;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Estado en memoria que se guarda en la instantánea al apagar y se restaura al arrancar
+ * (ver InstantaneaCaches). Cada participante escribe su propia sección; si cambia lo que escribe,
+ * debe subir getVersion para que las instantáneas antiguas se descarten en lugar de leerse mal.
+ */
+public interface ParticipanteInstantanea {
+
+    /**
+     * Nombre único de la sección en el archivo
+     */
+    String getNombre();
+
+    int getVersion();
+
+    void escribir(DataOutputStream salida) throws IOException;
+
+    /**
+     * Restaura la sección; se llama al arrancar, antes de ApplicationReadyEvent
+     */
+    void leer(DataInputStream entrada) throws IOException;
+}
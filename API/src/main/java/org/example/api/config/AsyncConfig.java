@@ -0,0 +1,13 @@
+package org.example.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Habilita @Async sobre el applicationTaskExecutor autoconfigurado: pool de hilos de plataforma
+ * por defecto, o SimpleAsyncTaskExecutor con hilos virtuales en el perfil "virtual".
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
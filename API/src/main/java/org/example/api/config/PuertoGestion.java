@@ -0,0 +1,32 @@
+package org.example.api.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.server.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Peticiones que llegan al servidor de gestión (management.server.port), que escucha solo en la
+ * interfaz interna (management.server.address): el scrape de Prometheus entra por ahí sin token.
+ * El puerto se conoce al arrancar ese servidor, también si se configura a 0. Si el actuator
+ * comparte el puerto de la API no hay servidor de gestión y ninguna petición coincide.
+ */
+@Component
+public class PuertoGestion implements ApplicationListener<WebServerInitializedEvent>, RequestMatcher {
+
+    private volatile int puerto = -1;
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        // El contexto hijo de gestión publica el evento con su propio espacio de nombres
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            puerto = event.getWebServer().getPort();
+        }
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return puerto > 0 && request.getLocalPort() == puerto;
+    }
+}
@@ -1,14 +1,155 @@
 package org.example.api.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import org.example.api.observability.FasesPeticion;
+import org.example.api.observability.jfr.LlamadaIntegracionEvento;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${integraciones.http.max-concurrentes:32}")
+    private int maxConcurrentes;
+
+    @Value("${integraciones.http.espera-ms:2000}")
+    private long esperaMs;
+
+    @Value("${integraciones.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${integraciones.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    /**
+     * Las llamadas quedan medidas en http.client.requests (latencia, estado y outcome por host y uri).
+     * El tiempo incluye la espera por el semáforo de limiteConcurrencia.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(ObservationRegistry observationRegistry) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(medirLlamada());
+        restTemplate.getInterceptors().add(limiteConcurrencia());
+        restTemplate.setObservationRegistry(observationRegistry);
+        return restTemplate;
+    }
+
+    /**
+     * Suma la llamada (con la espera por el semáforo) a la fase HTTP de la petición en curso
+     * y la registra como evento JFR
+     */
+    private ClientHttpRequestInterceptor medirLlamada() {
+        return (request, body, execution) -> {
+            long inicio = System.nanoTime();
+            LlamadaIntegracionEvento evento = new LlamadaIntegracionEvento();
+            evento.begin();
+            evento.host = request.getURI().getHost();
+            evento.metodo = request.getMethod().name();
+            evento.ruta = request.getURI().getPath();
+            evento.estado = -1;
+            evento.resultado = "excepcion";
+            try {
+                ClientHttpResponse respuesta = execution.execute(request, body);
+                evento.estado = respuesta.getStatusCode().value();
+                evento.resultado = respuesta.getStatusCode().isError() ? "error" : "ok";
+                return respuesta;
+            } finally {
+                FasesPeticion.sumar(FasesPeticion.Fase.HTTP, inicio);
+                evento.commit();
+            }
+        };
+    }
+
+    /**
+     * Limita las llamadas simultáneas a Upbolis/Snack. Con hilos virtuales no hay un pool
+     * que actúe de tope, así que sin esto cada petición entrante podría abrir su propia conexión.
+     * El permiso se devuelve al cerrar la respuesta (RestTemplate la cierra después de leer el
+     * cuerpo), no al recibir las cabeceras, para que cuente también la lectura del cuerpo.
+     */
+    private ClientHttpRequestInterceptor limiteConcurrencia() {
+        Semaphore permisos = new Semaphore(maxConcurrentes, true);
+
+        return (request, body, execution) -> {
+            try {
+                if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("Demasiadas llamadas simultáneas a " + request.getURI().getHost());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrumpido esperando turno para " + request.getURI().getHost());
+            }
+
+            try {
+                return new RespuestaConPermiso(execution.execute(request, body), permisos);
+            } catch (IOException | RuntimeException e) {
+                permisos.release();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Respuesta que devuelve el permiso del semáforo una sola vez, al cerrarse
+     */
+    private static final class RespuestaConPermiso implements ClientHttpResponse {
+
+        private final ClientHttpResponse respuesta;
+        private final Semaphore permisos;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        private RespuestaConPermiso(ClientHttpResponse respuesta, Semaphore permisos) {
+            this.respuesta = respuesta;
+            this.permisos = permisos;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return respuesta.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return respuesta.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return respuesta.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return respuesta.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                respuesta.close();
+            } finally {
+                if (liberado.compareAndSet(false, true)) {
+                    permisos.release();
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
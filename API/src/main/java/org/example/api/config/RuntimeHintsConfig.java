@@ -0,0 +1,100 @@
+package org.example.api.config;
+
+import org.example.api.observability.ContadorHibernate;
+import org.example.api.observability.PresupuestoSql;
+import org.example.api.observability.jfr.*;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.util.ClassUtils;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Reflexión, proxies y recursos que el análisis AOT de Spring no deduce solo.
+ * Solo se usan al compilar con los perfiles aot o native (ver pom.xml); en el jar normal no tienen efecto.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.Sugerencias.class)
+public class RuntimeHintsConfig {
+
+    // DTOs de Lombok que Jackson lee o escribe: respuestas anidadas y cuerpos de Upbolis/Snack
+    private static final List<String> PAQUETES_DTO = List.of(
+            "org.example.api.dto",
+            "org.example.api.upbolisIntegration",
+            "org.example.api.snackIntegration"
+    );
+
+    // JJWT (scope runtime) crea sus implementaciones por nombre desde Jwts y Keys
+    private static final List<String> CLASES_JJWT = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    );
+
+    static class Sugerencias implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+            ClassPathScanningCandidateComponentProvider escaner = new ClassPathScanningCandidateComponentProvider(false);
+            escaner.addIncludeFilter((lector, fabrica) -> true);
+            for (String paquete : PAQUETES_DTO) {
+                for (BeanDefinition clase : escaner.findCandidateComponents(paquete)) {
+                    binding.registerReflectionHints(hints.reflection(),
+                            ClassUtils.resolveClassName(clase.getBeanClassName(), classLoader));
+                }
+            }
+
+            for (String clase : CLASES_JJWT) {
+                hints.reflection().registerTypeIfPresent(classLoader, clase,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+            // Clases que Hibernate instancia a partir de api-defaults.properties
+            hints.reflection().registerType(ContadorHibernate.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            hints.reflection().registerTypeIfPresent(classLoader,
+                    "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            // Regiones de la cache de segundo nivel (Typesafe Config)
+            hints.resources().registerPattern("application.conf");
+            hints.resources().registerPattern("reference.conf");
+
+            // Proxies JDK de ContadorSentenciasPostProcessor
+            hints.proxies().registerJdkProxy(Connection.class);
+            hints.proxies().registerJdkProxy(Statement.class);
+            hints.proxies().registerJdkProxy(PreparedStatement.class);
+            hints.proxies().registerJdkProxy(CallableStatement.class);
+
+            // Leída por PresupuestoSqlInterceptor en los métodos de los controladores
+            hints.reflection().registerType(PresupuestoSql.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // JFR lee los campos de los eventos propios (requiere --enable-monitoring=jfr en native)
+            for (Class<?> evento : List.of(RegistroVistaEvento.class, CatalogoEvento.class, ValidacionJwtEvento.class,
+                    ServirArchivoEvento.class, LlamadaIntegracionEvento.class)) {
+                hints.reflection().registerType(evento,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.ACCESS_DECLARED_FIELDS);
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.api.config;
 
 import lombok.RequiredArgsConstructor;
+import org.example.api.security.BoundedPasswordEncoder;
 import org.example.api.security.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,8 +16,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -32,10 +34,27 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final PuertoGestion puertoGestion;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, UserDetailsService userDetailsService) {
+    @Value("${seguridad.bcrypt.costo:10}")
+    private int bcryptCosto;
+
+    // 0 = número de núcleos disponibles
+    @Value("${seguridad.bcrypt.hilos:0}")
+    private int bcryptHilos;
+
+    @Value("${seguridad.bcrypt.cola:64}")
+    private int bcryptCola;
+
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter,
+                          UserDetailsService userDetailsService,
+                          UserDetailsPasswordService userDetailsPasswordService,
+                          PuertoGestion puertoGestion) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.userDetailsService = userDetailsService;
+        this.userDetailsPasswordService = userDetailsPasswordService;
+        this.puertoGestion = puertoGestion;
     }
 
     @Bean
@@ -49,13 +68,21 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/cursos/publicos/**").permitAll()
                         .requestMatchers("/api/cursos/{id}").permitAll()
+                        .requestMatchers("/api/cursos/*/relacionados").permitAll()
                         .requestMatchers("/api/categorias/**").permitAll()
                         .requestMatchers("/api/calificaciones/curso/*/resumen").permitAll()
                         .requestMatchers("/api/visualizaciones/video/**").permitAll()
                         .requestMatchers("/api/visualizaciones/curso/*/total").permitAll()
+                        .requestMatchers("/api/visualizaciones/curso/*/stream").permitAll()
                         .requestMatchers("/files/**").permitAll()
                         .requestMatchers("/api/external/**").permitAll()
                         .requestMatchers("/api/snack/**").permitAll() // 🔓 Permitir llamadas de Snack
+                        // Actuator en el puerto de gestión, solo accesible desde la red interna
+                        .requestMatchers(puertoGestion).permitAll()
+                        // Sondas públicas en el puerto de la API; las métricas exponen rutas,
+                        // usuarios y tamaños de pool: por aquí solo si el actuator comparte puerto
+                        .requestMatchers("/livez", "/readyz", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/prometheus").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -106,6 +133,8 @@ public class SecurityConfig {
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash transparente en el login cuando cambia seguridad.bcrypt.costo
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
@@ -116,6 +145,7 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int hilos = bcryptHilos > 0 ? bcryptHilos : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(bcryptCosto, hilos, bcryptCola);
     }
 }
\ No newline at end of file
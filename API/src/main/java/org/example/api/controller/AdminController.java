@@ -5,12 +5,19 @@ import lombok.RequiredArgsConstructor;
 import org.example.api.dto.CursoResponse;
 import org.example.api.dto.UsuarioRequest;
 import org.example.api.dto.UsuarioResponse;
+import org.example.api.model.Rol;
 import org.example.api.service.AdminService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +37,12 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/estadisticas/cache")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasCache() {
+        Map<String, Object> stats = adminService.obtenerEstadisticasCache();
+        return ResponseEntity.ok(stats);
+    }
+
     // ==================== GESTIÓN DE USUARIOS ====================
 
     @GetMapping("/usuarios")
@@ -38,6 +51,24 @@ public class AdminController {
         return ResponseEntity.ok(usuarios);
     }
 
+    /**
+     * Listado paginado de usuarios con filtros opcionales
+     * GET /api/admin/usuarios/buscar?rol=INSTRUCTOR&activo=true&fechaDesde=2024-01-01T00:00:00&page=0&size=20
+     */
+    @GetMapping("/usuarios/buscar")
+    public ResponseEntity<PagedModel<UsuarioResponse>> buscarUsuarios(
+            @RequestParam(required = false) Rol rol,
+            @RequestParam(required = false) Boolean activo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaDesde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaHasta,
+            @PageableDefault(size = 20, sort = "fechaRegistro", direction = Sort.Direction.DESC) Pageable pageable) {
+
+        PagedModel<UsuarioResponse> usuarios = new PagedModel<>(
+                adminService.buscarUsuarios(rol, activo, fechaDesde, fechaHasta, pageable)
+        );
+        return ResponseEntity.ok(usuarios);
+    }
+
     @GetMapping("/usuarios/{id}")
     public ResponseEntity<UsuarioResponse> obtenerUsuarioPorId(@PathVariable Long id) {
         UsuarioResponse usuario = adminService.obtenerUsuarioPorId(id);
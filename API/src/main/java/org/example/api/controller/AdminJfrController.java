@@ -0,0 +1,40 @@
+package org.example.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.api.dto.VolcadoJfrResponse;
+import org.example.api.observability.jfr.GrabacionContinuaJfr;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/admin/jfr")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminJfrController {
+
+    private final GrabacionContinuaJfr grabacionContinuaJfr;
+
+    /**
+     * Volcar a un archivo del servidor los últimos minutos de la grabación JFR continua
+     * POST /api/admin/jfr/volcados?minutos=10
+     * El archivo se abre con JDK Mission Control o con "jfr print --events org.example.api.*"
+     */
+    @PostMapping("/volcados")
+    public ResponseEntity<VolcadoJfrResponse> volcar(@RequestParam(defaultValue = "10") int minutos) throws IOException {
+        Path archivo = grabacionContinuaJfr.volcar(minutos);
+
+        VolcadoJfrResponse volcado = VolcadoJfrResponse.builder()
+                .archivo(archivo.toString())
+                .bytes(Files.size(archivo))
+                .minutos(minutos)
+                .fecha(LocalDateTime.now())
+                .build();
+        return ResponseEntity.ok(volcado);
+    }
+}
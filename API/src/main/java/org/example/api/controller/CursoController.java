@@ -2,12 +2,18 @@ package org.example.api.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.example.api.dto.CursoRequest;
+import org.example.api.dto.CursoRelacionadoResponse;
 import org.example.api.dto.CursoResponse;
+import org.example.api.dto.EmbudoCursoResponse;
+import org.example.api.observability.PresupuestoSql;
+import org.example.api.recomendaciones.RecomendacionesService;
 import org.example.api.service.CursoService;
+import org.example.api.service.EmbudoService;
 import org.example.api.service.StorageService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -20,6 +26,8 @@ public class CursoController {
 
     private final CursoService cursoService;
     private final StorageService storageService;
+    private final RecomendacionesService recomendacionesService;
+    private final EmbudoService embudoService;
 
     @PostMapping
     public ResponseEntity<CursoResponse> crearCurso(
@@ -80,25 +88,60 @@ public class CursoController {
         return ResponseEntity.ok(response);
     }
 
+    // Cursos, videos y vistas de todo el listado (una consulta cada uno, haya los cursos que haya),
+    // las categorías que no estén en la cache de segundo nivel y la carga del usuario si la petición trae token
     @GetMapping("/publicos")
+    @PresupuestoSql(sentencias = 5, repeticiones = 1)
     public ResponseEntity<List<CursoResponse>> obtenerCursosPublicos() {
         List<CursoResponse> cursos = cursoService.obtenerCursosPublicos();
         return ResponseEntity.ok(cursos);
     }
 
+    // Curso con instructor, categoría y videos, las vistas por video y el usuario del token
     @GetMapping("/{id}")
+    @PresupuestoSql(sentencias = 3, repeticiones = 1)
     public ResponseEntity<CursoResponse> obtenerCursoPorId(@PathVariable Long id) {
         CursoResponse curso = cursoService.obtenerCursoPorId(id);
         return ResponseEntity.ok(curso);
     }
 
+    /**
+     * Cursos que también vieron quienes vieron este
+     * GET /api/cursos/{id}/relacionados?limite=5
+     * Público
+     */
+    @GetMapping("/{id}/relacionados")
+    public ResponseEntity<List<CursoRelacionadoResponse>> obtenerCursosRelacionados(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") int limite) {
+
+        List<CursoRelacionadoResponse> cursos = recomendacionesService.obtenerRelacionados(id, Math.clamp(limite, 1, 20));
+        return ResponseEntity.ok(cursos);
+    }
+
+    /**
+     * Embudo de abandono: espectadores que llegan a cada video del curso
+     * GET /api/cursos/{id}/embudo
+     * Instructor propietario o administrador
+     */
+    @GetMapping("/{id}/embudo")
+    @PreAuthorize("hasAnyRole('INSTRUCTOR', 'ADMIN')")
+    public ResponseEntity<EmbudoCursoResponse> obtenerEmbudo(@PathVariable Long id) {
+        EmbudoCursoResponse embudo = embudoService.obtenerEmbudo(id);
+        return ResponseEntity.ok(embudo);
+    }
+
+    // Como /publicos más la categoría (normalmente desde la cache de segundo nivel)
     @GetMapping("/categoria/{categoriaId}")
+    @PresupuestoSql(sentencias = 5, repeticiones = 1)
     public ResponseEntity<List<CursoResponse>> obtenerCursosPorCategoria(@PathVariable Long categoriaId) {
         List<CursoResponse> cursos = cursoService.obtenerCursosPorCategoria(categoriaId);
         return ResponseEntity.ok(cursos);
     }
 
+    // Como /publicos
     @GetMapping("/buscar")
+    @PresupuestoSql(sentencias = 5, repeticiones = 1)
     public ResponseEntity<List<CursoResponse>> buscarCursos(
             @RequestParam String q,
             @RequestParam(required = false) Long categoria) {
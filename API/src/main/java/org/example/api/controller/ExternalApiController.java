@@ -2,6 +2,7 @@ package org.example.api.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.example.api.dto.TopCursoResponse;
+import org.example.api.observability.PresupuestoSql;
 import org.example.api.service.CursoService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,7 +18,9 @@ public class ExternalApiController {
 
     private final CursoService cursoService;
 
+    // El top, vistas y promedios de los tres cursos y la carga del usuario si la petición trae token
     @GetMapping("/cursos/top-vistas")
+    @PresupuestoSql(sentencias = 4, repeticiones = 1)
     public ResponseEntity<List<TopCursoResponse>> getTop3CursosConMasVistas() {
         List<TopCursoResponse> topCursos = cursoService.getTop3CursosConMasVistas();
         return ResponseEntity.ok(topCursos);
@@ -0,0 +1,29 @@
+package org.example.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.api.dto.AnaliticaInstructorResponse;
+import org.example.api.service.AnaliticaInstructorService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/instructor")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('INSTRUCTOR', 'ADMIN')")
+public class InstructorController {
+
+    private final AnaliticaInstructorService analiticaInstructorService;
+
+    /**
+     * Analítica de los cursos del instructor autenticado
+     * GET /api/instructor/analytics?dias=30
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<AnaliticaInstructorResponse> obtenerAnalitica(
+            @RequestParam(defaultValue = "30") int dias) {
+
+        AnaliticaInstructorResponse analitica = analiticaInstructorService.obtenerAnalitica(Math.clamp(dias, 1, 365));
+        return ResponseEntity.ok(analitica);
+    }
+}
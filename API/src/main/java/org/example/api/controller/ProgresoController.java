@@ -0,0 +1,58 @@
+package org.example.api.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.example.api.dto.ProgresoCursoResponse;
+import org.example.api.dto.ProgresoRequest;
+import org.example.api.dto.ProgresoVideoResponse;
+import org.example.api.service.ProgresoVideoService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/progreso")
+@RequiredArgsConstructor
+@PreAuthorize("isAuthenticated()")
+public class ProgresoController {
+
+    private final ProgresoVideoService progresoVideoService;
+
+    /**
+     * Reporte periódico del reproductor
+     * POST /api/progreso/video/{videoId}
+     * Body: { "posicionSegundos": 125, "desdeSegundos": 120 }
+     */
+    @PostMapping("/video/{videoId}")
+    public ResponseEntity<Void> reportarProgreso(
+            @PathVariable Long videoId,
+            @Valid @RequestBody ProgresoRequest request) {
+
+        progresoVideoService.reportarProgreso(videoId, request);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Porcentaje completado de un curso por el usuario autenticado
+     * GET /api/progreso/curso/{cursoId}
+     */
+    @GetMapping("/curso/{cursoId}")
+    public ResponseEntity<ProgresoCursoResponse> obtenerProgresoCurso(@PathVariable Long cursoId) {
+        ProgresoCursoResponse progreso = progresoVideoService.obtenerProgresoCurso(cursoId);
+        return ResponseEntity.ok(progreso);
+    }
+
+    /**
+     * Videos empezados y sin terminar, los más recientes primero
+     * GET /api/progreso/continuar-viendo?limite=10
+     */
+    @GetMapping("/continuar-viendo")
+    public ResponseEntity<List<ProgresoVideoResponse>> obtenerContinuarViendo(
+            @RequestParam(defaultValue = "10") int limite) {
+
+        List<ProgresoVideoResponse> videos = progresoVideoService.obtenerContinuarViendo(Math.clamp(limite, 1, 50));
+        return ResponseEntity.ok(videos);
+    }
+}
@@ -1,13 +1,19 @@
 package org.example.api.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.api.dto.VisualizacionResponse;
+import org.example.api.dto.VistaLoteResultado;
+import org.example.api.dto.VistasLoteRequest;
+import org.example.api.observability.PresupuestoSql;
 import org.example.api.service.VisualizacionService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -23,7 +29,10 @@ public class VisualizacionController {
      * POST /api/visualizaciones/video/{videoId}
      * Público - no requiere autenticación
      */
+    // Video, vistas previas del curso, nextval (una vez cada 50 ids), INSERT y el usuario del token;
+    // el hito de Snack lee y actualiza el curso
     @PostMapping("/video/{videoId}")
+    @PresupuestoSql(sentencias = 7, repeticiones = 1)
     public ResponseEntity<VisualizacionResponse> registrarVista(
             @PathVariable Long videoId,
             HttpServletRequest request) {
@@ -32,12 +41,28 @@ public class VisualizacionController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /**
+     * Registrar varias vistas en una sola petición
+     * POST /api/visualizaciones/batch
+     * Requiere autenticación - devuelve el resultado de cada vista en el mismo orden del lote
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<VistaLoteResultado>> registrarVistasEnLote(
+            @Valid @RequestBody VistasLoteRequest lote,
+            HttpServletRequest request) {
+
+        List<VistaLoteResultado> resultados = visualizacionService.registrarVistasEnLote(lote, request);
+        return ResponseEntity.ok(resultados);
+    }
+
     /**
      * Obtener total de vistas de un video
      * GET /api/visualizaciones/video/{videoId}/total
      * Público
      */
     @GetMapping("/video/{videoId}/total")
+    @PresupuestoSql(sentencias = 2)
     public ResponseEntity<Long> obtenerTotalVistasVideo(@PathVariable Long videoId) {
         Long total = visualizacionService.obtenerTotalVistasVideo(videoId);
         return ResponseEntity.ok(total);
@@ -49,11 +74,22 @@ public class VisualizacionController {
      * Público
      */
     @GetMapping("/curso/{cursoId}/total")
+    @PresupuestoSql(sentencias = 2)
     public ResponseEntity<Long> obtenerTotalVistasCurso(@PathVariable Long cursoId) {
         Long total = visualizacionService.obtenerTotalVistasCurso(cursoId);
         return ResponseEntity.ok(total);
     }
 
+    /**
+     * Total de vistas del curso en vivo (Server-Sent Events), en lugar de consultar /total periódicamente
+     * GET /api/visualizaciones/curso/{cursoId}/stream
+     * Público
+     */
+    @GetMapping(value = "/curso/{cursoId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamVistasCurso(@PathVariable Long cursoId) {
+        return visualizacionService.suscribirVistasCurso(cursoId);
+    }
+
     /**
      * Obtener historial de visualizaciones del usuario autenticado
      * GET /api/visualizaciones/mi-historial
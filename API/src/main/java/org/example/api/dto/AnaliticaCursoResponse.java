@@ -0,0 +1,27 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnaliticaCursoResponse {
+    private Long cursoId;
+    private String titulo;
+    private Boolean publicado;
+    private Double precio;
+    private Long totalVistas;
+    private Long espectadoresUnicos;
+    private Long espectadoresNuevos; // primera vista dentro del periodo consultado
+    private Double calificacionPromedio;
+    private Long totalCalificaciones;
+    private List<VistasDiaResponse> vistasPorDia;
+    private List<VistasVideoResponse> vistasPorVideo;
+    private List<CalificacionesMesResponse> calificacionesPorMes;
+}
@@ -0,0 +1,22 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnaliticaInstructorResponse {
+    private Integer dias;
+    private Integer totalCursos;
+    private Long totalVistas;
+    private Long espectadoresUnicos; // distintos entre todos los cursos del instructor
+    private Long espectadoresNuevos;
+    private Double calificacionPromedio;
+    private List<AnaliticaCursoResponse> cursos;
+}
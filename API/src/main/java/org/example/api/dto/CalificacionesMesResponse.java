@@ -0,0 +1,18 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalificacionesMesResponse {
+    private LocalDate mes;
+    private Double promedio;
+    private Long cantidad;
+}
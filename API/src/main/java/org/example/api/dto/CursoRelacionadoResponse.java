@@ -0,0 +1,20 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursoRelacionadoResponse {
+    private Long id;
+    private String titulo;
+    private String instructor;
+    private String categoria;
+    private String imagenPortada;
+    private Double precio;
+    private Double similitud; // coseno entre los usuarios de ambos cursos (0..1)
+}
@@ -0,0 +1,19 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbudoCursoResponse {
+    private Long cursoId;
+    private String titulo;
+    private Long espectadores;
+    private List<PasoEmbudoResponse> pasos;
+}
@@ -0,0 +1,22 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasoEmbudoResponse {
+    private Long videoId;
+    private String titulo;
+    private Integer orden;
+    private Long espectadores;
+    private Double porcentajeDelCurso;        // sobre los espectadores de cualquier video del curso
+    private Long continuanDesdeAnterior;      // vieron también el video anterior
+    private Double porcentajeDesdeAnterior;   // sobre los espectadores del video anterior
+    private Long vieronTodosHastaAqui;        // vieron este video y todos los anteriores
+    private Double porcentajeTodosHastaAqui;  // sobre los espectadores del primer video
+}
@@ -0,0 +1,20 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgresoCursoResponse {
+    private Long cursoId;
+    private Double porcentajeCompletado; // ponderado por la duración de cada video
+    private Integer videosCompletados;
+    private Integer totalVideos;
+    private List<ProgresoVideoResponse> videos;
+}
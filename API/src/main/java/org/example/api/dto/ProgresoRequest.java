@@ -0,0 +1,24 @@
+package org.example.api.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgresoRequest {
+
+    @NotNull(message = "La posición es obligatoria")
+    @Min(value = 0, message = "La posición no puede ser negativa")
+    @Max(value = 86400, message = "La posición no puede superar 24 horas")
+    private Integer posicionSegundos;
+
+    // Inicio del tramo reproducido desde el último reporte; si se omite solo se marca la posición actual
+    @Min(value = 0, message = "El inicio del tramo no puede ser negativo")
+    @Max(value = 86400, message = "El inicio del tramo no puede superar 24 horas")
+    private Integer desdeSegundos;
+}
@@ -0,0 +1,24 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgresoVideoResponse {
+    private Long videoId;
+    private String videoTitulo;
+    private Long cursoId;
+    private String cursoTitulo;
+    private Integer posicionSegundos;
+    private Integer duracionSegundos;
+    private Double porcentaje; // null si el video no tiene duración
+    private Boolean completado;
+    private LocalDateTime fechaActualizacion;
+}
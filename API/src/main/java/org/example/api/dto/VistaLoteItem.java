@@ -0,0 +1,21 @@
+package org.example.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VistaLoteItem {
+
+    @NotNull(message = "El video es obligatorio")
+    private Long videoId;
+
+    // Momento en que se reprodujo (vistas offline); si se omite se usa la hora de recepción.
+    // No puede ser anterior a visualizaciones.lote.max-antiguedad-horas
+    private LocalDateTime fecha;
+}
@@ -0,0 +1,17 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VistaLoteResultado {
+    private Integer indice;
+    private Long videoId;
+    private String estado; // REGISTRADA, VIDEO_NO_ENCONTRADO, FECHA_INVALIDA
+    private Long visualizacionId;
+}
@@ -0,0 +1,18 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VistasEnVivoEvento {
+    private Long cursoId;
+    private Long totalVistas;
+    private Map<Long, Long> vistasPorVideo;
+}
@@ -0,0 +1,20 @@
+package org.example.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VistasLoteRequest {
+
+    @NotEmpty(message = "El lote no puede estar vacío")
+    @Size(max = 500, message = "El lote admite como máximo 500 vistas")
+    private List<@Valid VistaLoteItem> vistas;
+}
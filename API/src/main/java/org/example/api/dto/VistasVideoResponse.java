@@ -0,0 +1,18 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VistasVideoResponse {
+    private Long videoId;
+    private String titulo;
+    private Integer orden;
+    private Long vistas;
+    private Double porcentajeSobrePrimero; // vistas del video frente a las del primero del curso
+}
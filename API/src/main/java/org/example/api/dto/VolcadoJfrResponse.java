@@ -0,0 +1,19 @@
+package org.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VolcadoJfrResponse {
+    private String archivo;
+    private Long bytes;
+    private Integer minutos;
+    private LocalDateTime fecha;
+}
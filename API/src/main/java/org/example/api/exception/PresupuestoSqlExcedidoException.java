@@ -0,0 +1,7 @@
+package org.example.api.exception;
+
+public class PresupuestoSqlExcedidoException extends RuntimeException {
+    public PresupuestoSqlExcedidoException(String message) {
+        super(message);
+    }
+}
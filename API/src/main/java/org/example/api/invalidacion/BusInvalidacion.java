@@ -0,0 +1,24 @@
+package org.example.api.invalidacion;
+
+/**
+ * Avisos de cambio de entidades entre las instancias de la API, para que las caches en proceso
+ * de cada nodo descarten lo que otro nodo ha modificado. Las claves son (tipo, id): el tipo es el
+ * nombre de la entidad ("Curso", "Categoria", "Usuario") y para "Calificacion" el id es el del
+ * curso, que es por lo que se agrupan los resúmenes.
+ *
+ * Implementaciones (cache.invalidacion.bus): local, para una sola instancia, y postgres
+ * (LISTEN/NOTIFY), ver InvalidacionConfig.
+ */
+public interface BusInvalidacion {
+
+    /**
+     * Publica el cambio cuando se confirme la transacción en curso (si se revierte no se publica),
+     * o en el siguiente envío si no hay transacción. Los cambios se agrupan y envían cada intervalo.
+     */
+    void publicar(String tipo, long id);
+
+    /**
+     * Registra una cache interesada en un tipo; recibe los cambios de los demás nodos, no los de este
+     */
+    void suscribir(String tipo, OyenteInvalidacion oyente);
+}
@@ -0,0 +1,147 @@
+package org.example.api.invalidacion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bus de una sola instancia: no hay otros nodos a los que avisar ni de los que recibir, así que
+ * sus oyentes no reciben nada. Es también la base de PostgresBusInvalidacion, que difunde los cambios a los demás
+ * y entrega a sus oyentes los que llegan de ellos. Los cambios propios no se entregan en local: la
+ * cache de segundo nivel ya los tiene (Hibernate la actualiza al escribir) y EstadisticasService
+ * los recibe de EstadisticasEntityListener, así que un aviso propio solo vaciaría lo recién escrito.
+ *
+ * Los cambios de cada transacción se acumulan y se encolan juntos tras el commit; cada
+ * intervalo-ms se envía lo pendiente agrupado por tipo y sin repetidos, así que una ráfaga de
+ * actualizaciones del mismo curso llega como un único aviso.
+ */
+@Slf4j
+public class BusInvalidacionLocal implements BusInvalidacion, InitializingBean, DisposableBean {
+
+    private final long intervaloMs;
+    private final Map<String, List<OyenteInvalidacion>> oyentes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService envios = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "bus-invalidacion-envio");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Cambios confirmados sin enviar; se accede con synchronized (this)
+    private Map<String, Set<Long>> pendientes = new HashMap<>();
+
+    public BusInvalidacionLocal(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        envios.scheduleWithFixedDelay(this::enviarPendientes, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        envios.shutdown();
+        envios.awaitTermination(5, TimeUnit.SECONDS);
+        // Lo confirmado justo antes de apagar también debe llegar a los demás nodos
+        enviarPendientes();
+    }
+
+    @Override
+    public void publicar(String tipo, long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            encolar(Map.of(tipo, Set.of(id)));
+            return;
+        }
+
+        // Una sola sincronización por transacción, con todos sus cambios
+        @SuppressWarnings("unchecked")
+        Map<String, Set<Long>> transaccion = (Map<String, Set<Long>>) TransactionSynchronizationManager.getResource(this);
+        if (transaccion == null) {
+            Map<String, Set<Long>> cambios = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, cambios);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    encolar(cambios);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BusInvalidacionLocal.this);
+                }
+            });
+            transaccion = cambios;
+        }
+        transaccion.computeIfAbsent(tipo, k -> new HashSet<>()).add(id);
+    }
+
+    @Override
+    public void suscribir(String tipo, OyenteInvalidacion oyente) {
+        oyentes.computeIfAbsent(tipo, k -> new CopyOnWriteArrayList<>()).add(oyente);
+    }
+
+    private void encolar(Map<String, Set<Long>> cambios) {
+        synchronized (this) {
+            cambios.forEach((tipo, ids) -> pendientes.computeIfAbsent(tipo, k -> new HashSet<>()).addAll(ids));
+        }
+    }
+
+    private void enviarPendientes() {
+        Map<String, Set<Long>> lote;
+        synchronized (this) {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            lote = pendientes;
+            pendientes = new HashMap<>();
+        }
+
+        try {
+            difundir(lote);
+        } catch (RuntimeException e) {
+            // Una excepción no debe cancelar la tarea periódica
+            log.error("Error al enviar invalidaciones: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Envía a los demás nodos los cambios confirmados en este; el bus local no tiene a quién
+     */
+    protected void difundir(Map<String, Set<Long>> lote) {
+    }
+
+    /**
+     * Entrega a los oyentes de este nodo los cambios de un lote recibido de otro
+     */
+    protected void entregar(Map<String, Set<Long>> lote) {
+        lote.forEach((tipo, ids) -> {
+            for (OyenteInvalidacion oyente : oyentes.getOrDefault(tipo, List.of())) {
+                try {
+                    oyente.invalidar(ids);
+                } catch (RuntimeException e) {
+                    log.warn("Error al invalidar {} {}: {}", tipo, ids, e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Todos los oyentes descartan todo lo que tengan
+     */
+    protected void entregarTodo() {
+        oyentes.forEach((tipo, lista) -> {
+            for (OyenteInvalidacion oyente : lista) {
+                try {
+                    oyente.invalidarTodo();
+                } catch (RuntimeException e) {
+                    log.warn("Error al invalidar todo {}: {}", tipo, e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.api.invalidacion;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.example.api.model.Categoria;
+import org.example.api.model.Curso;
+import org.example.api.model.Usuario;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Descarta de la cache de segundo nivel de este nodo las entidades modificadas en otro.
+ * Hibernate ya mantiene la cache local con los cambios propios, pero no ve los de los demás nodos,
+ * que son los únicos que entrega el bus.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheHibernateInvalidacion {
+
+    private static final Map<String, Class<?>> ENTIDADES = Map.of(
+            "Curso", Curso.class,
+            "Categoria", Categoria.class,
+            "Usuario", Usuario.class
+    );
+
+    private final BusInvalidacion busInvalidacion;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void suscribir() {
+        ENTIDADES.forEach((tipo, entidad) -> busInvalidacion.suscribir(tipo, new OyenteInvalidacion() {
+            @Override
+            public void invalidar(Set<Long> ids) {
+                Cache cache = cache();
+                ids.forEach(id -> cache.evictEntityData(entidad, id));
+                evictarConsultas(entidad, cache);
+            }
+
+            @Override
+            public void invalidarTodo() {
+                Cache cache = cache();
+                cache.evictEntityData(entidad);
+                evictarConsultas(entidad, cache);
+            }
+        }));
+    }
+
+    // La única consulta cacheada es el listado de categorías (CategoriaRepository.findAll), y las
+    // marcas de tiempo por tabla que la invalidan en local no se enteran de los cambios remotos
+    private static void evictarConsultas(Class<?> entidad, Cache cache) {
+        if (entidad == Categoria.class) {
+            cache.evictDefaultQueryRegion();
+        }
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.api.invalidacion;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Elige el BusInvalidacion según cache.invalidacion.bus: "local" con una sola instancia o
+ * "postgres" con varias detrás del balanceador. Se decide aquí y no con condiciones para que
+ * la misma imagen AOT sirva para los dos casos.
+ */
+@Configuration
+public class InvalidacionConfig {
+
+    @Bean
+    public BusInvalidacion busInvalidacion(
+            @Value("${cache.invalidacion.bus:local}") String bus,
+            @Value("${cache.invalidacion.intervalo-ms:100}") long intervaloMs,
+            @Value("${cache.invalidacion.canal:upbmy_invalidacion}") String canal,
+            @Value("${cache.invalidacion.comprobacion-ms:30000}") long comprobacionMs,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String usuario,
+            @Value("${spring.datasource.password:}") String password,
+            JdbcTemplate jdbcTemplate
+    ) {
+        return switch (bus) {
+            case "local" -> new BusInvalidacionLocal(intervaloMs);
+            case "postgres" -> new PostgresBusInvalidacion(intervaloMs, jdbcTemplate, canal, url, usuario, password,
+                    comprobacionMs);
+            default -> throw new IllegalArgumentException("cache.invalidacion.bus debe ser local o postgres: " + bus);
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.api.invalidacion;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.example.api.model.Calificacion;
+import org.example.api.model.Categoria;
+import org.example.api.model.Curso;
+import org.example.api.model.Usuario;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA que publica en el BusInvalidacion los cambios de las entidades cacheables, sea
+ * cual sea el servicio que los haga (CursoService.actualizarCurso, AdminService.cambiarEstadoUsuario...)
+ */
+@Component
+public class InvalidacionEntityListener {
+
+    // Diferido: Hibernate crea el listener mientras se construye el EntityManagerFactory
+    private final ObjectProvider<BusInvalidacion> busInvalidacion;
+
+    public InvalidacionEntityListener(ObjectProvider<BusInvalidacion> busInvalidacion) {
+        this.busInvalidacion = busInvalidacion;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void alCambiar(Object entidad) {
+        BusInvalidacion bus = busInvalidacion.getIfAvailable();
+        if (bus == null) {
+            return;
+        }
+
+        switch (entidad) {
+            case Curso curso -> bus.publicar("Curso", curso.getId());
+            case Categoria categoria -> bus.publicar("Categoria", categoria.getId());
+            case Usuario usuario -> bus.publicar("Usuario", usuario.getId());
+            case Calificacion calificacion -> bus.publicar("Calificacion", calificacion.getCurso().getId());
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.api.invalidacion;
+
+import java.util.Set;
+
+/**
+ * Cache suscrita a un tipo de entidad en el BusInvalidacion. Se llama desde el hilo del bus,
+ * así que no debe bloquearse.
+ */
+public interface OyenteInvalidacion {
+
+    void invalidar(Set<Long> ids);
+
+    /**
+     * Se han podido perder avisos (el bus ha estado sin conexión): descartar todo lo del tipo
+     */
+    void invalidarTodo();
+}
@@ -0,0 +1,200 @@
+package org.example.api.invalidacion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Bus entre instancias sobre LISTEN/NOTIFY de Postgres. Cada lote se publica con pg_notify desde
+ * una conexión del pool y se escucha en una conexión propia, fuera de Hikari, que no se devuelve nunca.
+ *
+ * Mensaje: "nodo|Curso:1,2|Usuario:5", partido en varios si se acerca al límite de 8000 bytes de NOTIFY.
+ * Cada nodo ignora sus propios mensajes (ver BusInvalidacionLocal). Postgres no guarda los avisos
+ * para quien no escucha, así que tras una reconexión se invalida todo.
+ *
+ * Esperar avisos no lee nada del socket, así que un enlace medio abierto (caída de red, failover sin
+ * RST) no daría error nunca y el nodo dejaría de recibir invalidaciones sin enterarse. Por eso la
+ * conexión lleva keepalive de TCP y un timeout de lectura, y cada comprobacionMs se lanza un SELECT 1:
+ * si no responde a tiempo, la conexión se descarta y se reconecta como ante cualquier otro error.
+ */
+@Slf4j
+public class PostgresBusInvalidacion extends BusInvalidacionLocal {
+
+    private static final Pattern CANAL_VALIDO = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int MAX_MENSAJE = 7000;
+    private static final long MAX_ESPERA_RECONEXION_MS = 30_000;
+    private static final int TIMEOUT_LECTURA_S = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String canal;
+    private final String url;
+    private final String usuario;
+    private final String password;
+    private final long comprobacionMs;
+    private final String nodo = UUID.randomUUID().toString();
+
+    private final Thread escucha = new Thread(this::escuchar, "bus-invalidacion-escucha");
+    private volatile boolean activo = true;
+
+    public PostgresBusInvalidacion(long intervaloMs, JdbcTemplate jdbcTemplate, String canal,
+                                   String url, String usuario, String password, long comprobacionMs) {
+        super(intervaloMs);
+        // LISTEN no admite parámetros: el canal va en el SQL
+        if (!CANAL_VALIDO.matcher(canal).matches()) {
+            throw new IllegalArgumentException("Canal de invalidación no válido: " + canal);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.canal = canal;
+        this.url = url;
+        this.usuario = usuario;
+        this.password = password;
+        this.comprobacionMs = comprobacionMs;
+        escucha.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        escucha.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        super.destroy();
+        activo = false;
+        escucha.join(5000);
+    }
+
+    @Override
+    protected void difundir(Map<String, Set<Long>> lote) {
+        StringBuilder mensaje = new StringBuilder(nodo);
+        for (Map.Entry<String, Set<Long>> entrada : lote.entrySet()) {
+            if (mensaje.length() > MAX_MENSAJE) {
+                notificar(mensaje.toString());
+                mensaje.setLength(0);
+                mensaje.append(nodo);
+            }
+            mensaje.append('|').append(entrada.getKey()).append(':');
+            boolean primero = true;
+            for (Long id : entrada.getValue()) {
+                // Cada tipo lleva al menos un id en cada mensaje
+                if (!primero && mensaje.length() > MAX_MENSAJE) {
+                    notificar(mensaje.toString());
+                    mensaje.setLength(0);
+                    mensaje.append(nodo).append('|').append(entrada.getKey()).append(':');
+                    primero = true;
+                }
+                if (!primero) {
+                    mensaje.append(',');
+                }
+                mensaje.append(id);
+                primero = false;
+            }
+        }
+        notificar(mensaje.toString());
+    }
+
+    private void notificar(String mensaje) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (RowCallbackHandler) rs -> {
+            }, canal, mensaje);
+        } catch (DataAccessException e) {
+            // Los demás nodos conservan sus entradas hasta que caduquen
+            log.warn("No se pudo publicar la invalidación en {}: {}", canal, e.getMessage());
+        }
+    }
+
+    private void escuchar() {
+        long espera = 1000;
+        boolean reconexion = false;
+        while (activo) {
+            try (Connection conexion = DriverManager.getConnection(url, propiedadesEscucha())) {
+                try (Statement sentencia = conexion.createStatement()) {
+                    sentencia.execute("LISTEN " + canal);
+                }
+                if (reconexion) {
+                    log.info("Bus de invalidación reconectado a {}, se invalida todo", canal);
+                    entregarTodo();
+                }
+                reconexion = true;
+                espera = 1000;
+
+                PGConnection postgres = conexion.unwrap(PGConnection.class);
+                long comprobada = System.currentTimeMillis();
+                while (activo) {
+                    PGNotification[] avisos = postgres.getNotifications(1000);
+                    if (avisos != null) {
+                        for (PGNotification aviso : avisos) {
+                            recibir(aviso.getParameter());
+                        }
+                    }
+                    if (System.currentTimeMillis() - comprobada >= comprobacionMs) {
+                        try (Statement sentencia = conexion.createStatement()) {
+                            sentencia.execute("SELECT 1");
+                        }
+                        comprobada = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!activo) {
+                    return;
+                }
+                reconexion = true;
+                log.warn("Bus de invalidación sin conexión ({}), reintento en {} ms", e.getMessage(), espera);
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                espera = Math.min(espera * 2, MAX_ESPERA_RECONEXION_MS);
+            }
+        }
+    }
+
+    private Properties propiedadesEscucha() {
+        Properties propiedades = new Properties();
+        propiedades.setProperty("user", usuario);
+        propiedades.setProperty("password", password);
+        propiedades.setProperty("tcpKeepAlive", "true");
+        // Acota la espera del SELECT 1 de comprobación; getNotifications pone su propio timeout
+        propiedades.setProperty("socketTimeout", String.valueOf(TIMEOUT_LECTURA_S));
+        return propiedades;
+    }
+
+    private void recibir(String mensaje) {
+        String[] partes = mensaje.split("\\|");
+        if (partes[0].equals(nodo)) {
+            return;
+        }
+
+        try {
+            Map<String, Set<Long>> lote = new HashMap<>();
+            for (int i = 1; i < partes.length; i++) {
+                int separador = partes[i].indexOf(':');
+                Set<Long> ids = lote.computeIfAbsent(partes[i].substring(0, separador), k -> new HashSet<>());
+                for (String id : partes[i].substring(separador + 1).split(",")) {
+                    ids.add(Long.parseLong(id));
+                }
+            }
+            entregar(lote);
+        } catch (RuntimeException e) {
+            log.warn("Mensaje de invalidación no válido en {}: {}", canal, mensaje);
+        }
+    }
+}
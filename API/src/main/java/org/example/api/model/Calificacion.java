@@ -4,10 +4,16 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.api.invalidacion.InvalidacionEntityListener;
+import org.example.api.service.EstadisticasEntityListener;
 
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = "Calificacion.listado", attributeNodes = {
+        @NamedAttributeNode("usuario"),
+        @NamedAttributeNode("curso")
+})
 @Table(
         name = "calificaciones",
         uniqueConstraints = {
@@ -17,20 +23,22 @@ import java.time.LocalDateTime;
                 )
         }
 )
+@EntityListeners({EstadisticasEntityListener.class, InvalidacionEntityListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Calificacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "calificaciones_seq")
+    @SequenceGenerator(name = "calificaciones_seq", sequenceName = "calificaciones_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "curso_id", nullable = false)
     private Curso curso;
 
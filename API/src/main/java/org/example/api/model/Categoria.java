@@ -5,18 +5,29 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.api.invalidacion.InvalidacionEntityListener;
+import org.example.api.service.EstadisticasEntityListener;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Las categorías que falten en la cache al pintar el catálogo se cargan en una sola consulta
+@BatchSize(size = 50)
 @Table(name = "categorias")
+@EntityListeners({EstadisticasEntityListener.class, InvalidacionEntityListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Categoria {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categorias_seq")
+    @SequenceGenerator(name = "categorias_seq", sequenceName = "categorias_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
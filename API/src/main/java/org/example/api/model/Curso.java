@@ -4,19 +4,40 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.api.invalidacion.InvalidacionEntityListener;
+import org.example.api.service.EstadisticasEntityListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@NamedEntityGraphs({
+        // Tarjeta del catálogo: instructor, sin videos. La categoría no se une: sale de la cache de
+        // segundo nivel (Categoria es pequeña y casi inmutable) y los fallos se cargan en lote
+        @NamedEntityGraph(name = "Curso.tarjeta", attributeNodes = {
+                @NamedAttributeNode("instructor")
+        }),
+        // Detalle del curso: además la lista de videos
+        @NamedEntityGraph(name = "Curso.detalle", attributeNodes = {
+                @NamedAttributeNode("instructor"),
+                @NamedAttributeNode("categoria"),
+                @NamedAttributeNode("videos")
+        })
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "cursos")
+@EntityListeners({EstadisticasEntityListener.class, InvalidacionEntityListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Curso {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cursos_seq")
+    @SequenceGenerator(name = "cursos_seq", sequenceName = "cursos_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -25,11 +46,11 @@ public class Curso {
     @Column(length = 2000)
     private String descripcion;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "instructor_id", nullable = false)
     private Usuario instructor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id", nullable = false)
     private Categoria categoria;
 
@@ -0,0 +1,33 @@
+package org.example.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Usuarios distintos que han visto un video, como RoaringBitmap serializado.
+ * Lo mantiene EmbudoService a partir de las vistas registradas.
+ */
+@Entity
+@Table(name = "embudo_videos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbudoVideo {
+
+    @Id
+    @Column(name = "video_id")
+    private Long videoId;
+
+    @Column(name = "curso_id", nullable = false)
+    private Long cursoId;
+
+    @Column(nullable = false)
+    private byte[] espectadores;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
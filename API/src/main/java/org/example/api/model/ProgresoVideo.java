@@ -0,0 +1,63 @@
+package org.example.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso de un usuario en un video: última posición y qué partes ha visto.
+ * La cobertura se guarda como un bitmap con un bit por segmento de SEGUNDOS_POR_SEGMENTO segundos
+ * (una hora de video ocupa 90 bytes).
+ */
+@Entity
+@NamedEntityGraph(name = "ProgresoVideo.conVideoYCurso", attributeNodes = {
+        @NamedAttributeNode(value = "video", subgraph = "video.curso")
+}, subgraphs = {
+        @NamedSubgraph(name = "video.curso", attributeNodes = @NamedAttributeNode("curso"))
+})
+@Table(
+        name = "progreso_videos",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"usuario_id", "video_id"},
+                name = "uk_progreso_usuario_video"
+        )
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgresoVideo {
+
+    public static final int SEGUNDOS_POR_SEGMENTO = 5;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "progreso_videos_seq")
+    @SequenceGenerator(name = "progreso_videos_seq", sequenceName = "progreso_videos_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "video_id", nullable = false)
+    private Video video;
+
+    @Column(name = "posicion_segundos", nullable = false)
+    private Integer posicionSegundos;
+
+    // BitSet.toByteArray() de los segmentos vistos
+    @Column(nullable = false)
+    private byte[] segmentos;
+
+    @Column(name = "segmentos_vistos", nullable = false)
+    private Integer segmentosVistos;
+
+    @Column(nullable = false)
+    private Boolean completado;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
@@ -4,10 +4,12 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.api.service.EstadisticasEntityListener;
 
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = "Video.conCurso", attributeNodes = @NamedAttributeNode("curso"))
 @Table(
         name = "videos",
         uniqueConstraints = @UniqueConstraint(
@@ -15,13 +17,15 @@ import java.time.LocalDateTime;
                 name = "uk_curso_orden"
         )
 )
+@EntityListeners(EstadisticasEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Video {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "videos_seq")
+    @SequenceGenerator(name = "videos_seq", sequenceName = "videos_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -30,7 +34,7 @@ public class Video {
     @Column(length = 1000)
     private String descripcion;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "curso_id", nullable = false)
     private Curso curso;
 
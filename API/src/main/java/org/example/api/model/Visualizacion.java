@@ -8,6 +8,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = "Visualizacion.registro", attributeNodes = {
+        @NamedAttributeNode("video"),
+        @NamedAttributeNode("usuario")
+})
 @Table(name = "visualizaciones")
 @Data
 @NoArgsConstructor
@@ -15,14 +19,15 @@ import java.time.LocalDateTime;
 public class Visualizacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "visualizaciones_seq")
+    @SequenceGenerator(name = "visualizaciones_seq", sequenceName = "visualizaciones_id_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "video_id", nullable = false)
     private Video video;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = true) // Nullable para vistas anónimas
     private Usuario usuario;
 
@@ -34,6 +39,9 @@ public class Visualizacion {
 
     @PrePersist
     protected void onCreate() {
-        fechaVisualizacion = LocalDateTime.now();
+        // Las vistas recibidas en lote traen la fecha en que se reprodujeron
+        if (fechaVisualizacion == null) {
+            fechaVisualizacion = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package org.example.api.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.example.api.observability.jfr.ServirArchivoEvento;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Bytes enviados por FileController, por tipo de archivo, y un evento JFR por envío.
+ * Se cuentan los bytes realmente escritos en la respuesta, así que las peticiones con Range (206)
+ * y las descargas cortadas por el cliente suman solo lo que salió.
+ */
+@Component
+@RequiredArgsConstructor
+public class ArchivosServidosFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/files/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        ServirArchivoEvento evento = new ServirArchivoEvento();
+        evento.begin();
+
+        RespuestaContada respuesta = new RespuestaContada(response);
+        try {
+            filterChain.doFilter(request, respuesta);
+        } finally {
+            String tipo = tipo(request);
+            Counter.builder("archivos.servidos.bytes")
+                    .description("Bytes enviados por /files")
+                    .baseUnit("bytes")
+                    .tag("tipo", tipo)
+                    .tag("parcial", String.valueOf(response.getStatus() == HttpServletResponse.SC_PARTIAL_CONTENT))
+                    .register(meterRegistry)
+                    .increment(respuesta.bytes);
+
+            evento.tipo = tipo;
+            evento.ruta = request.getRequestURI();
+            evento.rango = request.getHeader(HttpHeaders.RANGE);
+            evento.bytes = respuesta.bytes;
+            evento.estado = response.getStatus();
+            evento.commit();
+        }
+    }
+
+    // Solo los tipos conocidos, para no crear una serie por cada ruta inventada
+    private static String tipo(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length() + "/files/".length());
+        if (ruta.startsWith("videos/")) {
+            return "videos";
+        }
+        if (ruta.startsWith("imagenes/")) {
+            return "imagenes";
+        }
+        return "otro";
+    }
+
+    private static class RespuestaContada extends HttpServletResponseWrapper {
+        private long bytes;
+        private ServletOutputStream salida;
+
+        private RespuestaContada(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (salida == null) {
+                ServletOutputStream delegado = super.getOutputStream();
+                salida = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegado.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegado.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegado.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegado.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegado.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegado.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return salida;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.api.observability;
+
+import org.example.api.exception.PresupuestoSqlExcedidoException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * SQL consumido por la petición en curso: sentencias JDBC (de Hibernate y de JdbcTemplate),
+ * entidades cargadas y cuántas veces se ejecuta cada forma de sentencia.
+ *
+ * Vive en un ThreadLocal entre iniciar y terminar (MetricasPeticionFilter), así que fuera de
+ * una petición HTTP (tareas programadas, @Async) no se cuenta nada.
+ */
+final class ConsumoSql {
+
+    private static final ThreadLocal<ConsumoSql> ACTUAL = new ThreadLocal<>();
+
+    // Listas IN de longitud variable y literales: "id IN (?, ?, ?)" y "id IN (?)" son la misma forma
+    private static final Pattern LISTA_PARAMETROS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern LITERALES = Pattern.compile("'(?:[^']|'')*'|\\b\\d+\\b");
+
+    private final PresupuestoSql.Modo modo;
+    private int maxSentencias = -1;
+    private int maxRepeticiones;
+
+    private final Map<String, Integer> formas = new HashMap<>();
+    private int sentencias;
+    private int entidades;
+    private int repeticiones;
+    private String formaMasRepetida;
+    private String exceso;
+
+    private ConsumoSql(PresupuestoSql.Modo modo, int maxRepeticiones) {
+        this.modo = modo;
+        this.maxRepeticiones = maxRepeticiones;
+    }
+
+    static ConsumoSql iniciar(PresupuestoSql.Modo modo, int maxRepeticiones) {
+        ConsumoSql consumo = new ConsumoSql(modo, maxRepeticiones);
+        ACTUAL.set(consumo);
+        return consumo;
+    }
+
+    static void terminar() {
+        ACTUAL.remove();
+    }
+
+    static ConsumoSql actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Presupuesto del endpoint, una vez resuelto el handler (ver PresupuestoSqlInterceptor)
+     */
+    static void aplicarPresupuesto(PresupuestoSql presupuesto) {
+        ConsumoSql consumo = ACTUAL.get();
+        if (consumo != null) {
+            consumo.maxSentencias = presupuesto.sentencias();
+            if (presupuesto.repeticiones() >= 0) {
+                consumo.maxRepeticiones = presupuesto.repeticiones();
+            }
+        }
+    }
+
+    static void registrarSentencia(String sql) {
+        ConsumoSql consumo = ACTUAL.get();
+        if (consumo != null) {
+            consumo.sentencia(sql);
+        }
+    }
+
+    static void registrarEntidad() {
+        ConsumoSql consumo = ACTUAL.get();
+        if (consumo != null) {
+            consumo.entidades++;
+        }
+    }
+
+    private void sentencia(String sql) {
+        sentencias++;
+        String forma = forma(sql);
+        int veces = formas.merge(forma, 1, Integer::sum);
+        if (veces > repeticiones) {
+            repeticiones = veces;
+            formaMasRepetida = forma;
+        }
+
+        // Solo el primer exceso: con FAIL la excepción sale desde la sentencia culpable
+        if (modo == PresupuestoSql.Modo.OFF || exceso != null) {
+            return;
+        }
+        if (maxSentencias >= 0 && sentencias > maxSentencias) {
+            exceso = "más de " + maxSentencias + " sentencias SQL";
+        } else if (maxRepeticiones >= 0 && veces > maxRepeticiones) {
+            exceso = "la misma sentencia más de " + maxRepeticiones + " veces (posible N+1): " + forma;
+        }
+        if (exceso != null && modo == PresupuestoSql.Modo.FAIL) {
+            throw new PresupuestoSqlExcedidoException("Presupuesto de SQL excedido: " + exceso);
+        }
+    }
+
+    static String forma(String sql) {
+        String forma = LISTA_PARAMETROS.matcher(sql).replaceAll("(?)");
+        return LITERALES.matcher(forma).replaceAll("?");
+    }
+
+    int getSentencias() {
+        return sentencias;
+    }
+
+    int getEntidades() {
+        return entidades;
+    }
+
+    int getRepeticiones() {
+        return repeticiones;
+    }
+
+    String getFormaMasRepetida() {
+        return formaMasRepetida;
+    }
+
+    String getExceso() {
+        return exceso;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.api.observability;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Cuenta en ConsumoSql las entidades que carga Hibernate durante la petición (incluidas las que
+ * salen de la caché de segundo nivel). Hibernate crea su propia instancia a partir de
+ * hibernate.session_factory.interceptor (ver api-defaults.properties).
+ */
+public class ContadorHibernate implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        ConsumoSql.registrarEntidad();
+        return false;
+    }
+}
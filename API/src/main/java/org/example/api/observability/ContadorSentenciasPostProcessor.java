@@ -0,0 +1,136 @@
+package org.example.api.observability;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Envuelve el DataSource para contar en ConsumoSql cada sentencia que se prepara o ejecuta,
+ * venga de Hibernate, de JdbcTemplate o de cualquier otro cliente JDBC. La sentencia se cuenta
+ * antes de llegar al driver, así que con sql.presupuesto.modo=FAIL la que excede no se ejecuta.
+ *
+ * Durante una petición HTTP también suma a la fase BD de FasesPeticion la espera por una
+ * conexión del pool, las ejecuciones y los commit/rollback. Fuera de ellas las conexiones
+ * devuelven los Statement del driver sin envolver.
+ *
+ * El resto de llamadas, unwrap incluido, llegan tal cual al pool (las métricas de Hikari y el
+ * COPY del generador de datos siguen funcionando).
+ */
+@Component
+public class ContadorSentenciasPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> PREPARAN = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> CREAN = Set.of("prepareStatement", "prepareCall", "createStatement");
+    private static final Set<String> CONFIRMAN = Set.of("commit", "rollback");
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceContado)) {
+            return new DataSourceContado(dataSource);
+        }
+        return bean;
+    }
+
+    private static class DataSourceContado extends DelegatingDataSource {
+
+        private DataSourceContado(DataSource destino) {
+            super(destino);
+        }
+
+        @Override
+        @NonNull
+        public Connection getConnection() throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                return contar(super.getConnection());
+            } finally {
+                FasesPeticion.sumar(FasesPeticion.Fase.BD, inicio);
+            }
+        }
+
+        @Override
+        @NonNull
+        public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                return contar(super.getConnection(username, password));
+            } finally {
+                FasesPeticion.sumar(FasesPeticion.Fase.BD, inicio);
+            }
+        }
+    }
+
+    private static Connection contar(Connection conexion) {
+        return proxy(Connection.class, conexion, (proxy, metodo, args) -> {
+            String nombre = metodo.getName();
+            if (PREPARAN.contains(nombre)) {
+                ConsumoSql.registrarSentencia((String) args[0]);
+            }
+            if (CONFIRMAN.contains(nombre)) {
+                return medir(proxy, conexion, metodo, args);
+            }
+
+            Object resultado = delegar(proxy, conexion, metodo, args);
+            if (resultado instanceof Statement sentencia && CREAN.contains(nombre) && FasesPeticion.activa()) {
+                // Statement, PreparedStatement o CallableStatement según el método
+                return medir(metodo.getReturnType(), sentencia);
+            }
+            return resultado;
+        });
+    }
+
+    private static Statement medir(Class<?> tipo, Statement sentencia) {
+        return (Statement) proxy(tipo, sentencia, (proxy, metodo, args) -> {
+            if (!metodo.getName().startsWith("execute") && !metodo.getName().equals("addBatch")) {
+                return delegar(proxy, sentencia, metodo, args);
+            }
+            // En los Statement sin preparar el SQL llega al ejecutar
+            if (args != null && args[0] instanceof String sql) {
+                ConsumoSql.registrarSentencia(sql);
+            }
+            return medir(proxy, sentencia, metodo, args);
+        });
+    }
+
+    private static Object medir(Object proxy, Object destino, Method metodo, Object[] args) throws Throwable {
+        long inicio = System.nanoTime();
+        try {
+            return delegar(proxy, destino, metodo, args);
+        } finally {
+            FasesPeticion.sumar(FasesPeticion.Fase.BD, inicio);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, Object destino, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    private static Object delegar(Object proxy, Object destino, Method metodo, Object[] args) throws Throwable {
+        // Identidad del proxy: Spring compara conexiones para saber si pertenecen a la transacción
+        switch (metodo.getName()) {
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+        }
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
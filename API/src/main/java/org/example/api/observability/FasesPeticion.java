@@ -0,0 +1,132 @@
+package org.example.api.observability;
+
+import java.util.Locale;
+
+/**
+ * Tiempo de la petición en curso repartido por fase: filtro JWT, JDBC, llamadas HTTP salientes,
+ * serialización de la respuesta y E/S de archivos. Lo usan el encabezado Server-Timing y el log
+ * de peticiones lentas (ver MetricasPeticionFilter).
+ *
+ * Las fases pueden solaparse: auth incluye la consulta del usuario y la serialización, las cargas
+ * perezosas que provoque. Fuera de una petición HTTP sumar no hace nada.
+ */
+public final class FasesPeticion {
+
+    public enum Fase {
+        AUTH("auth"),
+        BD("db"),
+        HTTP("http"),
+        SERIALIZACION("ser"),
+        ARCHIVOS("files");
+
+        // Nombre en Server-Timing y en el log
+        private final String clave;
+
+        Fase(String clave) {
+            this.clave = clave;
+        }
+
+        public String getClave() {
+            return clave;
+        }
+    }
+
+    private static final ThreadLocal<FasesPeticion> ACTUAL = new ThreadLocal<>();
+
+    private final long inicio = System.nanoTime();
+    private final long[] nanos = new long[Fase.values().length];
+
+    // Escritura del cuerpo en curso: empieza en ResponseBodyAdvice y termina con la petición
+    private Fase escritura;
+    private long inicioEscritura;
+
+    private FasesPeticion() {
+    }
+
+    static FasesPeticion iniciar() {
+        FasesPeticion fases = new FasesPeticion();
+        ACTUAL.set(fases);
+        return fases;
+    }
+
+    static void terminar() {
+        FasesPeticion fases = ACTUAL.get();
+        if (fases != null) {
+            fases.cerrarEscritura();
+            ACTUAL.remove();
+        }
+    }
+
+    static boolean activa() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * Suma a la fase el tiempo transcurrido desde inicioNanos (un System.nanoTime() previo)
+     */
+    public static void sumar(Fase fase, long inicioNanos) {
+        FasesPeticion fases = ACTUAL.get();
+        if (fases != null) {
+            fases.nanos[fase.ordinal()] += System.nanoTime() - inicioNanos;
+        }
+    }
+
+    static void iniciarEscritura(Fase fase) {
+        FasesPeticion fases = ACTUAL.get();
+        if (fases != null && fases.escritura == null) {
+            fases.escritura = fase;
+            fases.inicioEscritura = System.nanoTime();
+        }
+    }
+
+    private void cerrarEscritura() {
+        if (escritura != null) {
+            nanos[escritura.ordinal()] += System.nanoTime() - inicioEscritura;
+            escritura = null;
+        }
+    }
+
+    static FasesPeticion actual() {
+        return ACTUAL.get();
+    }
+
+    long totalMilisegundos() {
+        return (System.nanoTime() - inicio) / 1_000_000;
+    }
+
+    /**
+     * Valor de Server-Timing con las fases que han consumido tiempo hasta ahora y el total
+     */
+    String serverTiming(int sentencias) {
+        StringBuilder valor = new StringBuilder();
+        for (Fase fase : Fase.values()) {
+            long n = nanos[fase.ordinal()];
+            if (n > 0) {
+                valor.append(fase.clave).append(";dur=").append(milisegundos(n));
+                if (fase == Fase.BD) {
+                    valor.append(";desc=\"").append(sentencias).append(" sentencias\"");
+                }
+                valor.append(", ");
+            }
+        }
+        return valor.append("total;dur=").append(milisegundos(System.nanoTime() - inicio)).toString();
+    }
+
+    /**
+     * Fases en formato clave=valor para el log: "auth_ms=0.4 db_ms=12.3 ..."
+     */
+    String desglose() {
+        StringBuilder linea = new StringBuilder();
+        for (Fase fase : Fase.values()) {
+            if (!linea.isEmpty()) {
+                linea.append(' ');
+            }
+            linea.append(fase.clave).append("_ms=").append(milisegundos(nanos[fase.ordinal()]));
+        }
+        return linea.toString();
+    }
+
+    private static String milisegundos(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.api.observability;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.example.api.security.BoundedPasswordEncoder;
+import org.example.api.service.VistasEnVivoService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Medidores de los pools y colas propios que no cubre la autoconfiguración
+ * (Hikari, Tomcat, JVM y la caché de segundo nivel ya se publican solos)
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricasAplicacion implements MeterBinder {
+
+    private final PasswordEncoder passwordEncoder;
+    private final VistasEnVivoService vistasEnVivoService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (passwordEncoder instanceof BoundedPasswordEncoder bcrypt) {
+            Gauge.builder("seguridad.bcrypt.pendientes", bcrypt, BoundedPasswordEncoder::getPendientes)
+                    .description("Hashes BCrypt en cola esperando un hilo del pool")
+                    .register(registry);
+        }
+
+        Gauge.builder("visualizaciones.sse.suscriptores", vistasEnVivoService, VistasEnVivoService::getSuscriptores)
+                .description("Conexiones SSE abiertas de vistas en vivo")
+                .register(registry);
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.api.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sentencias SQL y entidades cargadas en cada petición, por endpoint (ver ConsumoSql).
+ * Va antes que Spring Security para incluir la carga del usuario del JWT.
+ * La latencia por endpoint ya la mide http.server.requests.
+ *
+ * Además avisa de las peticiones que exceden su @PresupuestoSql (modo WARN) y, para una muestra
+ * de las que tardan más del umbral, deja una línea clave=valor con el tiempo por fase
+ * (ver FasesPeticion) y el consumo de SQL.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class MetricasPeticionFilter extends OncePerRequestFilter {
+
+    private static final double[] CORTES = {1, 2, 5, 10, 20, 50, 100};
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.presupuesto.modo:OFF}")
+    private PresupuestoSql.Modo modo;
+
+    @Value("${sql.presupuesto.max-repeticiones:5}")
+    private int maxRepeticiones;
+
+    @Value("${observabilidad.peticion-lenta.umbral-ms:1000}")
+    private long peticionLentaMs;
+
+    // Fracción de las peticiones lentas que se registran (0 a 1)
+    @Value("${observabilidad.peticion-lenta.muestreo:1.0}")
+    private double muestreo;
+
+    @Value("${observabilidad.server-timing:false}")
+    private boolean serverTiming;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        FasesPeticion fases = FasesPeticion.iniciar();
+        ConsumoSql consumo = ConsumoSql.iniciar(modo, maxRepeticiones);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Respuestas sin cuerpo: ServerTimingAdvice no ha llegado a ejecutarse
+            if (serverTiming && !response.isCommitted() && !response.containsHeader(ServerTimingAdvice.CABECERA)) {
+                response.setHeader(ServerTimingAdvice.CABECERA, fases.serverTiming(consumo.getSentencias()));
+                response.setHeader(ServerTimingAdvice.CABECERA_ORIGEN, "*");
+            }
+            FasesPeticion.terminar();
+            ConsumoSql.terminar();
+            long ms = fases.totalMilisegundos();
+            String uri = uri(request, response);
+
+            Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+            registrar("sql.peticion.sentencias", "Sentencias JDBC ejecutadas en la petición", tags)
+                    .record(consumo.getSentencias());
+            registrar("sql.peticion.entidades", "Entidades cargadas por Hibernate en la petición", tags)
+                    .record(consumo.getEntidades());
+            registrar("sql.peticion.repeticiones", "Ejecuciones de la sentencia más repetida en la petición", tags)
+                    .record(consumo.getRepeticiones());
+
+            if (consumo.getExceso() != null) {
+                Counter.builder("sql.presupuesto.excedido")
+                        .description("Peticiones que excedieron su presupuesto de SQL")
+                        .tags(tags)
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("Presupuesto de SQL excedido en {} {}: {} ({} sentencias, {} entidades)",
+                        request.getMethod(), uri, consumo.getExceso(), consumo.getSentencias(), consumo.getEntidades());
+            }
+
+            if (ms >= peticionLentaMs && (muestreo >= 1.0 || ThreadLocalRandom.current().nextDouble() < muestreo)) {
+                log.warn("peticion_lenta metodo={} uri={} ruta={} estado={} total_ms={} {} sentencias={} entidades={} repeticiones={} sql_mas_repetida=\"{}\"",
+                        request.getMethod(), uri, request.getRequestURI(), response.getStatus(), ms, fases.desglose(),
+                        consumo.getSentencias(), consumo.getEntidades(), consumo.getRepeticiones(),
+                        consumo.getFormaMasRepetida());
+            }
+        }
+    }
+
+    private DistributionSummary registrar(String nombre, String descripcion, Tags tags) {
+        return DistributionSummary.builder(nombre)
+                .description(descripcion)
+                .tags(tags)
+                .serviceLevelObjectives(CORTES)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Patrón del endpoint (como en http.server.requests) para no crear una serie por cada id
+     */
+    private static String uri(HttpServletRequest request, HttpServletResponse response) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (patron != null) {
+            return patron.toString();
+        }
+        return response.getStatus() == HttpServletResponse.SC_NOT_FOUND ? "NOT_FOUND" : "UNKNOWN";
+    }
+}
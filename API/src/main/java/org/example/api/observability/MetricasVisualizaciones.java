@@ -0,0 +1,71 @@
+package org.example.api.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.api.model.Visualizacion;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Contadores de negocio: vistas registradas (por origen y si el usuario estaba autenticado)
+ * e hitos de 10 vistas con su resultado en Snack
+ */
+@Component
+public class MetricasVisualizaciones {
+
+    public static final String ORIGEN_INDIVIDUAL = "individual";
+    public static final String ORIGEN_LOTE = "lote";
+
+    public static final String HITO_CODIGO = "codigo";
+    public static final String HITO_SIN_CODIGO = "sin_codigo";
+    public static final String HITO_ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricasVisualizaciones(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Cuenta las vistas cuando se confirme la transacción que las inserta
+     */
+    public void vistasRegistradas(String origen, Collection<Visualizacion> visualizaciones) {
+        long autenticadas = visualizaciones.stream().filter(v -> v.getUsuario() != null).count();
+        long anonimas = visualizaciones.size() - autenticadas;
+
+        Runnable contar = () -> {
+            vistas(origen, "autenticado").increment(autenticadas);
+            vistas(origen, "anonimo").increment(anonimas);
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    contar.run();
+                }
+            });
+        } else {
+            contar.run();
+        }
+    }
+
+    public void hitoAlcanzado(String resultado) {
+        Counter.builder("visualizaciones.hitos")
+                .description("Cursos que alcanzaron 10 vistas, por resultado de la llamada a Snack")
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter vistas(String origen, String usuario) {
+        return Counter.builder("visualizaciones.registradas")
+                .description("Vistas guardadas")
+                .tag("origen", origen)
+                .tag("usuario", usuario)
+                .register(meterRegistry);
+    }
+}
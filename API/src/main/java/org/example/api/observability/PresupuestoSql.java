@@ -0,0 +1,36 @@
+package org.example.api.observability;
+
+import java.lang.annotation.*;
+
+/**
+ * Presupuesto de SQL de un endpoint: cuántas sentencias JDBC puede ejecutar una petición
+ * (incluida la carga del usuario del JWT) y cuántas veces puede repetir la misma forma de
+ * sentencia, que es la huella típica de un N+1. En un controlador vale para todos sus métodos.
+ *
+ * Qué pasa al superarlo lo decide sql.presupuesto.modo (ver Modo). Sin anotación solo se
+ * aplica el límite de repeticiones de sql.presupuesto.max-repeticiones.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PresupuestoSql {
+
+    /**
+     * Máximo de sentencias por petición; -1 sin límite
+     */
+    int sentencias() default -1;
+
+    /**
+     * Máximo de ejecuciones de una misma forma de sentencia; -1 usa sql.presupuesto.max-repeticiones
+     */
+    int repeticiones() default -1;
+
+    enum Modo {
+        // Solo métricas y log de peticiones lentas (producción)
+        OFF,
+        // Además, un aviso en el log por cada petición que se pasa
+        WARN,
+        // La sentencia que excede el presupuesto lanza PresupuestoSqlExcedidoException (tests)
+        FAIL
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.api.observability;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Aplica a la petición el @PresupuestoSql del método o del controlador que la atiende
+ */
+@Configuration
+public class PresupuestoSqlInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (handler instanceof HandlerMethod metodo) {
+            PresupuestoSql presupuesto = metodo.getMethodAnnotation(PresupuestoSql.class);
+            if (presupuesto == null) {
+                presupuesto = metodo.getBeanType().getAnnotation(PresupuestoSql.class);
+            }
+            if (presupuesto != null) {
+                ConsumoSql.aplicarPresupuesto(presupuesto);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.api.observability;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Se ejecuta justo antes de escribir el cuerpo: añade Server-Timing (las cabeceras tienen que ir
+ * antes del cuerpo) y abre la fase de serialización, o la de archivos si se envía un Resource.
+ * Por eso la serialización y el envío de archivos solo aparecen en el log de peticiones lentas.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String CABECERA = "Server-Timing";
+    // Sin ella el navegador oculta Server-Timing a un frontend de otro origen (localhost:5173)
+    static final String CABECERA_ORIGEN = "Timing-Allow-Origin";
+
+    @Value("${observabilidad.server-timing:false}")
+    private boolean serverTiming;
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+                            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  @NonNull MethodParameter returnType,
+                                  @NonNull MediaType selectedContentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @NonNull ServerHttpRequest request,
+                                  @NonNull ServerHttpResponse response) {
+        FasesPeticion fases = FasesPeticion.actual();
+        if (fases == null) {
+            return body;
+        }
+
+        if (serverTiming) {
+            ConsumoSql consumo = ConsumoSql.actual();
+            response.getHeaders().set(CABECERA, fases.serverTiming(consumo != null ? consumo.getSentencias() : 0));
+            response.getHeaders().set(CABECERA_ORIGEN, "*");
+        }
+
+        boolean archivo = ResourceHttpMessageConverter.class.isAssignableFrom(selectedConverterType)
+                || ResourceRegionHttpMessageConverter.class.isAssignableFrom(selectedConverterType);
+        FasesPeticion.iniciarEscritura(archivo ? FasesPeticion.Fase.ARCHIVOS : FasesPeticion.Fase.SERIALIZACION);
+        return body;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.api.observability.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Montaje de respuestas del catálogo de cursos en CursoService (listados, búsqueda y detalle)
+ */
+@Name("org.example.api.Catalogo")
+@Label("Montaje del catálogo")
+@Category({"UPBmy", "Cursos"})
+@StackTrace(false)
+public class CatalogoEvento extends Event {
+
+    @Label("Operación")
+    @Description("publicos, categoria, busqueda, mis-cursos o detalle")
+    public String operacion;
+
+    @Label("Curso o categoría")
+    @Description("Id consultado; 0 en los listados sin filtro")
+    public long id;
+
+    @Label("Cursos devueltos")
+    public int cursos;
+}
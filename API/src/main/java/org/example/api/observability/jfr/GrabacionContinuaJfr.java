@@ -0,0 +1,150 @@
+package org.example.api.observability.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Grabación JFR continua: el perfil "default" de la JVM (pensado para producción, en torno al 1%
+ * de sobrecoste) más los eventos propios de este paquete, en disco y acotada por edad y tamaño.
+ * Solo se escribe un archivo cuando un administrador pide un volcado de los últimos minutos.
+ *
+ * Equivale a arrancar con
+ * -XX:StartFlightRecording=name=upbmy-continua,settings=default,disk=true,maxage=30m,maxsize=250m
+ * y volcar con jcmd &lt;pid&gt; JFR.dump name=upbmy-continua begin=-10m filename=...
+ */
+@Slf4j
+@Component
+public class GrabacionContinuaJfr {
+
+    private static final String NOMBRE = "upbmy-continua";
+
+    private static final List<Class<? extends Event>> EVENTOS = List.of(
+            RegistroVistaEvento.class,
+            CatalogoEvento.class,
+            ValidacionJwtEvento.class,
+            ServirArchivoEvento.class,
+            LlamadaIntegracionEvento.class
+    );
+
+    @Value("${jfr.grabacion.habilitada:true}")
+    private boolean habilitada;
+
+    // "default" para producción; "profile" muestrea más a menudo y cuesta algo más
+    @Value("${jfr.grabacion.configuracion:default}")
+    private String configuracion;
+
+    @Value("${jfr.grabacion.max-edad-minutos:30}")
+    private int maxEdadMinutos;
+
+    @Value("${jfr.grabacion.max-tamano-mb:250}")
+    private long maxTamanoMb;
+
+    // Los eventos propios más cortos que esto no se guardan
+    @Value("${jfr.grabacion.umbral-eventos-ms:0}")
+    private long umbralEventosMs;
+
+    @Value("${jfr.volcados.directorio:jfr}")
+    private String directorioVolcados;
+
+    private Recording grabacion;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        if (!habilitada || grabacion != null) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("JFR no está disponible en esta JVM, no se inicia la grabación continua");
+            return;
+        }
+
+        try {
+            Recording nueva = new Recording(Configuration.getConfiguration(configuracion));
+            nueva.setName(NOMBRE);
+            nueva.setToDisk(true);
+            nueva.setMaxAge(Duration.ofMinutes(maxEdadMinutos));
+            nueva.setMaxSize(maxTamanoMb * 1024 * 1024);
+            for (Class<? extends Event> evento : EVENTOS) {
+                nueva.enable(evento).withThreshold(Duration.ofMillis(umbralEventosMs));
+            }
+            nueva.start();
+            grabacion = nueva;
+            log.info("Grabación JFR continua iniciada ({}, {} min, {} MB)", configuracion, maxEdadMinutos, maxTamanoMb);
+        } catch (IOException | ParseException e) {
+            log.error("No se pudo iniciar la grabación JFR continua: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Escribe en jfr.volcados.directorio los últimos minutos de la grabación y devuelve el archivo
+     */
+    public synchronized Path volcar(int minutos) {
+        if (grabacion == null) {
+            throw new BadRequestException("La grabación JFR continua no está activa");
+        }
+        if (minutos < 1 || minutos > maxEdadMinutos) {
+            throw new BadRequestException("Los minutos deben estar entre 1 y " + maxEdadMinutos);
+        }
+
+        try {
+            Path directorio = Path.of(directorioVolcados).toAbsolutePath();
+            Files.createDirectories(directorio);
+            String marca = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            Path archivo = directorio.resolve("volcado-" + marca + "-" + minutos + "m.jfr");
+
+            // Recording.dump no admite un intervalo; JFR.dump (el comando de jcmd) sí, con begin relativo
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName diagnostico = new ObjectName("com.sun.management:type=DiagnosticCommand");
+            if (!servidor.isRegistered(diagnostico)) {
+                // Imagen nativa: sin comandos de diagnóstico, se vuelca la grabación completa (max-edad-minutos)
+                grabacion.dump(archivo);
+                log.info("Volcado JFR completo en {} (JFR.dump no disponible)", archivo);
+                return archivo;
+            }
+            servidor.invoke(
+                    diagnostico,
+                    "jfrDump",
+                    new Object[]{new String[]{
+                            "name=" + grabacion.getId(),
+                            "filename=" + archivo,
+                            "begin=-" + minutos + "m"
+                    }},
+                    new String[]{String[].class.getName()}
+            );
+            log.info("Volcado JFR de los últimos {} minutos en {}", minutos, archivo);
+            return archivo;
+        } catch (IOException | JMException e) {
+            throw new IllegalStateException("No se pudo volcar la grabación JFR: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void detener() {
+        if (grabacion != null) {
+            grabacion.close();
+            grabacion = null;
+        }
+    }
+}
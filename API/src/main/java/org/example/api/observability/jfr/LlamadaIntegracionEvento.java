@@ -0,0 +1,30 @@
+package org.example.api.observability.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Llamada saliente del RestTemplate a Upbolis o Snack, con la espera por el semáforo de concurrencia
+ */
+@Name("org.example.api.LlamadaIntegracion")
+@Label("Llamada a integración")
+@Category({"UPBmy", "Integraciones"})
+@StackTrace(false)
+public class LlamadaIntegracionEvento extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Método")
+    public String metodo;
+
+    @Label("Ruta")
+    public String ruta;
+
+    @Label("Estado HTTP")
+    @Description("-1 si la llamada lanzó una excepción")
+    public int estado;
+
+    @Label("Resultado")
+    @Description("ok, error o excepcion")
+    public String resultado;
+}
@@ -0,0 +1,33 @@
+package org.example.api.observability.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Registro de vistas en VisualizacionService: una vista suelta o un lote completo
+ */
+@Name("org.example.api.RegistroVista")
+@Label("Registro de vistas")
+@Category({"UPBmy", "Visualizaciones"})
+@StackTrace(false)
+public class RegistroVistaEvento extends Event {
+
+    @Label("Video")
+    @Description("Video de la vista; 0 en los lotes")
+    public long videoId;
+
+    @Label("Curso")
+    @Description("Curso de la vista; 0 en los lotes")
+    public long cursoId;
+
+    @Label("Vistas registradas")
+    public int vistas;
+
+    @Label("Cursos afectados")
+    public int cursos;
+
+    @Label("Anónima")
+    public boolean anonima;
+
+    @Label("Hitos de 10 vistas")
+    public int hitos;
+}
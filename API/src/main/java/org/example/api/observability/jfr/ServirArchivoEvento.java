@@ -0,0 +1,29 @@
+package org.example.api.observability.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Envío de un archivo de /files, con o sin Range
+ */
+@Name("org.example.api.ServirArchivo")
+@Label("Envío de archivo")
+@Category({"UPBmy", "Archivos"})
+@StackTrace(false)
+public class ServirArchivoEvento extends Event {
+
+    @Label("Tipo")
+    public String tipo;
+
+    @Label("Ruta")
+    public String ruta;
+
+    @Label("Range pedido")
+    public String rango;
+
+    @Label("Bytes enviados")
+    @DataAmount
+    public long bytes;
+
+    @Label("Estado HTTP")
+    public int estado;
+}
@@ -0,0 +1,17 @@
+package org.example.api.observability.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Validación del token Bearer en JwtAuthenticationFilter, incluida la carga del usuario
+ */
+@Name("org.example.api.ValidacionJwt")
+@Label("Validación de JWT")
+@Category({"UPBmy", "Seguridad"})
+@StackTrace(false)
+public class ValidacionJwtEvento extends Event {
+
+    @Label("Resultado")
+    @Description("valido, invalido, ya-autenticado o error")
+    public String resultado;
+}
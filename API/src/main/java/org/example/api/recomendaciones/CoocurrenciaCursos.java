@@ -0,0 +1,151 @@
+package org.example.api.recomendaciones;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Matriz dispersa de co-ocurrencia entre cursos: para cada par, cuántos usuarios han
+ * consumido ambos. La similitud es el coseno entre los conjuntos de usuarios de cada curso:
+ * coincidencias(a, b) / sqrt(usuarios(a) * usuarios(b)).
+ *
+ * La memoria está acotada por maxPares: al superarlo se descartan los pares con menos
+ * coincidencias (ruido), subiendo el umbral cuanto haga falta. La reconstrucción nocturna
+ * parte de cero y corrige la aproximación.
+ */
+public class CoocurrenciaCursos {
+
+    // Los usuarios con más cursos aportan pares cuadráticos y poca señal; se limita su peso
+    public static final int MAX_CURSOS_POR_USUARIO = 500;
+
+    private final MapaLongInt pares;
+    private final MapaLongInt usuariosPorCurso;
+    private final int maxPares;
+    private int umbralPoda = 1;
+
+    public record Vecino(long cursoId, double similitud) {
+    }
+
+    public CoocurrenciaCursos(int maxPares) {
+        this(maxPares, new MapaLongInt(Math.min(maxPares, 1 << 20)), new MapaLongInt(1024));
+    }
+
+    private CoocurrenciaCursos(int maxPares, MapaLongInt pares, MapaLongInt usuariosPorCurso) {
+        this.maxPares = maxPares;
+        this.pares = pares;
+        this.usuariosPorCurso = usuariosPorCurso;
+    }
+
+    /**
+     * Estado completo (umbral de poda, pares y usuarios por curso) para la instantánea de arranque
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        salida.writeInt(umbralPoda);
+        pares.escribir(salida);
+        usuariosPorCurso.escribir(salida);
+    }
+
+    /**
+     * Matriz escrita con escribir; si maxPares ha bajado desde entonces, se poda al cargarla
+     */
+    public static CoocurrenciaCursos leer(DataInput entrada, int maxPares) throws IOException {
+        int umbralPoda = entrada.readInt();
+        MapaLongInt pares = MapaLongInt.leer(entrada, Math.min(maxPares, 1 << 20));
+        MapaLongInt usuariosPorCurso = MapaLongInt.leer(entrada, 1024);
+
+        CoocurrenciaCursos matriz = new CoocurrenciaCursos(maxPares, pares, usuariosPorCurso);
+        matriz.umbralPoda = umbralPoda;
+        if (pares.size() > maxPares) {
+            matriz.podar();
+        }
+        return matriz;
+    }
+
+    /**
+     * Añade los cursos (sin repetir) de un usuario que no se había visto antes
+     */
+    public void agregarUsuario(long[] cursos, int n) {
+        agregarNuevos(new long[0], 0, cursos, n);
+    }
+
+    /**
+     * Añade cursos nuevos de un usuario que ya había consumido los cursos anteriores
+     * (ya contabilizados). Los dos conjuntos deben ser disjuntos.
+     */
+    public void agregarNuevos(long[] anteriores, int nAnteriores, long[] nuevos, int nNuevos) {
+        nAnteriores = Math.min(nAnteriores, MAX_CURSOS_POR_USUARIO);
+        nNuevos = Math.min(nNuevos, MAX_CURSOS_POR_USUARIO - nAnteriores);
+
+        for (int i = 0; i < nNuevos; i++) {
+            usuariosPorCurso.sumar(nuevos[i], 1);
+            for (int j = 0; j < nAnteriores; j++) {
+                pares.sumar(clave(nuevos[i], anteriores[j]), 1);
+            }
+            for (int j = i + 1; j < nNuevos; j++) {
+                pares.sumar(clave(nuevos[i], nuevos[j]), 1);
+            }
+        }
+
+        if (pares.size() > maxPares) {
+            podar();
+        }
+    }
+
+    public int getPares() {
+        return pares.size();
+    }
+
+    public int getUmbralPoda() {
+        return umbralPoda;
+    }
+
+    /**
+     * Los n vecinos más similares de cada curso con al menos minimoCoincidencias usuarios en común
+     */
+    public Map<Long, List<Vecino>> calcularVecinos(int n, int minimoCoincidencias) {
+        Map<Long, PriorityQueue<Vecino>> mejores = new HashMap<>();
+        Comparator<Vecino> porSimilitud = Comparator.comparingDouble(Vecino::similitud);
+
+        pares.forEach((clave, coincidencias) -> {
+            if (coincidencias < minimoCoincidencias) {
+                return;
+            }
+            long a = clave >>> 32;
+            long b = clave & 0xFFFFFFFFL;
+            double similitud = coincidencias / Math.sqrt((double) usuariosPorCurso.get(a) * usuariosPorCurso.get(b));
+
+            ofrecer(mejores.computeIfAbsent(a, k -> new PriorityQueue<>(porSimilitud)), new Vecino(b, similitud), n);
+            ofrecer(mejores.computeIfAbsent(b, k -> new PriorityQueue<>(porSimilitud)), new Vecino(a, similitud), n);
+        });
+
+        Map<Long, List<Vecino>> resultado = new HashMap<>(mejores.size() * 2);
+        mejores.forEach((curso, cola) -> {
+            List<Vecino> vecinos = new ArrayList<>(cola);
+            vecinos.sort(porSimilitud.reversed());
+            resultado.put(curso, List.copyOf(vecinos));
+        });
+        return resultado;
+    }
+
+    private static void ofrecer(PriorityQueue<Vecino> cola, Vecino vecino, int n) {
+        if (cola.size() < n) {
+            cola.add(vecino);
+        } else if (cola.peek().similitud() < vecino.similitud()) {
+            cola.poll();
+            cola.add(vecino);
+        }
+    }
+
+    private void podar() {
+        do {
+            umbralPoda++;
+            pares.podar(umbralPoda);
+        } while (pares.size() > maxPares * 3L / 4);
+    }
+
+    // Par no ordenado (a, b) en un long: el menor id en los 32 bits altos
+    private static long clave(long a, long b) {
+        return a < b ? (a << 32) | b : (b << 32) | a;
+    }
+}
@@ -0,0 +1,465 @@
+package org.example.api.recomendaciones;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.calentamiento.ParticipanteInstantanea;
+import org.example.api.dto.CursoRelacionadoResponse;
+import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.model.Curso;
+import org.example.api.repository.CursoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * "Quienes vieron este curso también vieron": similitud entre cursos a partir de los usuarios
+ * que los han visto o calificado.
+ *
+ * La reconstrucción completa recorre los pares (usuario, curso) distintos ordenados por usuario
+ * con un cursor, así que en memoria solo están los cursos del usuario actual y la matriz de
+ * co-ocurrencia, acotada por recomendaciones.max-pares.
+ *
+ * Los pares de las visualizaciones salen de espectadores_curso y no de visualizaciones: ese agregado
+ * no se archiva con las particiones, así que la reconstrucción también cuenta los meses archivados.
+ *
+ * Entre reconstrucciones, una tarea incremental procesa los pares registrados (espectadores_curso.registrado)
+ * y las calificaciones creadas después de la marca (inicio de la pasada anterior) menos un solape. Los ids
+ * no sirven de marca: con secuencias pooled cada nodo reserva bloques de 50 ids, así que un id menor puede
+ * confirmarse después que uno mayor. El registro lo pone la base de datos al insertar el par, aunque la
+ * vista de un lote traiga una fecha de hace días, así que el solape solo tiene que cubrir
+ * recomendaciones.solape-minutos: transacciones lentas y relojes desfasados entre nodos. Los pares ya
+ * contados cuyo registro cae dentro del solape se guardan en recientes para no contarlos dos veces.
+ *
+ * La matriz, la marca y los recientes se guardan en la instantánea de arranque (ver InstantaneaCaches):
+ * si se restauran, al arrancar solo se procesa lo registrado desde la marca en lugar del recorrido completo.
+ * Sin instantánea, el arranque reconstruye.
+ *
+ * Las consultas se hacen sin bloquear el estado publicado: reconstruir monta una matriz nueva y la
+ * cambia al terminar, y actualizar solo toma el cerrojo del estado para los cambios en memoria.
+ * Así escribir y leer no esperan a un cursor abierto, y ningún hilo virtual queda fijado a su
+ * portador esperando un monitor durante la consulta.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecomendacionesService implements ParticipanteInstantanea {
+
+    // Pares (usuario, curso) distintos con su primer registro; %1$s es > (desde) o <= (hasta)
+    private static final String PARES_USUARIO_CURSO =
+            "SELECT usuario_id, curso_id, MIN(fecha) FROM (" +
+                    "SELECT e.usuario_id, e.curso_id, e.registrado AS fecha FROM espectadores_curso e " +
+                    "WHERE e.registrado %1$s ? %2$s " +
+                    "UNION ALL " +
+                    "SELECT c.usuario_id, c.curso_id, c.fecha_creacion FROM calificaciones c " +
+                    "WHERE c.fecha_creacion %1$s ? %3$s" +
+                    ") p GROUP BY 1, 2 ORDER BY 1, 2";
+
+    private static final LocalDateTime SIN_LIMITE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CursoRepository cursoRepository;
+
+    @Value("${recomendaciones.max-pares:2000000}")
+    private int maxPares;
+
+    @Value("${recomendaciones.top-n:10}")
+    private int topN;
+
+    @Value("${recomendaciones.minimo-coincidencias:2}")
+    private int minimoCoincidencias;
+
+    @Value("${recomendaciones.solape-minutos:10}")
+    private long solapeMinutos;
+
+    // Reconstrucción y actualización de una en una; se mantiene durante las consultas
+    private final ReentrantLock calculo = new ReentrantLock();
+    // Matriz, marca y recientes frente a escribir y leer; solo durante cambios en memoria
+    private final ReentrantLock estado = new ReentrantLock();
+
+    private CoocurrenciaCursos matriz;
+    private LocalDateTime marca;
+    // Clave (usuario, curso) -> minuto de su primer registro, para los pares contados dentro del solape
+    private MapaLongInt recientes;
+
+    private volatile Map<Long, List<CoocurrenciaCursos.Vecino>> vecinos = Map.of();
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            if (restaurada()) {
+                actualizar();
+            } else {
+                reconstruir();
+            }
+        } catch (Exception e) {
+            log.error("No se pudieron calcular las recomendaciones: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recalcula la matriz desde cero (también descarta el efecto de las podas)
+     */
+    @Scheduled(cron = "${recomendaciones.reconstruccion-cron:0 30 4 * * *}")
+    public void reconstruir() {
+        calculo.lock();
+        try {
+            long inicio = System.currentTimeMillis();
+            LocalDateTime nuevaMarca = LocalDateTime.now();
+            int minutoSolape = minuto(nuevaMarca.minus(solape()));
+
+            CoocurrenciaCursos nueva = new CoocurrenciaCursos(maxPares);
+            MapaLongInt nuevosRecientes = new MapaLongInt(1024);
+            AcumuladorUsuario acumulador = new AcumuladorUsuario((usuario, cursos, n) -> nueva.agregarUsuario(cursos, n));
+            recorrerPares(">", SIN_LIMITE, null, rs -> {
+                recordarSiReciente(nuevosRecientes, rs, minutoSolape);
+                acumulador.processRow(rs);
+            });
+            acumulador.terminar();
+            Map<Long, List<CoocurrenciaCursos.Vecino>> nuevosVecinos = nueva.calcularVecinos(topN, minimoCoincidencias);
+
+            estado.lock();
+            try {
+                matriz = nueva;
+                marca = nuevaMarca;
+                recientes = nuevosRecientes;
+                vecinos = nuevosVecinos;
+            } finally {
+                estado.unlock();
+            }
+
+            log.info("Recomendaciones reconstruidas en {} ms: {} usuarios, {} pares (umbral de poda {})",
+                    System.currentTimeMillis() - inicio, acumulador.usuarios, nueva.getPares(), nueva.getUmbralPoda());
+        } finally {
+            calculo.unlock();
+        }
+    }
+
+    /**
+     * Incorpora los pares y calificaciones registrados desde la marca, con solape
+     */
+    @Scheduled(fixedDelayString = "${recomendaciones.intervalo-ms:600000}",
+            initialDelayString = "${recomendaciones.intervalo-ms:600000}")
+    public void actualizar() {
+        calculo.lock();
+        try {
+            CoocurrenciaCursos actual;
+            LocalDateTime marcaActual;
+            MapaLongInt recientesActuales;
+            estado.lock();
+            try {
+                actual = matriz;
+                marcaActual = marca;
+                recientesActuales = recientes;
+            } finally {
+                estado.unlock();
+            }
+            if (actual == null) {
+                return;
+            }
+
+            // Fuera de calculo solo leer cambia el estado, y lo sustituye entero: lo que se lea aquí
+            // de recientesActuales no cambia hasta el paso 3
+            LocalDateTime nuevaMarca = LocalDateTime.now();
+            LocalDateTime desde = marcaActual.minus(solape());
+
+            // 1. Pares con alguna fila dentro del solape, agrupados por usuario, y el primer registro de cada uno
+            Map<Long, long[]> ventana = new HashMap<>();
+            MapaLongInt minutos = new MapaLongInt(1024);
+            AcumuladorUsuario acumuladorVentana = new AcumuladorUsuario(
+                    (usuario, cursos, n) -> ventana.put(usuario, Arrays.copyOf(cursos, n)));
+            recorrerPares(">", desde, null, rs -> {
+                minutos.sumar(clave(rs.getLong(1), rs.getLong(2)), minuto(rs.getTimestamp(3).toLocalDateTime()));
+                acumuladorVentana.processRow(rs);
+            });
+            acumuladorVentana.terminar();
+
+            // Solo interesan los usuarios con algún par que no se haya contado ya. Un par de recientes
+            // anterior al solape que aún no se ha podado lo devuelve también la consulta de anteriores
+            List<Long> usuarios = ventana.entrySet().stream()
+                    .filter(e -> Arrays.stream(e.getValue()).anyMatch(curso -> recientesActuales.get(clave(e.getKey(), curso)) == 0))
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+            // 2. Lo que esos usuarios ya habían consumido antes del solape
+            Map<Long, long[]> anteriores = new HashMap<>();
+            for (int i = 0; i < usuarios.size(); i += 1000) {
+                List<Long> bloque = usuarios.subList(i, Math.min(i + 1000, usuarios.size()));
+                AcumuladorUsuario acumuladorAnteriores = new AcumuladorUsuario(
+                        (usuario, cursos, n) -> anteriores.put(usuario, Arrays.copyOf(cursos, n)));
+                recorrerPares("<=", desde, bloque, acumuladorAnteriores);
+                acumuladorAnteriores.terminar();
+            }
+
+            // 3. Contados: los anteriores y los recientes; el resto son cursos nuevos del usuario
+            int paresNuevos = 0;
+            estado.lock();
+            try {
+                if (matriz != actual) {
+                    // leer ha restaurado otra matriz mientras se consultaba: la siguiente pasada parte de ella
+                    return;
+                }
+                // Lo anterior al solape ya está contado y lo encuentra la consulta de anteriores; se redondea
+                // hacia abajo al minuto para que ningún par quede fuera de las dos
+                recientes.podar(minuto(desde));
+
+                for (Long usuario : usuarios) {
+                    long[] cursos = ventana.get(usuario);
+                    long[] previos = LongStream.concat(
+                                    Arrays.stream(anteriores.getOrDefault(usuario, new long[0])),
+                                    Arrays.stream(cursos).filter(curso -> recientes.get(clave(usuario, curso)) != 0))
+                            .distinct()
+                            .sorted()
+                            .toArray();
+                    long[] soloNuevos = Arrays.stream(cursos)
+                            .filter(curso -> Arrays.binarySearch(previos, curso) < 0)
+                            .toArray();
+                    if (soloNuevos.length > 0) {
+                        matriz.agregarNuevos(previos, previos.length, soloNuevos, soloNuevos.length);
+                        for (long curso : soloNuevos) {
+                            recientes.sumar(clave(usuario, curso), minutos.get(clave(usuario, curso)));
+                        }
+                        paresNuevos += soloNuevos.length;
+                    }
+                }
+                marca = nuevaMarca;
+            } finally {
+                estado.unlock();
+            }
+
+            // calculo impide que otra pasada cambie la matriz mientras se recorre; escribir solo la lee
+            if (paresNuevos > 0) {
+                Map<Long, List<CoocurrenciaCursos.Vecino>> nuevosVecinos = actual.calcularVecinos(topN, minimoCoincidencias);
+                estado.lock();
+                try {
+                    if (matriz == actual) {
+                        vecinos = nuevosVecinos;
+                    }
+                } finally {
+                    estado.unlock();
+                }
+            }
+
+            log.debug("Recomendaciones actualizadas: {} usuarios, {} cursos nuevos, {} pares recientes",
+                    usuarios.size(), paresNuevos, recientesActuales.size());
+        } finally {
+            calculo.unlock();
+        }
+    }
+
+    @Override
+    public String getNombre() {
+        return "recomendaciones";
+    }
+
+    @Override
+    public int getVersion() {
+        // 2: marca por fecha y pares recientes en lugar de marcas por id
+        // 3: marca y recientes por el registro del par, no por la fecha de la visualización
+        return 3;
+    }
+
+    @Override
+    public void escribir(DataOutputStream salida) throws IOException {
+        estado.lock();
+        try {
+            salida.writeBoolean(matriz != null);
+            if (matriz != null) {
+                salida.writeLong(marca.toEpochSecond(ZoneOffset.UTC));
+                matriz.escribir(salida);
+                recientes.escribir(salida);
+            }
+        } finally {
+            estado.unlock();
+        }
+    }
+
+    @Override
+    public void leer(DataInputStream entrada) throws IOException {
+        if (!entrada.readBoolean()) {
+            return;
+        }
+        LocalDateTime restauradaMarca = LocalDateTime.ofEpochSecond(entrada.readLong(), 0, ZoneOffset.UTC);
+        CoocurrenciaCursos restaurada = CoocurrenciaCursos.leer(entrada, maxPares);
+        MapaLongInt restaurados = MapaLongInt.leer(entrada, 1024);
+
+        Map<Long, List<CoocurrenciaCursos.Vecino>> vecinosRestaurados = restaurada.calcularVecinos(topN, minimoCoincidencias);
+
+        estado.lock();
+        try {
+            matriz = restaurada;
+            marca = restauradaMarca;
+            recientes = restaurados;
+            vecinos = vecinosRestaurados;
+        } finally {
+            estado.unlock();
+        }
+        log.info("Recomendaciones restauradas: {} pares, marca {}, {} pares recientes",
+                restaurada.getPares(), restauradaMarca, restaurados.size());
+    }
+
+    private boolean restaurada() {
+        estado.lock();
+        try {
+            return matriz != null;
+        } finally {
+            estado.unlock();
+        }
+    }
+
+    /**
+     * Cursos publicados más parecidos al indicado, del más al menos similar
+     */
+    @Transactional(readOnly = true)
+    public List<CursoRelacionadoResponse> obtenerRelacionados(Long cursoId, int limite) {
+        if (cursoRepository.findById(cursoId).isEmpty()) {
+            throw new ResourceNotFoundException("Curso no encontrado");
+        }
+
+        List<CoocurrenciaCursos.Vecino> candidatos = vecinos.getOrDefault(cursoId, List.of());
+        if (candidatos.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Curso> cursos = cursoRepository.findByIdIn(
+                        candidatos.stream().map(CoocurrenciaCursos.Vecino::cursoId).toList())
+                .stream()
+                .collect(Collectors.toMap(Curso::getId, Function.identity()));
+
+        return candidatos.stream()
+                .filter(v -> cursos.containsKey(v.cursoId()) && cursos.get(v.cursoId()).getPublicado())
+                .limit(limite)
+                .map(v -> convertirACursoRelacionadoResponse(cursos.get(v.cursoId()), v.similitud()))
+                .collect(Collectors.toList());
+    }
+
+    private Duration solape() {
+        return Duration.ofMinutes(solapeMinutos);
+    }
+
+    private static void recordarSiReciente(MapaLongInt recientes, ResultSet rs, int minutoSolape) throws SQLException {
+        int primera = minuto(rs.getTimestamp(3).toLocalDateTime());
+        if (primera >= minutoSolape) {
+            recientes.sumar(clave(rs.getLong(1), rs.getLong(2)), primera);
+        }
+    }
+
+    // Par (usuario, curso) en un long; los ids caben en 32 bits y el usuario nunca es 0
+    private static long clave(long usuario, long curso) {
+        return (usuario << 32) | curso;
+    }
+
+    private static int minuto(LocalDateTime fecha) {
+        return (int) (fecha.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    /**
+     * Recorre con cursor los pares (usuario, curso) distintos registrados después (">") o hasta ("<=")
+     * la indicada, opcionalmente solo para algunos usuarios
+     */
+    private void recorrerPares(String comparacion, LocalDateTime fecha, List<Long> usuarios, RowCallbackHandler handler) {
+        String sql = usuarios == null
+                ? String.format(PARES_USUARIO_CURSO, comparacion, "", "")
+                : String.format(PARES_USUARIO_CURSO, comparacion, "AND e.usuario_id = ANY (?)", "AND c.usuario_id = ANY (?)");
+        Timestamp limite = Timestamp.valueOf(fecha);
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(sql);
+                    ps.setFetchSize(10_000);
+                    int i = 1;
+                    ps.setTimestamp(i++, limite);
+                    if (usuarios != null) {
+                        Array array = con.createArrayOf("bigint", usuarios.toArray());
+                        ps.setArray(i++, array);
+                        ps.setTimestamp(i++, limite);
+                        ps.setArray(i, array);
+                    } else {
+                        ps.setTimestamp(i, limite);
+                    }
+                    return ps;
+                },
+                handler
+        ));
+    }
+
+    @FunctionalInterface
+    private interface ConsumidorUsuario {
+        void aceptar(long usuarioId, long[] cursos, int n);
+    }
+
+    /**
+     * Agrupa las filas (ordenadas por usuario y curso) y entrega los cursos de cada usuario
+     * en un buffer reutilizado
+     */
+    private static class AcumuladorUsuario implements RowCallbackHandler {
+        private final ConsumidorUsuario consumidor;
+        private long[] cursos = new long[64];
+        private int n;
+        private long usuarioActual = -1;
+        private long usuarios;
+
+        private AcumuladorUsuario(ConsumidorUsuario consumidor) {
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long usuario = rs.getLong(1);
+            long curso = rs.getLong(2);
+            if (usuario != usuarioActual) {
+                terminar();
+                usuarioActual = usuario;
+            }
+            if (n == cursos.length) {
+                cursos = Arrays.copyOf(cursos, n * 2);
+            }
+            cursos[n++] = curso;
+        }
+
+        private void terminar() {
+            if (n > 0) {
+                consumidor.aceptar(usuarioActual, cursos, n);
+                usuarios++;
+                n = 0;
+            }
+        }
+    }
+
+    private CursoRelacionadoResponse convertirACursoRelacionadoResponse(Curso curso, double similitud) {
+        return CursoRelacionadoResponse.builder()
+                .id(curso.getId())
+                .titulo(curso.getTitulo())
+                .instructor(curso.getInstructor().getNombre() + " " + curso.getInstructor().getApellido())
+                .categoria(curso.getCategoria().getNombre())
+                .imagenPortada(curso.getImagenPortada())
+                .precio(curso.getPrecio())
+                .similitud(Math.round(similitud * 1000.0) / 1000.0)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.api.repository;
+
+import org.example.api.model.Curso;
+import org.example.api.repository.projection.CalificacionesMesProjection;
+import org.example.api.repository.projection.EspectadoresCursoProjection;
+import org.example.api.repository.projection.EspectadoresTotalesProjection;
+import org.example.api.repository.projection.VistasDiaProjection;
+import org.example.api.repository.projection.VistasVideoProjection;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lecturas de los agregados de analítica (vistas_diarias_video, espectadores_curso,
+ * espectadores_totales_curso, espectadores_instructor, espectadores_totales_instructor).
+ * Todas reciben los ids de los cursos del instructor, o el del propio instructor, y resuelven el
+ * conjunto en una sentencia.
+ */
+@Repository
+public interface AnaliticaRepository extends org.springframework.data.repository.Repository<Curso, Long> {
+
+    // Vistas totales por video (embudo de abandono)
+    @Query(value = "SELECT d.video_id AS \"videoId\", SUM(d.vistas) AS \"vistas\" " +
+            "FROM vistas_diarias_video d JOIN videos vi ON vi.id = d.video_id " +
+            "WHERE vi.curso_id IN (:cursoIds) " +
+            "GROUP BY d.video_id", nativeQuery = true)
+    List<VistasVideoProjection> vistasPorVideo(@Param("cursoIds") Collection<Long> cursoIds);
+
+    // Serie diaria de vistas por curso desde la fecha indicada
+    @Query(value = "SELECT vi.curso_id AS \"cursoId\", d.dia AS \"dia\", SUM(d.vistas) AS \"vistas\" " +
+            "FROM vistas_diarias_video d JOIN videos vi ON vi.id = d.video_id " +
+            "WHERE vi.curso_id IN (:cursoIds) AND d.dia >= :desde " +
+            "GROUP BY vi.curso_id, d.dia " +
+            "ORDER BY d.dia", nativeQuery = true)
+    List<VistasDiaProjection> vistasPorDia(@Param("cursoIds") Collection<Long> cursoIds, @Param("desde") LocalDate desde);
+
+    // Espectadores únicos por curso (contador de V9__contador_espectadores.sql) y cuántos llegaron
+    // después de la fecha indicada: solo recorre el tramo reciente del índice (curso_id, primera_vista)
+    @Query(value = "SELECT t.curso_id AS \"cursoId\", t.espectadores AS \"espectadores\", " +
+            "(SELECT COUNT(*) FROM espectadores_curso e " +
+            "WHERE e.curso_id = t.curso_id AND e.primera_vista >= :desde) AS \"espectadoresNuevos\" " +
+            "FROM espectadores_totales_curso t " +
+            "WHERE t.curso_id IN (:cursoIds)", nativeQuery = true)
+    List<EspectadoresCursoProjection> espectadores(@Param("cursoIds") Collection<Long> cursoIds,
+                                                   @Param("desde") LocalDateTime desde);
+
+    // Espectadores distintos del instructor (contador de V12__espectadores_instructor.sql): un usuario que
+    // ve varios de sus cursos cuenta una vez, y es nuevo si su primera vista en cualquiera de ellos es
+    // posterior a la fecha. Como en espectadores, solo se recorre el tramo reciente del índice
+    // (instructor_id, primera_vista)
+    @Query(value = "SELECT COALESCE((SELECT espectadores FROM espectadores_totales_instructor " +
+            "WHERE instructor_id = :instructorId), 0) AS \"espectadores\", " +
+            "(SELECT COUNT(*) FROM espectadores_instructor " +
+            "WHERE instructor_id = :instructorId AND primera_vista >= :desde) AS \"espectadoresNuevos\"",
+            nativeQuery = true)
+    EspectadoresTotalesProjection espectadoresDistintos(@Param("instructorId") Long instructorId,
+                                                        @Param("desde") LocalDateTime desde);
+
+    // Evolución mensual de las calificaciones (una por usuario y curso: la tabla es pequeña)
+    @Query(value = "SELECT curso_id AS \"cursoId\", " +
+            "CAST(date_trunc('month', COALESCE(fecha_modificacion, fecha_creacion)) AS DATE) AS \"mes\", " +
+            "CAST(AVG(puntuacion) AS DOUBLE PRECISION) AS \"promedio\", COUNT(*) AS \"cantidad\" " +
+            "FROM calificaciones " +
+            "WHERE curso_id IN (:cursoIds) " +
+            "GROUP BY 1, 2 " +
+            "ORDER BY 2", nativeQuery = true)
+    List<CalificacionesMesProjection> calificacionesPorMes(@Param("cursoIds") Collection<Long> cursoIds);
+}
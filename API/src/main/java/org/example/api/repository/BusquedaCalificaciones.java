@@ -0,0 +1,24 @@
+package org.example.api.repository;
+
+import org.example.api.model.Calificacion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Búsqueda de calificaciones del administrador con filtros opcionales (implementada en BusquedaCalificacionesImpl)
+ */
+public interface BusquedaCalificaciones {
+
+    /**
+     * Calificaciones con su usuario y curso, de la modificada más recientemente a la más antigua.
+     * Las fechas se comparan con la fecha de modificación, o la de creación si nunca se modificó.
+     * Los filtros nulos no se aplican.
+     */
+    List<Calificacion> buscarConFiltros(
+            Long cursoId,
+            Long usuarioId,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta
+    );
+}
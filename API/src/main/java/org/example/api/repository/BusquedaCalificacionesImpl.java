@@ -0,0 +1,61 @@
+package org.example.api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.api.model.Calificacion;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta de la búsqueda de calificaciones construida con Criteria (ver BusquedaVisualizacionesImpl).
+ * La fecha efectiva es la misma expresión que idx_calificaciones_fecha_efectiva, así que el rango de
+ * fechas y el orden pueden usar ese índice.
+ */
+class BusquedaCalificacionesImpl implements BusquedaCalificaciones {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Calificacion> buscarConFiltros(
+            Long cursoId,
+            Long usuarioId,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Calificacion> consulta = cb.createQuery(Calificacion.class);
+        Root<Calificacion> c = consulta.from(Calificacion.class);
+        Expression<LocalDateTime> fechaEfectiva = cb.coalesce(
+                c.<LocalDateTime>get("fechaModificacion"), c.<LocalDateTime>get("fechaCreacion"));
+
+        List<Predicate> filtros = new ArrayList<>();
+        if (cursoId != null) {
+            filtros.add(cb.equal(c.get("curso").get("id"), cursoId));
+        }
+        if (usuarioId != null) {
+            filtros.add(cb.equal(c.get("usuario").get("id"), usuarioId));
+        }
+        if (fechaDesde != null) {
+            filtros.add(cb.greaterThanOrEqualTo(fechaEfectiva, fechaDesde));
+        }
+        if (fechaHasta != null) {
+            filtros.add(cb.lessThanOrEqualTo(fechaEfectiva, fechaHasta));
+        }
+
+        consulta.select(c)
+                .where(filtros.toArray(Predicate[]::new))
+                .orderBy(cb.desc(fechaEfectiva));
+
+        return entityManager.createQuery(consulta)
+                .setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph("Calificacion.listado"))
+                .getResultList();
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.api.repository;
+
+import org.example.api.model.Rol;
+import org.example.api.repository.projection.UsuarioConCursosProjection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Listado de usuarios del administrador con filtros opcionales (implementado en BusquedaUsuariosImpl)
+ */
+public interface BusquedaUsuarios {
+
+    /**
+     * Propiedades por las que se puede ordenar el listado
+     */
+    Set<String> CAMPOS_ORDENABLES = Set.of(
+            "id", "nombre", "apellido", "email", "rol", "activo", "fechaRegistro", "cursosCreados");
+
+    /**
+     * Usuarios con su número de cursos creados en una sola sentencia. Los filtros nulos no se aplican
+     * y el orden solo admite CAMPOS_ORDENABLES.
+     */
+    Page<UsuarioConCursosProjection> buscarConCursosCreados(
+            Rol rol,
+            Boolean activo,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta,
+            Pageable pageable
+    );
+}
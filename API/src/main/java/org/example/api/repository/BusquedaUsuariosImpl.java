@@ -0,0 +1,152 @@
+package org.example.api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.Value;
+import org.example.api.model.Curso;
+import org.example.api.model.Rol;
+import org.example.api.model.Usuario;
+import org.example.api.repository.projection.UsuarioConCursosProjection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta del listado de usuarios construida con Criteria: solo entran en el WHERE los filtros que
+ * llegan. Con ":rol IS NULL OR u.rol = :rol" el plan tiene que servir para cualquier valor y
+ * Postgres no usa los índices de V5; así ve los predicados reales.
+ */
+class BusquedaUsuariosImpl implements BusquedaUsuarios {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<UsuarioConCursosProjection> buscarConCursosCreados(
+            Rol rol,
+            Boolean activo,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta,
+            Pageable pageable) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Usuario> u = consulta.from(Usuario.class);
+        Join<Usuario, Curso> c = u.join("cursosCreados", JoinType.LEFT);
+        Expression<Long> cursosCreados = cb.count(c.get("id"));
+
+        List<Path<?>> columnas = List.of(
+                u.get("id"), u.get("nombre"), u.get("apellido"), u.get("email"),
+                u.get("rol"), u.get("activo"), u.get("fechaRegistro"));
+        List<Selection<?>> seleccion = new ArrayList<>(columnas);
+        seleccion.add(cursosCreados);
+
+        consulta.multiselect(seleccion)
+                .where(filtros(cb, u, rol, activo, fechaDesde, fechaHasta))
+                .groupBy(new ArrayList<Expression<?>>(columnas))
+                .orderBy(orden(cb, u, cursosCreados, pageable.getSort()));
+
+        TypedQuery<Tuple> query = entityManager.createQuery(consulta);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        List<UsuarioConCursosProjection> contenido = query.getResultList().stream()
+                .<UsuarioConCursosProjection>map(t -> new UsuarioConCursos(
+                        t.get(0, Long.class),
+                        t.get(1, String.class),
+                        t.get(2, String.class),
+                        t.get(3, String.class),
+                        t.get(4, Rol.class),
+                        t.get(5, Boolean.class),
+                        t.get(6, LocalDateTime.class),
+                        t.get(7, Long.class)))
+                .toList();
+
+        return PageableExecutionUtils.getPage(contenido, pageable,
+                () -> contar(rol, activo, fechaDesde, fechaHasta));
+    }
+
+    private long contar(Rol rol, Boolean activo, LocalDateTime fechaDesde, LocalDateTime fechaHasta) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> consulta = cb.createQuery(Long.class);
+        Root<Usuario> u = consulta.from(Usuario.class);
+        consulta.select(cb.count(u)).where(filtros(cb, u, rol, activo, fechaDesde, fechaHasta));
+        return entityManager.createQuery(consulta).getSingleResult();
+    }
+
+    private static Predicate[] filtros(
+            CriteriaBuilder cb,
+            Root<Usuario> u,
+            Rol rol,
+            Boolean activo,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta) {
+
+        List<Predicate> filtros = new ArrayList<>();
+        if (rol != null) {
+            filtros.add(cb.equal(u.get("rol"), rol));
+        }
+        if (activo != null) {
+            filtros.add(cb.equal(u.get("activo"), activo));
+        }
+        if (fechaDesde != null) {
+            filtros.add(cb.greaterThanOrEqualTo(u.get("fechaRegistro"), fechaDesde));
+        }
+        if (fechaHasta != null) {
+            filtros.add(cb.lessThanOrEqualTo(u.get("fechaRegistro"), fechaHasta));
+        }
+        return filtros.toArray(Predicate[]::new);
+    }
+
+    /**
+     * Orden pedido más el id para que las páginas sean estables. El servicio ya ha comprobado que
+     * las propiedades están en CAMPOS_ORDENABLES.
+     */
+    private static List<Order> orden(CriteriaBuilder cb, Root<Usuario> u, Expression<Long> cursosCreados, Sort sort) {
+        List<Order> orden = new ArrayList<>();
+        boolean conId = false;
+        for (Sort.Order o : sort) {
+            if (!CAMPOS_ORDENABLES.contains(o.getProperty())) {
+                throw new IllegalArgumentException("No se puede ordenar por " + o.getProperty());
+            }
+            Expression<?> expresion = o.getProperty().equals("cursosCreados") ? cursosCreados : u.get(o.getProperty());
+            orden.add(o.isAscending() ? cb.asc(expresion) : cb.desc(expresion));
+            conId |= o.getProperty().equals("id");
+        }
+        if (!conId) {
+            orden.add(cb.asc(u.get("id")));
+        }
+        return orden;
+    }
+
+    @Value
+    private static class UsuarioConCursos implements UsuarioConCursosProjection {
+        Long id;
+        String nombre;
+        String apellido;
+        String email;
+        Rol rol;
+        Boolean activo;
+        LocalDateTime fechaRegistro;
+        Long cursosCreados;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.api.repository;
+
+import org.example.api.model.Visualizacion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Búsqueda de visualizaciones del administrador con filtros opcionales (implementada en BusquedaVisualizacionesImpl)
+ */
+public interface BusquedaVisualizaciones {
+
+    /**
+     * Visualizaciones con su video y usuario, de la más reciente a la más antigua. Los filtros nulos no se aplican.
+     */
+    List<Visualizacion> buscarConFiltros(
+            Long videoId,
+            Long usuarioId,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta
+    );
+}
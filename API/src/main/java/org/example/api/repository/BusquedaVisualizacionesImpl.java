@@ -0,0 +1,59 @@
+package org.example.api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.api.model.Visualizacion;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta de la búsqueda de visualizaciones construida con Criteria, como BusquedaUsuariosImpl: solo
+ * entran en el WHERE los filtros que llegan, así cada combinación usa su índice de V2 y la poda de
+ * particiones por fecha. Con ":fechaDesde IS NULL OR ..." Postgres además no puede deducir el tipo de
+ * un parámetro que llega nulo y rechaza la sentencia.
+ */
+class BusquedaVisualizacionesImpl implements BusquedaVisualizaciones {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Visualizacion> buscarConFiltros(
+            Long videoId,
+            Long usuarioId,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Visualizacion> consulta = cb.createQuery(Visualizacion.class);
+        Root<Visualizacion> v = consulta.from(Visualizacion.class);
+
+        List<Predicate> filtros = new ArrayList<>();
+        if (videoId != null) {
+            filtros.add(cb.equal(v.get("video").get("id"), videoId));
+        }
+        if (usuarioId != null) {
+            filtros.add(cb.equal(v.get("usuario").get("id"), usuarioId));
+        }
+        if (fechaDesde != null) {
+            filtros.add(cb.greaterThanOrEqualTo(v.get("fechaVisualizacion"), fechaDesde));
+        }
+        if (fechaHasta != null) {
+            filtros.add(cb.lessThanOrEqualTo(v.get("fechaVisualizacion"), fechaHasta));
+        }
+
+        consulta.select(v)
+                .where(filtros.toArray(Predicate[]::new))
+                .orderBy(cb.desc(v.get("fechaVisualizacion")));
+
+        return entityManager.createQuery(consulta)
+                .setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph("Visualizacion.registro"))
+                .getResultList();
+    }
+}
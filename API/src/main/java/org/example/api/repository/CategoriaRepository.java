@@ -1,13 +1,22 @@
 package org.example.api.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.api.model.Categoria;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
     Optional<Categoria> findByNombre(String nombre);
     Boolean existsByNombre(String nombre);
+
+    // Listado de categorías desde la caché de consultas de Hibernate
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Categoria> findAll();
 }
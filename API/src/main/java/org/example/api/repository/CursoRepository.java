@@ -3,37 +3,67 @@ package org.example.api.repository;
 import org.example.api.model.Categoria;
 import org.example.api.model.Curso;
 import org.example.api.model.Usuario;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CursoRepository extends JpaRepository<Curso, Long> {
+    @EntityGraph("Curso.tarjeta")
     List<Curso> findByPublicadoTrue();
+
+    @EntityGraph("Curso.tarjeta")
     List<Curso> findByInstructor(Usuario instructor);
+
+    @EntityGraph("Curso.tarjeta")
+    List<Curso> findByIdIn(Collection<Long> ids);
+
+    long countByInstructorId(Long instructorId);
+    boolean existsByInstructorId(Long instructorId);
+
+    @EntityGraph("Curso.tarjeta")
     List<Curso> findByCategoria(Categoria categoria);
+
+    @EntityGraph("Curso.tarjeta")
     List<Curso> findByCategoriaAndPublicadoTrue(Categoria categoria);
 
+    @Override
+    @EntityGraph("Curso.tarjeta")
+    List<Curso> findAll();
+
+    // Curso con instructor, categoría y videos en una sola consulta
+    @EntityGraph("Curso.detalle")
+    Optional<Curso> findDetalleById(Long id);
+
+    @EntityGraph("Curso.tarjeta")
     @Query("SELECT c FROM Curso c WHERE c.publicado = true AND " +
             "(LOWER(c.titulo) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(c.descripcion) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     List<Curso> buscarCursos(@Param("keyword") String keyword);
 
+    @EntityGraph("Curso.tarjeta")
     @Query("SELECT c FROM Curso c WHERE c.publicado = true AND c.categoria.id = :categoriaId AND " +
             "(LOWER(c.titulo) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(c.descripcion) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     List<Curso> buscarCursosPorCategoria(@Param("keyword") String keyword, @Param("categoriaId") Long categoriaId);
 
 
+    // Las vistas de los meses archivados cuentan igual que las de las particiones vivas
     @Query(value = "SELECT c.* FROM cursos c " +
-            "LEFT JOIN videos v ON v.curso_id = c.id " +
-            "LEFT JOIN visualizaciones vis ON vis.video_id = v.id " +
+            "LEFT JOIN (SELECT v.curso_id, COUNT(*) AS vistas FROM visualizaciones vis " +
+            "           JOIN videos v ON v.id = vis.video_id GROUP BY v.curso_id " +
+            "           UNION ALL " +
+            "           SELECT v.curso_id, a.vistas FROM vistas_archivadas_video a " +
+            "           JOIN videos v ON v.id = a.video_id) t ON t.curso_id = c.id " +
             "WHERE c.publicado = true " +
             "GROUP BY c.id " +
-            "ORDER BY COUNT(vis.id) DESC " +
+            "ORDER BY COALESCE(SUM(t.vistas), 0) DESC " +
             "LIMIT 3", nativeQuery = true)
     List<Curso> findTop3CursosConMasVistas();
 }
@@ -0,0 +1,25 @@
+package org.example.api.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.api.model.EmbudoVideo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmbudoVideoRepository extends JpaRepository<EmbudoVideo, Long> {
+
+    // Solo los ids: cargar las entidades antes de bloquearlas dejaría en la sesión su estado sin bloqueo
+    @Query("SELECT e.videoId FROM EmbudoVideo e WHERE e.videoId IN :videoIds")
+    List<Long> buscarExistentes(@Param("videoIds") Collection<Long> videoIds);
+
+    // Volcado de los espectadores pendientes: bloquea las filas (en orden de video) hasta el commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM EmbudoVideo e WHERE e.videoId IN :videoIds ORDER BY e.videoId")
+    List<EmbudoVideo> bloquear(@Param("videoIds") Collection<Long> videoIds);
+}
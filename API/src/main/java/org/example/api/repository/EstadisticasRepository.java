@@ -0,0 +1,33 @@
+package org.example.api.repository;
+
+import org.example.api.model.Usuario;
+import org.example.api.repository.projection.EstadisticasProjection;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Consultas agregadas que abarcan varias tablas (no gestiona ninguna entidad propia)
+ */
+@Repository
+public interface EstadisticasRepository extends org.springframework.data.repository.Repository<Usuario, Long> {
+
+    // Todos los conteos del panel en una sola sentencia, sin cargar entidades
+    @Query(value = "SELECT u.total AS \"totalUsuarios\", " +
+            "u.estudiantes AS \"estudiantes\", " +
+            "u.instructores AS \"instructores\", " +
+            "c.total AS \"totalCursos\", " +
+            "c.publicados AS \"cursosPublicados\", " +
+            "(SELECT COUNT(*) FROM videos) AS \"totalVideos\", " +
+            "(SELECT COUNT(*) FROM categorias) AS \"totalCategorias\", " +
+            "(SELECT COUNT(*) FROM calificaciones) AS \"totalCalificaciones\", " +
+            "(SELECT COUNT(*) FROM visualizaciones) " +
+            "+ (SELECT COALESCE(SUM(vistas), 0) FROM vistas_archivadas_video)::BIGINT AS \"totalVisualizaciones\" " +
+            "FROM (SELECT COUNT(*) AS total, " +
+            "      COUNT(*) FILTER (WHERE rol = 'ESTUDIANTE') AS estudiantes, " +
+            "      COUNT(*) FILTER (WHERE rol = 'INSTRUCTOR') AS instructores " +
+            "      FROM usuarios) u " +
+            "CROSS JOIN (SELECT COUNT(*) AS total, " +
+            "      COUNT(*) FILTER (WHERE publicado) AS publicados " +
+            "      FROM cursos) c", nativeQuery = true)
+    EstadisticasProjection obtenerEstadisticas();
+}
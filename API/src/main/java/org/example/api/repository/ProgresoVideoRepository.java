@@ -0,0 +1,34 @@
+package org.example.api.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.api.model.ProgresoVideo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProgresoVideoRepository extends JpaRepository<ProgresoVideo, Long> {
+
+    // Escritura agrupada de los progresos pendientes de un usuario: bloquea las filas (en orden de
+    // video, para que dos volcados del mismo usuario no se bloqueen en cruce) hasta el commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProgresoVideo p WHERE p.usuario.id = :usuarioId AND p.video.id IN :videoIds ORDER BY p.video.id")
+    List<ProgresoVideo> bloquearPorUsuarioYVideos(@Param("usuarioId") Long usuarioId, @Param("videoIds") Collection<Long> videoIds);
+
+    // Progreso del usuario en los videos de un curso
+    @Query("SELECT p FROM ProgresoVideo p WHERE p.usuario.id = :usuarioId AND p.video.curso.id = :cursoId")
+    List<ProgresoVideo> buscarPorUsuarioYCurso(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
+
+    // "Continuar viendo": videos empezados y sin completar, los más recientes primero
+    @EntityGraph("ProgresoVideo.conVideoYCurso")
+    @Query("SELECT p FROM ProgresoVideo p WHERE p.usuario.id = :usuarioId AND p.completado = false " +
+            "ORDER BY p.fechaActualizacion DESC")
+    List<ProgresoVideo> buscarEnCurso(@Param("usuarioId") Long usuarioId, Pageable pageable);
+}
@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, BusquedaUsuarios {
     Optional<Usuario> findByEmail(String email);
     Boolean existsByEmail(String email);
 }
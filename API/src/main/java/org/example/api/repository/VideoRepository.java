@@ -2,14 +2,22 @@ package org.example.api.repository;
 
 import org.example.api.model.Curso;
 import org.example.api.model.Video;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface VideoRepository extends JpaRepository<Video, Long> {
     List<Video> findByCursoOrderByOrdenAsc(Curso curso);
     List<Video> findByCursoIdOrderByOrdenAsc(Long cursoId);
+    List<Video> findByCursoIdInOrderByCursoIdAscOrdenAsc(Collection<Long> cursoIds);
     boolean existsByCursoIdAndOrden(Long cursoId, Integer orden);
+
+    // Video junto con su curso (para validar el instructor propietario)
+    @EntityGraph("Video.conCurso")
+    Optional<Video> findConCursoById(Long id);
 }
\ No newline at end of file
@@ -1,48 +1,68 @@
 package org.example.api.repository;
 
 import org.example.api.model.Visualizacion;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface VisualizacionRepository extends JpaRepository<Visualizacion, Long> {
+public interface VisualizacionRepository extends JpaRepository<Visualizacion, Long>, BusquedaVisualizaciones {
 
-    // Contar vistas totales de un video
-    Long countByVideoId(Long videoId);
+    // Contar vistas totales de un video (las de los meses archivados están en vistas_archivadas_video)
+    @Query(value = "SELECT (SELECT COUNT(*) FROM visualizaciones WHERE video_id = :videoId) " +
+            "+ COALESCE((SELECT vistas FROM vistas_archivadas_video WHERE video_id = :videoId), 0)", nativeQuery = true)
+    Long countByVideoId(@Param("videoId") Long videoId);
 
     // Obtener todas las visualizaciones de un video
+    @EntityGraph("Visualizacion.registro")
     List<Visualizacion> findByVideoId(Long videoId);
 
     // Para futuro: historial del usuario
+    @EntityGraph("Visualizacion.registro")
     List<Visualizacion> findByUsuarioIdOrderByFechaVisualizacionDesc(Long usuarioId);
 
+    // Para admin: listado completo
+    @Override
+    @EntityGraph("Visualizacion.registro")
+    List<Visualizacion> findAll();
+
     // Contar vistas de un usuario
     Long countByUsuarioId(Long usuarioId);
 
     // Contar vistas totales de todos los videos de un curso
-    @Query("SELECT COUNT(v) FROM Visualizacion v WHERE v.video.curso.id = :cursoId")
+    @Query(value = "SELECT (SELECT COUNT(*) FROM visualizaciones vis JOIN videos v ON v.id = vis.video_id " +
+            "WHERE v.curso_id = :cursoId) " +
+            "+ (SELECT COALESCE(SUM(a.vistas), 0) FROM vistas_archivadas_video a JOIN videos v ON v.id = a.video_id " +
+            "WHERE v.curso_id = :cursoId)::BIGINT", nativeQuery = true)
     Long countByCursoId(@Param("cursoId") Long cursoId);
 
-    // Para admin: buscar con filtros
-    @Query("SELECT v FROM Visualizacion v WHERE " +
-            "(:videoId IS NULL OR v.video.id = :videoId) AND " +
-            "(:usuarioId IS NULL OR v.usuario.id = :usuarioId) AND " +
-            "(:fechaDesde IS NULL OR v.fechaVisualizacion >= :fechaDesde) AND " +
-            "(:fechaHasta IS NULL OR v.fechaVisualizacion <= :fechaHasta) " +
-            "ORDER BY v.fechaVisualizacion DESC")
-    List<Visualizacion> buscarConFiltros(
-            @Param("videoId") Long videoId,
-            @Param("usuarioId") Long usuarioId,
-            @Param("fechaDesde") LocalDateTime fechaDesde,
-            @Param("fechaHasta") LocalDateTime fechaHasta
-    );
+    // Vistas totales de varios cursos a la vez (hitos en la ingesta por lotes)
+    @Query(value = "SELECT t.curso_id, SUM(t.vistas)::BIGINT FROM (" +
+            "SELECT v.curso_id, COUNT(*) AS vistas FROM visualizaciones vis JOIN videos v ON v.id = vis.video_id " +
+            "WHERE v.curso_id IN (:cursoIds) GROUP BY v.curso_id " +
+            "UNION ALL " +
+            "SELECT v.curso_id, a.vistas FROM vistas_archivadas_video a JOIN videos v ON v.id = a.video_id " +
+            "WHERE v.curso_id IN (:cursoIds)) t " +
+            "GROUP BY t.curso_id", nativeQuery = true)
+    List<Object[]> contarPorCursos(@Param("cursoIds") Collection<Long> cursoIds);
+
+    // Vistas por video de un curso (estado inicial de los contadores en vivo)
+    @Query(value = "SELECT t.video_id, SUM(t.vistas)::BIGINT FROM (" +
+            "SELECT vis.video_id, COUNT(*) AS vistas FROM visualizaciones vis JOIN videos v ON v.id = vis.video_id " +
+            "WHERE v.curso_id = :cursoId GROUP BY vis.video_id " +
+            "UNION ALL " +
+            "SELECT a.video_id, a.vistas FROM vistas_archivadas_video a JOIN videos v ON v.id = a.video_id " +
+            "WHERE v.curso_id = :cursoId) t " +
+            "GROUP BY t.video_id", nativeQuery = true)
+    List<Object[]> contarPorVideoDeCurso(@Param("cursoId") Long cursoId);
 
     // Estadísticas generales
-    @Query("SELECT COUNT(v) FROM Visualizacion v")
+    @Query(value = "SELECT (SELECT COUNT(*) FROM visualizaciones) " +
+            "+ (SELECT COALESCE(SUM(vistas), 0) FROM vistas_archivadas_video)::BIGINT", nativeQuery = true)
     Long contarTotalVisualizaciones();
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package org.example.api.repository.projection;
+
+import java.time.LocalDate;
+
+public interface CalificacionesMesProjection {
+    Long getCursoId();
+    LocalDate getMes();
+    Double getPromedio();
+    Long getCantidad();
+}
@@ -0,0 +1,7 @@
+package org.example.api.repository.projection;
+
+public interface EspectadoresCursoProjection {
+    Long getCursoId();
+    Long getEspectadores();
+    Long getEspectadoresNuevos();
+}
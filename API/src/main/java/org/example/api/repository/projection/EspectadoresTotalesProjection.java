@@ -0,0 +1,6 @@
+package org.example.api.repository.projection;
+
+public interface EspectadoresTotalesProjection {
+    Long getEspectadores();
+    Long getEspectadoresNuevos();
+}
@@ -0,0 +1,16 @@
+package org.example.api.repository.projection;
+
+/**
+ * Conteos globales del panel de administración, calculados en una sola consulta
+ */
+public interface EstadisticasProjection {
+    Long getTotalUsuarios();
+    Long getEstudiantes();
+    Long getInstructores();
+    Long getTotalCursos();
+    Long getCursosPublicados();
+    Long getTotalVideos();
+    Long getTotalCategorias();
+    Long getTotalCalificaciones();
+    Long getTotalVisualizaciones();
+}
@@ -0,0 +1,19 @@
+package org.example.api.repository.projection;
+
+import org.example.api.model.Rol;
+
+import java.time.LocalDateTime;
+
+/**
+ * Usuario con el número de cursos que ha creado, sin cargar la colección cursosCreados
+ */
+public interface UsuarioConCursosProjection {
+    Long getId();
+    String getNombre();
+    String getApellido();
+    String getEmail();
+    Rol getRol();
+    Boolean getActivo();
+    LocalDateTime getFechaRegistro();
+    Long getCursosCreados();
+}
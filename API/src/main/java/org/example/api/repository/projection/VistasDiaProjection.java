@@ -0,0 +1,9 @@
+package org.example.api.repository.projection;
+
+import java.time.LocalDate;
+
+public interface VistasDiaProjection {
+    Long getCursoId();
+    LocalDate getDia();
+    Long getVistas();
+}
@@ -0,0 +1,6 @@
+package org.example.api.repository.projection;
+
+public interface VistasVideoProjection {
+    Long getVideoId();
+    Long getVistas();
+}
@@ -0,0 +1,104 @@
+package org.example.api.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.exception.TooManyRequestsException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt ejecutado en un pool propio del tamaño de la CPU con cola acotada.
+ * El hilo de la petición sigue esperando a su propio hash, pero como mucho hilos + cola peticiones
+ * pueden estar esperando a la vez (y su espera queda acotada por la longitud de la cola): cuando el
+ * pool y la cola están llenos se rechaza al momento con 429, sin esperar, y una avalancha de logins
+ * no acapara los hilos que atienden el resto de endpoints.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Pattern COSTE_BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$.{53}");
+
+    private final BCryptPasswordEncoder delegado;
+    private final int coste;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(int coste, int hilos, int cola) {
+        this.delegado = new BCryptPasswordEncoder(coste);
+        this.coste = coste;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                hilos, hilos,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola),
+                r -> {
+                    Thread hilo = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> delegado.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(() -> delegado.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Se rehace el hash en el siguiente login siempre que su coste no coincida con el configurado,
+     * tanto si se ha subido como si se ha bajado.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = COSTE_BCRYPT.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != coste;
+    }
+
+    private <T> T ejecutar(Callable<T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(tarea);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Demasiadas solicitudes de autenticación, inténtalo de nuevo en unos segundos");
+        }
+
+        // Sin timeout: una vez admitido el hash se calcula igualmente (BCrypt no atiende interrupciones),
+        // así que rechazar tarde solo desperdiciaría el trabajo. La cola acotada limita la espera.
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            // Si aún no ha empezado sale de la cola; si ya está en marcha termina en su hilo
+            futuro.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido durante el cálculo del hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getPendientes() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
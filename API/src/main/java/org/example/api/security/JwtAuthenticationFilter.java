@@ -5,6 +5,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.example.api.observability.FasesPeticion;
+import org.example.api.observability.jfr.ValidacionJwtEvento;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -41,11 +43,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        long inicio = System.nanoTime();
+        ValidacionJwtEvento evento = new ValidacionJwtEvento();
+        evento.begin();
+        evento.resultado = "invalido";
         try {
             final String jwt = authHeader.substring(7);
             final String userEmail = jwtService.extractUsername(jwt);
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() != null) {
+                evento.resultado = "ya-autenticado";
+            } else if (userEmail != null) {
                 UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
 
                 if (jwtService.isTokenValid(jwt, userDetails)) {
@@ -56,10 +64,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    evento.resultado = "valido";
                 }
             }
         } catch (Exception e) {
+            evento.resultado = "error";
             logger.error("Error al procesar el token JWT", e);
+        } finally {
+            FasesPeticion.sumar(FasesPeticion.Fase.AUTH, inicio);
+            evento.commit();
         }
 
         filterChain.doFilter(request, response);
@@ -1,5 +1,6 @@
 package org.example.api.service;
 
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import org.example.api.dto.CursoResponse;
 import org.example.api.dto.UsuarioRequest;
@@ -7,17 +8,27 @@ import org.example.api.dto.UsuarioResponse;
 import org.example.api.exception.BadRequestException;
 import org.example.api.exception.ResourceNotFoundException;
 import org.example.api.model.Curso;
+import org.example.api.model.Rol;
 import org.example.api.model.Usuario;
 import org.example.api.model.Video;
 import org.example.api.repository.*;
+import org.example.api.repository.projection.UsuarioConCursosProjection;
 import org.example.api.upbolisIntegration.UpbolisApiService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -30,25 +41,48 @@ public class AdminService {
     private final VideoRepository videoRepository;
     private final PasswordEncoder passwordEncoder;
     private final StorageService storageService;
-    private final CalificacionRepository calificacionRepository;
-    private final CategoriaRepository categoriaRepository;
     private final VisualizacionRepository visualizacionRepository;
     private final UpbolisApiService upbolisApiService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EstadisticasService estadisticasService;
 
     // ==================== GESTIÓN DE USUARIOS ====================
 
     @Transactional(readOnly = true)
     public List<UsuarioResponse> obtenerTodosLosUsuarios() {
-        return usuarioRepository.findAll().stream()
+        return usuarioRepository.buscarConCursosCreados(null, null, null, null, Pageable.unpaged(Sort.by("id")))
                 .map(this::convertirAUsuarioResponse)
-                .collect(Collectors.toList());
+                .getContent();
+    }
+
+    /**
+     * Listado paginado de usuarios con filtros opcionales por rol, estado y fecha de registro
+     */
+    @Transactional(readOnly = true)
+    public Page<UsuarioResponse> buscarUsuarios(
+            Rol rol,
+            Boolean activo,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta,
+            Pageable pageable) {
+
+        // Una propiedad desconocida en ?sort= es un error del cliente, no un 500 de la consulta
+        for (Sort.Order orden : pageable.getSort()) {
+            if (!BusquedaUsuarios.CAMPOS_ORDENABLES.contains(orden.getProperty())) {
+                throw new BadRequestException("No se puede ordenar por '" + orden.getProperty()
+                        + "'. Campos válidos: " + String.join(", ", new TreeSet<>(BusquedaUsuarios.CAMPOS_ORDENABLES)));
+            }
+        }
+
+        return usuarioRepository.buscarConCursosCreados(rol, activo, fechaDesde, fechaHasta, pageable)
+                .map(this::convertirAUsuarioResponse);
     }
 
     @Transactional(readOnly = true)
     public UsuarioResponse obtenerUsuarioPorId(Long id) {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-        return convertirAUsuarioResponse(usuario);
+        return convertirAUsuarioResponse(usuario, cursoRepository.countByInstructorId(id));
     }
 
     @Transactional
@@ -73,7 +107,7 @@ public class AdminService {
         // En producción, aquí enviarías un email con la contraseña temporal
         System.out.println("Contraseña temporal para " + request.getEmail() + ": " + passwordTemporal);
 
-        return convertirAUsuarioResponse(usuario);
+        return convertirAUsuarioResponse(usuario, 0);
     }
 
     @Transactional
@@ -93,7 +127,7 @@ public class AdminService {
         usuario.setActivo(request.getActivo());
 
         usuario = usuarioRepository.save(usuario);
-        return convertirAUsuarioResponse(usuario);
+        return convertirAUsuarioResponse(usuario, cursoRepository.countByInstructorId(id));
     }
 
     @Transactional
@@ -110,7 +144,7 @@ public class AdminService {
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
         // Verificar si tiene cursos
-        if (usuario.getCursosCreados() != null && !usuario.getCursosCreados().isEmpty()) {
+        if (cursoRepository.existsByInstructorId(id)) {
             throw new BadRequestException("No se puede eliminar un usuario con cursos creados. Primero elimina sus cursos.");
         }
 
@@ -177,46 +211,56 @@ public class AdminService {
 
     // ==================== ESTADÍSTICAS ====================
 
-    @Transactional(readOnly = true)
     public Map<String, Object> obtenerEstadisticas() {
-        Map<String, Object> stats = new HashMap<>();
-
-        long totalUsuarios = usuarioRepository.count();
-        long totalCursos = cursoRepository.count();
-        long cursosPublicados = cursoRepository.findByPublicadoTrue().size();
-        long totalVideos = videoRepository.count();
-
-        long estudiantes = usuarioRepository.findAll().stream()
-                .filter(u -> u.getRol().name().equals("ESTUDIANTE"))
-                .count();
-
-        long instructores = usuarioRepository.findAll().stream()
-                .filter(u -> u.getRol().name().equals("INSTRUCTOR"))
-                .count();
-
-        long totalCategorias = categoriaRepository.count();
-        long totalCalificaciones = calificacionRepository.count();
-
-        // 🆕 Agregar total de visualizaciones
-        long totalVisualizaciones = visualizacionRepository.contarTotalVisualizaciones();
-
-        stats.put("totalUsuarios", totalUsuarios);
-        stats.put("totalCursos", totalCursos);
-        stats.put("cursosPublicados", cursosPublicados);
-        stats.put("cursosBorrador", totalCursos - cursosPublicados);
-        stats.put("totalVideos", totalVideos);
-        stats.put("estudiantes", estudiantes);
-        stats.put("instructores", instructores);
-        stats.put("totalCategorias", totalCategorias);
-        stats.put("totalCalificaciones", totalCalificaciones);
-        stats.put("totalVisualizaciones", totalVisualizaciones);
-
-        return stats;
+        return estadisticasService.obtenerEstadisticas();
+    }
+
+    /**
+     * Estadísticas de la caché de segundo nivel y de la caché de consultas de Hibernate
+     */
+    public Map<String, Object> obtenerEstadisticasCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regiones = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = statistics.getDomainDataRegionStatistics(region);
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("aciertos", regionStats.getHitCount());
+            datos.put("fallos", regionStats.getMissCount());
+            datos.put("escrituras", regionStats.getPutCount());
+            datos.put("elementosEnMemoria", regionStats.getElementCountInMemory());
+            regiones.put(region, datos);
+        }
+
+        Map<String, Object> consultas = new LinkedHashMap<>();
+        consultas.put("aciertos", statistics.getQueryCacheHitCount());
+        consultas.put("fallos", statistics.getQueryCacheMissCount());
+        consultas.put("escrituras", statistics.getQueryCachePutCount());
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("estadisticasHabilitadas", statistics.isStatisticsEnabled());
+        resultado.put("regiones", regiones);
+        resultado.put("cacheConsultas", consultas);
+        resultado.put("sentenciasPreparadas", statistics.getPrepareStatementCount());
+        return resultado;
     }
 
     // ==================== MÉTODOS AUXILIARES ====================
 
-    private UsuarioResponse convertirAUsuarioResponse(Usuario usuario) {
+    private UsuarioResponse convertirAUsuarioResponse(Usuario usuario, long cursosCreados) {
+        return UsuarioResponse.builder()
+                .id(usuario.getId())
+                .nombre(usuario.getNombre())
+                .apellido(usuario.getApellido())
+                .email(usuario.getEmail())
+                .rol(usuario.getRol())
+                .activo(usuario.getActivo())
+                .fechaRegistro(usuario.getFechaRegistro())
+                .cursosCreados((int) cursosCreados)
+                .build();
+    }
+
+    private UsuarioResponse convertirAUsuarioResponse(UsuarioConCursosProjection usuario) {
         return UsuarioResponse.builder()
                 .id(usuario.getId())
                 .nombre(usuario.getNombre())
@@ -225,7 +269,7 @@ public class AdminService {
                 .rol(usuario.getRol())
                 .activo(usuario.getActivo())
                 .fechaRegistro(usuario.getFechaRegistro())
-                .cursosCreados(usuario.getCursosCreados() != null ? usuario.getCursosCreados().size() : 0)
+                .cursosCreados(usuario.getCursosCreados().intValue())
                 .build();
     }
 
@@ -3,13 +3,20 @@ package org.example.api.service;
 import lombok.RequiredArgsConstructor;
 import org.example.api.dto.VisualizacionResponse;
 import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.model.Usuario;
+import org.example.api.model.Video;
 import org.example.api.model.Visualizacion;
+import org.example.api.repository.UsuarioRepository;
+import org.example.api.repository.VideoRepository;
 import org.example.api.repository.VisualizacionRepository;
+import org.example.api.service.ArchivoVisualizacionesService.VisualizacionArchivada;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,9 +24,13 @@ import java.util.stream.Collectors;
 public class AdminVisualizacionService {
 
     private final VisualizacionRepository visualizacionRepository;
+    private final VideoRepository videoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ArchivoVisualizacionesService archivoVisualizacionesService;
 
     /**
      * Obtener todas las visualizaciones con filtros opcionales
+     * Si fechaDesde cae en meses ya archivados, también se leen esos meses del archivo
      */
     public List<VisualizacionResponse> obtenerVisualizaciones(
             Long videoId,
@@ -39,9 +50,79 @@ public class AdminVisualizacionService {
             visualizaciones = visualizacionRepository.findAll();
         }
 
-        return visualizaciones.stream()
+        List<VisualizacionResponse> resultado = visualizaciones.stream()
                 .map(this::convertirAVisualizacionResponse)
                 .collect(Collectors.toList());
+
+        if (fechaDesde != null) {
+            List<VisualizacionResponse> archivadas = buscarEnArchivo(videoId, usuarioId, fechaDesde, fechaHasta);
+            if (!archivadas.isEmpty()) {
+                resultado.addAll(archivadas);
+                resultado.sort(Comparator.comparing(VisualizacionResponse::getFechaVisualizacion).reversed());
+            }
+        }
+
+        return resultado;
+    }
+
+    private List<VisualizacionResponse> buscarEnArchivo(
+            Long videoId,
+            Long usuarioId,
+            LocalDateTime fechaDesde,
+            LocalDateTime fechaHasta) {
+
+        YearMonth desde = YearMonth.from(fechaDesde);
+        YearMonth hasta = fechaHasta != null ? YearMonth.from(fechaHasta) : YearMonth.now();
+
+        List<VisualizacionArchivada> archivadas = new ArrayList<>();
+        for (YearMonth mes : archivoVisualizacionesService.mesesArchivados()) {
+            if (mes.isBefore(desde) || mes.isAfter(hasta)) {
+                continue;
+            }
+            archivadas.addAll(archivoVisualizacionesService.leer(mes, v ->
+                    (videoId == null || videoId.equals(v.getVideoId())) &&
+                    (usuarioId == null || usuarioId.equals(v.getUsuarioId())) &&
+                    !v.getFechaVisualizacion().isBefore(fechaDesde) &&
+                    (fechaHasta == null || !v.getFechaVisualizacion().isAfter(fechaHasta))
+            ));
+        }
+
+        if (archivadas.isEmpty()) {
+            return List.of();
+        }
+
+        // Resolver títulos y nombres con una consulta por tabla, no por fila
+        Map<Long, Video> videos = videoRepository.findAllById(archivadas.stream()
+                        .map(VisualizacionArchivada::getVideoId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Video::getId, Function.identity()));
+
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllById(archivadas.stream()
+                        .map(VisualizacionArchivada::getUsuarioId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+
+        return archivadas.stream()
+                .map(v -> {
+                    Video video = videos.get(v.getVideoId());
+                    Usuario usuario = v.getUsuarioId() != null ? usuarios.get(v.getUsuarioId()) : null;
+
+                    return VisualizacionResponse.builder()
+                            .id(v.getId())
+                            .videoId(v.getVideoId())
+                            .videoTitulo(video != null ? video.getTitulo() : null)
+                            .usuarioId(v.getUsuarioId())
+                            .nombreUsuario(usuario != null
+                                    ? usuario.getNombre() + " " + usuario.getApellido()
+                                    : "Anónimo")
+                            .fechaVisualizacion(v.getFechaVisualizacion())
+                            .ipAddress(v.getIpAddress())
+                            .build();
+                })
+                .collect(Collectors.toList());
     }
 
     /**
@@ -0,0 +1,381 @@
+package org.example.api.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.dto.*;
+import org.example.api.model.Curso;
+import org.example.api.model.Usuario;
+import org.example.api.model.Video;
+import org.example.api.model.Visualizacion;
+import org.example.api.repository.AnaliticaRepository;
+import org.example.api.repository.CursoRepository;
+import org.example.api.repository.VideoRepository;
+import org.example.api.repository.projection.CalificacionesMesProjection;
+import org.example.api.repository.projection.EspectadoresCursoProjection;
+import org.example.api.repository.projection.EspectadoresTotalesProjection;
+import org.example.api.repository.projection.VistasDiaProjection;
+import org.example.api.repository.projection.VistasVideoProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Analítica de los cursos de un instructor servida desde agregados (V7__agregados_analitica.sql):
+ * vistas por video y día, y espectadores únicos por curso. El coste de cada consulta depende
+ * del número de cursos y días pedidos, no del histórico de visualizaciones.
+ *
+ * Las vistas confirmadas se acumulan en memoria y se vuelcan con upserts por lotes cada pocos
+ * segundos, en lugar de actualizar la misma fila de video y día desde cada petición. Si el proceso
+ * muere sin pasar por {@link #alDetener()}, se pierde lo acumulado desde el último volcado (como
+ * mucho analitica.intervalo-escritura-ms de vistas): {@link #reconciliar()} lo recupera cada noche
+ * recalculando desde visualizaciones los días que ya no pueden recibir vistas.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnaliticaInstructorService {
+
+    private static final String UPSERT_VISTAS =
+            "INSERT INTO vistas_diarias_video (video_id, dia, vistas) " +
+                    "SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM videos WHERE id = ?) " +
+                    "ON CONFLICT (video_id, dia) DO UPDATE SET vistas = vistas_diarias_video.vistas + EXCLUDED.vistas";
+
+    private static final String RECALCULAR_VISTAS =
+            "INSERT INTO vistas_diarias_video (video_id, dia, vistas) " +
+                    "SELECT video_id, fecha_visualizacion::DATE, COUNT(*) FROM visualizaciones " +
+                    "WHERE fecha_visualizacion >= ? AND fecha_visualizacion < ? " +
+                    "GROUP BY 1, 2 ORDER BY 1, 2 " +
+                    "ON CONFLICT (video_id, dia) DO UPDATE SET vistas = EXCLUDED.vistas " +
+                    "WHERE vistas_diarias_video.vistas <> EXCLUDED.vistas";
+
+    private static final String RECALCULAR_ESPECTADORES =
+            "INSERT INTO espectadores_curso (curso_id, usuario_id, primera_vista) " +
+                    "SELECT vi.curso_id, v.usuario_id, MIN(v.fecha_visualizacion) " +
+                    "FROM visualizaciones v JOIN videos vi ON vi.id = v.video_id " +
+                    "WHERE v.usuario_id IS NOT NULL AND v.fecha_visualizacion >= ? AND v.fecha_visualizacion < ? " +
+                    "GROUP BY 1, 2 ORDER BY 1, 2 " +
+                    "ON CONFLICT (curso_id, usuario_id) DO UPDATE SET primera_vista = EXCLUDED.primera_vista " +
+                    "WHERE espectadores_curso.primera_vista > EXCLUDED.primera_vista";
+
+    private static final String UPSERT_ESPECTADORES =
+            "INSERT INTO espectadores_curso (curso_id, usuario_id, primera_vista) " +
+                    "SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM cursos WHERE id = ?) " +
+                    "AND EXISTS (SELECT 1 FROM usuarios WHERE id = ?) " +
+                    "ON CONFLICT (curso_id, usuario_id) DO UPDATE " +
+                    "SET primera_vista = LEAST(espectadores_curso.primera_vista, EXCLUDED.primera_vista)";
+
+    private final AnaliticaRepository analiticaRepository;
+    private final CursoRepository cursoRepository;
+    private final VideoRepository videoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${visualizaciones.lote.max-antiguedad-horas:72}")
+    private long maxAntiguedadHoras;
+
+    @Value("${analitica.reconciliacion-dias:7}")
+    private int diasReconciliacion;
+
+    private final Map<VistaDia, Long> vistasPendientes = new ConcurrentHashMap<>();
+    private final Map<Espectador, LocalDateTime> espectadoresPendientes = new ConcurrentHashMap<>();
+
+    private record VistaDia(Long videoId, LocalDate dia) {
+    }
+
+    private record Espectador(Long cursoId, Long usuarioId) {
+    }
+
+    // Mismo orden de filas en todos los volcados: dos nodos que vuelcan a la vez bloquean las filas
+    // (y el contador de espectadores del curso) en el mismo orden y no se interbloquean
+    private static final Comparator<VistaDia> ORDEN_VISTAS = Comparator
+            .comparing(VistaDia::videoId)
+            .thenComparing(VistaDia::dia);
+    private static final Comparator<Espectador> ORDEN_ESPECTADORES = Comparator
+            .comparing(Espectador::cursoId)
+            .thenComparing(Espectador::usuarioId);
+
+    // ==================== MANTENIMIENTO DE AGREGADOS ====================
+
+    /**
+     * Suma las visualizaciones a los agregados cuando se confirme la transacción que las inserta
+     */
+    public void registrarVistas(Collection<Visualizacion> visualizaciones) {
+        // Se copian los ids ahora: tras el commit las entidades pueden estar desligadas
+        List<Object[]> vistas = visualizaciones.stream()
+                .map(v -> new Object[]{
+                        v.getVideo().getCurso().getId(),
+                        v.getVideo().getId(),
+                        v.getUsuario() != null ? v.getUsuario().getId() : null,
+                        v.getFechaVisualizacion()
+                })
+                .toList();
+
+        Runnable acumular = () -> vistas.forEach(v ->
+                acumular((Long) v[0], (Long) v[1], (Long) v[2], (LocalDateTime) v[3]));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acumular.run();
+                }
+            });
+        } else {
+            acumular.run();
+        }
+    }
+
+    private void acumular(Long cursoId, Long videoId, Long usuarioId, LocalDateTime fecha) {
+        vistasPendientes.merge(new VistaDia(videoId, fecha.toLocalDate()), 1L, Long::sum);
+        if (usuarioId != null) {
+            espectadoresPendientes.merge(new Espectador(cursoId, usuarioId), fecha,
+                    (a, b) -> a.isBefore(b) ? a : b);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analitica.intervalo-escritura-ms:5000}")
+    public void volcarPendientes() {
+        // remove() es atómico por clave: lo que llegue después se acumula para el siguiente volcado
+        Map<VistaDia, Long> vistas = new TreeMap<>(ORDEN_VISTAS);
+        for (VistaDia clave : vistasPendientes.keySet()) {
+            Long cantidad = vistasPendientes.remove(clave);
+            if (cantidad != null) {
+                vistas.put(clave, cantidad);
+            }
+        }
+
+        Map<Espectador, LocalDateTime> espectadores = new TreeMap<>(ORDEN_ESPECTADORES);
+        for (Espectador clave : espectadoresPendientes.keySet()) {
+            LocalDateTime primera = espectadoresPendientes.remove(clave);
+            if (primera != null) {
+                espectadores.put(clave, primera);
+            }
+        }
+
+        if (vistas.isEmpty() && espectadores.isEmpty()) {
+            return;
+        }
+        List<Object[]> filasVistas = vistas.entrySet().stream()
+                .map(e -> new Object[]{e.getKey().videoId(), e.getKey().dia(), e.getValue(), e.getKey().videoId()})
+                .toList();
+        List<Object[]> filasEspectadores = espectadores.entrySet().stream()
+                .map(e -> new Object[]{e.getKey().cursoId(), e.getKey().usuarioId(), Timestamp.valueOf(e.getValue()),
+                        e.getKey().cursoId(), e.getKey().usuarioId()})
+                .toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!filasVistas.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_VISTAS, filasVistas);
+                }
+                if (!filasEspectadores.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_ESPECTADORES, filasEspectadores);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error al actualizar los agregados de analítica, se reintentará: {}", e.getMessage());
+            // Se devuelven a la cola para el siguiente intento
+            vistas.forEach((clave, cantidad) -> vistasPendientes.merge(clave, cantidad, Long::sum));
+            espectadores.forEach((clave, primera) -> espectadoresPendientes.merge(clave, primera,
+                    (a, b) -> a.isBefore(b) ? a : b));
+        }
+    }
+
+    @PreDestroy
+    public void alDetener() {
+        volcarPendientes();
+    }
+
+    /**
+     * Recalcula desde visualizaciones los agregados de los últimos días cerrados: los que ya no
+     * pueden recibir vistas de lotes (visualizaciones.lote.max-antiguedad-horas) ni tener volcados
+     * pendientes. Los días anteriores a la ventana no se revisan: si el job no corre en
+     * analitica.reconciliacion-dias, lo perdido en una caída de entonces se queda perdido.
+     */
+    @Scheduled(cron = "${analitica.reconciliacion-cron:0 45 3 * * *}")
+    public void reconciliar() {
+        // Un día queda cerrado cuando su final está a más de max-antiguedad-horas y un día de margen
+        LocalDate ultimoCerrado = LocalDate.now().minusDays((maxAntiguedadHoras + 23) / 24 + 1);
+        reconciliar(ultimoCerrado.minusDays(diasReconciliacion - 1L), ultimoCerrado);
+    }
+
+    /**
+     * Corrige las vistas por video y día y añade los espectadores que falten para los días
+     * [desde, hasta], sin tocar los días de fuera
+     */
+    public void reconciliar(LocalDate desde, LocalDate hasta) {
+        Timestamp inicio = Timestamp.valueOf(desde.atStartOfDay());
+        Timestamp fin = Timestamp.valueOf(hasta.plusDays(1).atStartOfDay());
+        transactionTemplate.executeWithoutResult(status -> {
+            int vistas = jdbcTemplate.update(RECALCULAR_VISTAS, inicio, fin);
+            int espectadores = jdbcTemplate.update(RECALCULAR_ESPECTADORES, inicio, fin);
+            if (vistas > 0 || espectadores > 0) {
+                log.warn("Reconciliación de analítica {} a {}: {} filas de vistas y {} espectadores corregidos",
+                        desde, hasta, vistas, espectadores);
+            }
+        });
+    }
+
+    // ==================== PANEL DEL INSTRUCTOR ====================
+
+    /**
+     * Analítica de todos los cursos del instructor autenticado para los últimos días indicados
+     */
+    @Transactional(readOnly = true)
+    public AnaliticaInstructorResponse obtenerAnalitica(int dias) {
+        Usuario instructor = getUsuarioAutenticado();
+        LocalDate desde = LocalDate.now().minusDays(dias - 1L);
+
+        List<Curso> cursos = cursoRepository.findByInstructor(instructor);
+        if (cursos.isEmpty()) {
+            return AnaliticaInstructorResponse.builder()
+                    .dias(dias)
+                    .totalCursos(0)
+                    .totalVistas(0L)
+                    .espectadoresUnicos(0L)
+                    .espectadoresNuevos(0L)
+                    .calificacionPromedio(0.0)
+                    .cursos(List.of())
+                    .build();
+        }
+
+        List<Long> cursoIds = cursos.stream().map(Curso::getId).toList();
+
+        Map<Long, List<Video>> videosPorCurso = videoRepository.findByCursoIdInOrderByCursoIdAscOrdenAsc(cursoIds)
+                .stream()
+                .collect(Collectors.groupingBy(v -> v.getCurso().getId()));
+
+        Map<Long, Long> vistasPorVideo = analiticaRepository.vistasPorVideo(cursoIds).stream()
+                .collect(Collectors.toMap(VistasVideoProjection::getVideoId, VistasVideoProjection::getVistas));
+
+        Map<Long, Map<LocalDate, Long>> vistasPorDia = new HashMap<>();
+        for (VistasDiaProjection fila : analiticaRepository.vistasPorDia(cursoIds, desde)) {
+            vistasPorDia.computeIfAbsent(fila.getCursoId(), id -> new HashMap<>()).put(fila.getDia(), fila.getVistas());
+        }
+
+        Map<Long, EspectadoresCursoProjection> espectadores = analiticaRepository
+                .espectadores(cursoIds, desde.atStartOfDay())
+                .stream()
+                .collect(Collectors.toMap(EspectadoresCursoProjection::getCursoId, e -> e));
+
+        Map<Long, List<CalificacionesMesProjection>> calificaciones = analiticaRepository
+                .calificacionesPorMes(cursoIds)
+                .stream()
+                .collect(Collectors.groupingBy(CalificacionesMesProjection::getCursoId));
+
+        List<AnaliticaCursoResponse> analiticaCursos = new ArrayList<>();
+        for (Curso curso : cursos) {
+            analiticaCursos.add(construirAnaliticaCurso(
+                    curso,
+                    desde,
+                    videosPorCurso.getOrDefault(curso.getId(), List.of()),
+                    vistasPorVideo,
+                    vistasPorDia.getOrDefault(curso.getId(), Map.of()),
+                    espectadores.get(curso.getId()),
+                    calificaciones.getOrDefault(curso.getId(), List.of())
+            ));
+        }
+
+        // Un usuario que ve varios cursos del instructor cuenta una vez: no es la suma de los cursos
+        EspectadoresTotalesProjection espectadoresInstructor = analiticaRepository
+                .espectadoresDistintos(instructor.getId(), desde.atStartOfDay());
+
+        long totalCalificaciones = analiticaCursos.stream().mapToLong(AnaliticaCursoResponse::getTotalCalificaciones).sum();
+        double sumaPuntuaciones = analiticaCursos.stream()
+                .mapToDouble(c -> c.getCalificacionPromedio() * c.getTotalCalificaciones())
+                .sum();
+
+        return AnaliticaInstructorResponse.builder()
+                .dias(dias)
+                .totalCursos(cursos.size())
+                .totalVistas(analiticaCursos.stream().mapToLong(AnaliticaCursoResponse::getTotalVistas).sum())
+                .espectadoresUnicos(espectadoresInstructor.getEspectadores())
+                .espectadoresNuevos(espectadoresInstructor.getEspectadoresNuevos())
+                .calificacionPromedio(totalCalificaciones > 0 ? redondear(sumaPuntuaciones / totalCalificaciones) : 0.0)
+                .cursos(analiticaCursos)
+                .build();
+    }
+
+    private AnaliticaCursoResponse construirAnaliticaCurso(
+            Curso curso,
+            LocalDate desde,
+            List<Video> videos,
+            Map<Long, Long> vistasPorVideo,
+            Map<LocalDate, Long> vistasPorDia,
+            EspectadoresCursoProjection espectadores,
+            List<CalificacionesMesProjection> calificaciones) {
+
+        // Abandono: vistas de cada video frente a las del primero
+        long vistasPrimero = videos.isEmpty() ? 0 : vistasPorVideo.getOrDefault(videos.get(0).getId(), 0L);
+        long totalVistas = 0;
+        List<VistasVideoResponse> embudo = new ArrayList<>();
+        for (Video video : videos) {
+            long vistas = vistasPorVideo.getOrDefault(video.getId(), 0L);
+            totalVistas += vistas;
+            embudo.add(VistasVideoResponse.builder()
+                    .videoId(video.getId())
+                    .titulo(video.getTitulo())
+                    .orden(video.getOrden())
+                    .vistas(vistas)
+                    .porcentajeSobrePrimero(vistasPrimero > 0 ? redondear(vistas * 100.0 / vistasPrimero) : 0.0)
+                    .build());
+        }
+
+        // Serie diaria completa, con ceros en los días sin vistas
+        List<VistasDiaResponse> serie = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(LocalDate.now()); dia = dia.plusDays(1)) {
+            serie.add(new VistasDiaResponse(dia, vistasPorDia.getOrDefault(dia, 0L)));
+        }
+
+        long totalCalificaciones = 0;
+        double sumaPuntuaciones = 0;
+        List<CalificacionesMesResponse> tendencia = new ArrayList<>();
+        for (CalificacionesMesProjection mes : calificaciones) {
+            totalCalificaciones += mes.getCantidad();
+            sumaPuntuaciones += mes.getPromedio() * mes.getCantidad();
+            tendencia.add(new CalificacionesMesResponse(mes.getMes(), redondear(mes.getPromedio()), mes.getCantidad()));
+        }
+
+        return AnaliticaCursoResponse.builder()
+                .cursoId(curso.getId())
+                .titulo(curso.getTitulo())
+                .publicado(curso.getPublicado())
+                .precio(curso.getPrecio())
+                .totalVistas(totalVistas)
+                .espectadoresUnicos(espectadores != null ? espectadores.getEspectadores() : 0L)
+                .espectadoresNuevos(espectadores != null ? espectadores.getEspectadoresNuevos() : 0L)
+                .calificacionPromedio(totalCalificaciones > 0 ? redondear(sumaPuntuaciones / totalCalificaciones) : 0.0)
+                .totalCalificaciones(totalCalificaciones)
+                .vistasPorDia(serie)
+                .vistasPorVideo(embudo)
+                .calificacionesPorMes(tendencia)
+                .build();
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+
+    private Usuario getUsuarioAutenticado() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof Usuario)) {
+            throw new RuntimeException("Usuario no autenticado");
+        }
+        return (Usuario) authentication.getPrincipal();
+    }
+}
@@ -0,0 +1,348 @@
+package org.example.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivo en disco de las particiones mensuales de visualizaciones ya retiradas de la base.
+ * Cada mes se guarda en un fichero comprimido con formato columnar por bloques:
+ * dentro de cada bloque se escriben por separado las columnas id, video, usuario, fecha e IP,
+ * con deltas y varints para que gzip comprima bien.
+ */
+@Slf4j
+@Service
+public class ArchivoVisualizacionesService {
+
+    private static final int MAGIC = 0x55504256; // "UPBV"
+    private static final int VERSION = 1;
+    private static final int FILAS_POR_BLOQUE = 65_536;
+    private static final Pattern NOMBRE_ARCHIVO = Pattern.compile("visualizaciones_(\\d{4})_(\\d{2})\\.vcol\\.gz");
+
+    @Value("${visualizaciones.archivo.location:archivo/visualizaciones}")
+    private String archivoLocation;
+
+    @Data
+    @AllArgsConstructor
+    public static class VisualizacionArchivada {
+        private Long id;
+        private Long videoId;
+        private Long usuarioId;
+        private LocalDateTime fechaVisualizacion;
+        private String ipAddress;
+    }
+
+    /**
+     * Escritor incremental: recibe las filas (ordenadas por fecha) desde un ResultSet y
+     * las vuelca al fichero del mes en bloques de FILAS_POR_BLOQUE.
+     */
+    public class Escritor implements Closeable {
+        private final YearMonth mes;
+        private final Path temporal;
+        private final DataOutputStream out;
+        private final List<VisualizacionArchivada> bloque = new ArrayList<>(FILAS_POR_BLOQUE);
+        private long filas;
+
+        private Escritor(YearMonth mes) throws IOException {
+            this.mes = mes;
+            Path directorio = Paths.get(archivoLocation);
+            Files.createDirectories(directorio);
+            this.temporal = Files.createTempFile(directorio, nombreArchivo(mes), ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temporal), 1 << 16)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(mes.toString());
+        }
+
+        public void agregar(ResultSet rs) throws SQLException {
+            Long usuarioId = rs.getLong("usuario_id");
+            if (rs.wasNull()) {
+                usuarioId = null;
+            }
+            bloque.add(new VisualizacionArchivada(
+                    rs.getLong("id"),
+                    rs.getLong("video_id"),
+                    usuarioId,
+                    rs.getObject("fecha_visualizacion", LocalDateTime.class),
+                    rs.getString("ip_address")
+            ));
+            filas++;
+            if (bloque.size() == FILAS_POR_BLOQUE) {
+                try {
+                    escribirBloque(out, bloque);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                bloque.clear();
+            }
+        }
+
+        /**
+         * Fila ya archivada (al reescribir un mes que recibe filas tardías)
+         */
+        public void agregarArchivada(VisualizacionArchivada visualizacion) throws IOException {
+            bloque.add(visualizacion);
+            filas++;
+            if (bloque.size() == FILAS_POR_BLOQUE) {
+                escribirBloque(out, bloque);
+                bloque.clear();
+            }
+        }
+
+        public long getFilas() {
+            return filas;
+        }
+
+        /**
+         * Cierra el fichero y lo publica con su nombre definitivo. Hasta entonces el mes no se
+         * considera archivado.
+         */
+        public Path confirmar() throws IOException {
+            if (!bloque.isEmpty()) {
+                escribirBloque(out, bloque);
+                bloque.clear();
+            }
+            out.writeInt(0);
+            out.close();
+            Path destino = rutaArchivo(mes);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return destino;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    public Escritor nuevoEscritor(YearMonth mes) throws IOException {
+        return new Escritor(mes);
+    }
+
+    public boolean estaArchivado(YearMonth mes) {
+        return Files.exists(rutaArchivo(mes));
+    }
+
+    /**
+     * Meses disponibles en el archivo, en orden cronológico
+     */
+    public List<YearMonth> mesesArchivados() {
+        Path directorio = Paths.get(archivoLocation);
+        if (!Files.isDirectory(directorio)) {
+            return List.of();
+        }
+
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .map(p -> NOMBRE_ARCHIVO.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.error("No se pudo listar el archivo de visualizaciones: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Recibe las filas de un mes archivado en el orden del fichero
+     */
+    @FunctionalInterface
+    public interface Receptor {
+        void recibir(VisualizacionArchivada visualizacion) throws IOException;
+    }
+
+    /**
+     * Lee un mes archivado devolviendo solo las filas que cumplen el filtro. Un archivo truncado o
+     * corrupto es un error (UncheckedIOException), no un mes con menos filas.
+     */
+    public List<VisualizacionArchivada> leer(YearMonth mes, Predicate<VisualizacionArchivada> filtro) {
+        List<VisualizacionArchivada> resultado = new ArrayList<>();
+        recorrer(mes, v -> {
+            if (filtro.test(v)) {
+                resultado.add(v);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Pasa las filas de un mes archivado al receptor bloque a bloque, sin cargar el mes entero en
+     * memoria. Mismos errores que leer.
+     */
+    public void recorrer(YearMonth mes, Receptor receptor) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(rutaArchivo(mes)), 1 << 16)))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Formato de archivo no soportado");
+            }
+            in.readUTF();
+
+            int filas;
+            while ((filas = in.readInt()) > 0) {
+                for (VisualizacionArchivada v : leerBloque(in, filas)) {
+                    receptor.recibir(v);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el archivo de visualizaciones de " + mes, e);
+        }
+    }
+
+    private Path rutaArchivo(YearMonth mes) {
+        return Paths.get(archivoLocation, nombreArchivo(mes) + ".vcol.gz");
+    }
+
+    private static String nombreArchivo(YearMonth mes) {
+        return String.format("visualizaciones_%04d_%02d", mes.getYear(), mes.getMonthValue());
+    }
+
+    // ==================== CODIFICACIÓN COLUMNAR ====================
+
+    private static void escribirBloque(DataOutputStream out, List<VisualizacionArchivada> filas) throws IOException {
+        out.writeInt(filas.size());
+
+        long anterior = 0;
+        for (VisualizacionArchivada v : filas) {
+            escribirVarLong(out, zigZag(v.getId() - anterior));
+            anterior = v.getId();
+        }
+
+        anterior = 0;
+        for (VisualizacionArchivada v : filas) {
+            escribirVarLong(out, zigZag(v.getVideoId() - anterior));
+            anterior = v.getVideoId();
+        }
+
+        // 0 = vista anónima
+        for (VisualizacionArchivada v : filas) {
+            escribirVarLong(out, v.getUsuarioId() != null ? v.getUsuarioId() : 0);
+        }
+
+        anterior = 0;
+        for (VisualizacionArchivada v : filas) {
+            long micros = aMicros(v.getFechaVisualizacion());
+            escribirVarLong(out, zigZag(micros - anterior));
+            anterior = micros;
+        }
+
+        // IPs con diccionario por bloque; índice 0 = sin IP
+        Map<String, Integer> diccionario = new LinkedHashMap<>();
+        for (VisualizacionArchivada v : filas) {
+            if (v.getIpAddress() != null) {
+                diccionario.putIfAbsent(v.getIpAddress(), diccionario.size() + 1);
+            }
+        }
+        escribirVarLong(out, diccionario.size());
+        for (String ip : diccionario.keySet()) {
+            out.writeUTF(ip);
+        }
+        for (VisualizacionArchivada v : filas) {
+            escribirVarLong(out, v.getIpAddress() != null ? diccionario.get(v.getIpAddress()) : 0);
+        }
+    }
+
+    private static List<VisualizacionArchivada> leerBloque(DataInputStream in, int filas) throws IOException {
+        long[] ids = new long[filas];
+        long[] videos = new long[filas];
+        long[] usuarios = new long[filas];
+        long[] fechas = new long[filas];
+
+        long anterior = 0;
+        for (int i = 0; i < filas; i++) {
+            anterior += unZigZag(leerVarLong(in));
+            ids[i] = anterior;
+        }
+        anterior = 0;
+        for (int i = 0; i < filas; i++) {
+            anterior += unZigZag(leerVarLong(in));
+            videos[i] = anterior;
+        }
+        for (int i = 0; i < filas; i++) {
+            usuarios[i] = leerVarLong(in);
+        }
+        anterior = 0;
+        for (int i = 0; i < filas; i++) {
+            anterior += unZigZag(leerVarLong(in));
+            fechas[i] = anterior;
+        }
+
+        String[] diccionario = new String[(int) leerVarLong(in) + 1];
+        for (int i = 1; i < diccionario.length; i++) {
+            diccionario[i] = in.readUTF();
+        }
+
+        List<VisualizacionArchivada> resultado = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            resultado.add(new VisualizacionArchivada(
+                    ids[i],
+                    videos[i],
+                    usuarios[i] != 0 ? usuarios[i] : null,
+                    desdeMicros(fechas[i]),
+                    diccionario[(int) leerVarLong(in)]
+            ));
+        }
+        return resultado;
+    }
+
+    private static long aMicros(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + fecha.getNano() / 1_000;
+    }
+
+    private static LocalDateTime desdeMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                ZoneOffset.UTC
+        );
+    }
+
+    private static long zigZag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long unZigZag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static void escribirVarLong(DataOutputStream out, long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            out.writeByte((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        out.writeByte((int) valor);
+    }
+
+    private static long leerVarLong(DataInputStream in) throws IOException {
+        long valor = 0;
+        int desplazamiento = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return valor;
+    }
+}
@@ -12,15 +12,21 @@ import org.example.api.model.Categoria;
 import org.example.api.model.Curso;
 import org.example.api.model.Usuario;
 import org.example.api.model.Video;
+import org.example.api.observability.jfr.CatalogoEvento;
 import org.example.api.repository.*;
 import org.example.api.upbolisIntegration.UpbolisApiService;
 import org.example.api.upbolisIntegration.UpbolisProductResponse;
+import org.example.api.util.Duraciones;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 @Slf4j
 @Service
@@ -234,17 +240,23 @@ public class CursoService {
 
     @Transactional(readOnly = true)
     public List<CursoResponse> obtenerCursosPublicos() {
-        List<Curso> cursos = cursoRepository.findByPublicadoTrue();
-        return cursos.stream()
-                .map(this::convertirACursoResponse)
-                .collect(Collectors.toList());
+        return montarCatalogo("publicos", 0, cursoRepository::findByPublicadoTrue);
     }
 
     @Transactional(readOnly = true)
     public CursoResponse obtenerCursoPorId(Long id) {
-        Curso curso = cursoRepository.findById(id)
+        CatalogoEvento evento = new CatalogoEvento();
+        evento.begin();
+
+        Curso curso = cursoRepository.findDetalleById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Curso no encontrado"));
-        return convertirACursoResponseCompleto(curso);
+        CursoResponse respuesta = convertirACursoResponseCompleto(curso);
+
+        evento.operacion = "detalle";
+        evento.id = id;
+        evento.cursos = 1;
+        evento.commit();
+        return respuesta;
     }
 
     @Transactional(readOnly = true)
@@ -252,31 +264,39 @@ public class CursoService {
         Categoria categoria = categoriaRepository.findById(categoriaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada"));
 
-        return cursoRepository.findByCategoriaAndPublicadoTrue(categoria).stream()
-                .map(this::convertirACursoResponse)
-                .collect(Collectors.toList());
+        return montarCatalogo("categoria", categoriaId,
+                () -> cursoRepository.findByCategoriaAndPublicadoTrue(categoria));
     }
 
     @Transactional(readOnly = true)
     public List<CursoResponse> buscarCursos(String keyword, Long categoriaId) {
-        List<Curso> cursos;
         if (categoriaId != null) {
-            cursos = cursoRepository.buscarCursosPorCategoria(keyword, categoriaId);
-        } else {
-            cursos = cursoRepository.buscarCursos(keyword);
+            return montarCatalogo("busqueda", categoriaId,
+                    () -> cursoRepository.buscarCursosPorCategoria(keyword, categoriaId));
         }
-
-        return cursos.stream()
-                .map(this::convertirACursoResponse)
-                .collect(Collectors.toList());
+        return montarCatalogo("busqueda", 0, () -> cursoRepository.buscarCursos(keyword));
     }
 
     @Transactional(readOnly = true)
     public List<CursoResponse> obtenerMisCursos() {
         Usuario instructor = getUsuarioAutenticado();
-        return cursoRepository.findByInstructor(instructor).stream()
-                .map(this::convertirACursoResponse)
-                .collect(Collectors.toList());
+        return montarCatalogo("mis-cursos", instructor.getId(), () -> cursoRepository.findByInstructor(instructor));
+    }
+
+    /**
+     * Consulta y conversión de un listado del catálogo, medidas como un evento JFR
+     */
+    private List<CursoResponse> montarCatalogo(String operacion, long id, Supplier<List<Curso>> consulta) {
+        CatalogoEvento evento = new CatalogoEvento();
+        evento.begin();
+
+        List<CursoResponse> respuesta = convertirACursoResponses(consulta.get());
+
+        evento.operacion = operacion;
+        evento.id = id;
+        evento.cursos = respuesta.size();
+        evento.commit();
+        return respuesta;
     }
 
     private Usuario getUsuarioAutenticado() {
@@ -291,6 +311,35 @@ public class CursoService {
         // Obtener total de vistas del curso
         Long totalVistas = visualizacionRepository.countByCursoId(curso.getId());
 
+        return convertirACursoResponse(curso, videos, totalVistas);
+    }
+
+    /**
+     * Tarjetas de un listado: los videos y las vistas de todos los cursos en una consulta cada uno,
+     * no dos consultas por curso
+     */
+    private List<CursoResponse> convertirACursoResponses(List<Curso> cursos) {
+        if (cursos.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> cursoIds = cursos.stream().map(Curso::getId).toList();
+        Map<Long, List<Video>> videosPorCurso = videoRepository.findByCursoIdInOrderByCursoIdAscOrdenAsc(cursoIds)
+                .stream()
+                .collect(Collectors.groupingBy(video -> video.getCurso().getId()));
+        Map<Long, Long> vistasPorCurso = new HashMap<>();
+        for (Object[] fila : visualizacionRepository.contarPorCursos(cursoIds)) {
+            vistasPorCurso.put((Long) fila[0], (Long) fila[1]);
+        }
+
+        return cursos.stream()
+                .map(curso -> convertirACursoResponse(curso,
+                        videosPorCurso.getOrDefault(curso.getId(), List.of()),
+                        vistasPorCurso.getOrDefault(curso.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private CursoResponse convertirACursoResponse(Curso curso, List<Video> videos, Long totalVistas) {
         return CursoResponse.builder()
                 .id(curso.getId())
                 .titulo(curso.getTitulo())
@@ -303,18 +352,22 @@ public class CursoService {
                 .fechaCreacion(curso.getFechaCreacion())
                 .publicado(curso.getPublicado())
                 .videos(videos.size())
-                .duracion(calcularDuracionTotal(videos))
+                .duracion(Duraciones.total(videos))
                 .totalVistas(totalVistas)
                 .precio(curso.getPrecio())
                 .build();
     }
 
     private CursoResponse convertirACursoResponseCompleto(Curso curso) {
-        // Cargar videos explícitamente
-        List<Video> videos = videoRepository.findByCursoIdOrderByOrdenAsc(curso.getId());
+        // Videos ya cargados (ordenados por orden) con el grafo Curso.detalle
+        List<Video> videos = curso.getVideos() != null ? curso.getVideos() : List.of();
 
-        // Obtener total de vistas del curso
-        Long totalVistas = visualizacionRepository.countByCursoId(curso.getId());
+        // Vistas de cada video en una sola consulta; el total del curso es su suma
+        Map<Long, Long> vistasPorVideo = new HashMap<>();
+        for (Object[] fila : visualizacionRepository.contarPorVideoDeCurso(curso.getId())) {
+            vistasPorVideo.put((Long) fila[0], (Long) fila[1]);
+        }
+        Long totalVistas = vistasPorVideo.values().stream().mapToLong(Long::longValue).sum();
 
         CursoResponse response = CursoResponse.builder()
                 .id(curso.getId())
@@ -328,15 +381,14 @@ public class CursoService {
                 .fechaCreacion(curso.getFechaCreacion())
                 .publicado(curso.getPublicado())
                 .videos(videos.size())
-                .duracion(calcularDuracionTotal(videos))
+                .duracion(Duraciones.total(videos))
                 .totalVistas(totalVistas)
                 .precio(curso.getPrecio())
                 .build();
 
         List<VideoResponse> videoResponses = videos.stream()
                 .map(video -> {
-                    // Obtener vistas de cada video
-                    Long vistasVideo = visualizacionRepository.countByVideoId(video.getId());
+                    Long vistasVideo = vistasPorVideo.getOrDefault(video.getId(), 0L);
 
                     return VideoResponse.builder()
                             .id(video.getId())
@@ -355,40 +407,30 @@ public class CursoService {
         return response;
     }
 
-    private String calcularDuracionTotal(List<Video> videos) {
-        if (videos == null || videos.isEmpty()) {
-            return "0 horas";
-        }
-
-        int totalMinutos = videos.stream()
-                .filter(v -> v.getDuracionSegundos() != null)
-                .mapToInt(v -> (int) Math.ceil(v.getDuracionSegundos() / 60.0))
-                .sum();
-
-        int horas = totalMinutos / 60;
-        int minutos = totalMinutos % 60;
-
-        if (horas > 0 && minutos > 0) {
-            return horas + "h " + minutos + "m";
-        } else if (horas > 0) {
-            return horas + " horas";
-        } else {
-            return minutos + " minutos";
-        }
-    }
-
     @Transactional(readOnly = true)
     public List<TopCursoResponse> getTop3CursosConMasVistas() {
         List<Curso> topCursos = cursoRepository.findTop3CursosConMasVistas();
+        List<Long> ids = topCursos.stream().map(Curso::getId).toList();
+
+        // Vistas y promedios de los tres en una consulta cada uno, no dos por curso
+        Map<Long, Long> vistas = new HashMap<>();
+        Map<Long, Double> promedios = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Object[] fila : visualizacionRepository.contarPorCursos(ids)) {
+                vistas.put((Long) fila[0], ((Number) fila[1]).longValue());
+            }
+            for (Object[] fila : calificacionRepository.promediosPorCursos(ids)) {
+                promedios.put((Long) fila[0], ((Number) fila[1]).doubleValue());
+            }
+        }
 
         return topCursos.stream()
                 .map(curso -> {
-                    Long vistas = visualizacionRepository.countByCursoId(curso.getId());
-                    Double puntuacion = calificacionRepository.obtenerPromedioCalificacion(curso.getId());
+                    Double puntuacion = promedios.get(curso.getId());
 
                     return TopCursoResponse.builder()
                             .nombreCurso(curso.getTitulo())
-                            .cantidadVistas(vistas != null ? vistas : 0L)
+                            .cantidadVistas(vistas.getOrDefault(curso.getId(), 0L))
                             .puntuacion(puntuacion != null ? Math.round(puntuacion * 100.0) / 100.0 : 0.0)
                             .build();
                 })
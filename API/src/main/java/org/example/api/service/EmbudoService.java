@@ -0,0 +1,285 @@
+package org.example.api.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.dto.EmbudoCursoResponse;
+import org.example.api.dto.PasoEmbudoResponse;
+import org.example.api.exception.BadRequestException;
+import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.model.*;
+import org.example.api.repository.CursoRepository;
+import org.example.api.repository.EmbudoVideoRepository;
+import org.example.api.repository.VideoRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embudo de abandono por curso: qué parte de los espectadores llega a cada video (por orden).
+ * Cada video guarda sus espectadores distintos en un RoaringBitmap de ids de usuario, así que
+ * los pasos del embudo son uniones e intersecciones de bitmaps en memoria en lugar de
+ * auto-joins sobre visualizaciones.
+ *
+ * Los usuarios nuevos de cada video se acumulan tras el commit y se fusionan con el bitmap
+ * persistido en cada volcado. Las vistas anónimas no participan.
+ *
+ * Las filas de los videos existentes las crea V10 (RellenoEmbudoVideos) desde el histórico, meses
+ * archivados incluidos. La de un video nuevo la crea el primer volcado que lo necesita: el de sus
+ * primeros espectadores, o el siguiente a una consulta que no la encontró (la consulta no recorre
+ * visualizaciones ni escribe; responde con lo que haya en memoria). Se crea con INSERT ... ON
+ * CONFLICT DO NOTHING, así que dos nodos pueden crearla a la vez sin error, y el volcado une los
+ * bitmaps con la fila bloqueada (SELECT ... FOR UPDATE) para no pisar los espectadores que añadió otro.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmbudoService {
+
+    // Los videos borrados desde la vista no se crean
+    private static final String CREAR_EMBUDO =
+            "INSERT INTO embudo_videos (video_id, curso_id, espectadores, fecha_actualizacion) " +
+                    "SELECT ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM videos WHERE id = ?) " +
+                    "ON CONFLICT (video_id) DO NOTHING";
+
+    private final EmbudoVideoRepository embudoVideoRepository;
+    private final CursoRepository cursoRepository;
+    private final VideoRepository videoRepository;
+    private final ArchivoVisualizacionesService archivo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Usuarios nuevos por video desde el último volcado
+    private final Map<Long, Pendiente> pendientes = new ConcurrentHashMap<>();
+
+    // Videos consultados sin fila (video -> curso), que creará el siguiente volcado
+    private final Map<Long, Long> sinFila = new ConcurrentHashMap<>();
+
+    private record Pendiente(Long cursoId, RoaringBitmap usuarios) {
+    }
+
+    /**
+     * Añade los espectadores de las visualizaciones cuando se confirme la transacción que las inserta
+     */
+    public void registrarVistas(Collection<Visualizacion> visualizaciones) {
+        List<long[]> vistas = visualizaciones.stream()
+                .filter(v -> v.getUsuario() != null)
+                .map(v -> new long[]{v.getVideo().getId(), v.getVideo().getCurso().getId(), v.getUsuario().getId()})
+                .toList();
+        if (vistas.isEmpty()) {
+            return;
+        }
+
+        Runnable acumular = () -> vistas.forEach(v -> pendientes.compute(v[0], (videoId, pendiente) -> {
+            // compute es atómico por video: el bitmap solo se modifica dentro de él
+            Pendiente p = pendiente != null ? pendiente : new Pendiente(v[1], new RoaringBitmap());
+            p.usuarios().add(Math.toIntExact(v[2]));
+            return p;
+        }));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acumular.run();
+                }
+            });
+        } else {
+            acumular.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${embudo.intervalo-escritura-ms:30000}")
+    public void volcarPendientes() {
+        Map<Long, Pendiente> retirados = new HashMap<>();
+        for (Long videoId : pendientes.keySet()) {
+            Pendiente pendiente = pendientes.remove(videoId);
+            if (pendiente != null) {
+                retirados.put(videoId, pendiente);
+            }
+        }
+        Map<Long, Long> consultados = new HashMap<>();
+        for (Long videoId : sinFila.keySet()) {
+            Long cursoId = sinFila.remove(videoId);
+            if (cursoId != null) {
+                consultados.put(videoId, cursoId);
+            }
+        }
+        if (retirados.isEmpty() && consultados.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // La primera vez se parte del histórico; si otro creó la fila, se une igualmente abajo
+                Map<Long, Long> faltan = new HashMap<>(consultados);
+                retirados.forEach((videoId, pendiente) -> faltan.put(videoId, pendiente.cursoId()));
+                embudoVideoRepository.buscarExistentes(faltan.keySet()).forEach(faltan::remove);
+                crear(faltan);
+
+                if (retirados.isEmpty()) {
+                    return;
+                }
+                for (EmbudoVideo embudo : embudoVideoRepository.bloquear(retirados.keySet())) {
+                    RoaringBitmap usuarios = deserializar(embudo.getEspectadores());
+                    usuarios.or(retirados.get(embudo.getVideoId()).usuarios());
+                    embudo.setEspectadores(serializar(usuarios));
+                    embudo.setFechaActualizacion(LocalDateTime.now());
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error al actualizar el embudo de {} videos, se reintentará: {}", retirados.size(), e.getMessage());
+            retirados.forEach((videoId, pendiente) -> pendientes.merge(videoId, pendiente, (actual, anterior) -> {
+                actual.usuarios().or(anterior.usuarios());
+                return actual;
+            }));
+            sinFila.putAll(consultados);
+        }
+    }
+
+    @PreDestroy
+    public void alDetener() {
+        volcarPendientes();
+    }
+
+    /**
+     * Embudo del curso para su instructor o un administrador
+     */
+    public EmbudoCursoResponse obtenerEmbudo(Long cursoId) {
+        Curso curso = cursoRepository.findById(cursoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso no encontrado"));
+
+        Usuario usuario = getUsuarioAutenticado();
+        if (usuario.getRol() != Rol.ADMIN && !curso.getInstructor().getId().equals(usuario.getId())) {
+            throw new BadRequestException("No tienes permisos para ver el embudo de este curso");
+        }
+
+        List<Video> videos = videoRepository.findByCursoIdOrderByOrdenAsc(cursoId);
+        List<RoaringBitmap> espectadores = cargarEspectadores(cursoId, videos);
+
+        long totalCurso = RoaringBitmap.or(espectadores.iterator()).getLongCardinality();
+        long primerVideo = espectadores.isEmpty() ? 0 : espectadores.get(0).getLongCardinality();
+
+        List<PasoEmbudoResponse> pasos = new ArrayList<>();
+        RoaringBitmap todosHastaAqui = null;
+        RoaringBitmap anterior = null;
+
+        for (int i = 0; i < videos.size(); i++) {
+            Video video = videos.get(i);
+            RoaringBitmap actual = espectadores.get(i);
+            long cantidad = actual.getLongCardinality();
+
+            todosHastaAqui = todosHastaAqui == null ? actual.clone() : RoaringBitmap.and(todosHastaAqui, actual);
+            long continuan = anterior == null ? cantidad : RoaringBitmap.andCardinality(anterior, actual);
+            long baseAnterior = anterior == null ? cantidad : anterior.getLongCardinality();
+
+            pasos.add(PasoEmbudoResponse.builder()
+                    .videoId(video.getId())
+                    .titulo(video.getTitulo())
+                    .orden(video.getOrden())
+                    .espectadores(cantidad)
+                    .porcentajeDelCurso(porcentaje(cantidad, totalCurso))
+                    .continuanDesdeAnterior(continuan)
+                    .porcentajeDesdeAnterior(porcentaje(continuan, baseAnterior))
+                    .vieronTodosHastaAqui(todosHastaAqui.getLongCardinality())
+                    .porcentajeTodosHastaAqui(porcentaje(todosHastaAqui.getLongCardinality(), primerVideo))
+                    .build());
+
+            anterior = actual;
+        }
+
+        return EmbudoCursoResponse.builder()
+                .cursoId(cursoId)
+                .titulo(curso.getTitulo())
+                .espectadores(totalCurso)
+                .pasos(pasos)
+                .build();
+    }
+
+    /**
+     * Bitmaps de los videos en el mismo orden, incluidos los usuarios aún sin volcar. Un video sin
+     * fila (nuevo, sin espectadores volcados) cuenta solo con los pendientes y se apunta para que el
+     * siguiente volcado la cree desde el histórico.
+     */
+    private List<RoaringBitmap> cargarEspectadores(Long cursoId, List<Video> videos) {
+        List<Long> videoIds = videos.stream().map(Video::getId).toList();
+
+        Map<Long, EmbudoVideo> embudos = new HashMap<>();
+        embudoVideoRepository.findAllById(videoIds).forEach(e -> embudos.put(e.getVideoId(), e));
+
+        List<RoaringBitmap> resultado = new ArrayList<>(videos.size());
+        for (Long videoId : videoIds) {
+            EmbudoVideo embudo = embudos.get(videoId);
+            if (embudo == null) {
+                sinFila.put(videoId, cursoId);
+            }
+            RoaringBitmap usuarios = embudo != null ? deserializar(embudo.getEspectadores()) : new RoaringBitmap();
+            pendientes.computeIfPresent(videoId, (id, pendiente) -> {
+                usuarios.or(pendiente.usuarios());
+                return pendiente;
+            });
+            resultado.add(usuarios);
+        }
+        return resultado;
+    }
+
+    /**
+     * Crea las filas que faltan (video -> curso) desde el histórico en una sola lectura, sin fallar
+     * si otra transacción las crea a la vez
+     */
+    private void crear(Map<Long, Long> faltan) {
+        if (faltan.isEmpty()) {
+            return;
+        }
+        Map<Long, RoaringBitmap> historico = jdbcTemplate.execute((ConnectionCallback<Map<Long, RoaringBitmap>>)
+                conexion -> HistoricoEspectadores.leer(conexion, archivo, faltan.keySet()));
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        // Los videos borrados desde la consulta no están en el histórico: el INSERT tampoco los crea
+        List<Object[]> filas = new TreeMap<>(faltan).entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue(),
+                        serializar(historico.getOrDefault(e.getKey(), new RoaringBitmap())), ahora, e.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate(CREAR_EMBUDO, filas);
+    }
+
+    static byte[] serializar(RoaringBitmap usuarios) {
+        usuarios.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(usuarios.serializedSizeInBytes());
+        usuarios.serialize(buffer);
+        return buffer.array();
+    }
+
+    private static RoaringBitmap deserializar(byte[] datos) {
+        RoaringBitmap usuarios = new RoaringBitmap();
+        try {
+            usuarios.deserialize(ByteBuffer.wrap(datos));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return usuarios;
+    }
+
+    private static double porcentaje(long parte, long total) {
+        return total > 0 ? Math.round(parte * 1000.0 / total) / 10.0 : 0.0;
+    }
+
+    private Usuario getUsuarioAutenticado() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (Usuario) authentication.getPrincipal();
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.api.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA que invalida la instantánea de EstadisticasService cuando cambian
+ * las entidades que cuenta el panel. Las visualizaciones no se escuchan: llegan
+ * demasiado seguido, y su total se da por bueno mientras la instantánea no tenga más
+ * de admin.estadisticas.max-edad-ms (la tarea programada la recalcula antes, y obtenerEstadisticas
+ * lo comprueba al pedirla).
+ */
+@Component
+public class EstadisticasEntityListener {
+
+    // Diferido: Hibernate crea el listener mientras se construye el EntityManagerFactory
+    private final ObjectProvider<EstadisticasService> estadisticasService;
+
+    public EstadisticasEntityListener(ObjectProvider<EstadisticasService> estadisticasService) {
+        this.estadisticasService = estadisticasService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void alCambiar(Object entidad) {
+        estadisticasService.ifAvailable(EstadisticasService::marcarDesactualizado);
+    }
+}
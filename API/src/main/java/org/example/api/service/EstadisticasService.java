@@ -0,0 +1,144 @@
+package org.example.api.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.invalidacion.BusInvalidacion;
+import org.example.api.invalidacion.OyenteInvalidacion;
+import org.example.api.repository.EstadisticasRepository;
+import org.example.api.repository.projection.EstadisticasProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Instantánea de las estadísticas del panel de administración.
+ * Se recalcula cuando está desactualizada: después de cambios en usuarios, cursos, videos, categorías
+ * o calificaciones (ver EstadisticasEntityListener), también si el cambio se hizo en otra instancia
+ * (ver BusInvalidacion), o si tiene más de max-edad-ms, porque las vistas no la marcan.
+ * Una tarea programada la pone al día aunque nadie la pida, para que un nodo sin peticiones del
+ * panel no sirva una instantánea vieja a la primera; la petición solo recalcula si la encuentra
+ * desactualizada entre dos pasadas.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EstadisticasService {
+
+    private final EstadisticasRepository estadisticasRepository;
+    private final BusInvalidacion busInvalidacion;
+
+    // Las vistas llegan demasiado a menudo para marcar la instantánea: su total puede tener esta antigüedad
+    @Value("${admin.estadisticas.max-edad-ms:60000}")
+    private long maxEdadMs;
+
+    private volatile Map<String, Object> snapshot;
+    private volatile long calculada;
+    private volatile boolean desactualizado = true;
+
+    private final ReentrantLock refresco = new ReentrantLock();
+
+    @PostConstruct
+    void suscribir() {
+        OyenteInvalidacion oyente = new OyenteInvalidacion() {
+            @Override
+            public void invalidar(Set<Long> ids) {
+                desactualizado = true;
+            }
+
+            @Override
+            public void invalidarTodo() {
+                desactualizado = true;
+            }
+        };
+        for (String tipo : List.of("Curso", "Categoria", "Usuario", "Calificacion")) {
+            busInvalidacion.suscribir(tipo, oyente);
+        }
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> actual = snapshot;
+        if (actual == null || desactualizado || System.currentTimeMillis() - calculada > maxEdadMs) {
+            actual = refrescar();
+        }
+        return actual;
+    }
+
+    @Scheduled(fixedDelayString = "${admin.estadisticas.refresco-ms:30000}")
+    public void refrescoProgramado() {
+        try {
+            refrescar();
+        } catch (Exception e) {
+            log.error("No se pudieron recalcular las estadísticas del panel: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> refrescar() {
+        // Un ReentrantLock y no synchronized: la consulta se hace con el cerrojo tomado y un monitor
+        // dejaría fijados a su hilo portador los hilos virtuales que esperan
+        refresco.lock();
+        try {
+            // Otra petición o la tarea programada la acaba de recalcular mientras esta esperaba
+            if (snapshot != null && !desactualizado && System.currentTimeMillis() - calculada <= maxEdadMs) {
+                return snapshot;
+            }
+
+            // Se baja la marca antes de consultar: un cambio concurrente la vuelve a subir
+            desactualizado = false;
+            try {
+                snapshot = calcular();
+                calculada = System.currentTimeMillis();
+            } catch (RuntimeException e) {
+                desactualizado = true;
+                throw e;
+            }
+            return snapshot;
+        } finally {
+            refresco.unlock();
+        }
+    }
+
+    /**
+     * Marca la instantánea como desactualizada una vez confirmada la transacción en curso
+     */
+    public void marcarDesactualizado() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    desactualizado = true;
+                }
+            });
+        } else {
+            desactualizado = true;
+        }
+    }
+
+    private Map<String, Object> calcular() {
+        EstadisticasProjection e = estadisticasRepository.obtenerEstadisticas();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalUsuarios", e.getTotalUsuarios());
+        stats.put("totalCursos", e.getTotalCursos());
+        stats.put("cursosPublicados", e.getCursosPublicados());
+        stats.put("cursosBorrador", e.getTotalCursos() - e.getCursosPublicados());
+        stats.put("totalVideos", e.getTotalVideos());
+        stats.put("estudiantes", e.getEstudiantes());
+        stats.put("instructores", e.getInstructores());
+        stats.put("totalCategorias", e.getTotalCategorias());
+        stats.put("totalCalificaciones", e.getTotalCalificaciones());
+        stats.put("totalVisualizaciones", e.getTotalVisualizaciones());
+
+        log.debug("Estadísticas del panel recalculadas");
+        return Collections.unmodifiableMap(stats);
+    }
+}
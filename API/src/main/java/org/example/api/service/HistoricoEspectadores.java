@@ -0,0 +1,89 @@
+package org.example.api.service;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Espectadores distintos por video reconstruidos desde el histórico: las particiones de
+ * visualizaciones y los meses ya archivados. Lo usan el relleno de embudo_videos
+ * (RellenoEmbudoVideos) y EmbudoService para los videos que aún no tienen fila.
+ *
+ * Solo se leen los meses archivados desde la subida del video más antiguo pedido: un video subido
+ * después del último mes archivado no tiene nada en el archivo.
+ */
+final class HistoricoEspectadores {
+
+    private static final int TAMANO_LECTURA = 10_000;
+
+    private HistoricoEspectadores() {
+    }
+
+    /**
+     * Un bitmap por video indicado (vacío si no tiene espectadores); con videoIds nulo, de todos los
+     * videos. Los videos que ya no existen no aparecen.
+     */
+    static Map<Long, RoaringBitmap> leer(Connection conexion, ArchivoVisualizacionesService archivo,
+                                         Collection<Long> videoIds) throws SQLException {
+        Map<Long, RoaringBitmap> espectadores = new HashMap<>();
+        YearMonth primeraSubida = null;
+
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "SELECT id, fecha_subida FROM videos" + (videoIds != null ? " WHERE id = ANY(?)" : ""))) {
+            asignar(conexion, ps, videoIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    espectadores.put(rs.getLong(1), new RoaringBitmap());
+                    YearMonth subida = YearMonth.from(rs.getTimestamp(2).toLocalDateTime());
+                    if (primeraSubida == null || subida.isBefore(primeraSubida)) {
+                        primeraSubida = subida;
+                    }
+                }
+            }
+        }
+        if (espectadores.isEmpty()) {
+            return espectadores;
+        }
+
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "SELECT DISTINCT video_id, usuario_id FROM visualizaciones WHERE usuario_id IS NOT NULL" +
+                        (videoIds != null ? " AND video_id = ANY(?)" : ""))) {
+            asignar(conexion, ps, videoIds);
+            ps.setFetchSize(TAMANO_LECTURA);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    RoaringBitmap usuarios = espectadores.get(rs.getLong(1));
+                    if (usuarios != null) {
+                        usuarios.add(Math.toIntExact(rs.getLong(2)));
+                    }
+                }
+            }
+        }
+
+        for (YearMonth mes : archivo.mesesArchivados()) {
+            if (mes.isBefore(primeraSubida)) {
+                continue;
+            }
+            archivo.recorrer(mes, v -> {
+                RoaringBitmap usuarios = v.getUsuarioId() != null ? espectadores.get(v.getVideoId()) : null;
+                if (usuarios != null) {
+                    usuarios.add(Math.toIntExact(v.getUsuarioId()));
+                }
+            });
+        }
+        return espectadores;
+    }
+
+    private static void asignar(Connection conexion, PreparedStatement ps, Collection<Long> videoIds) throws SQLException {
+        if (videoIds != null) {
+            ps.setArray(1, conexion.createArrayOf("bigint", videoIds.toArray()));
+        }
+    }
+}
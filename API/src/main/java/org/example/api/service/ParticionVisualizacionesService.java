@@ -0,0 +1,216 @@
+package org.example.api.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantenimiento de las particiones mensuales de visualizaciones: crea las de toda la ventana de
+ * retención y los próximos meses, y archiva en disco las que superan la retención.
+ * Así la partición por defecto solo recibe filas fuera de la ventana, y estas también se archivan.
+ * Las vistas de cada mes archivado siguen contando en los totales a través de vistas_archivadas_video.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ParticionVisualizacionesService {
+
+    private static final Pattern PARTICION_MENSUAL = Pattern.compile("visualizaciones_(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchivoVisualizacionesService archivoVisualizacionesService;
+
+    @Value("${visualizaciones.particiones.meses-adelante:3}")
+    private int mesesAdelante;
+
+    @Value("${visualizaciones.archivo.retencion-meses:12}")
+    private int retencionMeses;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            crearParticiones();
+        } catch (Exception e) {
+            log.error("No se pudieron crear las particiones de visualizaciones: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${visualizaciones.particiones.cron:0 15 3 * * *}")
+    public void mantenimientoDiario() {
+        crearParticiones();
+        archivarParticionesAntiguas();
+    }
+
+    /**
+     * Asegura que existen las particiones desde el primer mes de la retención hasta los siguientes
+     * meses configurados. Las vistas de lotes y de cargas de datos con fechas pasadas dentro de la
+     * retención caen en su mes, no en la partición por defecto.
+     */
+    public void crearParticiones() {
+        YearMonth actual = YearMonth.now();
+        for (YearMonth mes = actual.minusMonths(retencionMeses); !mes.isAfter(actual.plusMonths(mesesAdelante));
+             mes = mes.plusMonths(1)) {
+            crearParticion(mes);
+        }
+    }
+
+    private String crearParticion(YearMonth mes) {
+        // Si la partición por defecto tiene filas de ese mes, la función las mueve a la nueva
+        String particion = jdbcTemplate.queryForObject(
+                "SELECT crear_particion_visualizaciones(?)",
+                String.class,
+                mes.atDay(1)
+        );
+        log.debug("Partición {} disponible", particion);
+        return particion;
+    }
+
+    /**
+     * Exporta al archivo y elimina las particiones más antiguas que la retención configurada
+     */
+    public void archivarParticionesAntiguas() {
+        YearMonth limite = YearMonth.now().minusMonths(retencionMeses);
+
+        // Tablas que una ejecución anterior separó y no llegó a borrar: sus filas solo están ahí
+        // (sus vistas ya se sumaron a vistas_archivadas_video al separarlas).
+        // Van antes que la partición por defecto porque crearParticion usaría su mismo nombre.
+        for (String tabla : listarParticionesSeparadas()) {
+            try {
+                exportarYBorrar(tabla, mesDe(tabla), true);
+            } catch (Exception e) {
+                log.error("Error al archivar la tabla separada {}: {}", tabla, e.getMessage(), e);
+            }
+        }
+
+        // Filas anteriores a la retención en la partición por defecto: se pasan a su mes para archivarlas
+        List<LocalDate> mesesPorDefecto = jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', fecha_visualizacion)::date FROM visualizaciones_default " +
+                        "WHERE fecha_visualizacion < ?",
+                LocalDate.class,
+                limite.atDay(1)
+        );
+        for (LocalDate mes : mesesPorDefecto) {
+            crearParticion(YearMonth.from(mes));
+        }
+
+        for (String particion : listarParticionesMensuales()) {
+            YearMonth mes = mesDe(particion);
+            if (mes != null && mes.isBefore(limite)) {
+                try {
+                    archivarParticion(particion, mes);
+                } catch (Exception e) {
+                    log.error("Error al archivar la partición {}: {}", particion, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void archivarParticion(String particion, YearMonth mes) throws IOException {
+        log.info("Archivando partición {}...", particion);
+
+        // 1. Separarla antes de exportar: desde aquí las vistas de ese mes que lleguen tarde caen en
+        //    la partición por defecto (y se archivan en otra pasada), así que ninguna fila escrita
+        //    entre la exportación y el borrado se pierde. En la misma transacción sus vistas pasan a
+        //    vistas_archivadas_video, para que los totales no bajen ni mientras se exporta ni después
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE visualizaciones DETACH PARTITION " + particion);
+            jdbcTemplate.update(
+                    "INSERT INTO vistas_archivadas_video (video_id, vistas) " +
+                            "SELECT video_id, COUNT(*) FROM " + particion + " GROUP BY video_id " +
+                            "ON CONFLICT (video_id) DO UPDATE SET vistas = vistas_archivadas_video.vistas + EXCLUDED.vistas");
+        });
+
+        exportarYBorrar(particion, mes, false);
+    }
+
+    /**
+     * Vuelca a disco una partición ya separada y la borra cuando el fichero está publicado. Si falla
+     * antes, la tabla sigue ahí y la recoge la siguiente pasada (reintento = true): en ese caso el
+     * fichero puede contener ya sus filas y se descartan las repetidas.
+     */
+    private void exportarYBorrar(String tabla, YearMonth mes, boolean reintento) throws IOException {
+        // 2. Exportar la tabla separada, que ya no recibe escrituras
+        Path archivo;
+        long filas;
+        try (ArchivoVisualizacionesService.Escritor escritor = archivoVisualizacionesService.nuevoEscritor(mes)) {
+            // Filas tardías de un mes ya archivado: el fichero se reescribe con las anteriores y las nuevas
+            if (archivoVisualizacionesService.estaArchivado(mes)) {
+                long[] enTabla = reintento
+                        ? jdbcTemplate.queryForList("SELECT id FROM " + tabla + " ORDER BY id", Long.class)
+                                .stream().mapToLong(Long::longValue).toArray()
+                        : new long[0];
+                archivoVisualizacionesService.recorrer(mes, anterior -> {
+                    if (Arrays.binarySearch(enTabla, anterior.getId()) < 0) {
+                        escritor.agregarArchivada(anterior);
+                    }
+                });
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    con -> {
+                        PreparedStatement ps = con.prepareStatement(
+                                "SELECT id, video_id, usuario_id, fecha_visualizacion, ip_address FROM "
+                                        + tabla + " ORDER BY fecha_visualizacion");
+                        ps.setFetchSize(10_000);
+                        return ps;
+                    },
+                    escritor::agregar
+            ));
+            filas = escritor.getFilas();
+            archivo = escritor.confirmar();
+        }
+
+        // 3. Solo con el fichero ya publicado se borra la tabla
+        jdbcTemplate.execute("DROP TABLE " + tabla);
+
+        log.info("Partición {} archivada en {} ({} filas)", tabla, archivo, filas);
+    }
+
+    private static YearMonth mesDe(String particion) {
+        Matcher matcher = PARTICION_MENSUAL.matcher(particion);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    /**
+     * Tablas con nombre de partición mensual que ya no cuelgan de visualizaciones
+     */
+    private List<String> listarParticionesSeparadas() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_class c " +
+                        "WHERE c.relnamespace = current_schema()::regnamespace AND c.relkind = 'r' " +
+                        "AND NOT c.relispartition AND c.relname ~ '^visualizaciones_[0-9]{4}_[0-9]{2}$' " +
+                        "ORDER BY c.relname",
+                String.class
+        );
+    }
+
+    private List<String> listarParticionesMensuales() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = 'visualizaciones' " +
+                        "ORDER BY c.relname",
+                String.class
+        );
+    }
+}
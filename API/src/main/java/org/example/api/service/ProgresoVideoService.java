@@ -0,0 +1,314 @@
+package org.example.api.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.dto.ProgresoCursoResponse;
+import org.example.api.dto.ProgresoRequest;
+import org.example.api.dto.ProgresoVideoResponse;
+import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.model.Curso;
+import org.example.api.model.ProgresoVideo;
+import org.example.api.model.Usuario;
+import org.example.api.model.Video;
+import org.example.api.repository.CursoRepository;
+import org.example.api.repository.ProgresoVideoRepository;
+import org.example.api.repository.VideoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.example.api.model.ProgresoVideo.SEGUNDOS_POR_SEGMENTO;
+
+/**
+ * Progreso de reproducción por usuario y video.
+ * El reproductor informa cada pocos segundos; los reportes se acumulan en memoria y se escriben
+ * en la base como mucho una vez por intervalo y por (usuario, video). Las lecturas de un usuario
+ * vuelcan antes sus reportes pendientes para no devolver datos atrasados.
+ *
+ * El volcado programado y el de una lectura pueden escribir a la vez el mismo (usuario, video):
+ * la fila se crea con INSERT ... ON CONFLICT DO NOTHING y los segmentos se unen con la fila
+ * bloqueada (SELECT ... FOR UPDATE), así que ninguno pisa lo que escribió el otro. Si el volcado
+ * falla, los reportes vuelven a la cola para el siguiente intento.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProgresoVideoService {
+
+    // Fila vacía para los progresos nuevos; si ya existe (otro volcado) no hace nada
+    private static final String CREAR_PROGRESO =
+            "INSERT INTO progreso_videos (usuario_id, video_id, posicion_segundos, segmentos, segmentos_vistos, " +
+                    "completado, fecha_actualizacion) " +
+                    "SELECT ?, ?, 0, '\\x'::bytea, 0, false, ? WHERE EXISTS (SELECT 1 FROM videos WHERE id = ?) " +
+                    "AND EXISTS (SELECT 1 FROM usuarios WHERE id = ?) " +
+                    "ON CONFLICT (usuario_id, video_id) DO NOTHING";
+
+    private final ProgresoVideoRepository progresoVideoRepository;
+    private final VideoRepository videoRepository;
+    private final CursoRepository cursoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Clave, Pendiente> pendientes = new ConcurrentHashMap<>();
+
+    // Porcentaje de segmentos vistos a partir del cual un video cuenta como completado
+    @Value("${progreso.umbral-completado:90}")
+    private int umbralCompletado;
+
+    private record Clave(Long usuarioId, Long videoId) {
+    }
+
+    private static class Pendiente {
+        private final Integer duracionSegundos;
+        private final BitSet segmentos = new BitSet();
+        private int posicionSegundos;
+        private LocalDateTime fecha;
+        private boolean retirado;
+
+        private Pendiente(Integer duracionSegundos) {
+            this.duracionSegundos = duracionSegundos;
+        }
+    }
+
+    /**
+     * Registra un reporte del reproductor; se escribirá en el próximo volcado
+     */
+    public void reportarProgreso(Long videoId, ProgresoRequest request) {
+        Usuario usuario = getUsuarioAutenticado();
+        Clave clave = new Clave(usuario.getId(), videoId);
+
+        int hasta = request.getPosicionSegundos();
+        int desde = request.getDesdeSegundos() != null ? Math.min(request.getDesdeSegundos(), hasta) : hasta;
+
+        while (true) {
+            Pendiente pendiente = pendientes.get(clave);
+            if (pendiente == null) {
+                // La duración se consulta fuera del mapa: computeIfAbsent bloquearía esa parte del mapa durante la consulta
+                Pendiente nuevo = new Pendiente(cargarDuracion(videoId));
+                pendiente = Objects.requireNonNullElse(pendientes.putIfAbsent(clave, nuevo), nuevo);
+            }
+            synchronized (pendiente) {
+                // Si el volcado lo retiró entre la lectura del mapa y el bloqueo, se usa uno nuevo
+                if (pendiente.retirado) {
+                    continue;
+                }
+                int ultimo = pendiente.duracionSegundos != null ? Math.min(hasta, pendiente.duracionSegundos) : hasta;
+
+                // Segmentos que toca el tramo [desde, ultimo); un reporte sin tramo marca el segmento actual
+                int primero = desde / SEGUNDOS_POR_SEGMENTO;
+                int finExclusivo = Math.max(primero + 1, (ultimo + SEGUNDOS_POR_SEGMENTO - 1) / SEGUNDOS_POR_SEGMENTO);
+                if (pendiente.duracionSegundos != null) {
+                    finExclusivo = Math.min(finExclusivo, totalSegmentos(pendiente.duracionSegundos));
+                }
+                if (primero < finExclusivo) {
+                    pendiente.segmentos.set(primero, finExclusivo);
+                }
+                pendiente.posicionSegundos = ultimo;
+                // En microsegundos como la columna: si Postgres redondeara hacia arriba, el volcado
+                // vería la fila que acaba de crear como más reciente que el reporte y no escribiría la posición
+                pendiente.fecha = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Porcentaje completado del curso por el usuario autenticado, en total y por video
+     */
+    public ProgresoCursoResponse obtenerProgresoCurso(Long cursoId) {
+        Usuario usuario = getUsuarioAutenticado();
+        Curso curso = cursoRepository.findById(cursoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso no encontrado"));
+        volcarUsuario(usuario.getId());
+
+        List<Video> videos = videoRepository.findByCursoIdOrderByOrdenAsc(cursoId);
+        Map<Long, ProgresoVideo> progresos = progresoVideoRepository.buscarPorUsuarioYCurso(usuario.getId(), cursoId)
+                .stream()
+                .collect(Collectors.toMap(p -> p.getVideo().getId(), Function.identity()));
+
+        long segmentosVistos = 0;
+        long segmentosTotales = 0;
+        int completados = 0;
+        List<ProgresoVideoResponse> respuesta = new ArrayList<>();
+
+        for (Video video : videos) {
+            ProgresoVideo progreso = progresos.get(video.getId());
+            if (video.getDuracionSegundos() != null) {
+                int total = totalSegmentos(video.getDuracionSegundos());
+                segmentosTotales += total;
+                segmentosVistos += progreso != null ? Math.min(progreso.getSegmentosVistos(), total) : 0;
+            }
+            if (progreso != null && progreso.getCompletado()) {
+                completados++;
+            }
+            respuesta.add(convertirAProgresoVideoResponse(video, curso, progreso));
+        }
+
+        return ProgresoCursoResponse.builder()
+                .cursoId(cursoId)
+                .porcentajeCompletado(segmentosTotales > 0 ? redondear(segmentosVistos * 100.0 / segmentosTotales) : 0.0)
+                .videosCompletados(completados)
+                .totalVideos(videos.size())
+                .videos(respuesta)
+                .build();
+    }
+
+    /**
+     * Videos empezados y sin terminar del usuario autenticado, los más recientes primero
+     */
+    public List<ProgresoVideoResponse> obtenerContinuarViendo(int limite) {
+        Usuario usuario = getUsuarioAutenticado();
+        volcarUsuario(usuario.getId());
+
+        return progresoVideoRepository.buscarEnCurso(usuario.getId(), PageRequest.of(0, limite)).stream()
+                .map(p -> convertirAProgresoVideoResponse(p.getVideo(), p.getVideo().getCurso(), p))
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${progreso.intervalo-escritura-ms:10000}")
+    public void volcarPendientes() {
+        Set<Long> usuarios = pendientes.keySet().stream()
+                .map(Clave::usuarioId)
+                .collect(Collectors.toSet());
+        for (Long usuarioId : usuarios) {
+            try {
+                volcarUsuario(usuarioId);
+            } catch (Exception e) {
+                log.error("Error al guardar el progreso del usuario {}: {}", usuarioId, e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void alDetener() {
+        volcarPendientes();
+    }
+
+    /**
+     * Escribe en una transacción todos los reportes pendientes del usuario
+     */
+    private void volcarUsuario(Long usuarioId) {
+        Map<Long, Pendiente> retirados = new HashMap<>();
+        for (Map.Entry<Clave, Pendiente> entrada : pendientes.entrySet()) {
+            Clave clave = entrada.getKey();
+            if (clave.usuarioId().equals(usuarioId) && pendientes.remove(clave, entrada.getValue())) {
+                Pendiente pendiente = entrada.getValue();
+                synchronized (pendiente) {
+                    pendiente.retirado = true;
+                }
+                retirados.put(clave.videoId(), pendiente);
+            }
+        }
+        if (retirados.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // En orden de video, como el bloqueo de después
+                List<Object[]> nuevas = new TreeMap<>(retirados).entrySet().stream()
+                        .map(e -> new Object[]{usuarioId, e.getKey(), Timestamp.valueOf(e.getValue().fecha),
+                                e.getKey(), usuarioId})
+                        .toList();
+                jdbcTemplate.batchUpdate(CREAR_PROGRESO, nuevas);
+
+                // Los videos o usuarios borrados desde el reporte no tienen fila y se descartan
+                for (ProgresoVideo progreso : progresoVideoRepository.bloquearPorUsuarioYVideos(usuarioId, retirados.keySet())) {
+                    Pendiente pendiente = retirados.get(progreso.getVideo().getId());
+                    BitSet segmentos = BitSet.valueOf(progreso.getSegmentos());
+                    segmentos.or(pendiente.segmentos);
+
+                    int vistos = segmentos.cardinality();
+                    progreso.setSegmentos(segmentos.toByteArray());
+                    progreso.setSegmentosVistos(vistos);
+                    progreso.setCompletado(pendiente.duracionSegundos != null
+                            && vistos * 100L >= (long) totalSegmentos(pendiente.duracionSegundos) * umbralCompletado);
+                    // La posición es la del reporte más reciente, que puede haber escrito el otro volcado
+                    if (!pendiente.fecha.isBefore(progreso.getFechaActualizacion())) {
+                        progreso.setPosicionSegundos(pendiente.posicionSegundos);
+                        progreso.setFechaActualizacion(pendiente.fecha);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // Se devuelven a la cola para el siguiente intento
+            retirados.forEach((videoId, pendiente) -> devolver(new Clave(usuarioId, videoId), pendiente));
+            throw e;
+        }
+    }
+
+    /**
+     * Vuelve a dejar pendiente un reporte retirado, unido al que se haya acumulado mientras tanto
+     */
+    private void devolver(Clave clave, Pendiente retirado) {
+        Pendiente copia = new Pendiente(retirado.duracionSegundos);
+        copia.segmentos.or(retirado.segmentos);
+        copia.posicionSegundos = retirado.posicionSegundos;
+        copia.fecha = retirado.fecha;
+
+        pendientes.merge(clave, copia, (actual, devuelto) -> {
+            synchronized (actual) {
+                // actual es posterior, así que conserva su posición y su fecha
+                actual.segmentos.or(devuelto.segmentos);
+            }
+            return actual;
+        });
+    }
+
+    private Integer cargarDuracion(Long videoId) {
+        return videoRepository.findById(videoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Video no encontrado"))
+                .getDuracionSegundos();
+    }
+
+    private static int totalSegmentos(int duracionSegundos) {
+        return Math.max(1, (duracionSegundos + SEGUNDOS_POR_SEGMENTO - 1) / SEGUNDOS_POR_SEGMENTO);
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 10.0) / 10.0;
+    }
+
+    private Usuario getUsuarioAutenticado() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof Usuario)) {
+            throw new RuntimeException("Usuario no autenticado");
+        }
+        return (Usuario) authentication.getPrincipal();
+    }
+
+    private ProgresoVideoResponse convertirAProgresoVideoResponse(Video video, Curso curso, ProgresoVideo progreso) {
+        Double porcentaje = null;
+        if (video.getDuracionSegundos() != null) {
+            int total = totalSegmentos(video.getDuracionSegundos());
+            int vistos = progreso != null ? Math.min(progreso.getSegmentosVistos(), total) : 0;
+            porcentaje = redondear(vistos * 100.0 / total);
+        }
+
+        return ProgresoVideoResponse.builder()
+                .videoId(video.getId())
+                .videoTitulo(video.getTitulo())
+                .cursoId(curso.getId())
+                .cursoTitulo(curso.getTitulo())
+                .posicionSegundos(progreso != null ? progreso.getPosicionSegundos() : 0)
+                .duracionSegundos(video.getDuracionSegundos())
+                .porcentaje(porcentaje)
+                .completado(progreso != null && progreso.getCompletado())
+                .fechaActualizacion(progreso != null ? progreso.getFechaActualizacion() : null)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.api.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * V10: crea la fila de embudo_videos de cada video desde el histórico completo, meses archivados
+ * incluidos, para que EmbudoService no tenga que construirlas al consultar. Es un bean porque
+ * necesita el ArchivoVisualizacionesService; Spring Boot se lo pasa a Flyway.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class RellenoEmbudoVideos implements JavaMigration {
+
+    private static final int FILAS_POR_LOTE = 500;
+
+    private final ArchivoVisualizacionesService archivo;
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("10");
+    }
+
+    @Override
+    public String getDescription() {
+        return "rellenar embudo videos";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection conexion = context.getConnection();
+        long inicio = System.nanoTime();
+        Map<Long, RoaringBitmap> espectadores = new TreeMap<>(HistoricoEspectadores.leer(conexion, archivo, null));
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO embudo_videos (video_id, curso_id, espectadores, fecha_actualizacion) " +
+                        "SELECT id, curso_id, ?, ? FROM videos WHERE id = ? " +
+                        "ON CONFLICT (video_id) DO UPDATE SET espectadores = EXCLUDED.espectadores, " +
+                        "fecha_actualizacion = EXCLUDED.fecha_actualizacion")) {
+            int enLote = 0;
+            for (Map.Entry<Long, RoaringBitmap> video : espectadores.entrySet()) {
+                ps.setBytes(1, EmbudoService.serializar(video.getValue()));
+                ps.setTimestamp(2, ahora);
+                ps.setLong(3, video.getKey());
+                ps.addBatch();
+                if (++enLote == FILAS_POR_LOTE) {
+                    ps.executeBatch();
+                    enLote = 0;
+                }
+            }
+            if (enLote > 0) {
+                ps.executeBatch();
+            }
+        }
+        log.info("Embudo de {} videos creado desde el histórico en {} ms",
+                espectadores.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
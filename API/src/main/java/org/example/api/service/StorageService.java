@@ -1,6 +1,7 @@
 package org.example.api.service;
 
 import org.example.api.exception.BadRequestException;
+import org.example.api.observability.FasesPeticion;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -46,7 +47,12 @@ public class StorageService {
 
             // Guardar archivo
             Path rutaArchivo = directorioBase.resolve(nombreArchivo);
-            Files.copy(archivo.getInputStream(), rutaArchivo, StandardCopyOption.REPLACE_EXISTING);
+            long inicio = System.nanoTime();
+            try {
+                Files.copy(archivo.getInputStream(), rutaArchivo, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                FasesPeticion.sumar(FasesPeticion.Fase.ARCHIVOS, inicio);
+            }
 
             // Retornar URL del archivo
             return baseUrl + "/files/" + carpeta + "/" + nombreArchivo;
@@ -65,7 +71,12 @@ public class StorageService {
             }
 
             Path rutaArchivo = Paths.get(storageLocation, partes[1]);
-            Files.deleteIfExists(rutaArchivo);
+            long inicio = System.nanoTime();
+            try {
+                Files.deleteIfExists(rutaArchivo);
+            } finally {
+                FasesPeticion.sumar(FasesPeticion.Fase.ARCHIVOS, inicio);
+            }
 
         } catch (IOException e) {
             throw new BadRequestException("Error al eliminar el archivo: " + e.getMessage());
@@ -64,7 +64,7 @@ public class VideoService {
 
     @Transactional
     public VideoResponse actualizarVideo(Long id, VideoRequest request) {
-        Video video = videoRepository.findById(id)
+        Video video = videoRepository.findConCursoById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Video no encontrado"));
 
         Usuario usuarioAutenticado = getUsuarioAutenticado();
@@ -96,7 +96,7 @@ public class VideoService {
 
     @Transactional
     public void eliminarVideo(Long id) {
-        Video video = videoRepository.findById(id)
+        Video video = videoRepository.findConCursoById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Video no encontrado"));
 
         Usuario usuarioAutenticado = getUsuarioAutenticado();
@@ -0,0 +1,336 @@
+package org.example.api.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.dto.VistasEnVivoEvento;
+import org.example.api.exception.TooManyRequestsException;
+import org.example.api.repository.VisualizacionRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Contadores de vistas en memoria para los cursos con suscriptores SSE.
+ * registrarVista incrementa el contador y marca el curso como pendiente; cada intervalo se envía
+ * un único evento por curso con el estado acumulado, así que un curso nunca emite más de
+ * 1000 / intervalo-ms eventos por segundo aunque reciba muchas vistas.
+ * Cada conexión guarda solo el último evento sin enviar: si el cliente no lee, el evento nuevo
+ * sustituye al anterior y, si un envío se queda bloqueado demasiado tiempo, se le desconecta.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VistasEnVivoService implements DisposableBean {
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final VisualizacionRepository visualizacionRepository;
+
+    private final Map<Long, ContadorCurso> cursos = new ConcurrentHashMap<>();
+    private final AtomicInteger totalSuscriptores = new AtomicInteger();
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${visualizaciones.sse.max-suscriptores:10000}")
+    private int maxSuscriptores;
+
+    @Value("${visualizaciones.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${visualizaciones.sse.max-bloqueo-ms:5000}")
+    private long maxBloqueoMs;
+
+    private static class ContadorCurso {
+        private final AtomicLong total = new AtomicLong();
+        private final Map<Long, AtomicLong> porVideo = new ConcurrentHashMap<>();
+        private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean pendiente = new AtomicBoolean();
+        // Hasta que se suman los conteos de la base solo lleva las vistas llegadas desde el alta
+        private volatile boolean cargado;
+    }
+
+    private class Suscriptor {
+        private final SseEmitter emitter;
+        private final AtomicReference<Object> siguiente = new AtomicReference<>();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile long inicioEnvio;
+
+        private Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Deja el evento como el siguiente a enviar (sustituyendo al anterior si no se llegó a enviar)
+         */
+        private void publicar(Object evento) {
+            siguiente.set(evento);
+            programarEnvio();
+        }
+
+        private void publicarHeartbeat() {
+            if (siguiente.compareAndSet(null, HEARTBEAT)) {
+                programarEnvio();
+            }
+        }
+
+        private void programarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                envios.execute(this::enviarPendientes);
+            }
+        }
+
+        private void enviarPendientes() {
+            try {
+                Object evento;
+                while ((evento = siguiente.getAndSet(null)) != null) {
+                    inicioEnvio = System.currentTimeMillis();
+                    if (evento == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event().name("vistas").data(evento));
+                    }
+                    inicioEnvio = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                enviando.set(false);
+            }
+
+            // Un evento publicado justo después del último getAndSet no debe quedarse sin enviar
+            if (siguiente.get() != null) {
+                programarEnvio();
+            }
+        }
+
+        /**
+         * Cierra la conexión desde el executor de envíos: complete() espera al mismo lock que un
+         * send() bloqueado, y no debe parar al hilo de las tareas programadas
+         */
+        private void desconectar() {
+            try {
+                envios.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                // Executor parado: destroy() ya está cerrando las conexiones
+            }
+        }
+
+        private boolean bloqueado(long ahora) {
+            long inicio = inicioEnvio;
+            return inicio != 0 && ahora - inicio > maxBloqueoMs;
+        }
+    }
+
+    /**
+     * Abre un stream de vistas del curso; el primer evento lleva el estado actual
+     */
+    public SseEmitter suscribir(Long cursoId) {
+        if (totalSuscriptores.incrementAndGet() > maxSuscriptores) {
+            totalSuscriptores.decrementAndGet();
+            throw new TooManyRequestsException("Demasiadas conexiones abiertas, inténtalo más tarde");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(emitter);
+
+        // El alta y la baja se hacen dentro de compute para que un curso no se retire del mapa
+        // mientras se le está añadiendo un suscriptor. La consulta a la base va fuera de compute,
+        // que bloquea esa parte del mapa
+        AtomicBoolean nuevo = new AtomicBoolean();
+        ContadorCurso contador = cursos.compute(cursoId, (id, actual) -> {
+            ContadorCurso c = actual;
+            if (c == null) {
+                c = new ContadorCurso();
+                nuevo.set(true);
+            }
+            c.suscriptores.add(suscriptor);
+            return c;
+        });
+
+        Runnable baja = () -> darDeBaja(cursoId, suscriptor);
+        emitter.onCompletion(baja);
+        emitter.onTimeout(baja);
+        emitter.onError(e -> baja.run());
+
+        if (nuevo.get()) {
+            try {
+                cargarContador(cursoId, contador);
+            } catch (RuntimeException e) {
+                descartarContador(cursoId, contador, e);
+                throw e;
+            }
+        } else if (contador.cargado) {
+            suscriptor.publicar(crearEvento(cursoId, contador));
+        }
+        // Si otro suscriptor está cargando el curso, este recibe el primer evento al terminar la carga
+        return emitter;
+    }
+
+    /**
+     * Cuenta una vista nueva cuando se confirme la transacción que la registra
+     */
+    public void registrarVista(Long cursoId, Long videoId) {
+        registrarVistas(cursoId, Map.of(videoId, 1L));
+    }
+
+    /**
+     * Igual que registrarVista pero con varias vistas del mismo curso agrupadas por video
+     */
+    public void registrarVistas(Long cursoId, Map<Long, Long> vistasPorVideo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementar(cursoId, vistasPorVideo);
+                }
+            });
+        } else {
+            incrementar(cursoId, vistasPorVideo);
+        }
+    }
+
+    private void incrementar(Long cursoId, Map<Long, Long> vistasPorVideo) {
+        // Solo se llevan contadores de los cursos que alguien está mirando
+        ContadorCurso contador = cursos.get(cursoId);
+        if (contador == null) {
+            return;
+        }
+        vistasPorVideo.forEach((videoId, vistas) -> {
+            contador.total.addAndGet(vistas);
+            contador.porVideo.computeIfAbsent(videoId, id -> new AtomicLong()).addAndGet(vistas);
+        });
+        contador.pendiente.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${visualizaciones.sse.intervalo-ms:250}")
+    public void enviarActualizaciones() {
+        long ahora = System.currentTimeMillis();
+
+        cursos.forEach((cursoId, contador) -> {
+            for (Suscriptor suscriptor : contador.suscriptores) {
+                if (suscriptor.bloqueado(ahora)) {
+                    log.debug("Desconectando suscriptor lento del curso {}", cursoId);
+                    darDeBaja(cursoId, suscriptor);
+                    suscriptor.desconectar();
+                }
+            }
+
+            if (contador.cargado && contador.pendiente.getAndSet(false)) {
+                VistasEnVivoEvento evento = crearEvento(cursoId, contador);
+                for (Suscriptor suscriptor : contador.suscriptores) {
+                    suscriptor.publicar(evento);
+                }
+            }
+        });
+    }
+
+    /**
+     * Comentario periódico para que proxies y clientes no cierren la conexión por inactividad
+     * y para detectar cuanto antes las conexiones caídas
+     */
+    @Scheduled(fixedDelayString = "${visualizaciones.sse.heartbeat-ms:15000}")
+    public void enviarHeartbeat() {
+        cursos.values().forEach(contador -> contador.suscriptores.forEach(Suscriptor::publicarHeartbeat));
+    }
+
+    public int getSuscriptores() {
+        return totalSuscriptores.get();
+    }
+
+    /**
+     * Suma los conteos de la base a un contador que ya está en el mapa. Las vistas que incrementar
+     * sumó antes de empezar la consulta ya estaban confirmadas, así que la consulta también las
+     * cuenta: se toma una foto de lo sumado justo antes y se descuenta. Las que llegan después se
+     * conservan; solo se cuentan dos veces las que se confirmen entre la foto y el inicio de la
+     * consulta. Después se envía el primer evento a todos los suscriptores que haya.
+     */
+    private void cargarContador(Long cursoId, ContadorCurso contador) {
+        Map<Long, Long> yaSumadas = new HashMap<>();
+        contador.porVideo.forEach((videoId, vistas) -> yaSumadas.put(videoId, vistas.get()));
+
+        for (Object[] fila : visualizacionRepository.contarPorVideoDeCurso(cursoId)) {
+            long vistas = (Long) fila[1];
+            contador.porVideo.computeIfAbsent((Long) fila[0], id -> new AtomicLong()).addAndGet(vistas);
+            contador.total.addAndGet(vistas);
+        }
+        yaSumadas.forEach((videoId, vistas) -> {
+            contador.porVideo.get(videoId).addAndGet(-vistas);
+            contador.total.addAndGet(-vistas);
+        });
+        contador.cargado = true;
+
+        VistasEnVivoEvento evento = crearEvento(cursoId, contador);
+        for (Suscriptor suscriptor : contador.suscriptores) {
+            suscriptor.publicar(evento);
+        }
+    }
+
+    /**
+     * Retira un contador cuya primera carga ha fallado y cierra con el error a todos sus
+     * suscriptores, también a los que se sumaron durante la carga esperando el primer evento.
+     * La próxima suscripción crea un contador nuevo y vuelve a consultar la base.
+     */
+    private void descartarContador(Long cursoId, ContadorCurso contador, Exception error) {
+        List<Suscriptor> esperando = new ArrayList<>();
+        cursos.computeIfPresent(cursoId, (id, actual) -> {
+            if (actual != contador) {
+                return actual;
+            }
+            for (Suscriptor suscriptor : contador.suscriptores) {
+                if (contador.suscriptores.remove(suscriptor)) {
+                    totalSuscriptores.decrementAndGet();
+                    esperando.add(suscriptor);
+                }
+            }
+            return null;
+        });
+        esperando.forEach(suscriptor -> suscriptor.emitter.completeWithError(error));
+    }
+
+    private VistasEnVivoEvento crearEvento(Long cursoId, ContadorCurso contador) {
+        Map<Long, Long> vistasPorVideo = new LinkedHashMap<>();
+        contador.porVideo.forEach((videoId, vistas) -> vistasPorVideo.put(videoId, vistas.get()));
+
+        return VistasEnVivoEvento.builder()
+                .cursoId(cursoId)
+                .totalVistas(contador.total.get())
+                .vistasPorVideo(vistasPorVideo)
+                .build();
+    }
+
+    private void darDeBaja(Long cursoId, Suscriptor suscriptor) {
+        // Sin suscriptores se deja de contar; la próxima suscripción recarga desde la base
+        cursos.computeIfPresent(cursoId, (id, contador) -> {
+            if (contador.suscriptores.remove(suscriptor)) {
+                totalSuscriptores.decrementAndGet();
+            }
+            return contador.suscriptores.isEmpty() ? null : contador;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        cursos.values().forEach(contador -> contador.suscriptores.forEach(s -> s.emitter.complete()));
+        envios.shutdownNow();
+    }
+}
@@ -4,21 +4,31 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.api.dto.VisualizacionResponse;
+import org.example.api.dto.VistaLoteItem;
+import org.example.api.dto.VistaLoteResultado;
+import org.example.api.dto.VistasLoteRequest;
 import org.example.api.exception.ResourceNotFoundException;
 import org.example.api.model.Curso;
 import org.example.api.model.Usuario;
 import org.example.api.model.Video;
 import org.example.api.model.Visualizacion;
+import org.example.api.observability.MetricasVisualizaciones;
+import org.example.api.observability.jfr.RegistroVistaEvento;
 import org.example.api.repository.CursoRepository;
 import org.example.api.repository.VideoRepository;
 import org.example.api.repository.VisualizacionRepository;
 import org.example.api.snackIntegration.SnackApiService;
+import org.example.api.util.Peticiones;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +40,14 @@ public class VisualizacionService {
     private final VideoRepository videoRepository;
     private final CursoRepository cursoRepository;
     private final SnackApiService snackApiService;
+    private final VistasEnVivoService vistasEnVivoService;
+    private final AnaliticaInstructorService analiticaInstructorService;
+    private final EmbudoService embudoService;
+    private final MetricasVisualizaciones metricasVisualizaciones;
+
+    // Cuánto puede retrasarse la sincronización de vistas offline de un lote
+    @Value("${visualizaciones.lote.max-antiguedad-horas:72}")
+    private long maxAntiguedadHoras;
 
     /**
      * Registrar una nueva vista de un video
@@ -38,11 +56,15 @@ public class VisualizacionService {
      */
     @Transactional
     public VisualizacionResponse registrarVista(Long videoId, HttpServletRequest request) {
+        RegistroVistaEvento evento = new RegistroVistaEvento();
+        evento.begin();
+
         // Verificar que el video existe
         Video video = videoRepository.findById(videoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Video no encontrado"));
 
-        // Obtener vistas ANTES de registrar la nueva
+        // Obtener vistas ANTES de registrar la nueva, con las de los meses archivados: si no, el
+        // total volvería a bajar de 10 al archivar y el hito se repetiría
         Long cursoId = video.getCurso().getId();
         Long vistasAntes = visualizacionRepository.countByCursoId(cursoId);
 
@@ -51,35 +73,161 @@ public class VisualizacionService {
         visualizacion.setVideo(video);
 
         // Intentar obtener el usuario autenticado (puede ser null si es anónimo)
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication != null && authentication.getPrincipal() instanceof Usuario) {
-                Usuario usuario = (Usuario) authentication.getPrincipal();
-                visualizacion.setUsuario(usuario);
-            }
-        } catch (Exception e) {
-            // Si falla, dejamos usuario como null (vista anónima)
-        }
+        visualizacion.setUsuario(getUsuarioAutenticadoOpcional());
 
         // Obtener IP del request (opcional, para analytics futuros)
-        String ipAddress = getClientIp(request);
+        String ipAddress = Peticiones.ipCliente(request);
         visualizacion.setIpAddress(ipAddress);
 
         visualizacion = visualizacionRepository.save(visualizacion);
+        vistasEnVivoService.registrarVista(cursoId, videoId);
+        analiticaInstructorService.registrarVistas(List.of(visualizacion));
+        embudoService.registrarVistas(List.of(visualizacion));
+        metricasVisualizaciones.vistasRegistradas(MetricasVisualizaciones.ORIGEN_INDIVIDUAL, List.of(visualizacion));
 
         // Verificar si el curso acaba de alcanzar 10 vistas
         Long vistasDespues = vistasAntes + 1;
 
         log.info("Curso ID {}: Vistas antes={}, vistas después={}", cursoId, vistasAntes, vistasDespues);
 
-        if (vistasAntes < 10 && vistasDespues >= 10) {
+        boolean hito = vistasAntes < 10 && vistasDespues >= 10;
+        if (hito) {
             log.info("🎉 Curso ID {} alcanzó 10 vistas! Notificando a Snack API...", cursoId);
             procesarHitoDeDiezVistas(cursoId, vistasDespues);
         }
 
+        evento.videoId = videoId;
+        evento.cursoId = cursoId;
+        evento.vistas = 1;
+        evento.cursos = 1;
+        evento.anonima = visualizacion.getUsuario() == null;
+        evento.hitos = hito ? 1 : 0;
+        evento.commit();
+
         return convertirAVisualizacionResponse(visualizacion);
     }
 
+    /**
+     * Registrar varias vistas en una sola petición (reproducciones de una lista o vistas offline sincronizadas)
+     * Los videos se validan con una consulta, las vistas se insertan en lote y los contadores y
+     * el hito de 10 vistas se evalúan una sola vez por curso afectado.
+     * Solo para usuarios autenticados: cada vista queda a su nombre y la fecha que envía el cliente
+     * solo se acepta dentro de la ventana de sincronización offline
+     */
+    @Transactional
+    public List<VistaLoteResultado> registrarVistasEnLote(VistasLoteRequest lote, HttpServletRequest request) {
+        RegistroVistaEvento evento = new RegistroVistaEvento();
+        evento.begin();
+        List<VistaLoteItem> items = lote.getVistas();
+
+        // 1. Validar todos los videos con una sola consulta
+        Set<Long> videoIds = items.stream()
+                .map(VistaLoteItem::getVideoId)
+                .collect(Collectors.toSet());
+        Map<Long, Video> videos = videoRepository.findAllById(videoIds).stream()
+                .collect(Collectors.toMap(Video::getId, Function.identity()));
+
+        Usuario usuario = getUsuarioAutenticado();
+        String ipAddress = Peticiones.ipCliente(request);
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime fechaMinima = ahora.minusHours(maxAntiguedadHoras);
+        LocalDateTime fechaMaxima = ahora.plusMinutes(5); // margen para relojes de cliente adelantados
+
+        VistaLoteResultado[] resultados = new VistaLoteResultado[items.size()];
+        List<Visualizacion> nuevas = new ArrayList<>();
+        List<Integer> indicesNuevas = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            VistaLoteItem item = items.get(i);
+            Video video = videos.get(item.getVideoId());
+            LocalDateTime fecha = item.getFecha() != null ? item.getFecha() : ahora;
+
+            String estado = null;
+            if (video == null) {
+                estado = "VIDEO_NO_ENCONTRADO";
+            } else if (fecha.isBefore(fechaMinima) || fecha.isAfter(fechaMaxima)) {
+                estado = "FECHA_INVALIDA";
+            }
+
+            if (estado != null) {
+                resultados[i] = VistaLoteResultado.builder()
+                        .indice(i)
+                        .videoId(item.getVideoId())
+                        .estado(estado)
+                        .build();
+                continue;
+            }
+
+            Visualizacion visualizacion = new Visualizacion();
+            visualizacion.setVideo(video);
+            visualizacion.setUsuario(usuario);
+            visualizacion.setFechaVisualizacion(fecha);
+            visualizacion.setIpAddress(ipAddress);
+            nuevas.add(visualizacion);
+            indicesNuevas.add(i);
+        }
+
+        if (nuevas.isEmpty()) {
+            return Arrays.asList(resultados);
+        }
+
+        // 2. Vistas por curso y video del lote, y vistas previas de esos cursos en una consulta
+        //    (meses archivados incluidos, como en registrarVista)
+        Map<Long, Map<Long, Long>> vistasPorCurso = new HashMap<>();
+        for (Visualizacion v : nuevas) {
+            vistasPorCurso
+                    .computeIfAbsent(v.getVideo().getCurso().getId(), id -> new HashMap<>())
+                    .merge(v.getVideo().getId(), 1L, Long::sum);
+        }
+
+        Map<Long, Long> vistasAntes = new HashMap<>();
+        for (Object[] fila : visualizacionRepository.contarPorCursos(vistasPorCurso.keySet())) {
+            vistasAntes.put((Long) fila[0], (Long) fila[1]);
+        }
+
+        // 3. Inserción en lote JDBC (hibernate.jdbc.batch_size)
+        visualizacionRepository.saveAll(nuevas);
+        analiticaInstructorService.registrarVistas(nuevas);
+        embudoService.registrarVistas(nuevas);
+        metricasVisualizaciones.vistasRegistradas(MetricasVisualizaciones.ORIGEN_LOTE, nuevas);
+
+        for (int j = 0; j < nuevas.size(); j++) {
+            int i = indicesNuevas.get(j);
+            resultados[i] = VistaLoteResultado.builder()
+                    .indice(i)
+                    .videoId(items.get(i).getVideoId())
+                    .estado("REGISTRADA")
+                    .visualizacionId(nuevas.get(j).getId())
+                    .build();
+        }
+
+        // 4. Contadores en vivo e hito de 10 vistas, una vez por curso
+        int hitos = 0;
+        for (Map.Entry<Long, Map<Long, Long>> entrada : vistasPorCurso.entrySet()) {
+            Long cursoId = entrada.getKey();
+            Map<Long, Long> porVideo = entrada.getValue();
+            long antes = vistasAntes.getOrDefault(cursoId, 0L);
+            long despues = antes + porVideo.values().stream().mapToLong(Long::longValue).sum();
+
+            vistasEnVivoService.registrarVistas(cursoId, porVideo);
+
+            if (antes < 10 && despues >= 10) {
+                log.info("🎉 Curso ID {} alcanzó 10 vistas con un lote! Notificando a Snack API...", cursoId);
+                procesarHitoDeDiezVistas(cursoId, despues);
+                hitos++;
+            }
+        }
+
+        evento.vistas = nuevas.size();
+        evento.cursos = vistasPorCurso.size();
+        evento.anonima = false;
+        evento.hitos = hitos;
+        evento.commit();
+
+        log.info("Lote de vistas: {} recibidas, {} registradas", items.size(), nuevas.size());
+        return Arrays.asList(resultados);
+    }
+
     /**
      * Procesa el evento cuando un curso alcanza 10 vistas por primera vez
      * Llama directamente a Snack para generar código y actualiza la descripción
@@ -95,11 +243,14 @@ public class VisualizacionService {
             if (codigoDescuento != null && !codigoDescuento.trim().isEmpty()) {
                 log.info("✅ Código recibido de Snack: {}", codigoDescuento);
                 actualizarDescripcionConCodigo(cursoId, codigoDescuento);
+                metricasVisualizaciones.hitoAlcanzado(MetricasVisualizaciones.HITO_CODIGO);
             } else {
                 log.warn("⚠️ Snack no devolvió código para curso ID {}", cursoId);
+                metricasVisualizaciones.hitoAlcanzado(MetricasVisualizaciones.HITO_SIN_CODIGO);
             }
 
         } catch (Exception e) {
+            metricasVisualizaciones.hitoAlcanzado(MetricasVisualizaciones.HITO_ERROR);
             log.error("❌ Error al procesar hito de 10 vistas para curso {}: {}", cursoId, e.getMessage(), e);
         }
     }
@@ -163,6 +314,16 @@ public class VisualizacionService {
         return visualizacionRepository.countByCursoId(cursoId);
     }
 
+    /**
+     * Stream SSE con el total de vistas del curso y de cada uno de sus videos
+     */
+    public SseEmitter suscribirVistasCurso(Long cursoId) {
+        if (!cursoRepository.existsById(cursoId)) {
+            throw new ResourceNotFoundException("Curso no encontrado");
+        }
+        return vistasEnVivoService.suscribir(cursoId);
+    }
+
     /**
      * Obtener historial de visualizaciones del usuario autenticado (para futuro)
      */
@@ -177,19 +338,16 @@ public class VisualizacionService {
                 .collect(Collectors.toList());
     }
 
-    // Método auxiliar para obtener IP del cliente
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
+    private Usuario getUsuarioAutenticadoOpcional() {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof Usuario) {
+                return (Usuario) authentication.getPrincipal();
+            }
+        } catch (Exception e) {
+            // Si falla, dejamos usuario como null (vista anónima)
         }
-
-        return request.getRemoteAddr();
+        return null;
     }
 
     private Usuario getUsuarioAutenticado() {
@@ -128,10 +128,12 @@ public class UpbolisApiService {
             HttpEntity<UpbolisProductUpdateRequest> request = new HttpEntity<>(updateRequest, headers);
 
             ResponseEntity<UpbolisProductResponse> response = restTemplate.exchange(
-                    upbolisApiBaseUrl + "/seller/products/" + upbolisProductId,
+                    // Con plantilla, la métrica http.client.requests agrupa todos los productos en una sola uri
+                    upbolisApiBaseUrl + "/seller/products/{id}",
                     HttpMethod.DELETE,
                     request,
-                    UpbolisProductResponse.class
+                    UpbolisProductResponse.class,
+                    upbolisProductId
             );
 
             if (response.getStatusCode() == HttpStatus.OK) {
@@ -0,0 +1,39 @@
+package org.example.api.util;
+
+import org.example.api.model.Video;
+
+import java.util.List;
+
+/**
+ * Duraciones en el formato que muestran las tarjetas y el detalle de los cursos
+ */
+public final class Duraciones {
+
+    private Duraciones() {
+    }
+
+    /**
+     * Suma de los videos redondeando cada uno al minuto: "2h 15m", "3 horas" o "45 minutos"
+     */
+    public static String total(List<Video> videos) {
+        if (videos == null || videos.isEmpty()) {
+            return "0 horas";
+        }
+
+        int totalMinutos = videos.stream()
+                .filter(v -> v.getDuracionSegundos() != null)
+                .mapToInt(v -> (int) Math.ceil(v.getDuracionSegundos() / 60.0))
+                .sum();
+
+        int horas = totalMinutos / 60;
+        int minutos = totalMinutos % 60;
+
+        if (horas > 0 && minutos > 0) {
+            return horas + "h " + minutos + "m";
+        } else if (horas > 0) {
+            return horas + " horas";
+        } else {
+            return minutos + " minutos";
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.api.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Datos del cliente que se leen de la petición HTTP
+ */
+public final class Peticiones {
+
+    private Peticiones() {
+    }
+
+    /**
+     * IP del cliente: la primera de X-Forwarded-For, si no X-Real-IP y si no la dirección remota
+     */
+    public static String ipCliente(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+
+        String xRealIp = request.getHeader("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,29 @@
+-- Vistas por video de los meses ya archivados (ParticionVisualizacionesService). Al separar una partición
+-- mensual sus filas se suman aquí en la misma transacción, y los totales de vistas (catálogo, /total,
+-- panel de administración, hito de 10 vistas) suman esta tabla a las particiones vivas: archivar un mes
+-- no hace bajar ningún total. Nunca se archiva.
+CREATE TABLE vistas_archivadas_video (
+    video_id BIGINT NOT NULL PRIMARY KEY REFERENCES videos (id) ON DELETE CASCADE,
+    vistas   BIGINT NOT NULL
+);
+
+-- Tablas que una pasada anterior separó y todavía no borró: sus filas ya no están en las particiones vivas.
+-- Las que ya se borraron no se pueden recuperar aquí, solo están en el archivo.
+DO
+$$
+DECLARE
+    tabla TEXT;
+BEGIN
+    FOR tabla IN SELECT c.relname
+                 FROM pg_class c
+                 WHERE c.relnamespace = current_schema()::regnamespace
+                   AND c.relkind = 'r'
+                   AND NOT c.relispartition
+                   AND c.relname ~ '^visualizaciones_[0-9]{4}_[0-9]{2}$' LOOP
+        EXECUTE format('INSERT INTO vistas_archivadas_video (video_id, vistas) '
+                           || 'SELECT video_id, COUNT(*) FROM %I GROUP BY video_id '
+                           || 'ON CONFLICT (video_id) DO UPDATE '
+                           || 'SET vistas = vistas_archivadas_video.vistas + EXCLUDED.vistas', tabla);
+    END LOOP;
+END;
+$$;
@@ -0,0 +1,116 @@
+-- Espectadores distintos por instructor (AnaliticaInstructorService): un usuario que ve varios cursos del
+-- mismo instructor cuenta una vez. El panel lee el contador en lugar de agrupar en cada petición todas las
+-- filas de espectadores_curso de los cursos del instructor.
+-- cursos es cuántos cursos del instructor ha visto el usuario: la fila se borra cuando llega a 0.
+-- primera_vista es la primera vez que vio cualquiera de ellos, aunque después se borre ese curso.
+CREATE TABLE espectadores_instructor (
+    instructor_id BIGINT       NOT NULL REFERENCES usuarios (id) ON DELETE CASCADE,
+    usuario_id    BIGINT       NOT NULL REFERENCES usuarios (id) ON DELETE CASCADE,
+    cursos        INT          NOT NULL,
+    primera_vista TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (instructor_id, usuario_id)
+);
+
+-- Espectadores nuevos del instructor en los últimos N días.
+CREATE INDEX idx_espectadores_instructor_primera_vista
+    ON espectadores_instructor (instructor_id, primera_vista);
+
+CREATE TABLE espectadores_totales_instructor (
+    instructor_id BIGINT NOT NULL PRIMARY KEY REFERENCES usuarios (id) ON DELETE CASCADE,
+    espectadores  BIGINT NOT NULL
+);
+
+INSERT INTO espectadores_instructor (instructor_id, usuario_id, cursos, primera_vista)
+SELECT c.instructor_id, e.usuario_id, COUNT(*), MIN(e.primera_vista)
+FROM espectadores_curso e
+         JOIN cursos c ON c.id = e.curso_id
+GROUP BY c.instructor_id, e.usuario_id;
+
+INSERT INTO espectadores_totales_instructor (instructor_id, espectadores)
+SELECT instructor_id, COUNT(*)
+FROM espectadores_instructor
+GROUP BY instructor_id;
+
+-- Como contar_espectadores_curso (V9): solo las filas insertadas de verdad suman.
+CREATE FUNCTION contar_espectadores_instructor() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO espectadores_totales_instructor (instructor_id, espectadores)
+        VALUES (NEW.instructor_id, 1)
+        ON CONFLICT (instructor_id) DO UPDATE SET espectadores = espectadores_totales_instructor.espectadores + 1;
+    ELSE
+        UPDATE espectadores_totales_instructor SET espectadores = espectadores - 1
+        WHERE instructor_id = OLD.instructor_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER espectadores_instructor_contador
+    AFTER INSERT OR DELETE ON espectadores_instructor
+    FOR EACH ROW EXECUTE FUNCTION contar_espectadores_instructor();
+
+-- Cada fila de espectadores_curso que aparece, adelanta su primera vista o desaparece se lleva a la del
+-- instructor del curso. Si desaparece porque se borra el curso, la fila del curso ya no se ve desde aquí:
+-- por eso quitar_espectadores_curso_borrado las borra antes que el curso.
+CREATE FUNCTION propagar_espectadores_instructor() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO espectadores_instructor (instructor_id, usuario_id, cursos, primera_vista)
+        SELECT c.instructor_id, NEW.usuario_id, 1, NEW.primera_vista
+        FROM cursos c
+        WHERE c.id = NEW.curso_id
+        ON CONFLICT (instructor_id, usuario_id) DO UPDATE
+            SET cursos        = espectadores_instructor.cursos + 1,
+                primera_vista = LEAST(espectadores_instructor.primera_vista, EXCLUDED.primera_vista);
+    ELSIF TG_OP = 'UPDATE' THEN
+        UPDATE espectadores_instructor ei
+        SET primera_vista = NEW.primera_vista
+        FROM cursos c
+        WHERE c.id = NEW.curso_id
+          AND ei.instructor_id = c.instructor_id
+          AND ei.usuario_id = NEW.usuario_id
+          AND ei.primera_vista > NEW.primera_vista;
+    ELSE
+        UPDATE espectadores_instructor ei
+        SET cursos = ei.cursos - 1
+        FROM cursos c
+        WHERE c.id = OLD.curso_id
+          AND ei.instructor_id = c.instructor_id
+          AND ei.usuario_id = OLD.usuario_id;
+        DELETE FROM espectadores_instructor ei
+        USING cursos c
+        WHERE c.id = OLD.curso_id
+          AND ei.instructor_id = c.instructor_id
+          AND ei.usuario_id = OLD.usuario_id
+          AND ei.cursos = 0;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER espectadores_curso_instructor
+    AFTER INSERT OR DELETE ON espectadores_curso
+    FOR EACH ROW EXECUTE FUNCTION propagar_espectadores_instructor();
+
+-- El upsert del volcado reescribe primera_vista aunque no cambie: solo interesa cuando se adelanta.
+CREATE TRIGGER espectadores_curso_instructor_primera_vista
+    AFTER UPDATE OF primera_vista ON espectadores_curso
+    FOR EACH ROW WHEN (NEW.primera_vista < OLD.primera_vista)
+    EXECUTE FUNCTION propagar_espectadores_instructor();
+
+-- Los espectadores de un curso que se borra se quitan antes que la fila del curso, para que
+-- propagar_espectadores_instructor todavía encuentre a su instructor; el borrado en cascada ya no tiene nada.
+CREATE FUNCTION quitar_espectadores_curso_borrado() RETURNS TRIGGER AS
+$$
+BEGIN
+    DELETE FROM espectadores_curso WHERE curso_id = OLD.id;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER cursos_espectadores_instructor
+    BEFORE DELETE ON cursos
+    FOR EACH ROW EXECUTE FUNCTION quitar_espectadores_curso_borrado();
@@ -0,0 +1,25 @@
+-- Momento en que cada par (curso, usuario) entra en espectadores_curso (RecomendacionesService).
+-- La actualización incremental de las recomendaciones avanza por esta columna en lugar de por la fecha
+-- de las visualizaciones: una vista de lote con fecha de hace días registra el par ahora, así que el
+-- solape ya no tiene que cubrir la antigüedad de las fechas de cliente. El upsert del volcado no la toca.
+-- Los pares que ya existían se dan por registrados en su primera vista, y los que insertan las cargas
+-- de histórico también: la siguiente reconstrucción los recoge.
+ALTER TABLE espectadores_curso ADD COLUMN registrado TIMESTAMP(6);
+
+UPDATE espectadores_curso SET registrado = primera_vista;
+
+ALTER TABLE espectadores_curso
+    ALTER COLUMN registrado SET DEFAULT LOCALTIMESTAMP,
+    ALTER COLUMN registrado SET NOT NULL;
+
+-- Pares registrados desde la marca.
+CREATE INDEX idx_espectadores_curso_registrado
+    ON espectadores_curso (registrado);
+
+-- Cursos que ya había visto cada usuario de la ventana.
+CREATE INDEX idx_espectadores_curso_usuario
+    ON espectadores_curso (usuario_id, registrado);
+
+-- Calificaciones creadas desde la marca.
+CREATE INDEX idx_calificaciones_fecha_creacion
+    ON calificaciones (fecha_creacion);
@@ -0,0 +1,65 @@
+-- Esquema tal como lo generaba spring.jpa.hibernate.ddl-auto=update.
+-- Las bases existentes se marcan como baseline en esta versión (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE usuarios (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre         VARCHAR(255) NOT NULL,
+    apellido       VARCHAR(255) NOT NULL,
+    email          VARCHAR(255) NOT NULL,
+    password       VARCHAR(255) NOT NULL,
+    rol            VARCHAR(255) NOT NULL CHECK (rol IN ('ESTUDIANTE', 'INSTRUCTOR', 'ADMIN')),
+    fecha_registro TIMESTAMP(6) NOT NULL,
+    activo         BOOLEAN      NOT NULL,
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE TABLE categorias (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre      VARCHAR(255) NOT NULL,
+    descripcion VARCHAR(500),
+    CONSTRAINT uk_categorias_nombre UNIQUE (nombre)
+);
+
+CREATE TABLE cursos (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    titulo              VARCHAR(255)  NOT NULL,
+    descripcion         VARCHAR(2000),
+    instructor_id       BIGINT        NOT NULL REFERENCES usuarios (id),
+    categoria_id        BIGINT        NOT NULL REFERENCES categorias (id),
+    imagen_portada      VARCHAR(255),
+    fecha_creacion      TIMESTAMP(6)  NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    publicado           BOOLEAN       NOT NULL,
+    precio              FLOAT(53),
+    upbolis_product_id  BIGINT
+);
+
+CREATE TABLE videos (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    titulo            VARCHAR(255)  NOT NULL,
+    descripcion       VARCHAR(1000),
+    curso_id          BIGINT        NOT NULL REFERENCES cursos (id),
+    url_video         VARCHAR(255)  NOT NULL,
+    orden             INTEGER       NOT NULL,
+    duracion_segundos INTEGER,
+    fecha_subida      TIMESTAMP(6)  NOT NULL,
+    CONSTRAINT uk_curso_orden UNIQUE (curso_id, orden)
+);
+
+CREATE TABLE visualizaciones (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    video_id            BIGINT       NOT NULL REFERENCES videos (id),
+    usuario_id          BIGINT       REFERENCES usuarios (id),
+    fecha_visualizacion TIMESTAMP(6) NOT NULL,
+    ip_address          VARCHAR(255)
+);
+
+CREATE TABLE calificaciones (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    usuario_id         BIGINT       NOT NULL REFERENCES usuarios (id),
+    curso_id           BIGINT       NOT NULL REFERENCES cursos (id),
+    puntuacion         INTEGER      NOT NULL,
+    fecha_creacion     TIMESTAMP(6) NOT NULL,
+    fecha_modificacion TIMESTAMP(6),
+    CONSTRAINT uk_usuario_curso UNIQUE (usuario_id, curso_id)
+);
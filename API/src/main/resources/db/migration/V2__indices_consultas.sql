@@ -0,0 +1,47 @@
+-- Índices para las consultas de los repositorios.
+-- videos(curso_id, orden) y calificaciones(usuario_id, curso_id) ya están cubiertos por
+-- uk_curso_orden y uk_usuario_curso, usuarios(email) por uk_usuarios_email.
+
+-- VisualizacionRepository: countByVideoId, findByVideoId, countByCursoId (join por video_id)
+-- y buscarConFiltros por video ordenado por fecha.
+CREATE INDEX IF NOT EXISTS idx_visualizaciones_video_fecha
+    ON visualizaciones (video_id, fecha_visualizacion DESC);
+
+-- findByUsuarioIdOrderByFechaVisualizacionDesc, countByUsuarioId. Las vistas anónimas no se consultan por usuario.
+CREATE INDEX IF NOT EXISTS idx_visualizaciones_usuario_fecha
+    ON visualizaciones (usuario_id, fecha_visualizacion DESC)
+    WHERE usuario_id IS NOT NULL;
+
+-- buscarConFiltros sólo por rango de fechas (panel de administración).
+CREATE INDEX IF NOT EXISTS idx_visualizaciones_fecha
+    ON visualizaciones (fecha_visualizacion DESC);
+
+-- CalificacionRepository: promedio, total y distribución por curso se resuelven con index-only scan.
+CREATE INDEX IF NOT EXISTS idx_calificaciones_curso_puntuacion
+    ON calificaciones (curso_id, puntuacion);
+
+-- CalificacionRepository.buscarConFiltros ordena por la última fecha de modificación.
+CREATE INDEX IF NOT EXISTS idx_calificaciones_fecha_efectiva
+    ON calificaciones ((COALESCE(fecha_modificacion, fecha_creacion)) DESC);
+
+-- CursoRepository: findByInstructor, findByCategoria / findByCategoriaAndPublicadoTrue, findByPublicadoTrue.
+CREATE INDEX IF NOT EXISTS idx_cursos_instructor
+    ON cursos (instructor_id);
+
+CREATE INDEX IF NOT EXISTS idx_cursos_categoria_publicado
+    ON cursos (categoria_id, publicado);
+
+CREATE INDEX IF NOT EXISTS idx_cursos_publicados
+    ON cursos (fecha_creacion DESC)
+    WHERE publicado;
+
+-- CursoRepository.buscarCursos / buscarCursosPorCategoria usan LIKE '%keyword%' sobre LOWER(...).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_cursos_titulo_trgm
+    ON cursos USING gin (LOWER(titulo) gin_trgm_ops)
+    WHERE publicado;
+
+CREATE INDEX IF NOT EXISTS idx_cursos_descripcion_trgm
+    ON cursos USING gin (LOWER(descripcion) gin_trgm_ops)
+    WHERE publicado;
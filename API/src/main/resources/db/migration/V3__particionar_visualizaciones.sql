@@ -0,0 +1,91 @@
+-- visualizaciones pasa a estar particionada por mes sobre fecha_visualizacion.
+-- Las particiones futuras las crea ParticionVisualizacionesService con crear_particion_visualizaciones();
+-- las antiguas se archivan en disco y se eliminan de la base.
+
+ALTER TABLE visualizaciones RENAME TO visualizaciones_legacy;
+
+CREATE TABLE visualizaciones (
+    id                  BIGINT       NOT NULL,
+    video_id            BIGINT       NOT NULL REFERENCES videos (id),
+    usuario_id          BIGINT       REFERENCES usuarios (id),
+    fecha_visualizacion TIMESTAMP(6) NOT NULL,
+    ip_address          VARCHAR(255),
+    PRIMARY KEY (id, fecha_visualizacion)
+) PARTITION BY RANGE (fecha_visualizacion);
+
+-- Recibe las filas que no encajan en ninguna partición mensual (p. ej. relojes desfasados).
+CREATE TABLE visualizaciones_default PARTITION OF visualizaciones DEFAULT;
+
+-- Crea (si no existe) la partición del mes que contiene la fecha indicada y devuelve su nombre.
+-- Si la partición por defecto ya tiene filas de ese mes, se mueven a la nueva partición.
+CREATE OR REPLACE FUNCTION crear_particion_visualizaciones(mes DATE) RETURNS TEXT AS
+$$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::DATE;
+    fin    DATE := (date_trunc('month', mes) + INTERVAL '1 month')::DATE;
+    nombre TEXT := 'visualizaciones_' || to_char(inicio, 'YYYY_MM');
+BEGIN
+    IF to_regclass(nombre) IS NOT NULL THEN
+        RETURN nombre;
+    END IF;
+
+    IF EXISTS (SELECT 1
+               FROM visualizaciones_default
+               WHERE fecha_visualizacion >= inicio
+                 AND fecha_visualizacion < fin) THEN
+        EXECUTE format('CREATE TABLE %I (LIKE visualizaciones INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nombre);
+        EXECUTE format('WITH movidas AS (DELETE FROM visualizaciones_default '
+                           || 'WHERE fecha_visualizacion >= %L AND fecha_visualizacion < %L RETURNING *) '
+                           || 'INSERT INTO %I SELECT * FROM movidas', inicio, fin, nombre);
+        EXECUTE format('ALTER TABLE visualizaciones ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       nombre, inicio, fin);
+    ELSE
+        EXECUTE format('CREATE TABLE %I PARTITION OF visualizaciones FOR VALUES FROM (%L) TO (%L)',
+                       nombre, inicio, fin);
+    END IF;
+
+    RETURN nombre;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Particiones para el histórico existente, el mes en curso y los tres siguientes.
+DO
+$$
+DECLARE
+    mes   DATE := date_trunc('month', COALESCE((SELECT MIN(fecha_visualizacion) FROM visualizaciones_legacy),
+                                               now()))::DATE;
+    hasta DATE := (date_trunc('month', now()) + INTERVAL '3 months')::DATE;
+BEGIN
+    WHILE mes <= hasta LOOP
+        PERFORM crear_particion_visualizaciones(mes);
+        mes := (mes + INTERVAL '1 month')::DATE;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO visualizaciones (id, video_id, usuario_id, fecha_visualizacion, ip_address)
+SELECT id, video_id, usuario_id, fecha_visualizacion, ip_address
+FROM visualizaciones_legacy;
+
+-- El identity de la tabla original no se puede trasladar a la particionada: se usa una secuencia propia.
+CREATE TEMPORARY TABLE visualizaciones_max_id AS
+SELECT COALESCE(MAX(id), 0) AS max_id FROM visualizaciones_legacy;
+
+DROP TABLE visualizaciones_legacy;
+
+CREATE SEQUENCE visualizaciones_id_seq OWNED BY visualizaciones.id;
+SELECT setval('visualizaciones_id_seq', max_id + 1, false) FROM visualizaciones_max_id;
+ALTER TABLE visualizaciones ALTER COLUMN id SET DEFAULT nextval('visualizaciones_id_seq');
+
+DROP TABLE visualizaciones_max_id;
+
+-- Índices de V2, ahora definidos sobre la tabla particionada (se propagan a cada partición).
+CREATE INDEX idx_visualizaciones_video_fecha
+    ON visualizaciones (video_id, fecha_visualizacion DESC);
+
+CREATE INDEX idx_visualizaciones_usuario_fecha
+    ON visualizaciones (usuario_id, fecha_visualizacion DESC)
+    WHERE usuario_id IS NOT NULL;
+
+CREATE INDEX idx_visualizaciones_fecha
+    ON visualizaciones (fecha_visualizacion DESC);
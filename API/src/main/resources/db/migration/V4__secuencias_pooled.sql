@@ -0,0 +1,25 @@
+-- Las entidades pasan de IDENTITY a secuencias con optimizador pooled (allocationSize = 50),
+-- lo que permite a Hibernate agrupar los INSERT en lotes JDBC.
+-- Con pooled, un nextval() que devuelve N reserva los ids (N - 49 .. N), así que cada secuencia
+-- se deja de forma que su primer valor sea MAX(id) + 50.
+
+DO
+$$
+DECLARE
+    tabla  TEXT;
+    maximo BIGINT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY ['usuarios', 'categorias', 'cursos', 'videos', 'calificaciones'] LOOP
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tabla);
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50 OWNED BY %I.id', tabla || '_id_seq', tabla);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', tabla, tabla || '_id_seq');
+    END LOOP;
+
+    ALTER SEQUENCE visualizaciones_id_seq INCREMENT BY 50;
+
+    FOREACH tabla IN ARRAY ARRAY ['usuarios', 'categorias', 'cursos', 'videos', 'calificaciones', 'visualizaciones'] LOOP
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', tabla) INTO maximo;
+        PERFORM setval(tabla || '_id_seq', maximo + 50, false);
+    END LOOP;
+END;
+$$;
@@ -0,0 +1,6 @@
+-- Filtros del listado de usuarios del administrador (UsuarioRepository.buscarConCursosCreados).
+CREATE INDEX IF NOT EXISTS idx_usuarios_rol_activo_registro
+    ON usuarios (rol, activo, fecha_registro DESC);
+
+CREATE INDEX IF NOT EXISTS idx_usuarios_registro
+    ON usuarios (fecha_registro DESC);
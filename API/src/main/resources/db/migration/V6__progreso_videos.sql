@@ -0,0 +1,24 @@
+-- Progreso de reproducción por usuario y video (ProgresoVideoService).
+-- segmentos es un bitmap (BitSet.toByteArray) con un bit por cada 5 segundos de video.
+CREATE SEQUENCE IF NOT EXISTS progreso_videos_id_seq INCREMENT BY 50;
+
+CREATE TABLE progreso_videos (
+    id                  BIGINT       NOT NULL DEFAULT nextval('progreso_videos_id_seq') PRIMARY KEY,
+    usuario_id          BIGINT       NOT NULL REFERENCES usuarios (id) ON DELETE CASCADE,
+    video_id            BIGINT       NOT NULL REFERENCES videos (id) ON DELETE CASCADE,
+    posicion_segundos   INTEGER      NOT NULL,
+    segmentos           BYTEA        NOT NULL,
+    segmentos_vistos    INTEGER      NOT NULL,
+    completado          BOOLEAN      NOT NULL,
+    fecha_actualizacion TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_progreso_usuario_video UNIQUE (usuario_id, video_id)
+);
+
+ALTER SEQUENCE progreso_videos_id_seq OWNED BY progreso_videos.id;
+
+-- ProgresoVideoRepository.buscarEnCurso ("continuar viendo").
+CREATE INDEX IF NOT EXISTS idx_progreso_usuario_en_curso
+    ON progreso_videos (usuario_id, fecha_actualizacion DESC)
+    WHERE NOT completado;
+
+-- buscarPorUsuarioYCurso resuelve los videos del curso por uk_progreso_usuario_video.
@@ -0,0 +1,35 @@
+-- Agregados para la analítica de instructores (AnaliticaInstructorService).
+-- Se mantienen de forma incremental al registrar vistas; aquí se rellenan con el histórico.
+-- No dependen de la retención de particiones: los meses archivados siguen contando.
+
+-- Vistas por video y día.
+CREATE TABLE vistas_diarias_video (
+    video_id BIGINT NOT NULL REFERENCES videos (id) ON DELETE CASCADE,
+    dia      DATE   NOT NULL,
+    vistas   BIGINT NOT NULL,
+    PRIMARY KEY (video_id, dia)
+);
+
+-- Un registro por usuario distinto que ha visto algún video del curso (las vistas anónimas no cuentan).
+CREATE TABLE espectadores_curso (
+    curso_id      BIGINT       NOT NULL REFERENCES cursos (id) ON DELETE CASCADE,
+    usuario_id    BIGINT       NOT NULL REFERENCES usuarios (id) ON DELETE CASCADE,
+    primera_vista TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (curso_id, usuario_id)
+);
+
+-- Espectadores nuevos en los últimos N días.
+CREATE INDEX idx_espectadores_curso_primera_vista
+    ON espectadores_curso (curso_id, primera_vista);
+
+INSERT INTO vistas_diarias_video (video_id, dia, vistas)
+SELECT video_id, fecha_visualizacion::DATE, COUNT(*)
+FROM visualizaciones
+GROUP BY video_id, fecha_visualizacion::DATE;
+
+INSERT INTO espectadores_curso (curso_id, usuario_id, primera_vista)
+SELECT vi.curso_id, v.usuario_id, MIN(v.fecha_visualizacion)
+FROM visualizaciones v
+         JOIN videos vi ON vi.id = v.video_id
+WHERE v.usuario_id IS NOT NULL
+GROUP BY vi.curso_id, v.usuario_id;
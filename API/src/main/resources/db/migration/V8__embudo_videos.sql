@@ -0,0 +1,8 @@
+-- Espectadores distintos por video como RoaringBitmap serializado (EmbudoService).
+-- Las filas se crean al consultar o actualizar el embudo de cada video, a partir de visualizaciones.
+CREATE TABLE embudo_videos (
+    video_id            BIGINT       NOT NULL PRIMARY KEY REFERENCES videos (id) ON DELETE CASCADE,
+    curso_id            BIGINT       NOT NULL REFERENCES cursos (id) ON DELETE CASCADE,
+    espectadores        BYTEA        NOT NULL,
+    fecha_actualizacion TIMESTAMP(6) NOT NULL
+);
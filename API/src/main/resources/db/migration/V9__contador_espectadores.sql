@@ -0,0 +1,31 @@
+-- Espectadores únicos por curso (AnaliticaInstructorService): el panel lee este contador en lugar de
+-- contar las filas de espectadores_curso de cada curso en cada petición.
+CREATE TABLE espectadores_totales_curso (
+    curso_id     BIGINT NOT NULL PRIMARY KEY REFERENCES cursos (id) ON DELETE CASCADE,
+    espectadores BIGINT NOT NULL
+);
+
+INSERT INTO espectadores_totales_curso (curso_id, espectadores)
+SELECT curso_id, COUNT(*)
+FROM espectadores_curso
+GROUP BY curso_id;
+
+-- Solo cuenta las filas que se insertan de verdad: el upsert que cae en ON CONFLICT no dispara el
+-- AFTER INSERT. Los borrados en cascada de usuarios descuentan al espectador.
+CREATE FUNCTION contar_espectadores_curso() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO espectadores_totales_curso (curso_id, espectadores)
+        VALUES (NEW.curso_id, 1)
+        ON CONFLICT (curso_id) DO UPDATE SET espectadores = espectadores_totales_curso.espectadores + 1;
+    ELSE
+        UPDATE espectadores_totales_curso SET espectadores = espectadores - 1 WHERE curso_id = OLD.curso_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER espectadores_curso_contador
+    AFTER INSERT OR DELETE ON espectadores_curso
+    FOR EACH ROW EXECUTE FUNCTION contar_espectadores_curso();
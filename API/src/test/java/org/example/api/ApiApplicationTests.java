@@ -3,8 +3,9 @@ package org.example.api;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
-class ApiApplicationTests {
+// Las peticiones de los tests fallan si exceden su presupuesto de SQL (ver @PresupuestoSql)
+@SpringBootTest(properties = "sql.presupuesto.modo=FAIL")
+class ApiApplicationTests extends PostgresEmbebido {
 
     @Test
     void contextLoads() {
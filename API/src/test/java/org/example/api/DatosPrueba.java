@@ -0,0 +1,67 @@
+package org.example.api;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filas mínimas para los tests que recorren endpoints, insertadas con SQL para no contar en el
+ * consumo de la petición. Cada llamada crea filas nuevas con nombres únicos, porque la base
+ * embebida es compartida por todos los tests de la JVM.
+ */
+public class DatosPrueba {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatosPrueba(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long instructor() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO usuarios (nombre, apellido, email, password, rol, fecha_registro, activo) " +
+                        "VALUES ('Ana', 'Prueba', ?, 'x', 'INSTRUCTOR', now(), true) RETURNING id",
+                Long.class, "instructor-" + UUID.randomUUID() + "@test.local");
+    }
+
+    public long categoria() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO categorias (nombre, descripcion) VALUES (?, 'prueba') RETURNING id",
+                Long.class, "categoria-" + UUID.randomUUID());
+    }
+
+    /**
+     * Curso publicado con sus videos; devuelve los ids de los videos en orden
+     */
+    public List<Long> cursoPublicado(long instructorId, long categoriaId, int videos) {
+        long cursoId = jdbcTemplate.queryForObject(
+                "INSERT INTO cursos (titulo, descripcion, instructor_id, categoria_id, fecha_creacion, publicado, precio) " +
+                        "VALUES (?, 'curso de prueba', ?, ?, now(), true, 0) RETURNING id",
+                Long.class, "curso-" + UUID.randomUUID(), instructorId, categoriaId);
+
+        List<Long> videoIds = new ArrayList<>();
+        for (int orden = 1; orden <= videos; orden++) {
+            videoIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO videos (titulo, curso_id, url_video, orden, duracion_segundos, fecha_subida) " +
+                            "VALUES ('video', ?, 'video.mp4', ?, 300, now()) RETURNING id",
+                    Long.class, cursoId, orden));
+        }
+        return videoIds;
+    }
+
+    public long cursoDe(long videoId) {
+        return jdbcTemplate.queryForObject("SELECT curso_id FROM videos WHERE id = ?", Long.class, videoId);
+    }
+
+    public void vistas(long videoId, int vistas) {
+        for (int i = 0; i < vistas; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO visualizaciones (video_id, fecha_visualizacion, ip_address) VALUES (?, ?, '203.0.113.1')",
+                    videoId, Timestamp.valueOf(LocalDateTime.now().minusMinutes(i)));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.api;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.boot.SpringApplication;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Base de los tests que necesitan base de datos: un Postgres embebido por JVM, compartido por
+ * todos los tests (y por los contextos de Spring que cachea el framework de tests), para que
+ * mvn test no dependa del Postgres local de application.properties.
+ * Flyway crea el esquema al arrancar el contexto.
+ *
+ * Al terminar los tests se cierran primero los contextos de Spring y después el servidor (ver Cierre),
+ * antes de que salga la JVM.
+ */
+@ExtendWith(PostgresEmbebido.Cierre.class)
+public abstract class PostgresEmbebido {
+
+    private static EmbeddedPostgres postgres;
+
+    public static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo arrancar el Postgres embebido", e);
+            }
+            EmbeddedPostgres arrancado = postgres;
+            // Los handlers de SpringApplication corren después de cerrar todos los contextos
+            SpringApplication.getShutdownHandlers().add(() -> {
+                try {
+                    arrancado.close();
+                } catch (IOException ignorada) {
+                    // La JVM termina igualmente
+                }
+            });
+        }
+        return postgres;
+    }
+
+    public static String jdbcUrl() {
+        return jdbcUrl("postgres");
+    }
+
+    public static String jdbcUrl(String baseDatos) {
+        return postgres().getJdbcUrl("postgres", baseDatos);
+    }
+
+    /**
+     * Argumentos para arrancar la API con SpringApplicationBuilder contra el Postgres embebido
+     */
+    public static String[] argumentos(String... extra) {
+        return argumentosEn("postgres", extra);
+    }
+
+    /**
+     * Como argumentos, contra otra base del mismo servidor que el test ya ha creado
+     */
+    public static String[] argumentosEn(String baseDatos, String... extra) {
+        String[] base = {
+                "--spring.datasource.url=" + jdbcUrl(baseDatos),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--storage.location=target/test-uploads",
+                "--snack.api.base-url=http://localhost:9",
+                "--upbolis.api.base-url=http://localhost:9",
+                "--upbolis.api.username=test",
+                "--upbolis.api.password=test",
+                "--cache.instantanea.habilitada=false",
+                "--calentamiento.iteraciones=0",
+                "--jfr.grabacion.habilitada=false"
+        };
+        String[] todos = new String[base.length + extra.length];
+        System.arraycopy(base, 0, todos, 0, base.length);
+        System.arraycopy(extra, 0, todos, base.length, extra.length);
+        return todos;
+    }
+
+    /**
+     * Cierra los contextos cacheados y el Postgres cuando Jupiter ha ejecutado todas las clases, antes de
+     * System.exit. Si se dejara a los shutdown hooks, el que registra zonky al arrancar el servidor correría
+     * a la vez que el de Spring: pararía Postgres mientras los contextos vuelcan por sus pools al cerrarse, y
+     * el fork de surefire seguiría vivo esperando conexiones.
+     */
+    static class Cierre implements BeforeAllCallback {
+
+        @Override
+        public void beforeAll(ExtensionContext context) {
+            context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                    .computeIfAbsent(Cierre.class, clave -> (AutoCloseable) Cierre::cerrar);
+        }
+
+        private static void cerrar() {
+            // Es el mismo hook de SpringApplication: cierra los contextos registrados y después corre
+            // los handlers, entre ellos el que para el Postgres. Cuando salga la JVM ya no queda nada
+            if (SpringApplication.getShutdownHandlers() instanceof Runnable apagado) {
+                apagado.run();
+            }
+        }
+    }
+
+    // Tienen prioridad sobre application.properties y api-defaults.properties
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PostgresEmbebido::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("storage.location", () -> "target/test-uploads");
+        registry.add("snack.api.base-url", () -> "http://localhost:9");
+        registry.add("upbolis.api.base-url", () -> "http://localhost:9");
+        registry.add("upbolis.api.username", () -> "test");
+        registry.add("upbolis.api.password", () -> "test");
+        registry.add("cache.instantanea.habilitada", () -> "false");
+        registry.add("calentamiento.iteraciones", () -> "0");
+        registry.add("jfr.grabacion.habilitada", () -> "false");
+    }
+}
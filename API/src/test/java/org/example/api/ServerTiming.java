@@ -0,0 +1,28 @@
+package org.example.api;
+
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sentencias SQL de una petición leídas de su cabecera Server-Timing
+ * (observabilidad.server-timing=true en los tests que la usan)
+ */
+public final class ServerTiming {
+
+    private static final Pattern SENTENCIAS = Pattern.compile("(\\d+) sentencias");
+
+    private ServerTiming() {
+    }
+
+    public static int sentencias(MvcResult resultado) {
+        String cabecera = resultado.getResponse().getHeader("Server-Timing");
+        if (cabecera == null) {
+            throw new IllegalStateException("Respuesta sin Server-Timing");
+        }
+        // Sin fase db no se ha ejecutado ninguna sentencia
+        Matcher matcher = SENTENCIAS.matcher(cabecera);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.api.calentamiento;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.model.Categoria;
+import org.example.api.model.Curso;
+import org.example.api.model.Usuario;
+import org.example.api.repository.CategoriaRepository;
+import org.example.api.repository.CursoRepository;
+import org.example.api.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ida y vuelta de la instantánea: los ids que estaban en las regiones de la cache de segundo nivel
+ * al guardarla vuelven a estar en ellas al cargarla con la cache vacía. El arranque y la parada del
+ * contexto no la usan en los tests (cache.instantanea.habilitada=false en PostgresEmbebido), así
+ * que se habilita y se llama a guardar y cargar directamente.
+ */
+@SpringBootTest
+class InstantaneaCachesTests extends PostgresEmbebido {
+
+    @Autowired
+    private InstantaneaCaches instantanea;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CursoRepository cursoRepository;
+
+    private final Path archivo = Path.of("target/test-instantanea", UUID.randomUUID() + ".bin");
+
+    @AfterEach
+    void deshabilitar() throws Exception {
+        // El contexto es compartido con el resto de tests
+        ReflectionTestUtils.setField(instantanea, "habilitada", false);
+        Files.deleteIfExists(archivo);
+    }
+
+    @Test
+    void guardaYRecargaLosIdsDeCadaRegion() {
+        DatosPrueba datos = new DatosPrueba(jdbcTemplate);
+        long instructor = datos.instructor();
+        long categoria = datos.categoria();
+        long curso = datos.cursoDe(datos.cursoPublicado(instructor, categoria, 1).getFirst());
+
+        // Leerlas las deja en la cache de segundo nivel
+        categoriaRepository.findById(categoria).orElseThrow();
+        usuarioRepository.findById(instructor).orElseThrow();
+        cursoRepository.findById(curso).orElseThrow();
+
+        Cache cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Categoria.class, categoria)).isTrue();
+        assertThat(cache.contains(Usuario.class, instructor)).isTrue();
+        assertThat(cache.contains(Curso.class, curso)).isTrue();
+
+        ReflectionTestUtils.setField(instantanea, "habilitada", true);
+        ReflectionTestUtils.setField(instantanea, "archivo", archivo.toString());
+        instantanea.guardar(new ContextClosedEvent(applicationContext));
+        assertThat(archivo).exists();
+
+        cache.evictAll();
+        assertThat(cache.contains(Curso.class, curso)).isFalse();
+
+        instantanea.cargar();
+
+        assertThat(instantanea.getResultado()).startsWith("cargada");
+        assertThat(cache.contains(Categoria.class, categoria)).isTrue();
+        assertThat(cache.contains(Usuario.class, instructor)).isTrue();
+        assertThat(cache.contains(Curso.class, curso)).isTrue();
+    }
+
+    @Test
+    void noGuardaAlCerrarseOtroContexto() {
+        // Como el contexto hijo del puerto de gestión, cuyo cierre también llega a los listeners del padre
+        try (GenericApplicationContext hijo = new GenericApplicationContext()) {
+            hijo.setParent(applicationContext);
+            ReflectionTestUtils.setField(instantanea, "habilitada", true);
+            ReflectionTestUtils.setField(instantanea, "archivo", archivo.toString());
+
+            instantanea.guardar(new ContextClosedEvent(hijo));
+
+            assertThat(archivo).doesNotExist();
+        }
+    }
+}
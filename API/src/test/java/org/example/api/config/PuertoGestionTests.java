@@ -0,0 +1,67 @@
+package org.example.api.config;
+
+import org.example.api.ApiApplication;
+import org.example.api.PostgresEmbebido;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El scrape de Prometheus entra sin token por el puerto de gestión y sigue cerrado en el de la API,
+ * donde quedan las sondas /livez y /readyz
+ */
+class PuertoGestionTests {
+
+    private static ConfigurableApplicationContext contexto;
+    private static String api;
+    private static String gestion;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void arrancar() {
+        contexto = new SpringApplicationBuilder(ApiApplication.class).run(PostgresEmbebido.argumentos());
+        api = "http://127.0.0.1:" + contexto.getEnvironment().getProperty("local.server.port");
+        gestion = "http://127.0.0.1:" + contexto.getEnvironment().getProperty("local.management.port");
+    }
+
+    @AfterAll
+    static void detener() {
+        if (contexto != null) {
+            contexto.close();
+        }
+    }
+
+    @Test
+    void elScrapeNoNecesitaTokenEnElPuertoDeGestion() throws Exception {
+        HttpResponse<String> respuesta = get(gestion + "/actuator/prometheus");
+
+        assertThat(respuesta.statusCode()).isEqualTo(200);
+        assertThat(respuesta.body()).contains("jvm_memory_used_bytes");
+    }
+
+    @Test
+    void lasMetricasNoSeSirvenEnElPuertoDeLaApi() throws Exception {
+        assertThat(get(api + "/actuator/prometheus").statusCode()).isIn(401, 403);
+    }
+
+    @Test
+    void lasSondasSiguenEnElPuertoDeLaApi() throws Exception {
+        assertThat(get(api + "/livez").statusCode()).isEqualTo(200);
+        assertThat(get(api + "/readyz").statusCode()).isEqualTo(200);
+    }
+
+    private HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return http.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
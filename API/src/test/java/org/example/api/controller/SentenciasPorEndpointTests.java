@@ -0,0 +1,177 @@
+package org.example.api.controller;
+
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.api.ServerTiming.sentencias;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL por petición de los endpoints del catálogo, el detalle y las visualizaciones.
+ * En modo FAIL una petición que excede su @PresupuestoSql (o repite una sentencia, la huella de
+ * un N+1) responde con error, y además se comprueba el número exacto con Server-Timing.
+ */
+@SpringBootTest(properties = {"sql.presupuesto.modo=FAIL", "observabilidad.server-timing=true"})
+@AutoConfigureMockMvc
+class SentenciasPorEndpointTests extends PostgresEmbebido {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DatosPrueba datos;
+    private long instructor;
+    private long categoria;
+
+    @BeforeEach
+    void preparar() {
+        datos = new DatosPrueba(jdbcTemplate);
+        instructor = datos.instructor();
+        categoria = datos.categoria();
+    }
+
+    @Test
+    void catalogoConUnNumeroFijoDeSentencias() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            datos.vistas(datos.cursoPublicado(instructor, categoria, 3).getFirst(), 2);
+        }
+        int conPocos = sentencias(catalogo());
+
+        // Más cursos que sql.presupuesto.max-repeticiones: con un N+1 fallaría en modo FAIL
+        for (int i = 0; i < 10; i++) {
+            datos.vistas(datos.cursoPublicado(instructor, categoria, 4).getFirst(), 1);
+        }
+        int conMuchos = sentencias(catalogo());
+
+        // Cursos, videos y vistas; la primera vez además las categorías que no estaban en la cache
+        assertThat(conPocos).isBetween(3, 4);
+        assertThat(conMuchos).isEqualTo(3);
+    }
+
+    @Test
+    void catalogoPorCategoria() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            datos.cursoPublicado(instructor, categoria, 2);
+        }
+
+        // Requiere usuario; el principal va en la petición, así que no se carga de la base
+        MvcResult resultado = mockMvc.perform(get("/api/cursos/categoria/{id}", categoria).with(user("estudiante")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // La categoría puede venir de la cache de segundo nivel
+        assertThat(sentencias(resultado)).isBetween(3, 4);
+    }
+
+    @Test
+    void detalleSinUnaConsultaPorVideo() throws Exception {
+        List<Long> videos = datos.cursoPublicado(instructor, categoria, 12);
+        for (Long video : videos) {
+            datos.vistas(video, 1);
+        }
+
+        MvcResult resultado = mockMvc.perform(get("/api/cursos/{id}", datos.cursoDe(videos.getFirst())))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Curso con videos y vistas por video
+        assertThat(sentencias(resultado)).isEqualTo(2);
+    }
+
+    @Test
+    void registroYTotalesDeVisualizaciones() throws Exception {
+        long video = datos.cursoPublicado(instructor, categoria, 2).getFirst();
+        long curso = datos.cursoDe(video);
+
+        // Lejos del hito de 10 vistas, que llamaría a Snack
+        for (int i = 0; i < 3; i++) {
+            MvcResult registro = mockMvc.perform(post("/api/visualizaciones/video/{id}", video))
+                    .andExpect(status().isCreated())
+                    .andReturn();
+            // Video, vistas previas, INSERT y nextval solo al agotar el bloque de 50 ids
+            assertThat(sentencias(registro)).isBetween(3, 4);
+        }
+
+        MvcResult totalVideo = mockMvc.perform(get("/api/visualizaciones/video/{id}/total", video))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult totalCurso = mockMvc.perform(get("/api/visualizaciones/curso/{id}/total", curso))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(sentencias(totalVideo)).isEqualTo(1);
+        assertThat(sentencias(totalCurso)).isEqualTo(1);
+    }
+
+    @Test
+    void topVistasSinConsultasPorCurso() throws Exception {
+        // Más vistas que las que dejan el resto de tests en la base compartida, para ir primero
+        long video = datos.cursoPublicado(instructor, categoria, 1).getFirst();
+        long curso = datos.cursoDe(video);
+        datos.vistas(video, 40);
+        for (int puntuacion : new int[]{4, 5}) {
+            jdbcTemplate.update("INSERT INTO calificaciones (usuario_id, curso_id, puntuacion, fecha_creacion) " +
+                    "VALUES (?, ?, ?, now())", datos.instructor(), curso, puntuacion);
+        }
+
+        MvcResult resultado = mockMvc.perform(get("/api/external/cursos/top-vistas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].cantidadVistas").value(40))
+                .andExpect(jsonPath("$[0].puntuacion").value(4.5))
+                .andReturn();
+
+        // Top, vistas y promedios
+        assertThat(sentencias(resultado)).isEqualTo(3);
+    }
+
+    @Test
+    void listadoDeUsuariosDelAdmin() throws Exception {
+        long conCursos = datos.instructor();
+        datos.cursoPublicado(conCursos, categoria, 1);
+        datos.cursoPublicado(conCursos, categoria, 1);
+
+        MvcResult resultado = mockMvc.perform(get("/api/admin/usuarios/buscar")
+                        .param("rol", "INSTRUCTOR")
+                        .param("sort", "cursosCreados,desc")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].cursosCreados").isNumber())
+                .andReturn();
+
+        // Página con el recuento de cursos y total
+        assertThat(sentencias(resultado)).isBetween(1, 2);
+
+        // Una propiedad fuera de la lista es un 400, no un error de la consulta
+        mockMvc.perform(get("/api/admin/usuarios/buscar")
+                        .param("sort", "password")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/usuarios/buscar")
+                        .param("sort", "noExiste,asc")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult catalogo() throws Exception {
+        return mockMvc.perform(get("/api/cursos/publicos"))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+}
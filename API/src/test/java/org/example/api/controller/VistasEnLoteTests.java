@@ -0,0 +1,95 @@
+package org.example.api.controller;
+
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.model.Usuario;
+import org.example.api.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/visualizaciones/batch: solo con usuario autenticado, a cuyo nombre quedan las vistas,
+ * y con la fecha del cliente limitada a la ventana de sincronización offline
+ */
+@SpringBootTest(properties = {"sql.presupuesto.modo=FAIL", "observabilidad.server-timing=true"})
+@AutoConfigureMockMvc
+class VistasEnLoteTests extends PostgresEmbebido {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private long video;
+    private Usuario usuario;
+
+    @BeforeEach
+    void preparar() {
+        DatosPrueba datos = new DatosPrueba(jdbcTemplate);
+        long instructor = datos.instructor();
+        video = datos.cursoPublicado(instructor, datos.categoria(), 1).getFirst();
+        usuario = usuarioRepository.findById(instructor).orElseThrow();
+    }
+
+    @Test
+    void anonimoRechazado() throws Exception {
+        mockMvc.perform(post("/api/visualizaciones/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(lote(video, LocalDateTime.now())))
+                .andExpect(status().isForbidden());
+
+        assertThat(vistasDelVideo()).isZero();
+    }
+
+    @Test
+    void vistasAlNombreDelUsuarioYFechasAcotadas() throws Exception {
+        LocalDateTime reciente = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime antigua = LocalDateTime.now().minusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        String cuerpo = "{\"vistas\":[" +
+                "{\"videoId\":" + video + ",\"fecha\":\"" + reciente + "\"}," +
+                "{\"videoId\":" + video + ",\"fecha\":\"" + antigua + "\"}," +
+                "{\"videoId\":-1}]}";
+
+        mockMvc.perform(post("/api/visualizaciones/batch")
+                        .with(authentication(new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities())))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].estado").value("REGISTRADA"))
+                .andExpect(jsonPath("$[1].estado").value("FECHA_INVALIDA"))
+                .andExpect(jsonPath("$[2].estado").value("VIDEO_NO_ENCONTRADO"));
+
+        assertThat(vistasDelVideo()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT usuario_id FROM visualizaciones WHERE video_id = ?", Long.class, video))
+                .isEqualTo(usuario.getId());
+    }
+
+    private long vistasDelVideo() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visualizaciones WHERE video_id = ?", Long.class, video);
+    }
+
+    private static String lote(long videoId, LocalDateTime fecha) {
+        return "{\"vistas\":[{\"videoId\":" + videoId + ",\"fecha\":\"" + fecha.truncatedTo(ChronoUnit.SECONDS) + "\"}]}";
+    }
+}
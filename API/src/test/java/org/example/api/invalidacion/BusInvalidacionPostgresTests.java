@@ -0,0 +1,139 @@
+package org.example.api.invalidacion;
+
+import org.example.api.ApiApplication;
+import org.example.api.PostgresEmbebido;
+import org.example.api.model.Categoria;
+import org.example.api.service.CategoriaService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dos instancias de la API contra el mismo Postgres embebido con cache.invalidacion.bus=postgres
+ */
+class BusInvalidacionPostgresTests {
+
+    private static ConfigurableApplicationContext nodoA;
+    private static ConfigurableApplicationContext nodoB;
+
+    @BeforeAll
+    static void arrancar() {
+        nodoA = arrancarNodo();
+        nodoB = arrancarNodo();
+    }
+
+    @AfterAll
+    static void detener() {
+        if (nodoA != null) {
+            nodoA.close();
+        }
+        if (nodoB != null) {
+            nodoB.close();
+        }
+    }
+
+    @Test
+    void unaRafagaLlegaAlOtroNodoAgrupada() throws InterruptedException {
+        BlockingQueue<Set<Long>> lotes = new LinkedBlockingQueue<>();
+        nodoB.getBean(BusInvalidacion.class).suscribir("Rafaga", oyente(lotes));
+
+        BusInvalidacion busA = nodoA.getBean(BusInvalidacion.class);
+        for (int i = 0; i < 300; i++) {
+            busA.publicar("Rafaga", i % 3);
+        }
+
+        Set<Long> recibidos = new HashSet<>();
+        int avisos = 0;
+        while (recibidos.size() < 3) {
+            Set<Long> lote = lotes.poll(5, TimeUnit.SECONDS);
+            assertThat(lote).as("aviso del nodo A").isNotNull();
+            recibidos.addAll(lote);
+            avisos++;
+        }
+        assertThat(recibidos).containsExactlyInAnyOrder(0L, 1L, 2L);
+        // 300 publicaciones en unos pocos envíos, no una por publicación
+        assertThat(avisos).isLessThan(10);
+    }
+
+    @Test
+    void soloSePublicaTrasElCommit() throws InterruptedException {
+        BlockingQueue<Set<Long>> lotes = new LinkedBlockingQueue<>();
+        nodoB.getBean(BusInvalidacion.class).suscribir("Transaccion", oyente(lotes));
+
+        BusInvalidacion busA = nodoA.getBean(BusInvalidacion.class);
+        TransactionTemplate transaccion = nodoA.getBean(TransactionTemplate.class);
+
+        transaccion.executeWithoutResult(status -> {
+            busA.publicar("Transaccion", 1);
+            status.setRollbackOnly();
+        });
+        assertThat(lotes.poll(1, TimeUnit.SECONDS)).as("aviso de una transacción revertida").isNull();
+
+        transaccion.executeWithoutResult(status -> busA.publicar("Transaccion", 2));
+        assertThat(lotes.poll(5, TimeUnit.SECONDS)).containsExactly(2L);
+    }
+
+    // En el nodo que escribe la cache de segundo nivel ya está al día: un aviso propio la vaciaría
+    @Test
+    void elNodoQuePublicaNoRecibeSuPropioAviso() throws InterruptedException {
+        BlockingQueue<Set<Long>> lotesA = new LinkedBlockingQueue<>();
+        BlockingQueue<Set<Long>> lotesB = new LinkedBlockingQueue<>();
+        nodoA.getBean(BusInvalidacion.class).suscribir("Origen", oyente(lotesA));
+        nodoB.getBean(BusInvalidacion.class).suscribir("Origen", oyente(lotesB));
+
+        nodoA.getBean(BusInvalidacion.class).publicar("Origen", 7);
+
+        assertThat(lotesB.poll(5, TimeUnit.SECONDS)).containsExactly(7L);
+        // B ya lo ha recibido, así que el envío de A y su eco por LISTEN han pasado
+        assertThat(lotesA.poll(500, TimeUnit.MILLISECONDS)).as("aviso propio en el nodo A").isNull();
+    }
+
+    // Las dos instancias comparten JVM y, con ella, el CacheManager de Caffeine: la cache de segundo
+    // nivel no sirve para comprobarlo, así que se escucha el aviso que la vaciaría en el nodo B
+    @Test
+    void unCambioDeEntidadEnUnNodoSeAvisaAlOtro() throws InterruptedException {
+        BlockingQueue<Set<Long>> lotes = new LinkedBlockingQueue<>();
+        nodoB.getBean(BusInvalidacion.class).suscribir("Categoria", oyente(lotes));
+
+        CategoriaService categoriasA = nodoA.getBean(CategoriaService.class);
+        Categoria categoria = categoriasA.crearCategoria("invalidacion-" + UUID.randomUUID(), "antes");
+        try {
+            assertThat(lotes.poll(5, TimeUnit.SECONDS)).contains(categoria.getId());
+
+            categoriasA.actualizarCategoria(categoria.getId(), categoria.getNombre(), "despues");
+            assertThat(lotes.poll(5, TimeUnit.SECONDS)).contains(categoria.getId());
+        } finally {
+            categoriasA.eliminarCategoria(categoria.getId());
+        }
+    }
+
+    private static ConfigurableApplicationContext arrancarNodo() {
+        return new SpringApplicationBuilder(ApiApplication.class)
+                .run(PostgresEmbebido.argumentos("--cache.invalidacion.bus=postgres"));
+    }
+
+    private static OyenteInvalidacion oyente(BlockingQueue<Set<Long>> lotes) {
+        return new OyenteInvalidacion() {
+            @Override
+            public void invalidar(Set<Long> ids) {
+                lotes.add(Set.copyOf(ids));
+            }
+
+            @Override
+            public void invalidarTodo() {
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.api.observability;
+
+import org.example.api.PostgresEmbebido;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Modo FAIL de @PresupuestoSql con endpoints de prueba que se pasan a propósito: uno por número
+ * de sentencias y otro por repetir la misma forma de sentencia, como haría un N+1
+ */
+@SpringBootTest(properties = {"sql.presupuesto.modo=FAIL", "observabilidad.server-timing=true"})
+@AutoConfigureMockMvc
+@Import(PresupuestoSqlTests.EndpointsDePrueba.class)
+class PresupuestoSqlTests extends PostgresEmbebido {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void dentroDelPresupuesto() throws Exception {
+        mockMvc.perform(get("/prueba/presupuesto/dentro").with(user("prueba")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void masSentenciasQueElPresupuesto() throws Exception {
+        mockMvc.perform(get("/prueba/presupuesto/excedido").with(user("prueba")))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value(containsString("más de 2 sentencias SQL")));
+    }
+
+    @Test
+    void mismaSentenciaRepetida() throws Exception {
+        mockMvc.perform(get("/prueba/presupuesto/repetida").with(user("prueba")))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value(containsString("posible N+1")));
+    }
+
+    @RestController
+    static class EndpointsDePrueba {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        EndpointsDePrueba(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @GetMapping("/prueba/presupuesto/dentro")
+        @PresupuestoSql(sentencias = 2, repeticiones = 1)
+        public long dentro() {
+            return cursos() + videos();
+        }
+
+        @GetMapping("/prueba/presupuesto/excedido")
+        @PresupuestoSql(sentencias = 2)
+        public long excedido() {
+            return cursos() + videos() + categorias();
+        }
+
+        // Una consulta por id, la forma de un N+1
+        @GetMapping("/prueba/presupuesto/repetida")
+        @PresupuestoSql(repeticiones = 2)
+        public long repetida() {
+            long total = 0;
+            for (long id = 1; id <= 3; id++) {
+                total += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cursos WHERE id = ?", Long.class, id);
+            }
+            return total;
+        }
+
+        private long cursos() {
+            return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cursos", Long.class);
+        }
+
+        private long videos() {
+            return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM videos", Long.class);
+        }
+
+        private long categorias() {
+            return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categorias", Long.class);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.api.recomendaciones;
+
+import org.example.api.recomendaciones.CoocurrenciaCursos.Vecino;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Similitud coseno entre cursos, el mínimo de coincidencias, el top-n y la poda por maxPares
+ */
+class CoocurrenciaCursosTests {
+
+    @Test
+    void similitudCosenoEntreLosUsuariosDeCadaCurso() {
+        CoocurrenciaCursos matriz = new CoocurrenciaCursos(1_000);
+        // Curso 1: 4 usuarios; curso 2: 3, dos de ellos también en el 1; curso 3: 2, ambos en 1 y 2
+        usuario(matriz, 1, 2, 3);
+        usuario(matriz, 1, 2, 3);
+        usuario(matriz, 1, 2);
+        usuario(matriz, 1);
+
+        Map<Long, List<Vecino>> vecinos = matriz.calcularVecinos(10, 1);
+
+        // coincidencias / sqrt(usuarios(a) * usuarios(b)), de mayor a menor
+        assertThat(vecinos.get(1L)).extracting(Vecino::cursoId).containsExactly(2L, 3L);
+        assertThat(vecinos.get(1L).get(0).similitud()).isCloseTo(3 / Math.sqrt(4 * 3), within(1e-9));
+        assertThat(vecinos.get(1L).get(1).similitud()).isCloseTo(2 / Math.sqrt(4 * 2), within(1e-9));
+        assertThat(vecinos.get(3L)).extracting(Vecino::cursoId).containsExactly(2L, 1L);
+        assertThat(vecinos.get(3L).get(0).similitud()).isCloseTo(2 / Math.sqrt(2 * 3), within(1e-9));
+    }
+
+    @Test
+    void agregarNuevosSoloCuentaLosParesConCursosNuevos() {
+        CoocurrenciaCursos incremental = new CoocurrenciaCursos(1_000);
+        usuario(incremental, 1, 2);
+        // El mismo usuario consume después el curso 3: equivale a haberlo visto con los tres
+        incremental.agregarNuevos(new long[]{1, 2}, 2, new long[]{3}, 1);
+
+        CoocurrenciaCursos completa = new CoocurrenciaCursos(1_000);
+        usuario(completa, 1, 2, 3);
+
+        assertThat(incremental.getPares()).isEqualTo(3);
+        assertThat(incremental.calcularVecinos(10, 1)).isEqualTo(completa.calcularVecinos(10, 1));
+    }
+
+    @Test
+    void descartaLosParesConPocasCoincidenciasYLimitaElTopN() {
+        CoocurrenciaCursos matriz = new CoocurrenciaCursos(1_000);
+        // El curso 1 comparte 5 usuarios con el 2, 4 con el 3, 3 con el 4 y solo 1 con el 5
+        for (int i = 0; i < 5; i++) {
+            usuario(matriz, 1, 2);
+        }
+        for (int i = 0; i < 4; i++) {
+            usuario(matriz, 1, 3);
+        }
+        for (int i = 0; i < 3; i++) {
+            usuario(matriz, 1, 4);
+        }
+        usuario(matriz, 1, 5);
+
+        Map<Long, List<Vecino>> vecinos = matriz.calcularVecinos(2, 2);
+
+        assertThat(vecinos.get(1L)).extracting(Vecino::cursoId).containsExactly(2L, 3L);
+        assertThat(vecinos).doesNotContainKey(5L);
+    }
+
+    @Test
+    void podaLosParesMenosFrecuentesAlSuperarMaxPares() {
+        CoocurrenciaCursos matriz = new CoocurrenciaCursos(100);
+        // Señal: 1-2 con 10 usuarios en común
+        for (int i = 0; i < 10; i++) {
+            usuario(matriz, 1, 2);
+        }
+        // Ruido: usuarios con cursos sueltos que generan muchos pares de una sola coincidencia
+        for (long u = 0; u < 20; u++) {
+            usuario(matriz, LongStream.rangeClosed(100 + u * 10, 105 + u * 10).toArray());
+        }
+
+        assertThat(matriz.getPares()).isLessThanOrEqualTo(100);
+        assertThat(matriz.getUmbralPoda()).isGreaterThan(1);
+        assertThat(matriz.calcularVecinos(10, 1).get(1L)).extracting(Vecino::cursoId).containsExactly(2L);
+    }
+
+    @Test
+    void limitaLosCursosPorUsuario() {
+        CoocurrenciaCursos matriz = new CoocurrenciaCursos(1_000_000);
+        usuario(matriz, LongStream.rangeClosed(1, CoocurrenciaCursos.MAX_CURSOS_POR_USUARIO + 100).toArray());
+
+        int n = CoocurrenciaCursos.MAX_CURSOS_POR_USUARIO;
+        assertThat(matriz.getPares()).isEqualTo(n * (n - 1) / 2);
+    }
+
+    @Test
+    void escribeYLeeLaMatrizConElUmbral() throws IOException {
+        CoocurrenciaCursos matriz = new CoocurrenciaCursos(100);
+        for (int i = 0; i < 10; i++) {
+            usuario(matriz, 1, 2);
+        }
+        for (long u = 0; u < 20; u++) {
+            usuario(matriz, LongStream.rangeClosed(100 + u * 10, 105 + u * 10).toArray());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        matriz.escribir(new DataOutputStream(bytes));
+        CoocurrenciaCursos leida = CoocurrenciaCursos.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 100);
+
+        assertThat(leida.getUmbralPoda()).isEqualTo(matriz.getUmbralPoda());
+        assertThat(leida.getPares()).isEqualTo(matriz.getPares());
+        assertThat(leida.calcularVecinos(10, 1)).isEqualTo(matriz.calcularVecinos(10, 1));
+    }
+
+    private static void usuario(CoocurrenciaCursos matriz, long... cursos) {
+        matriz.agregarUsuario(cursos, cursos.length);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.api.recomendaciones;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * El mapa de direccionamiento abierto contra un HashMap de referencia: sumas, crecimiento, poda y
+ * escritura, con claves que colisionan en los bits bajos como las de (usuario, curso)
+ */
+class MapaLongIntTests {
+
+    @Test
+    void sumaYLeeComoUnHashMap() {
+        MapaLongInt mapa = new MapaLongInt(16);
+        Map<Long, Integer> referencia = new HashMap<>();
+        Random random = new Random(7);
+
+        // Mucho más que la capacidad inicial para pasar por varios redimensionados
+        for (int i = 0; i < 200_000; i++) {
+            long clave = ((long) (1 + random.nextInt(5_000)) << 32) | (1 + random.nextInt(50));
+            int delta = 1 + random.nextInt(3);
+            assertThat(mapa.sumar(clave, delta)).isEqualTo(referencia.merge(clave, delta, Integer::sum));
+        }
+
+        assertThat(mapa.size()).isEqualTo(referencia.size());
+        referencia.forEach((clave, valor) -> assertThat(mapa.get(clave)).isEqualTo(valor));
+        assertThat(mapa.get((5_001L << 32) | 1)).isZero();
+
+        Map<Long, Integer> recorridos = new HashMap<>();
+        mapa.forEach(recorridos::put);
+        assertThat(recorridos).isEqualTo(referencia);
+    }
+
+    @Test
+    void laClaveCeroEstaReservada() {
+        assertThatThrownBy(() -> new MapaLongInt(16).sumar(0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void podarQuitaLosValoresPorDebajoDelMinimo() {
+        MapaLongInt mapa = new MapaLongInt(16);
+        for (long clave = 1; clave <= 1_000; clave++) {
+            mapa.sumar(clave, (int) (clave % 10));
+        }
+
+        mapa.podar(5);
+
+        assertThat(mapa.size()).isEqualTo(500);
+        for (long clave = 1; clave <= 1_000; clave++) {
+            assertThat(mapa.get(clave)).isEqualTo(clave % 10 >= 5 ? (int) (clave % 10) : 0);
+        }
+        // Los huecos liberados no rompen las cadenas de sondeo de las claves que quedan
+        mapa.sumar(3, 1);
+        assertThat(mapa.get(3)).isEqualTo(1);
+        assertThat(mapa.get(9)).isEqualTo(9);
+    }
+
+    @Test
+    void escribeYLeeSoloLasEntradasOcupadas() throws IOException {
+        MapaLongInt mapa = new MapaLongInt(1024);
+        for (long clave = 1; clave <= 300; clave++) {
+            mapa.sumar(clave << 32 | clave, (int) clave);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        mapa.escribir(new DataOutputStream(bytes));
+        // Número de entradas y 12 bytes por entrada, no por hueco
+        assertThat(bytes.size()).isEqualTo(4 + 300 * 12);
+
+        MapaLongInt leido = MapaLongInt.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 16);
+        assertThat(leido.size()).isEqualTo(300);
+        for (long clave = 1; clave <= 300; clave++) {
+            assertThat(leido.get(clave << 32 | clave)).isEqualTo((int) clave);
+        }
+    }
+}
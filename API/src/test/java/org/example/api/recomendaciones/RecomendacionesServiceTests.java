@@ -0,0 +1,96 @@
+package org.example.api.recomendaciones;
+
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.dto.CursoRelacionadoResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recomendaciones sobre el Postgres embebido: la reconstrucción lee los pares de espectadores_curso,
+ * que no pierde los meses archivados, y la actualización incremental avanza por el registro del par,
+ * no por la fecha de la vista, sin contar dos veces lo que ya procesó.
+ */
+@SpringBootTest
+class RecomendacionesServiceTests extends PostgresEmbebido {
+
+    @Autowired
+    private RecomendacionesService recomendacionesService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DatosPrueba datos;
+    private long cursoA;
+    private long cursoB;
+
+    @BeforeEach
+    void preparar() {
+        datos = new DatosPrueba(jdbcTemplate);
+        long instructor = datos.instructor();
+        long categoria = datos.categoria();
+        cursoA = datos.cursoDe(datos.cursoPublicado(instructor, categoria, 1).getFirst());
+        cursoB = datos.cursoDe(datos.cursoPublicado(instructor, categoria, 1).getFirst());
+    }
+
+    @Test
+    void laReconstruccionCuentaLosParesDeMesesArchivados() {
+        // Solo quedan en espectadores_curso: sus visualizaciones ya se archivaron
+        LocalDateTime haceDosAnios = LocalDateTime.now().minusYears(2);
+        for (int i = 0; i < 2; i++) {
+            long usuario = datos.instructor();
+            espectador(cursoA, usuario, haceDosAnios, haceDosAnios);
+            espectador(cursoB, usuario, haceDosAnios, haceDosAnios);
+        }
+
+        recomendacionesService.reconstruir();
+
+        assertThat(recomendacionesService.obtenerRelacionados(cursoA, 10))
+                .extracting(CursoRelacionadoResponse::getId)
+                .containsExactly(cursoB);
+    }
+
+    @Test
+    void laActualizacionRecogeLasVistasDeLoteRegistradasDespuesDeLaMarcaUnaSolaVez() {
+        recomendacionesService.reconstruir();
+
+        // Vistas de un lote con fecha de hace cinco días, muy anterior al solape: el par se registra ahora
+        LocalDateTime haceCincoDias = LocalDateTime.now().minusDays(5);
+        for (int i = 0; i < 2; i++) {
+            long usuario = datos.instructor();
+            espectador(cursoA, usuario, haceCincoDias, null);
+            espectador(cursoB, usuario, haceCincoDias, null);
+        }
+
+        recomendacionesService.actualizar();
+        List<CursoRelacionadoResponse> relacionados = recomendacionesService.obtenerRelacionados(cursoA, 10);
+        assertThat(relacionados).extracting(CursoRelacionadoResponse::getId).containsExactly(cursoB);
+
+        // Siguen dentro del solape: la siguiente pasada los vuelve a leer pero no los suma otra vez
+        recomendacionesService.actualizar();
+        assertThat(recomendacionesService.obtenerRelacionados(cursoA, 10))
+                .extracting(CursoRelacionadoResponse::getSimilitud)
+                .containsExactlyElementsOf(relacionados.stream().map(CursoRelacionadoResponse::getSimilitud).toList());
+    }
+
+    private void espectador(long curso, long usuario, LocalDateTime primeraVista, LocalDateTime registrado) {
+        if (registrado == null) {
+            jdbcTemplate.update(
+                    "INSERT INTO espectadores_curso (curso_id, usuario_id, primera_vista) VALUES (?, ?, ?)",
+                    curso, usuario, Timestamp.valueOf(primeraVista));
+        } else {
+            jdbcTemplate.update(
+                    "INSERT INTO espectadores_curso (curso_id, usuario_id, primera_vista, registrado) VALUES (?, ?, ?, ?)",
+                    curso, usuario, Timestamp.valueOf(primeraVista), Timestamp.valueOf(registrado));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.api.repository;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Guarda las sentencias que ejecuta Hibernate en el hilo actual, con los valores de sus
+ * parámetros, para poder pasarlas por EXPLAIN tal cual: se registra como fuente extra del
+ * contexto y envuelve el DataSource.
+ */
+public class CapturaSentencias implements BeanPostProcessor {
+
+    /**
+     * Una llamada setXxx(indice, valor, ...) del PreparedStatement
+     */
+    public record Parametro(Method metodo, Object[] args) {
+    }
+
+    public record Sentencia(String sql, List<Parametro> parametros) {
+
+        /**
+         * Aplica los mismos parámetros a otra sentencia con los mismos marcadores
+         */
+        public void asignar(PreparedStatement destino) throws SQLException {
+            for (Parametro parametro : parametros) {
+                try {
+                    parametro.metodo().invoke(destino, parametro.args());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof SQLException sqlException) {
+                        throw sqlException;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+    }
+
+    private static final ThreadLocal<List<Sentencia>> ACTIVA = new ThreadLocal<>();
+
+    /**
+     * Ejecuta la llamada y devuelve las sentencias preparadas que ha ejecutado, en orden
+     */
+    public static List<Sentencia> capturar(Supplier<?> llamada) {
+        List<Sentencia> sentencias = new ArrayList<>();
+        ACTIVA.set(sentencias);
+        try {
+            llamada.get();
+        } finally {
+            ACTIVA.remove();
+        }
+        return sentencias;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                @NonNull
+                public Connection getConnection() throws SQLException {
+                    return conexion(super.getConnection());
+                }
+            };
+        }
+        return bean;
+    }
+
+    private static Connection conexion(Connection conexion) {
+        return proxy(Connection.class, conexion, (proxy, metodo, args) -> {
+            Object resultado = delegar(conexion, metodo, args);
+            if (resultado instanceof PreparedStatement sentencia && metodo.getName().equals("prepareStatement")) {
+                return sentencia((String) args[0], sentencia);
+            }
+            return resultado;
+        });
+    }
+
+    private static PreparedStatement sentencia(String sql, PreparedStatement sentencia) {
+        List<Parametro> parametros = new ArrayList<>();
+        return proxy(PreparedStatement.class, sentencia, (proxy, metodo, args) -> {
+            String nombre = metodo.getName();
+            // setLong(1, ...), setNull(2, ...), setObject(3, ..., ...); no setFetchSize(int) y similares
+            if (nombre.startsWith("set") && args != null && args.length >= 2 && metodo.getParameterTypes()[0] == int.class) {
+                parametros.add(new Parametro(metodo, args.clone()));
+            } else if (nombre.equals("clearParameters")) {
+                parametros.clear();
+            } else if (nombre.startsWith("execute") && (args == null || args.length == 0) && ACTIVA.get() != null) {
+                ACTIVA.get().add(new Sentencia(sql, List.copyOf(parametros)));
+            }
+            return delegar(sentencia, metodo, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, Object destino, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    private static Object delegar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
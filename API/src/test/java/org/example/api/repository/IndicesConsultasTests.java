@@ -0,0 +1,300 @@
+package org.example.api.repository;
+
+import org.example.api.ApiApplication;
+import org.example.api.PostgresEmbebido;
+import org.example.api.model.Categoria;
+import org.example.api.model.Rol;
+import org.example.api.model.Usuario;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Planes de las consultas de los repositorios (ver V2__indices_consultas.sql y V5__indices_usuarios.sql)
+ * con tamaños del orden de producción: 100.000 usuarios, 10.000 cursos, 100.000 videos, un millón de
+ * visualizaciones en seis meses y 300.000 calificaciones, con la popularidad de los videos sesgada.
+ *
+ * Cada caso llama al repositorio, captura la SQL que ha generado Hibernate con sus parámetros
+ * (CapturaSentencias) y la pasa por EXPLAIN con esos mismos valores, sin tocar enable_seqscan.
+ * Los datos van en una base propia del Postgres embebido para no cambiar los conteos del resto de tests.
+ *
+ * Consultas que no se comprueban, porque leen la tabla entera y un Seq Scan es el plan correcto:
+ * CursoRepository.findByPublicadoTrue (todo el catálogo, el 95% de los cursos está publicado),
+ * los findAll de los listados del administrador y los conteos totales de EstadisticasRepository.
+ */
+class IndicesConsultasTests {
+
+    private static final String BASE = "indices";
+
+    private static final long USUARIOS = 100_000;
+    private static final long INSTRUCTORES = 2_000;
+    private static final long CURSOS = 10_000;
+    private static final long VIDEOS_POR_CURSO = 10;
+    private static final long VISUALIZACIONES = 1_000_000;
+    private static final long CALIFICACIONES = 300_000;
+
+    private static ConfigurableApplicationContext contexto;
+
+    @BeforeAll
+    static void sembrar() throws SQLException {
+        try (Connection conexion = DriverManager.getConnection(PostgresEmbebido.jdbcUrl(), "postgres", "");
+             Statement st = conexion.createStatement()) {
+            st.execute("DROP DATABASE IF EXISTS " + BASE);
+            st.execute("CREATE DATABASE " + BASE);
+        }
+
+        // Flyway crea el esquema y ParticionVisualizacionesService las particiones de la retención
+        contexto = new SpringApplicationBuilder(ApiApplication.class, CapturaSentencias.class)
+                .run(PostgresEmbebido.argumentosEn(BASE));
+
+        try (Connection conexion = contexto.getBean(DataSource.class).getConnection();
+             Statement st = conexion.createStatement()) {
+            conexion.setAutoCommit(false);
+            st.execute("SELECT setseed(0.42)");
+            st.execute("INSERT INTO usuarios (id, nombre, apellido, email, password, rol, fecha_registro, activo) " +
+                    "SELECT g, 'Usuario', 'Índice ' || g, 'u' || g || '@indices.local', 'x', " +
+                    "CASE WHEN g > " + (USUARIOS - INSTRUCTORES) + " THEN 'INSTRUCTOR' ELSE 'ESTUDIANTE' END, " +
+                    "now() - random() * interval '730 days', g % 20 <> 0 " +
+                    "FROM generate_series(1, " + USUARIOS + ") g");
+            st.execute("INSERT INTO categorias (id, nombre, descripcion) " +
+                    "SELECT g, 'Tema ' || g, 'Cursos del tema ' || g FROM generate_series(1, 20) g");
+            // Pocas categorías e instructores concentran muchos cursos; uno de cada mil trata un tema poco común
+            st.execute("INSERT INTO cursos (id, titulo, descripcion, instructor_id, categoria_id, fecha_creacion, publicado, precio) " +
+                    "SELECT g, CASE WHEN g % 1000 = 0 THEN 'Kubernetes en producción ' || g ELSE 'Tema ' || c || ' curso ' || g END, " +
+                    "'Curso con teoría, ejemplos y ejercicios resueltos', " +
+                    (USUARIOS - INSTRUCTORES) + " + 1 + floor(" + INSTRUCTORES + " * power(random(), 2))::int, c, " +
+                    "now() - random() * interval '540 days', random() < 0.95, 10 + floor(random() * 90) " +
+                    "FROM (SELECT g, 1 + floor(20 * power(random(), 2))::int AS c FROM generate_series(1, " + CURSOS + ") g) s");
+            st.execute("INSERT INTO videos (id, titulo, curso_id, url_video, orden, duracion_segundos, fecha_subida) " +
+                    "SELECT (c - 1) * " + VIDEOS_POR_CURSO + " + o, 'Video ' || o, c, 'video.mp4', o, 300 + o * 30, now() " +
+                    "FROM generate_series(1, " + CURSOS + ") c, generate_series(1, " + VIDEOS_POR_CURSO + ") o");
+            st.execute("INSERT INTO visualizaciones (video_id, usuario_id, fecha_visualizacion, ip_address) " +
+                    "SELECT 1 + floor(" + (CURSOS * VIDEOS_POR_CURSO) + " * power(random(), 3))::int, " +
+                    "CASE WHEN random() < 0.3 THEN NULL ELSE 1 + floor(" + (USUARIOS - INSTRUCTORES) + " * random())::int END, " +
+                    "now() - random() * interval '180 days', '203.0.113.1' " +
+                    "FROM generate_series(1, " + VISUALIZACIONES + ")");
+            // Pares (usuario, curso) distintos: cada usuario califica hasta cuatro cursos separados 2.500 ids
+            long estudiantes = USUARIOS - INSTRUCTORES;
+            st.execute("INSERT INTO calificaciones (usuario_id, curso_id, puntuacion, fecha_creacion) " +
+                    "SELECT 1 + g % " + estudiantes + ", 1 + ((g % " + estudiantes + ") * 31 + (g / " + estudiantes + ") * 2500) % " + CURSOS + ", " +
+                    "1 + floor(random() * 5)::int, now() - random() * interval '365 days' " +
+                    "FROM generate_series(0, " + (CALIFICACIONES - 1) + ") g");
+            for (String tabla : List.of("usuarios", "categorias", "cursos", "videos")) {
+                st.execute("SELECT setval('" + tabla + "_id_seq', (SELECT MAX(id) FROM " + tabla + ") + 50)");
+            }
+            conexion.commit();
+            conexion.setAutoCommit(true);
+            // Como haría autovacuum: vuelca a los GIN de trigramas la lista pendiente que deja la carga
+            // masiva (con ella el planificador estima la búsqueda de texto más cara que recorrer cursos)
+            st.execute("VACUUM ANALYZE");
+        }
+    }
+
+    @AfterAll
+    static void detener() {
+        if (contexto != null) {
+            contexto.close();
+        }
+    }
+
+    @Test
+    void visualizacionesPorVideo() {
+        VisualizacionRepository repositorio = repositorio(VisualizacionRepository.class);
+        long video = videoPopular();
+
+        assertThat(plan(() -> repositorio.countByVideoId(video)))
+                .contains("video_id_fecha_visualizacion_idx").doesNotContain("Seq Scan");
+        assertThat(plan(() -> repositorio.findByVideoId(video)))
+                .contains("video_id_fecha_visualizacion_idx").doesNotContain("Seq Scan on visualizaciones");
+    }
+
+    @Test
+    void visualizacionesPorUsuario() {
+        VisualizacionRepository repositorio = repositorio(VisualizacionRepository.class);
+
+        assertThat(plan(() -> repositorio.findByUsuarioIdOrderByFechaVisualizacionDesc(42L)))
+                .contains("usuario_id_fecha_visualizacion_idx").doesNotContain("Seq Scan on visualizaciones");
+        assertThat(plan(() -> repositorio.countByUsuarioId(42L)))
+                .contains("usuario_id_fecha_visualizacion_idx").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void visualizacionesPorCurso() {
+        VisualizacionRepository repositorio = repositorio(VisualizacionRepository.class);
+
+        // Videos del curso por uk_curso_orden y sus vistas por el índice de video de cada partición
+        assertThat(plan(() -> repositorio.countByCursoId(500L)))
+                .contains("uk_curso_orden").contains("video_id_fecha_visualizacion_idx")
+                .doesNotContain("Seq Scan on visualizaciones");
+        assertThat(plan(() -> repositorio.contarPorVideoDeCurso(500L)))
+                .contains("video_id_fecha_visualizacion_idx").doesNotContain("Seq Scan on visualizaciones");
+        assertThat(plan(() -> repositorio.contarPorCursos(List.of(500L, 501L, 502L))))
+                .contains("video_id_fecha_visualizacion_idx").doesNotContain("Seq Scan on visualizaciones");
+    }
+
+    @Test
+    void calificacionesPorCurso() {
+        CalificacionRepository repositorio = repositorio(CalificacionRepository.class);
+
+        // Promedio, total y distribución: index-only scan sobre (curso_id, puntuacion)
+        assertThat(plan(() -> repositorio.obtenerPromedioCalificacion(500L)))
+                .contains("idx_calificaciones_curso_puntuacion").doesNotContain("Seq Scan");
+        assertThat(plan(() -> repositorio.countByCursoId(500L)))
+                .contains("idx_calificaciones_curso_puntuacion").doesNotContain("Seq Scan");
+        assertThat(plan(() -> repositorio.countByCursoIdAndPuntuacion(500L, 5)))
+                .contains("idx_calificaciones_curso_puntuacion").doesNotContain("Seq Scan");
+        assertThat(plan(() -> repositorio.promediosPorCursos(List.of(500L, 501L, 502L))))
+                .contains("idx_calificaciones_curso_puntuacion").doesNotContain("Seq Scan");
+        assertThat(plan(() -> repositorio.findByCursoId(500L)))
+                .contains("idx_calificaciones_curso_puntuacion").doesNotContain("Seq Scan on calificaciones");
+        assertThat(plan(() -> repositorio.findByUsuarioIdAndCursoId(42L, 500L)))
+                .contains("uk_usuario_curso").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void filtrosDelAdminSobreVisualizaciones() {
+        VisualizacionRepository repositorio = repositorio(VisualizacionRepository.class);
+        long video = videoPopular();
+        LocalDateTime haceDosDias = LocalDateTime.now().minusDays(2);
+
+        // Como en el listado de usuarios, solo entran en el WHERE los filtros que llegan
+        assertThat(plan(() -> repositorio.buscarConFiltros(video, null, null, null)))
+                .contains("video_id_fecha_visualizacion_idx").doesNotContain("Seq Scan on visualizaciones");
+        assertThat(plan(() -> repositorio.buscarConFiltros(null, 42L, null, null)))
+                .contains("usuario_id_fecha_visualizacion_idx").doesNotContain("Seq Scan on visualizaciones");
+        // Solo fechas: se podan las particiones fuera del rango y la del mes va por el índice de fecha
+        assertThat(plan(() -> repositorio.buscarConFiltros(null, null, haceDosDias, null)))
+                .containsPattern("visualizaciones_\\d{4}_\\d{2}_fecha_visualizacion_idx")
+                .doesNotContain("Seq Scan on visualizaciones");
+    }
+
+    @Test
+    void filtrosDelAdminSobreCalificaciones() {
+        CalificacionRepository repositorio = repositorio(CalificacionRepository.class);
+
+        assertThat(plan(() -> repositorio.buscarConFiltros(500L, null, null, null)))
+                .contains("idx_calificaciones_curso_puntuacion").doesNotContain("Seq Scan on calificaciones");
+        assertThat(plan(() -> repositorio.buscarConFiltros(null, 42L, null, null)))
+                .contains("uk_usuario_curso").doesNotContain("Seq Scan on calificaciones");
+        assertThat(plan(() -> repositorio.buscarConFiltros(null, null, LocalDateTime.now().minusDays(2), null)))
+                .contains("idx_calificaciones_fecha_efectiva").doesNotContain("Seq Scan on calificaciones");
+    }
+
+    @Test
+    void cursosPorInstructorYCategoria() {
+        CursoRepository repositorio = repositorio(CursoRepository.class);
+        Usuario instructor = repositorio(UsuarioRepository.class).findById(USUARIOS).orElseThrow();
+        Categoria categoria = repositorio(CategoriaRepository.class).findById(20L).orElseThrow();
+
+        assertThat(plan(() -> repositorio.findByInstructor(instructor)))
+                .contains("idx_cursos_instructor").doesNotContain("Seq Scan on cursos");
+        assertThat(plan(() -> repositorio.countByInstructorId(instructor.getId())))
+                .contains("idx_cursos_instructor").doesNotContain("Seq Scan");
+        // La categoría menos poblada; las de cabeza tienen miles de cursos y ahí un Seq Scan es lo correcto
+        assertThat(plan(() -> repositorio.findByCategoriaAndPublicadoTrue(categoria)))
+                .contains("idx_cursos_categoria_publicado").doesNotContain("Seq Scan on cursos");
+    }
+
+    @Test
+    void busquedaDeCursosPorTexto() {
+        CursoRepository repositorio = repositorio(CursoRepository.class);
+
+        // Un término poco común: uno que aparezca en casi todos los cursos se resuelve mejor con Seq Scan
+        assertThat(plan(() -> repositorio.buscarCursos("kubernetes")))
+                .contains("idx_cursos_titulo_trgm").contains("idx_cursos_descripcion_trgm")
+                .doesNotContain("Seq Scan on cursos");
+    }
+
+    @Test
+    void videosDeUnCurso() {
+        VideoRepository repositorio = repositorio(VideoRepository.class);
+
+        assertThat(plan(() -> repositorio.findByCursoIdOrderByOrdenAsc(500L)))
+                .contains("uk_curso_orden").doesNotContain("Seq Scan");
+        assertThat(plan(() -> repositorio.findByCursoIdInOrderByCursoIdAscOrdenAsc(List.of(500L, 501L, 502L))))
+                .contains("uk_curso_orden").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void usuarioPorEmail() {
+        UsuarioRepository repositorio = repositorio(UsuarioRepository.class);
+
+        assertThat(plan(() -> repositorio.findByEmail("u42@indices.local")))
+                .contains("uk_usuarios_email").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void listadoDeUsuariosDelAdmin() {
+        UsuarioRepository repositorio = repositorio(UsuarioRepository.class);
+        Pageable recientes = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "fechaRegistro"));
+
+        // Solo los filtros que llegan entran en el WHERE, así que cada combinación usa su índice
+        assertThat(plan(() -> repositorio.buscarConCursosCreados(Rol.INSTRUCTOR, true, null, null, recientes)))
+                .contains("idx_usuarios_rol_activo_registro").doesNotContain("Seq Scan on usuarios");
+        assertThat(plan(() -> repositorio.buscarConCursosCreados(
+                null, null, LocalDateTime.now().minusDays(7), null, recientes)))
+                .contains("idx_usuarios_registro").doesNotContain("Seq Scan on usuarios");
+    }
+
+    private static <T> T repositorio(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    // El video con más vistas: el caso en que un índice poco selectivo dejaría de compensar
+    private static long videoPopular() {
+        return contexto.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT video_id FROM visualizaciones GROUP BY video_id ORDER BY COUNT(*) DESC LIMIT 1", Long.class);
+    }
+
+    /**
+     * EXPLAIN de la primera sentencia que ejecuta la llamada, con sus mismos parámetros. Los meses de
+     * la retención sin vistas son particiones vacías, que aparecen como Seq Scan de coste cero: se
+     * quitan del plan para que las comprobaciones miren solo las que tienen datos.
+     */
+    private static String plan(Supplier<?> llamada) {
+        List<CapturaSentencias.Sentencia> sentencias = CapturaSentencias.capturar(llamada);
+        assertThat(sentencias).as("sentencias de la llamada").isNotEmpty();
+        CapturaSentencias.Sentencia sentencia = sentencias.getFirst();
+
+        try (Connection conexion = contexto.getBean(DataSource.class).getConnection();
+             PreparedStatement explain = conexion.prepareStatement("EXPLAIN " + sentencia.sql())) {
+            sentencia.asignar(explain);
+            List<String> lineas = new ArrayList<>();
+            try (ResultSet rs = explain.executeQuery()) {
+                boolean particionVacia = false;
+                while (rs.next()) {
+                    String linea = rs.getString(1);
+                    if (linea.contains("Seq Scan") && linea.contains("(cost=0.00..0.00 ")) {
+                        particionVacia = true;
+                    } else if (!(particionVacia && linea.trim().startsWith("Filter:"))) {
+                        particionVacia = false;
+                        lineas.add(linea);
+                    }
+                }
+            }
+            return sentencia.sql() + "\n" + String.join("\n", lineas);
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo explicar " + sentencia.sql(), e);
+        }
+    }
+}
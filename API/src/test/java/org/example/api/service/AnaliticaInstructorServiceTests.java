@@ -0,0 +1,239 @@
+package org.example.api.service;
+
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.dto.AnaliticaCursoResponse;
+import org.example.api.dto.AnaliticaInstructorResponse;
+import org.example.api.model.Curso;
+import org.example.api.model.Usuario;
+import org.example.api.model.Video;
+import org.example.api.model.Visualizacion;
+import org.example.api.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Agregados de la analítica del instructor sobre el Postgres embebido: el contador de espectadores
+ * por curso que mantiene el trigger de V9, los espectadores distintos entre cursos (contador de V12)
+ * y la reconciliación de los días cerrados. El volcado programado se aplaza una hora para que solo
+ * escriban las llamadas de cada test.
+ */
+@SpringBootTest(properties = "analitica.intervalo-escritura-ms=3600000")
+class AnaliticaInstructorServiceTests extends PostgresEmbebido {
+
+    @Autowired
+    private AnaliticaInstructorService analiticaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DatosPrueba datos;
+    private long instructor;
+    private long cursoA;
+    private long cursoB;
+    private long videoA;
+    private long videoB;
+
+    @BeforeEach
+    void preparar() {
+        datos = new DatosPrueba(jdbcTemplate);
+        instructor = datos.instructor();
+        long categoria = datos.categoria();
+        videoA = datos.cursoPublicado(instructor, categoria, 1).getFirst();
+        videoB = datos.cursoPublicado(instructor, categoria, 1).getFirst();
+        cursoA = datos.cursoDe(videoA);
+        cursoB = datos.cursoDe(videoB);
+
+        Usuario principal = usuarioRepository.findById(instructor).orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unEspectadorDeVariosCursosCuentaUnaVezEnElInstructor() {
+        long ana = datos.instructor();
+        long luis = datos.instructor();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        analiticaService.registrarVistas(List.of(
+                vista(videoA, ana, ahora), vista(videoB, ana, ahora),
+                vista(videoA, luis, ahora), vista(videoA, null, ahora)));
+        analiticaService.volcarPendientes();
+        // Volver a ver un curso no suma otro espectador
+        analiticaService.registrarVistas(List.of(vista(videoA, ana, ahora.minusMinutes(1))));
+        analiticaService.volcarPendientes();
+
+        AnaliticaInstructorResponse analitica = analiticaService.obtenerAnalitica(30);
+
+        assertThat(analitica.getTotalVistas()).isEqualTo(5);
+        assertThat(analitica.getEspectadoresUnicos()).isEqualTo(2);
+        assertThat(analitica.getEspectadoresNuevos()).isEqualTo(2);
+        assertThat(curso(analitica, cursoA).getEspectadoresUnicos()).isEqualTo(2);
+        assertThat(curso(analitica, cursoB).getEspectadoresUnicos()).isEqualTo(1);
+        assertThat(contador(cursoA)).isEqualTo(2);
+        assertThat(contadorInstructor()).isEqualTo(2);
+    }
+
+    @Test
+    void esNuevoSiSuPrimeraVistaEnCualquierCursoEsReciente() {
+        long ana = datos.instructor();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        // Vio el curso A hace dos meses y el B hoy: nuevo en B, no en el instructor
+        analiticaService.registrarVistas(List.of(
+                vista(videoA, ana, ahora.minusDays(60)), vista(videoB, ana, ahora)));
+        analiticaService.volcarPendientes();
+
+        AnaliticaInstructorResponse analitica = analiticaService.obtenerAnalitica(30);
+
+        assertThat(curso(analitica, cursoA).getEspectadoresNuevos()).isZero();
+        assertThat(curso(analitica, cursoB).getEspectadoresNuevos()).isEqualTo(1);
+        assertThat(analitica.getEspectadoresUnicos()).isEqualTo(1);
+        assertThat(analitica.getEspectadoresNuevos()).isZero();
+    }
+
+    @Test
+    void borrarUnUsuarioLoDescuentaDelContador() {
+        long ana = datos.instructor();
+        long luis = datos.instructor();
+        analiticaService.registrarVistas(List.of(
+                vista(videoA, ana, LocalDateTime.now()), vista(videoA, luis, LocalDateTime.now())));
+        analiticaService.volcarPendientes();
+
+        // espectadores_curso se borra en cascada
+        jdbcTemplate.update("DELETE FROM usuarios WHERE id = ?", luis);
+
+        assertThat(contador(cursoA)).isEqualTo(1);
+        assertThat(contadorInstructor()).isEqualTo(1);
+    }
+
+    @Test
+    void borrarUnCursoDescuentaDelInstructorSoloASusEspectadoresExclusivos() {
+        long ana = datos.instructor();
+        long luis = datos.instructor();
+        LocalDateTime ahora = LocalDateTime.now();
+        analiticaService.registrarVistas(List.of(
+                vista(videoA, ana, ahora), vista(videoB, ana, ahora), vista(videoB, luis, ahora)));
+        analiticaService.volcarPendientes();
+        assertThat(contadorInstructor()).isEqualTo(2);
+
+        // Ana sigue siendo espectadora por el curso A; Luis solo veía el B
+        jdbcTemplate.update("DELETE FROM videos WHERE curso_id = ?", cursoB);
+        jdbcTemplate.update("DELETE FROM cursos WHERE id = ?", cursoB);
+
+        assertThat(contadorInstructor()).isEqualTo(1);
+        assertThat(analiticaService.obtenerAnalitica(30).getEspectadoresUnicos()).isEqualTo(1);
+    }
+
+    @Test
+    void laReconciliacionRecuperaLoQueNoSeVolco() {
+        long ana = datos.instructor();
+        LocalDate dia = LocalDate.now().minusDays(8);
+
+        // Una vista volcada y otras dos del mismo día que se perdieron en memoria con una caída
+        LocalDateTime volcada = dia.atTime(10, 0);
+        insertarVista(videoA, null, volcada);
+        analiticaService.registrarVistas(List.of(vista(videoA, null, volcada)));
+        analiticaService.volcarPendientes();
+        insertarVista(videoA, null, dia.atTime(11, 0));
+        insertarVista(videoB, ana, dia.atTime(12, 0));
+        // Fuera de la ventana: no se toca
+        insertarVista(videoA, ana, LocalDateTime.now());
+
+        analiticaService.reconciliar();
+
+        Map<LocalDate, Long> vistasA = vistasPorDia(videoA);
+        assertThat(vistasA).containsExactly(Map.entry(dia, 2L));
+        assertThat(vistasPorDia(videoB)).containsExactly(Map.entry(dia, 1L));
+        assertThat(contador(cursoA)).isNull();
+        assertThat(contador(cursoB)).isEqualTo(1);
+
+        // Repetirla no cambia nada
+        analiticaService.reconciliar();
+        assertThat(vistasPorDia(videoA)).isEqualTo(vistasA);
+        assertThat(contador(cursoB)).isEqualTo(1);
+    }
+
+    @Test
+    void sinAutenticacionEsUnError() {
+        SecurityContextHolder.clearContext();
+
+        assertThatThrownBy(() -> analiticaService.obtenerAnalitica(30))
+                .hasMessage("Usuario no autenticado");
+    }
+
+    private Visualizacion vista(long videoId, Long usuarioId, LocalDateTime fecha) {
+        Curso curso = new Curso();
+        curso.setId(datos.cursoDe(videoId));
+        Video video = new Video();
+        video.setId(videoId);
+        video.setCurso(curso);
+        Usuario usuario = null;
+        if (usuarioId != null) {
+            usuario = new Usuario();
+            usuario.setId(usuarioId);
+        }
+        Visualizacion visualizacion = new Visualizacion();
+        visualizacion.setVideo(video);
+        visualizacion.setUsuario(usuario);
+        visualizacion.setFechaVisualizacion(fecha);
+        return visualizacion;
+    }
+
+    private void insertarVista(long videoId, Long usuarioId, LocalDateTime fecha) {
+        jdbcTemplate.update(
+                "INSERT INTO visualizaciones (video_id, usuario_id, fecha_visualizacion, ip_address) " +
+                        "VALUES (?, ?, ?, '203.0.113.1')",
+                videoId, usuarioId, Timestamp.valueOf(fecha));
+    }
+
+    private Map<LocalDate, Long> vistasPorDia(long videoId) {
+        return jdbcTemplate.queryForList("SELECT dia, vistas FROM vistas_diarias_video WHERE video_id = ?", videoId)
+                .stream()
+                .collect(Collectors.toMap(f -> ((Date) f.get("dia")).toLocalDate(), f -> (Long) f.get("vistas")));
+    }
+
+    private Long contador(long cursoId) {
+        return jdbcTemplate.queryForList(
+                "SELECT espectadores FROM espectadores_totales_curso WHERE curso_id = ?", Long.class, cursoId)
+                .stream().findFirst().orElse(null);
+    }
+
+    private Long contadorInstructor() {
+        return jdbcTemplate.queryForList(
+                "SELECT espectadores FROM espectadores_totales_instructor WHERE instructor_id = ?", Long.class, instructor)
+                .stream().findFirst().orElse(null);
+    }
+
+    private static AnaliticaCursoResponse curso(AnaliticaInstructorResponse analitica, long cursoId) {
+        return analitica.getCursos().stream()
+                .collect(Collectors.toMap(AnaliticaCursoResponse::getCursoId, Function.identity()))
+                .get(cursoId);
+    }
+}
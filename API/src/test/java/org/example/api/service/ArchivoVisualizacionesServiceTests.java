@@ -0,0 +1,140 @@
+package org.example.api.service;
+
+import org.example.api.service.ArchivoVisualizacionesService.VisualizacionArchivada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ida y vuelta del formato columnar: lo que se escribe con el Escritor es lo que devuelven leer y
+ * recorrer, con varios bloques, deltas negativos, vistas anónimas, filas sin IP y microsegundos
+ */
+class ArchivoVisualizacionesServiceTests {
+
+    private static final YearMonth MES = YearMonth.of(2024, 3);
+
+    @TempDir
+    Path directorio;
+
+    private final ArchivoVisualizacionesService archivo = new ArchivoVisualizacionesService();
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(archivo, "archivoLocation", directorio.toString());
+    }
+
+    @Test
+    void idaYVueltaConVariosBloques() throws IOException {
+        // Más de un bloque (65.536 filas) para cubrir el cambio de bloque y el marcador final
+        List<VisualizacionArchivada> filas = filas(150_000);
+
+        try (ArchivoVisualizacionesService.Escritor escritor = archivo.nuevoEscritor(MES)) {
+            for (VisualizacionArchivada fila : filas) {
+                escritor.agregarArchivada(fila);
+            }
+            assertThat(escritor.getFilas()).isEqualTo(filas.size());
+            escritor.confirmar();
+        }
+
+        assertThat(archivo.estaArchivado(MES)).isTrue();
+        assertThat(archivo.mesesArchivados()).containsExactly(MES);
+        assertThat(archivo.leer(MES, v -> true)).containsExactlyElementsOf(filas);
+        assertThat(archivo.leer(MES, v -> v.getUsuarioId() == null))
+                .containsExactlyElementsOf(filas.stream().filter(v -> v.getUsuarioId() == null).toList());
+
+        List<VisualizacionArchivada> recorridas = new ArrayList<>();
+        archivo.recorrer(MES, recorridas::add);
+        assertThat(recorridas).containsExactlyElementsOf(filas);
+    }
+
+    @Test
+    void reescribirUnMesConservaLasFilasAnteriores() throws IOException {
+        List<VisualizacionArchivada> anteriores = filas(1_000);
+        try (ArchivoVisualizacionesService.Escritor escritor = archivo.nuevoEscritor(MES)) {
+            for (VisualizacionArchivada fila : anteriores) {
+                escritor.agregarArchivada(fila);
+            }
+            escritor.confirmar();
+        }
+
+        // Como al archivar filas tardías: se recorre el fichero publicado mientras se escribe el nuevo
+        VisualizacionArchivada tardia = new VisualizacionArchivada(
+                5_000_000L, 7L, 3L, LocalDateTime.of(2024, 3, 31, 23, 59, 59, 999_999_000), "198.51.100.9");
+        try (ArchivoVisualizacionesService.Escritor escritor = archivo.nuevoEscritor(MES)) {
+            archivo.recorrer(MES, escritor::agregarArchivada);
+            escritor.agregarArchivada(tardia);
+            escritor.confirmar();
+        }
+
+        List<VisualizacionArchivada> esperadas = new ArrayList<>(anteriores);
+        esperadas.add(tardia);
+        assertThat(archivo.leer(MES, v -> true)).containsExactlyElementsOf(esperadas);
+    }
+
+    @Test
+    void sinConfirmarNoQuedaArchivado() throws IOException {
+        try (ArchivoVisualizacionesService.Escritor escritor = archivo.nuevoEscritor(MES)) {
+            escritor.agregarArchivada(filas(1).getFirst());
+        }
+
+        assertThat(archivo.estaArchivado(MES)).isFalse();
+        try (var archivos = Files.list(directorio)) {
+            assertThat(archivos).isEmpty();
+        }
+    }
+
+    @Test
+    void unArchivoTruncadoEsUnError() throws IOException {
+        try (ArchivoVisualizacionesService.Escritor escritor = archivo.nuevoEscritor(MES)) {
+            for (VisualizacionArchivada fila : filas(10_000)) {
+                escritor.agregarArchivada(fila);
+            }
+            escritor.confirmar();
+        }
+
+        Path fichero = directorio.resolve("visualizaciones_2024_03.vcol.gz");
+        byte[] contenido = Files.readAllBytes(fichero);
+        Files.write(fichero, Arrays.copyOf(contenido, contenido.length / 2));
+
+        assertThatThrownBy(() -> archivo.leer(MES, v -> true))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining(MES.toString());
+    }
+
+    /**
+     * Filas del mes en orden de fecha, con ids no siempre crecientes (vistas tardías de lotes),
+     * un 30 % anónimas, algunas sin IP y fechas con microsegundos
+     */
+    private static List<VisualizacionArchivada> filas(int cantidad) {
+        Random random = new Random(42);
+        LocalDateTime fecha = MES.atDay(1).atStartOfDay();
+        List<VisualizacionArchivada> filas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            fecha = fecha.plusNanos(random.nextInt(10_000_000) * 1_000L);
+            long id = 1_000_000L + i + (random.nextInt(10) == 0 ? -random.nextInt(500) : 0);
+            filas.add(new VisualizacionArchivada(
+                    id,
+                    1L + random.nextInt(100_000),
+                    random.nextInt(10) < 3 ? null : 1L + random.nextInt(1_000_000),
+                    fecha,
+                    random.nextInt(20) == 0 ? null : "203.0.113." + random.nextInt(256)
+            ));
+        }
+        return filas;
+    }
+}
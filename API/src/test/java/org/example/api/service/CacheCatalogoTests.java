@@ -0,0 +1,144 @@
+package org.example.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.model.Categoria;
+import org.example.api.model.Curso;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.api.ServerTiming.sentencias;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Con la cache de segundo nivel y la de consultas calientes, el catálogo deja de leer categorias
+ * (ver application.conf, CategoriaRepository.findAll y el grafo Curso.tarjeta)
+ */
+@SpringBootTest(properties = {"sql.presupuesto.modo=FAIL", "observabilidad.server-timing=true"})
+@AutoConfigureMockMvc
+class CacheCatalogoTests extends PostgresEmbebido {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Categoria categoria;
+
+    @BeforeEach
+    void crearCategoria() {
+        // El bus no entrega los cambios propios, así que nada vacía las caches en mitad de las peticiones medidas
+        categoria = categoriaService.crearCategoria("cache-" + UUID.randomUUID(), "categoría de prueba");
+    }
+
+    @AfterEach
+    void eliminarCategoria() {
+        categoriaService.eliminarCategoria(categoria.getId());
+    }
+
+    @Test
+    void listadoDeCategoriasDesdeLaCacheDeConsultas() throws Exception {
+        Statistics estadisticas = estadisticas();
+
+        mockMvc.perform(get("/api/categorias")).andExpect(status().isOk());
+
+        long consultas = estadisticas.getQueryExecutionCount();
+        long aciertos = estadisticas.getQueryCacheHitCount();
+        long cargadas = cargadasDeLaBase(estadisticas);
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/categorias")).andExpect(status().isOk());
+        }
+
+        assertThat(estadisticas.getQueryExecutionCount()).as("consultas a la base").isEqualTo(consultas);
+        assertThat(estadisticas.getQueryCacheHitCount()).as("aciertos en la cache de consultas").isEqualTo(aciertos + 5);
+        assertThat(cargadasDeLaBase(estadisticas)).as("categorías leídas de la base").isEqualTo(cargadas);
+    }
+
+    @Test
+    void categoriaPorIdDesdeLaCacheDeEntidades() throws Exception {
+        Statistics estadisticas = estadisticas();
+
+        mockMvc.perform(get("/api/categorias/{id}", categoria.getId())).andExpect(status().isOk());
+
+        long sentencias = estadisticas.getPrepareStatementCount();
+        long aciertos = estadisticas.getDomainDataRegionStatistics(Categoria.class.getName()).getHitCount();
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/categorias/{id}", categoria.getId())).andExpect(status().isOk());
+        }
+
+        assertThat(estadisticas.getPrepareStatementCount()).as("sentencias JDBC").isEqualTo(sentencias);
+        assertThat(estadisticas.getDomainDataRegionStatistics(Categoria.class.getName()).getHitCount())
+                .as("aciertos en la región de Categoria").isGreaterThanOrEqualTo(aciertos + 5);
+    }
+
+    @Test
+    void catalogoConLasCategoriasDeLaCache() throws Exception {
+        DatosPrueba datos = new DatosPrueba(jdbcTemplate);
+        long curso = datos.cursoDe(datos.cursoPublicado(datos.instructor(), categoria.getId(), 1).getFirst());
+        try {
+            Statistics estadisticas = estadisticas();
+            // La primera pasada trae las categorías de otros tests que aún no estaban en la cache
+            mockMvc.perform(get("/api/cursos/publicos")).andExpect(status().isOk());
+
+            long cargadas = cargadasDeLaBase(estadisticas);
+            long aciertos = estadisticas.getDomainDataRegionStatistics(Categoria.class.getName()).getHitCount();
+            for (int i = 0; i < 5; i++) {
+                MvcResult resultado = mockMvc.perform(get("/api/cursos/publicos"))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                // Cursos, videos y vistas: ninguna sentencia sobre categorias
+                assertThat(sentencias(resultado)).isEqualTo(3);
+            }
+
+            assertThat(cargadasDeLaBase(estadisticas)).as("categorías leídas de la base").isEqualTo(cargadas);
+            assertThat(estadisticas.getDomainDataRegionStatistics(Categoria.class.getName()).getHitCount())
+                    .as("aciertos en la región de Categoria").isGreaterThanOrEqualTo(aciertos + 5);
+        } finally {
+            jdbcTemplate.update("DELETE FROM videos WHERE curso_id = ?", curso);
+            jdbcTemplate.update("DELETE FROM cursos WHERE id = ?", curso);
+            entityManagerFactory.getCache().evict(Curso.class, curso);
+        }
+    }
+
+    @Test
+    void unaModificacionVuelveALeerDeLaBase() throws Exception {
+        Statistics estadisticas = estadisticas();
+        mockMvc.perform(get("/api/categorias")).andExpect(status().isOk());
+        long consultas = estadisticas.getQueryExecutionCount();
+
+        // La marca de tiempo de la tabla invalida el resultado cacheado en la misma JVM
+        categoriaService.actualizarCategoria(categoria.getId(), categoria.getNombre(), "modificada");
+        mockMvc.perform(get("/api/categorias")).andExpect(status().isOk());
+
+        assertThat(estadisticas.getQueryExecutionCount()).isGreaterThan(consultas);
+    }
+
+    private Statistics estadisticas() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static long cargadasDeLaBase(Statistics estadisticas) {
+        return estadisticas.getEntityStatistics(Categoria.class.getName()).getLoadCount();
+    }
+}
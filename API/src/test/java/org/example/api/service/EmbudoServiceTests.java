@@ -0,0 +1,283 @@
+package org.example.api.service;
+
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.dto.EmbudoCursoResponse;
+import org.example.api.dto.PasoEmbudoResponse;
+import org.example.api.model.Curso;
+import org.example.api.model.Usuario;
+import org.example.api.model.Video;
+import org.example.api.model.Visualizacion;
+import org.example.api.repository.UsuarioRepository;
+import org.example.api.service.ArchivoVisualizacionesService.VisualizacionArchivada;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Embudo por bitmaps sobre el Postgres embebido: unión de los pendientes con la fila guardada,
+ * vuelta a la cola si falla el volcado, porcentajes de cada paso y creación de las filas desde el
+ * histórico (visualizaciones y meses archivados), tanto en el volcado como en el relleno de V10.
+ * El volcado programado se aplaza una hora para que solo escriban las llamadas de cada test.
+ */
+@SpringBootTest(properties = "embudo.intervalo-escritura-ms=3600000")
+class EmbudoServiceTests extends PostgresEmbebido {
+
+    @Autowired
+    private EmbudoService embudoService;
+
+    @Autowired
+    private RellenoEmbudoVideos relleno;
+
+    @Autowired
+    private ArchivoVisualizacionesService archivo;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final Path directorio = Path.of("target/test-archivo", UUID.randomUUID().toString());
+
+    private String ubicacionOriginal;
+    private DatosPrueba datos;
+    private List<Long> videos;
+    private long curso;
+
+    @BeforeEach
+    void preparar() {
+        // El bean es compartido con el resto de tests
+        ubicacionOriginal = (String) ReflectionTestUtils.getField(archivo, "archivoLocation");
+        ReflectionTestUtils.setField(archivo, "archivoLocation", directorio.toString());
+
+        datos = new DatosPrueba(jdbcTemplate);
+        long instructor = datos.instructor();
+        videos = datos.cursoPublicado(instructor, datos.categoria(), 3);
+        curso = datos.cursoDe(videos.getFirst());
+
+        Usuario principal = usuarioRepository.findById(instructor).orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void limpiar() throws IOException {
+        SecurityContextHolder.clearContext();
+        ReflectionTestUtils.setField(archivo, "archivoLocation", ubicacionOriginal);
+        FileSystemUtils.deleteRecursively(directorio);
+    }
+
+    @Test
+    void uneLosPendientesConLaFilaGuardada() {
+        long video = videos.getFirst();
+        long ana = datos.instructor();
+        long luis = datos.instructor();
+        long eva = datos.instructor();
+        insertarVista(video, ana, LocalDateTime.now());
+
+        // Sin fila: el primer volcado parte de visualizaciones
+        registrar(video, luis);
+        embudoService.volcarPendientes();
+        assertThat(fila(video)).isEqualTo(RoaringBitmap.bitmapOf(id(ana), id(luis)));
+
+        registrar(video, eva);
+        registrar(video, ana);
+        embudoService.volcarPendientes();
+        assertThat(fila(video)).isEqualTo(RoaringBitmap.bitmapOf(id(ana), id(luis), id(eva)));
+    }
+
+    @Test
+    void devuelveLosEspectadoresALaColaSiFallaElVolcado() {
+        long video = videos.getFirst();
+        long ana = datos.instructor();
+        registrar(video, ana);
+
+        // Cualquier fila nueva del embudo falla hasta que se quita la restricción
+        jdbcTemplate.execute("ALTER TABLE embudo_videos ADD CONSTRAINT prueba_volcado_falla " +
+                "CHECK (fecha_actualizacion < '2000-01-01') NOT VALID");
+        try {
+            embudoService.volcarPendientes();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE embudo_videos DROP CONSTRAINT prueba_volcado_falla");
+        }
+        assertThat(fila(video)).isNull();
+        // Siguen contando en la consulta mientras esperan el siguiente volcado
+        assertThat(embudoService.obtenerEmbudo(curso).getEspectadores()).isEqualTo(1);
+
+        embudoService.volcarPendientes();
+
+        assertThat(fila(video)).isEqualTo(RoaringBitmap.bitmapOf(id(ana)));
+    }
+
+    @Test
+    void porcentajesDeCadaPaso() {
+        long[] u = new long[5];
+        for (int i = 0; i < u.length; i++) {
+            u[i] = datos.instructor();
+        }
+        // Video 1: 0, 1, 2, 3; video 2: 0, 1, 2; video 3: 0, 2, 4
+        for (int i : new int[]{0, 1, 2, 3}) {
+            registrar(videos.get(0), u[i]);
+        }
+        for (int i : new int[]{0, 1, 2}) {
+            registrar(videos.get(1), u[i]);
+        }
+        for (int i : new int[]{0, 2, 4}) {
+            registrar(videos.get(2), u[i]);
+        }
+
+        // Igual con los espectadores aún en memoria que ya volcados
+        comprobarPasos(embudoService.obtenerEmbudo(curso));
+        embudoService.volcarPendientes();
+        comprobarPasos(embudoService.obtenerEmbudo(curso));
+    }
+
+    @Test
+    void laConsultaNoCreaFilasYElVolcadoLasCreaDesdeElHistorico() throws IOException {
+        long video = videos.getFirst();
+        long ana = datos.instructor();
+        long luis = datos.instructor();
+        YearMonth mesArchivado = subidoHaceMeses(video, 15);
+        archivar(mesArchivado, video, ana);
+        insertarVista(video, luis, LocalDateTime.now());
+
+        assertThat(embudoService.obtenerEmbudo(curso).getEspectadores()).isZero();
+        assertThat(fila(video)).isNull();
+
+        embudoService.volcarPendientes();
+
+        assertThat(fila(video)).isEqualTo(RoaringBitmap.bitmapOf(id(ana), id(luis)));
+        assertThat(embudoService.obtenerEmbudo(curso).getEspectadores()).isEqualTo(2);
+    }
+
+    @Test
+    void elRellenoDeV10IncluyeLosMesesArchivados() throws Exception {
+        long video = videos.getFirst();
+        long ana = datos.instructor();
+        long luis = datos.instructor();
+        YearMonth mesArchivado = subidoHaceMeses(video, 15);
+        archivar(mesArchivado, video, ana);
+        insertarVista(video, luis, LocalDateTime.now());
+        // Una fila anterior incompleta se reemplaza
+        registrar(video, luis);
+        embudoService.volcarPendientes();
+
+        try (Connection conexion = dataSource.getConnection()) {
+            relleno.migrate(new Context() {
+                @Override
+                public Configuration getConfiguration() {
+                    return null;
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return conexion;
+                }
+            });
+        }
+
+        assertThat(fila(video)).isEqualTo(RoaringBitmap.bitmapOf(id(ana), id(luis)));
+        assertThat(fila(videos.get(1))).isEqualTo(new RoaringBitmap());
+    }
+
+    private static void comprobarPasos(EmbudoCursoResponse embudo) {
+        assertThat(embudo.getEspectadores()).isEqualTo(5);
+        assertThat(embudo.getPasos())
+                .extracting(PasoEmbudoResponse::getEspectadores, PasoEmbudoResponse::getPorcentajeDelCurso,
+                        PasoEmbudoResponse::getContinuanDesdeAnterior, PasoEmbudoResponse::getPorcentajeDesdeAnterior,
+                        PasoEmbudoResponse::getVieronTodosHastaAqui, PasoEmbudoResponse::getPorcentajeTodosHastaAqui)
+                .containsExactly(
+                        tuple(4L, 80.0, 4L, 100.0, 4L, 100.0),
+                        tuple(3L, 60.0, 3L, 75.0, 3L, 75.0),
+                        tuple(3L, 60.0, 2L, 66.7, 2L, 50.0));
+    }
+
+    private void registrar(long videoId, long usuarioId) {
+        Curso c = new Curso();
+        c.setId(curso);
+        Video video = new Video();
+        video.setId(videoId);
+        video.setCurso(c);
+        Usuario usuario = new Usuario();
+        usuario.setId(usuarioId);
+        Visualizacion visualizacion = new Visualizacion();
+        visualizacion.setVideo(video);
+        visualizacion.setUsuario(usuario);
+        visualizacion.setFechaVisualizacion(LocalDateTime.now());
+        embudoService.registrarVistas(List.of(visualizacion));
+    }
+
+    private void insertarVista(long videoId, long usuarioId, LocalDateTime fecha) {
+        jdbcTemplate.update(
+                "INSERT INTO visualizaciones (video_id, usuario_id, fecha_visualizacion, ip_address) " +
+                        "VALUES (?, ?, ?, '203.0.113.1')",
+                videoId, usuarioId, Timestamp.valueOf(fecha));
+    }
+
+    /**
+     * Retrasa la subida del video y devuelve un mes posterior a ella, fuera de las particiones
+     */
+    private YearMonth subidoHaceMeses(long videoId, int meses) {
+        YearMonth subida = YearMonth.now().minusMonths(meses);
+        jdbcTemplate.update("UPDATE videos SET fecha_subida = ? WHERE id = ?",
+                Timestamp.valueOf(subida.atDay(1).atStartOfDay()), videoId);
+        return subida.plusMonths(1);
+    }
+
+    private void archivar(YearMonth mes, long videoId, long usuarioId) throws IOException {
+        try (ArchivoVisualizacionesService.Escritor escritor = archivo.nuevoEscritor(mes)) {
+            escritor.agregarArchivada(new VisualizacionArchivada(
+                    1L, videoId, usuarioId, mes.atDay(2).atStartOfDay(), "203.0.113.1"));
+            escritor.agregarArchivada(new VisualizacionArchivada(
+                    2L, videoId, null, mes.atDay(3).atStartOfDay(), "203.0.113.1"));
+            escritor.confirmar();
+        }
+    }
+
+    private RoaringBitmap fila(long videoId) {
+        List<byte[]> filas = jdbcTemplate.queryForList(
+                "SELECT espectadores FROM embudo_videos WHERE video_id = ?", byte[].class, videoId);
+        if (filas.isEmpty()) {
+            return null;
+        }
+        RoaringBitmap usuarios = new RoaringBitmap();
+        try {
+            usuarios.deserialize(ByteBuffer.wrap(filas.getFirst()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return usuarios;
+    }
+
+    private static int id(long usuarioId) {
+        return Math.toIntExact(usuarioId);
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.repository.EstadisticasRepository;
+import org.example.api.repository.VisualizacionRepository;
+import org.example.api.service.ArchivoVisualizacionesService.VisualizacionArchivada;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Archivado de particiones antiguas sobre el Postgres embebido: la partición se separa, se exporta y
+ * solo se borra con el fichero publicado, y una tabla que quedó separada de una pasada anterior se
+ * recoge sin duplicar las filas que ya estaban en el fichero. Los totales de vistas no cambian al archivar,
+ * y con ellos tampoco se repite el hito de 10 vistas.
+ */
+@SpringBootTest
+class ParticionVisualizacionesServiceTests extends PostgresEmbebido {
+
+    @Autowired
+    private ParticionVisualizacionesService particiones;
+
+    @Autowired
+    private ArchivoVisualizacionesService archivo;
+
+    @Autowired
+    private VisualizacionRepository visualizacionRepository;
+
+    @Autowired
+    private EstadisticasRepository estadisticasRepository;
+
+    @Autowired
+    private VisualizacionService visualizacionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Path directorio = Path.of("target/test-archivo", UUID.randomUUID().toString());
+
+    private String ubicacionOriginal;
+
+    @BeforeEach
+    void usarDirectorioPropio() {
+        // El bean es compartido con el resto de tests
+        ubicacionOriginal = (String) ReflectionTestUtils.getField(archivo, "archivoLocation");
+        ReflectionTestUtils.setField(archivo, "archivoLocation", directorio.toString());
+    }
+
+    @AfterEach
+    void restaurar() throws IOException {
+        ReflectionTestUtils.setField(archivo, "archivoLocation", ubicacionOriginal);
+        FileSystemUtils.deleteRecursively(directorio);
+    }
+
+    @Test
+    void archivaYBorraLaParticionDeUnMesFueraDeLaRetencion() {
+        YearMonth mes = YearMonth.now().minusMonths(14);
+        long video = video();
+        // Fuera de la ventana de particiones: caen en la partición por defecto
+        List<Long> ids = List.of(vista(video, mes, 1), vista(video, mes, 2), vista(video, mes, 3));
+
+        particiones.archivarParticionesAntiguas();
+
+        assertThat(archivo.leer(mes, v -> true)).extracting(VisualizacionArchivada::getId)
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(existeTabla(nombre(mes))).isFalse();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM visualizaciones WHERE fecha_visualizacion < ?", Long.class,
+                Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay()))).isZero();
+    }
+
+    @Test
+    void recogeUnaTablaSeparadaSinDuplicarLoYaArchivado() throws IOException {
+        YearMonth mes = YearMonth.now().minusMonths(15);
+        long video = video();
+        jdbcTemplate.queryForObject("SELECT crear_particion_visualizaciones(?)", String.class, mes.atDay(1));
+        long archivada = vista(video, mes, 1);
+        long pendiente = vista(video, mes, 2);
+
+        // Una pasada anterior publicó el fichero con la primera fila y se cayó antes del DROP
+        try (ArchivoVisualizacionesService.Escritor escritor = archivo.nuevoEscritor(mes)) {
+            escritor.agregarArchivada(new VisualizacionArchivada(
+                    archivada, video, null, mes.atDay(1).atStartOfDay(), "203.0.113.1"));
+            escritor.confirmar();
+        }
+        jdbcTemplate.execute("ALTER TABLE visualizaciones DETACH PARTITION " + nombre(mes));
+
+        particiones.archivarParticionesAntiguas();
+
+        assertThat(archivo.leer(mes, v -> true)).extracting(VisualizacionArchivada::getId)
+                .containsExactlyInAnyOrder(archivada, pendiente);
+        assertThat(existeTabla(nombre(mes))).isFalse();
+    }
+
+    @Test
+    void archivarUnMesNoCambiaLosTotalesDeVistas() {
+        YearMonth mes = YearMonth.now().minusMonths(16);
+        DatosPrueba datos = new DatosPrueba(jdbcTemplate);
+        List<Long> videos = datos.cursoPublicado(datos.instructor(), datos.categoria(), 2);
+        long primero = videos.get(0);
+        long segundo = videos.get(1);
+        long curso = datos.cursoDe(primero);
+        vista(primero, mes, 1);
+        vista(primero, mes, 2);
+        vista(segundo, mes, 3);
+        datos.vistas(primero, 2);
+
+        Map<Long, Long> porVideoAntes = porVideo(curso);
+        long totalAntes = visualizacionRepository.contarTotalVisualizaciones();
+        assertThat(visualizacionRepository.countByVideoId(primero)).isEqualTo(4);
+        assertThat(visualizacionRepository.countByCursoId(curso)).isEqualTo(5);
+        assertThat(estadisticasRepository.obtenerEstadisticas().getTotalVisualizaciones()).isEqualTo(totalAntes);
+
+        particiones.archivarParticionesAntiguas();
+
+        assertThat(existeTabla(nombre(mes))).isFalse();
+        assertThat(visualizacionRepository.countByVideoId(primero)).isEqualTo(4);
+        assertThat(visualizacionRepository.countByVideoId(segundo)).isEqualTo(1);
+        assertThat(visualizacionRepository.countByCursoId(curso)).isEqualTo(5);
+        assertThat(visualizacionRepository.contarPorCursos(List.of(curso)))
+                .singleElement().satisfies(fila -> assertThat(fila).containsExactly(curso, 5L));
+        assertThat(porVideo(curso)).isEqualTo(porVideoAntes);
+        // Las filas antiguas de otros tests también se archivan, y también deben seguir contando
+        assertThat(visualizacionRepository.contarTotalVisualizaciones()).isEqualTo(totalAntes);
+        assertThat(estadisticasRepository.obtenerEstadisticas().getTotalVisualizaciones()).isEqualTo(totalAntes);
+    }
+
+    @Test
+    void unCursoQueYaPasoLasDiezVistasNoRepiteElHitoTrasArchivar() {
+        YearMonth mes = YearMonth.now().minusMonths(17);
+        long video = video();
+        for (int dia = 1; dia <= 10; dia++) {
+            vista(video, mes, dia);
+        }
+
+        particiones.archivarParticionesAntiguas();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM visualizaciones WHERE video_id = ?", Long.class, video)).isZero();
+        // Contando solo las particiones vivas, la siguiente vista pasaría de 9 a 10
+        new DatosPrueba(jdbcTemplate).vistas(video, 9);
+
+        double hitosAntes = hitos();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.1");
+        visualizacionService.registrarVista(video, request);
+
+        assertThat(hitos()).isEqualTo(hitosAntes);
+        assertThat(visualizacionService.obtenerTotalVistasVideo(video)).isEqualTo(20);
+    }
+
+    private double hitos() {
+        return meterRegistry.find("visualizaciones.hitos").counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private Map<Long, Long> porVideo(long curso) {
+        return visualizacionRepository.contarPorVideoDeCurso(curso).stream()
+                .collect(Collectors.toMap(fila -> (Long) fila[0], fila -> (Long) fila[1]));
+    }
+
+    private long video() {
+        DatosPrueba datos = new DatosPrueba(jdbcTemplate);
+        return datos.cursoPublicado(datos.instructor(), datos.categoria(), 1).getFirst();
+    }
+
+    private long vista(long video, YearMonth mes, int dia) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO visualizaciones (video_id, fecha_visualizacion, ip_address) VALUES (?, ?, '203.0.113.1') RETURNING id",
+                Long.class, video, Timestamp.valueOf(mes.atDay(dia).atTime(12, 0)));
+    }
+
+    private boolean existeTabla(String nombre) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, nombre);
+    }
+
+    private static String nombre(YearMonth mes) {
+        return String.format("visualizaciones_%04d_%02d", mes.getYear(), mes.getMonthValue());
+    }
+}
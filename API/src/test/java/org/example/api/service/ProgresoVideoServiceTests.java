@@ -0,0 +1,170 @@
+package org.example.api.service;
+
+import org.example.api.DatosPrueba;
+import org.example.api.PostgresEmbebido;
+import org.example.api.dto.ProgresoCursoResponse;
+import org.example.api.dto.ProgresoRequest;
+import org.example.api.model.Usuario;
+import org.example.api.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Acumulación en memoria y volcado del progreso sobre el Postgres embebido. El volcado programado
+ * se aplaza una hora para que solo escriban las llamadas de cada test. Los videos duran 300 s,
+ * 60 segmentos de 5 s.
+ */
+@SpringBootTest(properties = "progreso.intervalo-escritura-ms=3600000")
+class ProgresoVideoServiceTests extends PostgresEmbebido {
+
+    @Autowired
+    private ProgresoVideoService progresoVideoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private long usuario;
+    private long curso;
+    private long video;
+
+    @BeforeEach
+    void preparar() {
+        DatosPrueba datos = new DatosPrueba(jdbcTemplate);
+        video = datos.cursoPublicado(datos.instructor(), datos.categoria(), 1).getFirst();
+        curso = datos.cursoDe(video);
+        usuario = datos.instructor();
+
+        Usuario principal = usuarioRepository.findById(usuario).orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void acumulaLosReportesEnMemoriaHastaElVolcado() {
+        reportar(0, 30);
+        reportar(30, 60);
+        reportar(50, 55);
+
+        assertThat(fila()).isNull();
+
+        progresoVideoService.volcarPendientes();
+
+        // [0, 60) son 12 segmentos; la posición es la del último reporte
+        assertThat(fila()).containsEntry("segmentos_vistos", 12).containsEntry("posicion_segundos", 55);
+    }
+
+    @Test
+    void uneLosSegmentosConLosYaGuardados() {
+        reportar(0, 60);
+        progresoVideoService.volcarPendientes();
+        reportar(150, 180);
+        reportar(0, 10);
+
+        // La lectura vuelca antes los reportes pendientes del usuario
+        ProgresoCursoResponse progreso = progresoVideoService.obtenerProgresoCurso(curso);
+
+        // 12 + 6 segmentos distintos de 60; [0, 10) ya estaba visto
+        assertThat(fila()).containsEntry("segmentos_vistos", 18).containsEntry("completado", false);
+        assertThat(progreso.getPorcentajeCompletado()).isEqualTo(30.0);
+        assertThat(progreso.getVideos().getFirst().getPorcentaje()).isEqualTo(30.0);
+
+        // Hasta el 90 %: 54 de 60 segmentos
+        reportar(60, 270);
+        progreso = progresoVideoService.obtenerProgresoCurso(curso);
+        assertThat(fila()).containsEntry("segmentos_vistos", 54).containsEntry("completado", true);
+        assertThat(progreso.getVideosCompletados()).isEqualTo(1);
+    }
+
+    @Test
+    void devuelveLosReportesALaColaSiFallaElVolcado() {
+        reportar(0, 50);
+
+        // Cualquier fila nueva de progreso falla hasta que se quita la restricción
+        jdbcTemplate.execute("ALTER TABLE progreso_videos ADD CONSTRAINT prueba_volcado_falla " +
+                "CHECK (posicion_segundos < 0) NOT VALID");
+        try {
+            assertThatThrownBy(() -> progresoVideoService.obtenerProgresoCurso(curso))
+                    .hasMessageContaining("prueba_volcado_falla");
+            // Lo que llega después del fallo se une a lo devuelto
+            reportar(100, 110);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE progreso_videos DROP CONSTRAINT prueba_volcado_falla");
+        }
+        assertThat(fila()).isNull();
+
+        progresoVideoService.volcarPendientes();
+
+        assertThat(fila()).containsEntry("segmentos_vistos", 12).containsEntry("posicion_segundos", 110);
+    }
+
+    @Test
+    void losReportesDuranteUnVolcadoVanAUnPendienteNuevo() throws Exception {
+        reportar(0, 10);
+        progresoVideoService.volcarPendientes();
+        reportar(10, 20);
+
+        CompletableFuture<Void> volcado;
+        try (Connection bloqueo = dataSource.getConnection(); Statement st = bloqueo.createStatement()) {
+            // Con la fila bloqueada, el volcado retira el pendiente y espera en el SELECT ... FOR UPDATE
+            bloqueo.setAutoCommit(false);
+            st.execute("SELECT 1 FROM progreso_videos WHERE usuario_id = " + usuario + " AND video_id = " + video + " FOR UPDATE");
+            volcado = CompletableFuture.runAsync(progresoVideoService::volcarPendientes);
+            esperarBloqueo();
+
+            // El pendiente está retirado: este reporte tiene que ir a uno nuevo, no perderse con él
+            reportar(200, 210);
+            bloqueo.commit();
+        }
+        volcado.get(30, TimeUnit.SECONDS);
+
+        assertThat(fila()).containsEntry("segmentos_vistos", 4);
+        progresoVideoService.volcarPendientes();
+        assertThat(fila()).containsEntry("segmentos_vistos", 6).containsEntry("posicion_segundos", 210);
+    }
+
+    private void reportar(int desde, int hasta) {
+        progresoVideoService.reportarProgreso(video, new ProgresoRequest(hasta, desde));
+    }
+
+    private Map<String, Object> fila() {
+        return jdbcTemplate.queryForList(
+                "SELECT segmentos_vistos, posicion_segundos, completado FROM progreso_videos " +
+                        "WHERE usuario_id = ? AND video_id = ?", usuario, video)
+                .stream().findFirst().orElse(null);
+    }
+
+    private void esperarBloqueo() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_locks WHERE NOT granted", Long.class) == 0) {
+            assertThat(System.currentTimeMillis()).as("el volcado no llegó a esperar el bloqueo").isLessThan(limite);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+#!/usr/bin/env bash
+# Tiempo hasta la primera respuesta y memoria residente (RSS) de la API en cada variante de arranque:
+#
+#   jar      java -jar API-*-exec.jar
+#   aot      el mismo jar con -Dspring.aot.enabled=true
+#   aot-cds  el jar extraído en target/cds con el archivo CDS del entrenamiento
+#   native   la imagen nativa target/API (si existe)
+#
+# Preparación (desde la raíz del repositorio):
+#   mvn -B -pl API -Paot package -DskipTests        # jar, aot y aot-cds
+#   mvn -B -pl API -Pnative native:compile          # opcional, requiere GraalVM
+#
+# Uso: benchmarks/medir-arranque.sh [repeticiones] [ruta]
+#   repeticiones  arranques por variante (5 por defecto)
+#   ruta          primera petición que se espera (/api/cursos/publicos por defecto)
+# Argumentos extra para la aplicación (datasource, etc.) en la variable ARGS_APP.
+#
+# Cada arranque se mide desde que se lanza el proceso hasta que la ruta responde 200; el RSS se
+# lee justo después. Los resultados quedan en benchmarks/target/arranque/arranque-<fecha>.csv.
+
+set -euo pipefail
+
+REPETICIONES="${1:-5}"
+RUTA="${2:-/api/cursos/publicos}"
+PUERTO="${PUERTO:-18080}"
+ARGS_APP="${ARGS_APP:-}"
+TIMEOUT_S="${TIMEOUT_S:-120}"
+
+RAIZ="$(cd "$(dirname "$0")/.." && pwd)"
+API="$RAIZ/API/target"
+JAR="$(ls "$API"/API-*-exec.jar 2>/dev/null | head -1 || true)"
+SALIDA="$RAIZ/benchmarks/target/arranque"
+mkdir -p "$SALIDA"
+RESULTADOS="$SALIDA/arranque-$(date +%Y%m%d-%H%M%S).csv"
+echo "variante,repeticion,primera_respuesta_ms,rss_mb" > "$RESULTADOS"
+
+ahora_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# medir <variante> <directorio> <comando...>
+medir() {
+    local variante="$1" directorio="$2"
+    shift 2
+    for i in $(seq 1 "$REPETICIONES"); do
+        local inicio fin pid rss
+        inicio=$(ahora_ms)
+        # shellcheck disable=SC2086
+        (cd "$directorio" && exec "$@" --server.port="$PUERTO" --logging.level.root=WARN $ARGS_APP) > "$SALIDA/$variante.log" 2>&1 &
+        pid=$!
+
+        until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PUERTO$RUTA" || true)" = "200" ]; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$variante: el proceso terminó antes de responder (ver $SALIDA/$variante.log)" >&2
+                return 1
+            fi
+            if [ $(( $(ahora_ms) - inicio )) -gt $(( TIMEOUT_S * 1000 )) ]; then
+                echo "$variante: sin respuesta en ${TIMEOUT_S}s" >&2
+                kill "$pid" 2>/dev/null || true
+                wait "$pid" 2>/dev/null || true
+                return 1
+            fi
+            sleep 0.05
+        done
+        fin=$(ahora_ms)
+        rss=$(ps -o rss= -p "$pid" | awk '{printf "%.1f", $1 / 1024}')
+
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        echo "$variante,$i,$(( fin - inicio )),$rss" | tee -a "$RESULTADOS"
+    done
+}
+
+if [ -n "$JAR" ]; then
+    medir jar "$API" java -jar "$JAR"
+    medir aot "$API" java -Dspring.aot.enabled=true -jar "$JAR"
+else
+    echo "No hay API/target/API-*-exec.jar: mvn -B -pl API -Paot package -DskipTests" >&2
+fi
+
+if [ -f "$API/cds/application.jsa" ]; then
+    medir aot-cds "$API/cds" java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+        -jar "$(basename "$JAR")"
+else
+    echo "Sin archivo CDS (API/target/cds/application.jsa), se omite aot-cds" >&2
+fi
+
+if [ -x "$API/API" ]; then
+    medir native "$API" ./API
+else
+    echo "Sin imagen nativa (API/target/API), se omite native" >&2
+fi
+
+echo
+echo "Media por variante ($RESULTADOS):"
+awk -F, 'NR > 1 { ms[$1] += $3; rss[$1] += $4; n[$1]++ }
+         END { for (v in n) printf "  %-8s %8.0f ms %8.1f MB\n", v, ms[v] / n[v], rss[v] / n[v] }' "$RESULTADOS"
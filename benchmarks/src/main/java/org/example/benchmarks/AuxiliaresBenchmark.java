@@ -0,0 +1,67 @@
+package org.example.benchmarks;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.api.model.Curso;
+import org.example.api.model.Video;
+import org.example.api.util.Duraciones;
+import org.example.api.util.Peticiones;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Funciones pequeñas que se ejecutan en cada petición o en cada tarjeta del catálogo:
+ * la IP del cliente al registrar una vista y el formateo de duraciones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuxiliaresBenchmark {
+
+    /**
+     * Cabeceras con las que llega la petición: directa, detrás de un proxy con X-Real-IP
+     * o atravesando varios proxies con X-Forwarded-For
+     */
+    @Param({"directa", "x-real-ip", "x-forwarded-for"})
+    private String origen;
+
+    private HttpServletRequest request;
+    private Video video;
+    private List<Video> videos;
+
+    @Setup
+    public void preparar() {
+        MockHttpServletRequest mock = new MockHttpServletRequest();
+        mock.setRemoteAddr("10.0.0.12");
+        if (origen.equals("x-real-ip")) {
+            mock.addHeader("X-Real-IP", "203.0.113.45");
+        } else if (origen.equals("x-forwarded-for")) {
+            mock.addHeader("X-Forwarded-For", "203.0.113.45, 198.51.100.7, 10.0.0.3");
+        }
+        request = mock;
+
+        Curso curso = Datos.cursos(1, 40).get(0);
+        videos = curso.getVideos();
+        video = videos.get(0);
+    }
+
+    @Benchmark
+    public String ipCliente() {
+        return Peticiones.ipCliente(request);
+    }
+
+    @Benchmark
+    public String duracionVideo() {
+        return video.getDuracionFormateada();
+    }
+
+    @Benchmark
+    public String duracionCurso() {
+        return Duraciones.total(videos);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.benchmarks;
+
+import org.example.api.dto.CursoResponse;
+import org.example.api.model.Curso;
+import org.example.api.model.Video;
+import org.example.api.repository.*;
+import org.example.api.service.CursoService;
+import org.example.api.upbolisIntegration.UpbolisApiService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado de las tarjetas del catálogo (CursoService.obtenerCursosPublicos y convertirACursoResponses)
+ * sobre cursos en memoria. Los repositorios devuelven listas ya construidas, como las dos consultas
+ * por listado (videos y vistas de todos los cursos), así que solo se mide el trabajo del servicio:
+ * agrupar los videos por curso, sumar duraciones y construir los DTO.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogoBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int cursos;
+
+    @Param({"12"})
+    private int videosPorCurso;
+
+    private CursoService cursoService;
+
+    @Setup
+    public void preparar() {
+        List<Curso> publicados = Datos.cursos(cursos, videosPorCurso);
+        // Lo que devuelven las consultas para todos los publicados: videos en orden de curso y
+        // orden, y una fila (curso, vistas) por curso
+        List<Video> videos = publicados.stream()
+                .flatMap(curso -> curso.getVideos().stream())
+                .toList();
+        List<Object[]> vistas = publicados.stream()
+                .map(curso -> new Object[]{curso.getId(), 1000L + curso.getId()})
+                .toList();
+
+        CursoRepository cursoRepository = Datos.repositorio(CursoRepository.class,
+                "findByPublicadoTrue", args -> publicados);
+        VideoRepository videoRepository = Datos.repositorio(VideoRepository.class,
+                "findByCursoIdInOrderByCursoIdAscOrdenAsc", args -> videos);
+        VisualizacionRepository visualizacionRepository = Datos.repositorio(VisualizacionRepository.class,
+                "contarPorCursos", args -> vistas);
+
+        // obtenerCursosPublicos no usa el resto de dependencias: si empezara a usarlas, el
+        // benchmark falla en lugar de medir un servicio a medias
+        UpbolisApiService upbolisApiService = new UpbolisApiService(new RestTemplate((uri, metodo) -> {
+            throw new UnsupportedOperationException("UPBolis (benchmark): " + metodo + " " + uri);
+        }));
+        cursoService = new CursoService(cursoRepository,
+                Datos.sinUso(CategoriaRepository.class),
+                Datos.sinUso(UsuarioRepository.class),
+                videoRepository,
+                visualizacionRepository,
+                upbolisApiService,
+                Datos.sinUso(CalificacionRepository.class));
+    }
+
+    @Benchmark
+    public List<CursoResponse> obtenerCursosPublicos() {
+        return cursoService.obtenerCursosPublicos();
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.benchmarks;
+
+import org.example.api.dto.CursoResponse;
+import org.example.api.dto.VideoResponse;
+import org.example.api.model.*;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Datos en memoria para los benchmarks. Son deterministas (semilla fija) para que dos
+ * ejecuciones midan exactamente el mismo trabajo.
+ */
+final class Datos {
+
+    private static final long SEMILLA = 42;
+    private static final String TEXTO = "Curso práctico con ejemplos paso a paso, ejercicios resueltos y "
+            + "proyectos guiados. Incluye material descargable y acceso a la comunidad del curso. ";
+
+    private Datos() {
+    }
+
+    /**
+     * Cursos publicados con instructor, categoría y videos (duraciones entre 1 y 30 minutos,
+     * alguna sin duración como los videos recién subidos)
+     */
+    static List<Curso> cursos(int cantidad, int videosPorCurso) {
+        Random random = new Random(SEMILLA);
+
+        List<Usuario> instructores = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Usuario instructor = new Usuario();
+            instructor.setId((long) i + 1);
+            instructor.setNombre("Instructor" + i);
+            instructor.setApellido("Apellido" + i);
+            instructor.setEmail("instructor" + i + "@example.org");
+            instructor.setRol(Rol.INSTRUCTOR);
+            instructores.add(instructor);
+        }
+
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Categoria categoria = new Categoria();
+            categoria.setId((long) i + 1);
+            categoria.setNombre("Categoría " + i);
+            categorias.add(categoria);
+        }
+
+        List<Curso> cursos = new ArrayList<>(cantidad);
+        long videoId = 1;
+        for (int i = 0; i < cantidad; i++) {
+            Curso curso = new Curso();
+            curso.setId((long) i + 1);
+            curso.setTitulo("Curso " + i);
+            curso.setDescripcion(TEXTO.repeat(1 + random.nextInt(4)));
+            curso.setInstructor(instructores.get(random.nextInt(instructores.size())));
+            curso.setCategoria(categorias.get(random.nextInt(categorias.size())));
+            curso.setImagenPortada("http://localhost:8080/api/files/portada-" + i + ".jpg");
+            curso.setFechaCreacion(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(500_000)));
+            curso.setPublicado(true);
+            curso.setPrecio(random.nextInt(10) == 0 ? null : 5.0 + random.nextInt(95));
+
+            List<Video> videos = new ArrayList<>(videosPorCurso);
+            for (int orden = 1; orden <= videosPorCurso; orden++) {
+                Video video = new Video();
+                video.setId(videoId++);
+                video.setTitulo("Lección " + orden);
+                video.setDescripcion(TEXTO);
+                video.setCurso(curso);
+                video.setUrlVideo("http://localhost:8080/api/files/video-" + video.getId() + ".mp4");
+                video.setOrden(orden);
+                video.setDuracionSegundos(random.nextInt(20) == 0 ? null : 60 + random.nextInt(1740));
+                video.setFechaSubida(curso.getFechaCreacion().plusDays(orden));
+                videos.add(video);
+            }
+            curso.setVideos(videos);
+            cursos.add(curso);
+        }
+        return cursos;
+    }
+
+    /**
+     * Respuestas del catálogo tal como las devuelve CursoService; con videos incluye la lista
+     * completa (como el detalle de un curso)
+     */
+    static List<CursoResponse> respuestas(int cantidad, boolean conVideos) {
+        List<CursoResponse> respuestas = new ArrayList<>(cantidad);
+        for (Curso curso : cursos(cantidad, 12)) {
+            CursoResponse respuesta = CursoResponse.builder()
+                    .id(curso.getId())
+                    .titulo(curso.getTitulo())
+                    .descripcion(curso.getDescripcion())
+                    .instructor(curso.getInstructor().getNombre() + " " + curso.getInstructor().getApellido())
+                    .instructorId(curso.getInstructor().getId())
+                    .categoria(curso.getCategoria().getNombre())
+                    .categoriaId(curso.getCategoria().getId())
+                    .imagenPortada(curso.getImagenPortada())
+                    .fechaCreacion(curso.getFechaCreacion())
+                    .publicado(curso.getPublicado())
+                    .videos(curso.getVideos().size())
+                    .duracion("3h 25m")
+                    .totalVistas(1000L + curso.getId())
+                    .precio(curso.getPrecio())
+                    .build();
+
+            if (conVideos) {
+                respuesta.setListaVideos(curso.getVideos().stream()
+                        .map(video -> VideoResponse.builder()
+                                .id(video.getId())
+                                .titulo(video.getTitulo())
+                                .descripcion(video.getDescripcion())
+                                .urlVideo(video.getUrlVideo())
+                                .numero(video.getOrden())
+                                .duracion(video.getDuracionFormateada())
+                                .fechaSubida(video.getFechaSubida())
+                                .totalVistas(100L + video.getId())
+                                .build())
+                        .toList());
+            }
+            respuestas.add(respuesta);
+        }
+        return respuestas;
+    }
+
+    /**
+     * Repositorio falso que responde a un único método; el resto lanza UnsupportedOperationException.
+     * Un proxy del JDK cuesta bastante menos por llamada que un mock, así que lo medido es el
+     * código del servicio y no el doble de prueba.
+     */
+    static <T> T repositorio(Class<T> tipo, String metodo, Function<Object[], Object> respuesta) {
+        Object proxy = Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (instancia, m, args) -> {
+            if (metodo != null && m.getName().equals(metodo)) {
+                return respuesta.apply(args);
+            }
+            if (m.getName().equals("hashCode")) {
+                return System.identityHashCode(instancia);
+            }
+            if (m.getName().equals("equals")) {
+                return instancia == args[0];
+            }
+            if (m.getName().equals("toString")) {
+                return tipo.getSimpleName() + "(benchmark)";
+            }
+            throw new UnsupportedOperationException(tipo.getSimpleName() + "." + m.getName());
+        });
+        return tipo.cast(proxy);
+    }
+
+    /**
+     * Repositorio falso para las dependencias que el código medido no debería tocar: cualquier
+     * llamada lanza UnsupportedOperationException en lugar de un NullPointerException a mitad de medición
+     */
+    static <T> T sinUso(Class<T> tipo) {
+        return repositorio(tipo, null, null);
+    }
+}
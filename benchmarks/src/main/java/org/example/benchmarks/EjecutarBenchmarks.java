@@ -0,0 +1,48 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Punto de entrada de los benchmarks. Acepta los mismos argumentos que org.openjdk.jmh.Main
+ * (filtro de clases, -f, -wi, -i, -t, -p ...) y, salvo que se indique otro con -rf/-rff,
+ * guarda los resultados en JSON en target/jmh/resultados-yyyyMMdd-HHmmss.json para
+ * poder compararlos entre ejecuciones.
+ *
+ * mvn -B install -DskipTests
+ * mvn -pl benchmarks exec:exec -Djmh.args="JwtBenchmark"
+ */
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linea = new CommandLineOptions(args);
+        if (linea.shouldHelp()) {
+            linea.showHelp();
+            return;
+        }
+        if (linea.shouldList()) {
+            new Runner(linea).list();
+            return;
+        }
+
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(linea);
+
+        if (!linea.getResultFormat().hasValue() && !linea.getResult().hasValue()) {
+            Path directorio = Path.of("target", "jmh");
+            Files.createDirectories(directorio);
+            String marca = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            opciones.resultFormat(ResultFormatType.JSON)
+                    .result(directorio.resolve("resultados-" + marca + ".json").toString());
+        }
+
+        new Runner(opciones.build()).run();
+    }
+}
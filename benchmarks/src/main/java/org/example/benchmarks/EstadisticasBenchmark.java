@@ -0,0 +1,134 @@
+package org.example.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.api.ApiApplication;
+import org.example.api.model.Usuario;
+import org.example.api.repository.EstadisticasRepository;
+import org.example.api.repository.UsuarioRepository;
+import org.example.api.repository.projection.EstadisticasProjection;
+import org.example.api.service.EstadisticasService;
+import org.example.datos.Configuracion;
+import org.example.datos.GeneradorDatos;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas del panel de administración con muchos usuarios, sobre un Postgres embebido:
+ *
+ *   entidades         lo que hacía AdminService antes: cargar todos los Usuario (dos veces) para
+ *                     contar estudiantes e instructores en Java
+ *   consultaAgregada  EstadisticasRepository.obtenerEstadisticas, todos los conteos en una sentencia
+ *   instantanea       EstadisticasService.obtenerEstadisticas con la instantánea vigente
+ *
+ * El resto de tablas sale del generador de datos a escala 0.01; los usuarios se completan con
+ * generate_series hasta el parámetro usuarios (por defecto un millón).
+ *
+ * mvn -pl benchmarks exec:exec -Djmh.args="EstadisticasBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EstadisticasBenchmark {
+
+    @Param({"1000000"})
+    private int usuarios;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext contexto;
+    private UsuarioRepository usuarioRepository;
+    private EstadisticasRepository estadisticasRepository;
+    private EstadisticasService estadisticasService;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+
+        contexto = new SpringApplicationBuilder(ApiApplication.class).run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--storage.location=target/benchmark-uploads",
+                "--snack.api.base-url=http://localhost:9",
+                "--upbolis.api.base-url=http://localhost:9",
+                "--upbolis.api.username=benchmark",
+                "--upbolis.api.password=benchmark",
+                "--logging.level.root=WARN",
+                "--cache.instantanea.habilitada=false",
+                "--calentamiento.iteraciones=0",
+                "--jfr.grabacion.habilitada=false"
+        );
+        usuarioRepository = contexto.getBean(UsuarioRepository.class);
+        estadisticasRepository = contexto.getBean(EstadisticasRepository.class);
+        estadisticasService = contexto.getBean(EstadisticasService.class);
+        transactionTemplate = contexto.getBean(TransactionTemplate.class);
+
+        sembrar(contexto.getBean(DataSource.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws IOException {
+        if (contexto != null) {
+            contexto.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public long entidades() {
+        return transactionTemplate.execute(status -> {
+            List<Usuario> todos = usuarioRepository.findAll();
+            long estudiantes = todos.stream().filter(u -> u.getRol().name().equals("ESTUDIANTE")).count();
+            long instructores = usuarioRepository.findAll().stream()
+                    .filter(u -> u.getRol().name().equals("INSTRUCTOR"))
+                    .count();
+            return estudiantes + instructores;
+        });
+    }
+
+    @Benchmark
+    public EstadisticasProjection consultaAgregada() {
+        return estadisticasRepository.obtenerEstadisticas();
+    }
+
+    @Benchmark
+    public Map<String, Object> instantanea() {
+        return estadisticasService.obtenerEstadisticas();
+    }
+
+    private void sembrar(DataSource dataSource) throws SQLException {
+        try (Connection conexion = dataSource.getConnection()) {
+            new GeneradorDatos(Configuracion.porDefecto().conEscala(0.01)).generar(conexion);
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        int existentes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Integer.class);
+        // Mismo reparto que el generador: casi todos estudiantes, uno de cada cincuenta instructor
+        jdbcTemplate.update("INSERT INTO usuarios (nombre, apellido, email, password, rol, fecha_registro, activo) " +
+                "SELECT 'Usuario', 'Benchmark', 'benchmark-' || g || '@estadisticas.local', 'x', " +
+                "CASE WHEN g % 50 = 0 THEN 'INSTRUCTOR' ELSE 'ESTUDIANTE' END, " +
+                "now() - g * interval '1 minute', true " +
+                "FROM generate_series(1, ?) g", Math.max(0, usuarios - existentes));
+        jdbcTemplate.execute("ANALYZE usuarios");
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.benchmarks;
+
+import jdk.jfr.Recording;
+import org.example.api.observability.jfr.RegistroVistaEvento;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de un evento JFR propio (begin, campos y commit) tal como lo usa VisualizacionService,
+ * sin ninguna grabación activa y con una grabación en memoria que tiene el evento habilitado.
+ * Sin grabación, commit comprueba isEnabled y no escribe nada.
+ *
+ * mvn -pl benchmarks exec:exec -Djmh.args="EventoJfrBenchmark"
+ *
+ * Para el sobrecoste sobre una petición real, comparar RegistroVistaBenchmark con -p jfr=true,false.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventoJfrBenchmark {
+
+    @Param({"sin-grabacion", "grabando"})
+    private String modo;
+
+    private Recording grabacion;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        if ("grabando".equals(modo)) {
+            grabacion = new Recording();
+            grabacion.setToDisk(false);
+            grabacion.setMaxAge(Duration.ofSeconds(10));
+            grabacion.enable(RegistroVistaEvento.class).withThreshold(Duration.ZERO);
+            grabacion.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        if (grabacion != null) {
+            grabacion.close();
+        }
+    }
+
+    @Benchmark
+    public RegistroVistaEvento registrarEvento() {
+        RegistroVistaEvento evento = new RegistroVistaEvento();
+        evento.begin();
+        evento.videoId = 42L;
+        evento.cursoId = 7L;
+        evento.vistas = 1;
+        evento.cursos = 1;
+        evento.anonima = true;
+        evento.hitos = 0;
+        evento.commit();
+        return evento;
+    }
+}
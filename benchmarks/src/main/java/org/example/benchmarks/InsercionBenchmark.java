@@ -0,0 +1,153 @@
+package org.example.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserciones por segundo antes y después de V4__secuencias_pooled.sql, con las sentencias que
+ * emite Hibernate en cada caso sobre un Postgres embebido:
+ *
+ *   identity  un INSERT por fila con getGeneratedKeys: Hibernate necesita el id de cada fila al
+ *             persistirla, así que con IDENTITY no puede agrupar en lotes JDBC
+ *   pooled    un nextval() por cada 50 ids (INCREMENT BY 50, allocationSize = 50) e INSERT en
+ *             lotes de hibernate.jdbc.batch_size = 50
+ *
+ * reescribirLotes activa reWriteBatchedInserts del driver (api-defaults.properties), que convierte
+ * cada lote en INSERT multi-fila; sin él el lote sigue siendo una sentencia por fila, pero en un
+ * solo viaje de red. La tabla se vacía en cada iteración para que no crezca durante la medición.
+ *
+ * mvn -pl benchmarks exec:exec -Djmh.args="InsercionBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsercionBenchmark {
+
+    // Filas por invocación; con @OperationsPerInvocation la puntuación queda en filas por segundo
+    private static final int FILAS = 1_000;
+    private static final int LOTE = 50;
+
+    @Param({"identity", "pooled"})
+    private String estrategia;
+
+    @Param({"true", "false"})
+    private boolean reescribirLotes;
+
+    private EmbeddedPostgres postgres;
+    private Connection conexion;
+    private LocalDateTime fecha;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+        conexion = DriverManager.getConnection(
+                postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=" + reescribirLotes);
+
+        try (Statement st = conexion.createStatement()) {
+            // Mismas columnas que visualizaciones, sin particionar para medir solo la generación de ids
+            st.execute("CREATE TABLE vistas_identity (" +
+                    "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "video_id BIGINT NOT NULL, usuario_id BIGINT, " +
+                    "fecha_visualizacion TIMESTAMP(6) NOT NULL, ip_address VARCHAR(255))");
+            st.execute("CREATE SEQUENCE vistas_pooled_id_seq INCREMENT BY " + LOTE);
+            st.execute("CREATE TABLE vistas_pooled (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "video_id BIGINT NOT NULL, usuario_id BIGINT, " +
+                    "fecha_visualizacion TIMESTAMP(6) NOT NULL, ip_address VARCHAR(255))");
+        }
+        conexion.setAutoCommit(false);
+        fecha = LocalDateTime.now();
+    }
+
+    @Setup(Level.Iteration)
+    public void vaciar() throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            st.execute("TRUNCATE vistas_identity, vistas_pooled");
+        }
+        conexion.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws IOException, SQLException {
+        if (conexion != null) {
+            conexion.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public long insertar() throws SQLException {
+        long ultimoId = "identity".equals(estrategia) ? insertarIdentity() : insertarPooled();
+        conexion.commit();
+        return ultimoId;
+    }
+
+    private long insertarIdentity() throws SQLException {
+        long id = 0;
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO vistas_identity (video_id, usuario_id, fecha_visualizacion, ip_address) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < FILAS; i++) {
+                asignar(ps, 1, i);
+                ps.executeUpdate();
+                try (ResultSet claves = ps.getGeneratedKeys()) {
+                    claves.next();
+                    id = claves.getLong(1);
+                }
+            }
+        }
+        return id;
+    }
+
+    private long insertarPooled() throws SQLException {
+        long id = 0;
+        try (PreparedStatement secuencia = conexion.prepareStatement("SELECT nextval('vistas_pooled_id_seq')");
+             PreparedStatement ps = conexion.prepareStatement(
+                     "INSERT INTO vistas_pooled (video_id, usuario_id, fecha_visualizacion, ip_address, id) VALUES (?, ?, ?, ?, ?)")) {
+            long siguiente = 0;
+            long limite = 0;
+            for (int i = 0; i < FILAS; i++) {
+                // Optimizador pooled: nextval = N reserva N - 49 .. N
+                if (siguiente == limite) {
+                    try (ResultSet rs = secuencia.executeQuery()) {
+                        rs.next();
+                        limite = rs.getLong(1) + 1;
+                    }
+                    siguiente = limite - LOTE;
+                }
+                id = siguiente++;
+
+                asignar(ps, 1, i);
+                ps.setLong(5, id);
+                ps.addBatch();
+                if ((i + 1) % LOTE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        return id;
+    }
+
+    private void asignar(PreparedStatement ps, int desde, int fila) throws SQLException {
+        ps.setLong(desde, 1 + fila % 200);
+        if (fila % 3 == 0) {
+            ps.setNull(desde + 1, Types.BIGINT);
+        } else {
+            ps.setLong(desde + 1, 1 + fila % 5_000);
+        }
+        ps.setObject(desde + 2, fecha.plusNanos(fila * 1_000L));
+        ps.setString(desde + 3, "203.0.113." + fila % 250);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.benchmarks;
+
+import org.example.api.dto.CursoResponse;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización a JSON de listas de CursoResponse con Jackson, como las respuestas del
+ * catálogo (sin videos) y del detalle de curso (con la lista de videos)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"20", "200", "2000"})
+    private int cursos;
+
+    @Param({"false", "true"})
+    private boolean conVideos;
+
+    private JsonMapper mapper;
+    private List<CursoResponse> respuestas;
+
+    @Setup
+    public void preparar() {
+        // Jackson 3 ya incluye java.time; la configuración es la que usa Spring Boot por defecto
+        mapper = JsonMapper.builder().build();
+        respuestas = Datos.respuestas(cursos, conVideos);
+    }
+
+    @Benchmark
+    public byte[] serializar() {
+        return mapper.writeValueAsBytes(respuestas);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.benchmarks;
+
+import org.example.api.model.Rol;
+import org.example.api.model.Usuario;
+import org.example.api.security.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emisión, lectura y validación de tokens con JwtService, lo que hace cada login y
+ * cada petición autenticada (JwtAuthenticationFilter)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    // Misma clave que el valor por defecto de jwt.secret
+    private static final String SECRETO = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService jwtService;
+    private Usuario usuario;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRETO);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+
+        usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setEmail("estudiante@example.org");
+        usuario.setRol(Rol.ESTUDIANTE);
+
+        token = jwtService.generateToken(usuario);
+    }
+
+    @Benchmark
+    public String emitir() {
+        return jwtService.generateToken(usuario);
+    }
+
+    @Benchmark
+    public String extraerUsuario() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validar() {
+        return jwtService.isTokenValid(token, usuario);
+    }
+}
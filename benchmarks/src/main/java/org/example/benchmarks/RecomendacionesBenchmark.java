@@ -0,0 +1,121 @@
+package org.example.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.api.ApiApplication;
+import org.example.api.dto.CursoRelacionadoResponse;
+import org.example.api.recomendaciones.RecomendacionesService;
+import org.example.datos.Configuracion;
+import org.example.datos.GeneradorDatos;
+import org.example.datos.ResumenDatos;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recomendaciones entre cursos (RecomendacionesService) con la aplicación completa sobre un
+ * Postgres embebido:
+ *
+ *   reconstruir   recorrido completo de espectadores_curso y calificaciones con cursor
+ *   actualizar    pasada incremental sin datos nuevos: el coste fijo de releer el solape
+ *   relacionados  GET /api/cursos/{id}/relacionados sin HTTP: vecinos en memoria y cursos por id
+ *
+ * La escala 0.1 genera unas 500.000 visualizaciones; -p escala=10 llega a unos 50 millones.
+ * El heap se fija con -Xmx1g para comprobar que la reconstrucción cabe en un presupuesto fijo
+ * (recomendaciones.max-pares acota la matriz, el cursor el resto).
+ *
+ * mvn -pl benchmarks exec:exec -Djmh.args="RecomendacionesBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class RecomendacionesBenchmark {
+
+    @Param({"0.1"})
+    private double escala;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext contexto;
+    private RecomendacionesService recomendacionesService;
+    private List<Long> cursoIds;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+
+        contexto = new SpringApplicationBuilder(ApiApplication.class).run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--storage.location=target/benchmark-uploads",
+                "--snack.api.base-url=http://localhost:9",
+                "--upbolis.api.base-url=http://localhost:9",
+                "--upbolis.api.username=benchmark",
+                "--upbolis.api.password=benchmark",
+                "--logging.level.root=WARN",
+                "--cache.instantanea.habilitada=false",
+                "--calentamiento.iteraciones=0",
+                "--jfr.grabacion.habilitada=false"
+        );
+        recomendacionesService = contexto.getBean(RecomendacionesService.class);
+
+        ResumenDatos resumen;
+        try (Connection conexion = contexto.getBean(DataSource.class).getConnection()) {
+            resumen = new GeneradorDatos(Configuracion.porDefecto().conEscala(escala)).generar(conexion);
+        }
+        cursoIds = new ArrayList<>();
+        for (int c = 0; c < resumen.getCursos(); c++) {
+            if (resumen.publicado(c)) {
+                cursoIds.add(resumen.cursoId(c));
+            }
+        }
+
+        // La del arranque se hizo con la base vacía
+        recomendacionesService.reconstruir();
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws IOException {
+        if (contexto != null) {
+            contexto.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void reconstruir() {
+        recomendacionesService.reconstruir();
+    }
+
+    @Benchmark
+    public void actualizar() {
+        recomendacionesService.actualizar();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<CursoRelacionadoResponse> relacionados() {
+        Long cursoId = cursoIds.get(ThreadLocalRandom.current().nextInt(cursoIds.size()));
+        return recomendacionesService.obtenerRelacionados(cursoId, 10);
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.api.ApiApplication;
+import org.example.api.dto.VisualizacionResponse;
+import org.example.api.dto.VistaLoteItem;
+import org.example.api.dto.VistaLoteResultado;
+import org.example.api.dto.VistasLoteRequest;
+import org.example.api.model.Usuario;
+import org.example.api.repository.UsuarioRepository;
+import org.example.api.service.VisualizacionService;
+import org.example.datos.Configuracion;
+import org.example.datos.GeneradorDatos;
+import org.example.datos.ResumenDatos;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de vistas con la aplicación completa sobre un Postgres embebido (anónimas las individuales;
+ * el lote exige usuario, así que se registra a nombre de un estudiante generado):
+ * migraciones de Flyway, transacción, inserción en la tabla particionada y contadores tras el commit.
+ * Solo se registran vistas de cursos con 10 vistas o más, para que el hito de Snack no haga llamadas HTTP.
+ *
+ * La tabla crece durante la medición, así que las cifras solo son comparables entre
+ * ejecuciones con los mismos -wi/-i/-t.
+ *
+ * El parámetro jfr arranca la aplicación con y sin la grabación JFR continua (GrabacionContinuaJfr),
+ * para medir su sobrecoste en el camino completo:
+ * mvn -pl benchmarks exec:exec -Djmh.args="RegistroVistaBenchmark -p jfr=true,false"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistroVistaBenchmark {
+
+    // Escala del generador de datos: 0.01 son unos 100 cursos y 50.000 vistas previas
+    @Param({"0.01"})
+    private double escala;
+
+    @Param({"50"})
+    private int tamanoLote;
+
+    @Param({"true", "false"})
+    private boolean jfr;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext contexto;
+    private VisualizacionService visualizacionService;
+    private MockHttpServletRequest request;
+    private List<Long> videoIds;
+    private VistasLoteRequest lote;
+    private Authentication autenticacion;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+
+        // Los argumentos tienen prioridad sobre application.properties y api-defaults.properties
+        contexto = new SpringApplicationBuilder(ApiApplication.class).run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--storage.location=target/benchmark-uploads",
+                "--snack.api.base-url=http://localhost:9",
+                "--upbolis.api.base-url=http://localhost:9",
+                "--upbolis.api.username=benchmark",
+                "--upbolis.api.password=benchmark",
+                "--logging.level.root=WARN",
+                // application.properties los deja en DEBUG: sin esto se mide escribir cada sentencia en el log
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--jfr.grabacion.habilitada=" + jfr
+        );
+        visualizacionService = contexto.getBean(VisualizacionService.class);
+
+        videoIds = sembrar(contexto.getBean(DataSource.class));
+
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.45");
+
+        List<VistaLoteItem> items = new ArrayList<>(tamanoLote);
+        for (int i = 0; i < tamanoLote; i++) {
+            items.add(new VistaLoteItem(videoIds.get(i % videoIds.size()), null));
+        }
+        lote = new VistasLoteRequest(items);
+
+        Usuario usuario = contexto.getBean(UsuarioRepository.class).findAll(PageRequest.of(0, 1)).getContent().get(0);
+        autenticacion = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws IOException {
+        if (contexto != null) {
+            contexto.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public VisualizacionResponse registrarVista() {
+        Long videoId = videoIds.get(ThreadLocalRandom.current().nextInt(videoIds.size()));
+        return visualizacionService.registrarVista(videoId, request);
+    }
+
+    @Benchmark
+    public List<VistaLoteResultado> registrarVistasEnLote() {
+        // El contexto de seguridad es por hilo y JMH puede medir con varios (-t)
+        SecurityContextHolder.getContext().setAuthentication(autenticacion);
+        try {
+            return visualizacionService.registrarVistasEnLote(lote, request);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Datos sintéticos cargados con COPY; solo se usan videos de cursos publicados que ya
+     * tienen 10 vistas o más
+     */
+    private List<Long> sembrar(DataSource dataSource) throws SQLException {
+        ResumenDatos resumen;
+        try (Connection conexion = dataSource.getConnection()) {
+            resumen = new GeneradorDatos(Configuracion.porDefecto().conEscala(escala)).generar(conexion);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (int c = 0; c < resumen.getCursos(); c++) {
+            if (resumen.publicado(c) && resumen.vistas(c) >= 10) {
+                ids.addAll(resumen.videoIds(c));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.datos;
+
+/**
+ * Parámetros del generador. Con escala 1 salen unos 100.000 estudiantes, 10.000 cursos,
+ * ~115.000 videos, 300.000 calificaciones y 5 millones de visualizaciones; todos los tamaños
+ * escalan linealmente. La misma semilla y escala producen siempre los mismos datos.
+ *
+ * @param escala     factor sobre los tamaños base
+ * @param semilla    semilla de los generadores aleatorios
+ * @param meses      meses hacia atrás en los que se reparten las vistas (1..12, dentro de la retención)
+ * @param zipf       exponente de la popularidad de los cursos (más alto, más concentrada)
+ * @param password   contraseña en claro común a todos los usuarios generados
+ * @param prefijo    prefijo de emails y nombres de categoría, para poder cargar varios lotes
+ */
+public record Configuracion(double escala, long semilla, int meses, double zipf, String password, String prefijo) {
+
+    public Configuracion {
+        if (escala <= 0) {
+            throw new IllegalArgumentException("La escala debe ser positiva");
+        }
+        if (meses < 1 || meses > 12) {
+            throw new IllegalArgumentException("Los meses deben estar entre 1 y 12");
+        }
+    }
+
+    public static Configuracion porDefecto() {
+        return new Configuracion(1.0, 42, 6, 1.07, "datos123", "s42");
+    }
+
+    public Configuracion conEscala(double escala) {
+        return new Configuracion(escala, semilla, meses, zipf, password, prefijo);
+    }
+
+    public Configuracion conSemilla(long semilla) {
+        return new Configuracion(escala, semilla, meses, zipf, password, "s" + semilla);
+    }
+
+    public Configuracion conMeses(int meses) {
+        return new Configuracion(escala, semilla, meses, zipf, password, prefijo);
+    }
+
+    public Configuracion conZipf(double zipf) {
+        return new Configuracion(escala, semilla, meses, zipf, password, prefijo);
+    }
+
+    public Configuracion conPassword(String password) {
+        return new Configuracion(escala, semilla, meses, zipf, password, prefijo);
+    }
+
+    public Configuracion conPrefijo(String prefijo) {
+        return new Configuracion(escala, semilla, meses, zipf, password, prefijo);
+    }
+
+    int escalar(int base) {
+        return (int) Math.max(1, Math.round(base * escala));
+    }
+
+    long escalar(long base) {
+        return Math.max(1, Math.round(base * escala));
+    }
+}
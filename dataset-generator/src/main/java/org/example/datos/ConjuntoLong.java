@@ -0,0 +1,58 @@
+package org.example.datos;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de long con direccionamiento abierto; evita un Long por elemento al descartar
+ * pares (usuario, curso) repetidos en las calificaciones
+ */
+final class ConjuntoLong {
+
+    private static final long VACIO = Long.MIN_VALUE;
+
+    private long[] claves;
+    private int tamano;
+
+    ConjuntoLong(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(16, capacidadEsperada * 2 - 1)) << 1;
+        claves = new long[capacidad];
+        Arrays.fill(claves, VACIO);
+    }
+
+    /**
+     * Añade la clave; devuelve false si ya estaba
+     */
+    boolean agregar(long clave) {
+        if (tamano * 2 >= claves.length) {
+            crecer();
+        }
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+        while (claves[i] != VACIO) {
+            if (claves[i] == clave) {
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        tamano++;
+        return true;
+    }
+
+    private void crecer() {
+        long[] anteriores = claves;
+        claves = new long[anteriores.length * 2];
+        Arrays.fill(claves, VACIO);
+        tamano = 0;
+        for (long clave : anteriores) {
+            if (clave != VACIO) {
+                agregar(clave);
+            }
+        }
+    }
+
+    private static int mezclar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.datos;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Escribe filas en formato texto de COPY (campos separados por tabulador, \N para NULL) y las
+ * envía al servidor en bloques de 64 KB, así que la memoria no depende del número de filas.
+ */
+final class EscritorCopy implements AutoCloseable {
+
+    private static final int TAMANO_BLOQUE = 64 * 1024;
+
+    private final CopyIn copia;
+    private final StringBuilder buffer = new StringBuilder(TAMANO_BLOQUE + 1024);
+    private boolean primerCampo = true;
+    private long filas;
+
+    EscritorCopy(CopyManager copyManager, String tabla, String columnas) throws SQLException {
+        this.copia = copyManager.copyIn("COPY " + tabla + " (" + columnas + ") FROM STDIN WITH (FORMAT text)");
+    }
+
+    EscritorCopy campo(long valor) {
+        separar();
+        buffer.append(valor);
+        return this;
+    }
+
+    EscritorCopy campo(Long valor) {
+        return valor == null ? nulo() : campo(valor.longValue());
+    }
+
+    EscritorCopy campo(double valor) {
+        separar();
+        buffer.append(valor);
+        return this;
+    }
+
+    EscritorCopy campo(boolean valor) {
+        separar();
+        buffer.append(valor ? 't' : 'f');
+        return this;
+    }
+
+    EscritorCopy campo(LocalDateTime valor) {
+        separar();
+        buffer.append(valor);
+        return this;
+    }
+
+    EscritorCopy campo(String valor) {
+        if (valor == null) {
+            return nulo();
+        }
+        separar();
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+        return this;
+    }
+
+    EscritorCopy nulo() {
+        separar();
+        buffer.append("\\N");
+        return this;
+    }
+
+    void finFila() throws SQLException {
+        buffer.append('\n');
+        primerCampo = true;
+        filas++;
+        if (buffer.length() >= TAMANO_BLOQUE) {
+            enviar();
+        }
+    }
+
+    long getFilas() {
+        return filas;
+    }
+
+    /**
+     * Envía lo pendiente y termina el COPY; devuelve las filas que el servidor confirma
+     */
+    long terminar() throws SQLException {
+        enviar();
+        return copia.endCopy();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copia.isActive()) {
+            copia.cancelCopy();
+        }
+    }
+
+    private void separar() {
+        if (!primerCampo) {
+            buffer.append('\t');
+        }
+        primerCampo = false;
+    }
+
+    private void enviar() throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copia.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
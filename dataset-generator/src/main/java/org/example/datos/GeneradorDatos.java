@@ -0,0 +1,464 @@
+package org.example.datos;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Carga datos sintéticos con COPY directamente en las tablas (sin JPA) sobre una base ya
+ * migrada por Flyway. Antes de cada COPY se reserva en la secuencia el rango de ids de la tabla,
+ * así que se puede cargar sobre datos existentes y con la API en marcha; al final se rellenan los
+ * agregados de analítica con las vistas nuevas y se actualizan las estadísticas del planificador.
+ *
+ * Las vistas se generan por sesiones: un usuario (o un anónimo) entra a un curso elegido por
+ * popularidad Zipf y ve varios videos seguidos hasta que abandona, así que los datos tienen
+ * tanto cursos muy populares como embudos de abandono realistas. Los días pesan más entre semana,
+ * al inicio de cada semestre y en algunos días de pico aleatorios, y las horas se concentran
+ * por la tarde-noche.
+ */
+public class GeneradorDatos {
+
+    private static final String[] TEMAS = {
+            "Programación", "Bases de datos", "Redes", "Matemáticas", "Física", "Química", "Diseño",
+            "Marketing", "Finanzas", "Idiomas", "Música", "Fotografía", "Biología", "Estadística",
+            "Electrónica", "Derecho", "Historia", "Escritura", "Gestión de proyectos", "Inteligencia artificial"
+    };
+
+    private static final String DESCRIPCION = "Curso con teoría, ejemplos paso a paso y ejercicios "
+            + "resueltos. Incluye proyectos guiados y material descargable.";
+
+    // Peso de cada hora del día (0..23) para el momento de inicio de una sesión
+    private static final double[] PESO_HORA = {
+            0.3, 0.2, 0.1, 0.1, 0.1, 0.2, 0.4, 0.8, 1.2, 1.5, 1.6, 1.6,
+            1.4, 1.3, 1.5, 1.7, 1.9, 2.2, 2.6, 3.0, 3.2, 2.9, 2.0, 1.0
+    };
+
+    // Distribución de puntuaciones 1..5
+    private static final double[] PESO_PUNTUACION = {0.05, 0.07, 0.18, 0.35, 0.35};
+
+    private static final double PROBABILIDAD_ANONIMA = 0.25;
+    private static final double PROBABILIDAD_EMPEZAR_DESDE_EL_PRINCIPIO = 0.7;
+    private static final double PROBABILIDAD_SIGUIENTE_VIDEO = 0.75;
+
+    private final Configuracion config;
+    private Consumer<String> progreso = mensaje -> {
+    };
+
+    public GeneradorDatos(Configuracion config) {
+        this.config = config;
+    }
+
+    /**
+     * Recibe mensajes de avance (tabla cargada, filas por segundo)
+     */
+    public GeneradorDatos conProgreso(Consumer<String> progreso) {
+        this.progreso = progreso;
+        return this;
+    }
+
+    public ResumenDatos generar(Connection conexion) throws SQLException {
+        boolean autoCommit = conexion.getAutoCommit();
+        conexion.setAutoCommit(false);
+        try {
+            ResumenDatos resumen = cargar(conexion, conexion.unwrap(PGConnection.class).getCopyAPI());
+            conexion.commit();
+            return resumen;
+        } catch (SQLException | RuntimeException e) {
+            conexion.rollback();
+            throw e;
+        } finally {
+            conexion.setAutoCommit(autoCommit);
+        }
+    }
+
+    private ResumenDatos cargar(Connection conexion, CopyManager copyManager) throws SQLException {
+        int estudiantes = config.escalar(100_000);
+        int instructores = config.escalar(2_000);
+        int cursos = config.escalar(10_000);
+        long calificaciones = config.escalar(300_000L);
+        long visualizaciones = config.escalar(5_000_000L);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate inicio = YearMonth.now().minusMonths(config.meses() - 1L).atDay(1);
+
+        // ===== USUARIOS =====
+        long baseUsuario = reservarIds(conexion, "usuarios", estudiantes + instructores);
+        String hash = new BCryptPasswordEncoder().encode(config.password());
+        SplittableRandom random = new SplittableRandom(config.semilla());
+        long inicioCarga = System.nanoTime();
+
+        try (EscritorCopy copia = new EscritorCopy(copyManager, "usuarios",
+                "id, nombre, apellido, email, password, rol, fecha_registro, activo")) {
+            for (int i = 0; i < estudiantes + instructores; i++) {
+                boolean instructor = i >= estudiantes;
+                int numero = instructor ? i - estudiantes : i;
+                copia.campo(baseUsuario + 1 + i)
+                        .campo(instructor ? "Instructor" : "Estudiante")
+                        .campo("Sintético " + numero)
+                        .campo(instructor
+                                ? ResumenDatos.emailInstructor(config.prefijo(), numero)
+                                : ResumenDatos.emailEstudiante(config.prefijo(), numero))
+                        .campo(hash)
+                        .campo(instructor ? "INSTRUCTOR" : "ESTUDIANTE")
+                        .campo(inicio.atStartOfDay().minusDays(random.nextInt(720)))
+                        .campo(true)
+                        .finFila();
+            }
+            informar("usuarios", copia.terminar(), inicioCarga);
+        }
+        long primerInstructorId = baseUsuario + 1 + estudiantes;
+
+        // ===== CATEGORÍAS =====
+        long baseCategoria = reservarIds(conexion, "categorias", TEMAS.length);
+        List<Long> categoriaIds = new ArrayList<>();
+        inicioCarga = System.nanoTime();
+        try (EscritorCopy copia = new EscritorCopy(copyManager, "categorias", "id, nombre, descripcion")) {
+            for (int i = 0; i < TEMAS.length; i++) {
+                long id = baseCategoria + 1 + i;
+                categoriaIds.add(id);
+                copia.campo(id)
+                        .campo(TEMAS[i] + " (" + config.prefijo() + ")")
+                        .campo("Cursos de " + TEMAS[i].toLowerCase())
+                        .finFila();
+            }
+            informar("categorias", copia.terminar(), inicioCarga);
+        }
+
+        // ===== CURSOS =====
+        long baseCurso = reservarIds(conexion, "cursos", cursos);
+        random = new SplittableRandom(config.semilla() + 1);
+        Zipf cursosPorInstructor = new Zipf(instructores, 1.0, random);
+        Zipf cursosPorCategoria = new Zipf(categoriaIds.size(), 0.6, random);
+
+        long[] categoriaPorCurso = new long[cursos];
+        long[] primerVideo = new long[cursos];
+        int[] videosPorCurso = new int[cursos];
+        boolean[] publicado = new boolean[cursos];
+        LocalDateTime[] fechaCurso = new LocalDateTime[cursos];
+        long totalVideos = 0;
+
+        inicioCarga = System.nanoTime();
+        try (EscritorCopy copia = new EscritorCopy(copyManager, "cursos",
+                "id, titulo, descripcion, instructor_id, categoria_id, fecha_creacion, publicado, precio")) {
+            for (int c = 0; c < cursos; c++) {
+                int categoria = cursosPorCategoria.muestra(random);
+                categoriaPorCurso[c] = categoriaIds.get(categoria);
+                // Al menos un curso publicado, para que haya dónde generar vistas
+                publicado[c] = random.nextDouble() < 0.95 || c == 0;
+                fechaCurso[c] = inicio.atStartOfDay().minusDays(1 + random.nextInt(540));
+                videosPorCurso[c] = 3 + random.nextInt(18);
+                // Posición dentro de los videos nuevos: el rango de ids se reserva al saber el total
+                primerVideo[c] = totalVideos;
+                totalVideos += videosPorCurso[c];
+
+                copia.campo(baseCurso + 1 + c)
+                        .campo(TEMAS[categoria] + " " + (c + 1))
+                        .campo(DESCRIPCION)
+                        .campo(primerInstructorId + cursosPorInstructor.muestra(random))
+                        .campo(categoriaPorCurso[c])
+                        .campo(fechaCurso[c])
+                        .campo(publicado[c]);
+                if (random.nextDouble() < 0.3) {
+                    copia.nulo();
+                } else {
+                    copia.campo((double) (10 + random.nextInt(91)));
+                }
+                copia.finFila();
+            }
+            informar("cursos", copia.terminar(), inicioCarga);
+        }
+
+        // ===== VIDEOS =====
+        long baseVideo = reservarIds(conexion, "videos", totalVideos);
+        for (int c = 0; c < cursos; c++) {
+            primerVideo[c] += baseVideo + 1;
+        }
+        int[] duracion = new int[Math.toIntExact(totalVideos)];
+        inicioCarga = System.nanoTime();
+        try (EscritorCopy copia = new EscritorCopy(copyManager, "videos",
+                "id, titulo, descripcion, curso_id, url_video, orden, duracion_segundos, fecha_subida")) {
+            int indice = 0;
+            for (int c = 0; c < cursos; c++) {
+                for (int orden = 1; orden <= videosPorCurso[c]; orden++) {
+                    long id = primerVideo[c] + orden - 1;
+                    duracion[indice] = 120 + random.nextInt(1681);
+                    copia.campo(id)
+                            .campo("Lección " + orden)
+                            .campo("Contenido de la lección " + orden)
+                            .campo(baseCurso + 1 + c)
+                            .campo("/files/videos/sintetico-" + id + ".mp4")
+                            .campo(orden)
+                            .campo(duracion[indice])
+                            .campo(fechaCurso[c].plusDays(orden))
+                            .finFila();
+                    indice++;
+                }
+            }
+            informar("videos", copia.terminar(), inicioCarga);
+        }
+
+        // Índice del primer video de cada curso dentro de duracion[]
+        int[] primerIndiceVideo = new int[cursos];
+        for (int c = 1; c < cursos; c++) {
+            primerIndiceVideo[c] = primerIndiceVideo[c - 1] + videosPorCurso[c - 1];
+        }
+
+        // Solo se ven y califican cursos publicados
+        int[] cursosPublicados = new int[cursos];
+        int numPublicados = 0;
+        for (int c = 0; c < cursos; c++) {
+            if (publicado[c]) {
+                cursosPublicados[numPublicados++] = c;
+            }
+        }
+
+        random = new SplittableRandom(config.semilla() + 2);
+        Zipf popularidad = new Zipf(numPublicados, config.zipf(), random);
+        Zipf actividad = new Zipf(estudiantes, 0.8, random);
+
+        // ===== CALIFICACIONES =====
+        long limiteCalificaciones = Math.min(calificaciones, (long) estudiantes * numPublicados / 2);
+        // Se reserva el límite: si se generan menos, el resto del rango queda sin usar
+        long baseCalificacion = reservarIds(conexion, "calificaciones", limiteCalificaciones);
+        ConjuntoLong pares = new ConjuntoLong((int) Math.min(limiteCalificaciones, Integer.MAX_VALUE / 4));
+        long generadas = 0;
+        long intentos = 0;
+
+        inicioCarga = System.nanoTime();
+        try (EscritorCopy copia = new EscritorCopy(copyManager, "calificaciones",
+                "id, usuario_id, curso_id, puntuacion, fecha_creacion")) {
+            while (generadas < limiteCalificaciones && intentos++ < limiteCalificaciones * 10) {
+                int estudiante = actividad.muestra(random);
+                int curso = cursosPublicados[popularidad.muestra(random)];
+                if (!pares.agregar((long) estudiante * cursos + curso)) {
+                    continue;
+                }
+                generadas++;
+                copia.campo(baseCalificacion + generadas)
+                        .campo(baseUsuario + 1 + estudiante)
+                        .campo(baseCurso + 1 + curso)
+                        .campo(puntuacion(random))
+                        .campo(momento(inicio, ahora, random))
+                        .finFila();
+            }
+            informar("calificaciones", copia.terminar(), inicioCarga);
+        }
+
+        // ===== VISUALIZACIONES =====
+        crearParticiones(conexion, inicio);
+        long baseVisualizacion = reservarIds(conexion, "visualizaciones", visualizaciones);
+        DiasPonderados dias = new DiasPonderados(inicio, ahora.toLocalDate(), random);
+        String[] ips = new String[4096];
+        for (int i = 0; i < ips.length; i++) {
+            ips[i] = "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + (1 + random.nextInt(254));
+        }
+        long[] vistasPorCurso = new long[cursos];
+        long vistas = 0;
+
+        inicioCarga = System.nanoTime();
+        try (EscritorCopy copia = new EscritorCopy(copyManager, "visualizaciones",
+                "id, video_id, usuario_id, fecha_visualizacion, ip_address")) {
+            while (vistas < visualizaciones) {
+                int curso = cursosPublicados[popularidad.muestra(random)];
+                Long usuario = random.nextDouble() < PROBABILIDAD_ANONIMA
+                        ? null
+                        : baseUsuario + 1 + actividad.muestra(random);
+                String ip = ips[(int) ((usuario != null ? usuario : random.nextInt(ips.length)) % ips.length)];
+                LocalDateTime fecha = dias.momento(random);
+
+                int video = random.nextDouble() < PROBABILIDAD_EMPEZAR_DESDE_EL_PRINCIPIO
+                        ? 0
+                        : random.nextInt(videosPorCurso[curso]);
+                do {
+                    vistas++;
+                    vistasPorCurso[curso]++;
+                    copia.campo(baseVisualizacion + vistas)
+                            .campo(primerVideo[curso] + video)
+                            .campo(usuario)
+                            .campo(fecha)
+                            .campo(ip)
+                            .finFila();
+
+                    fecha = fecha.plusSeconds(duracion[primerIndiceVideo[curso] + video] + random.nextInt(60));
+                    video++;
+                } while (video < videosPorCurso[curso] && vistas < visualizaciones && fecha.isBefore(ahora)
+                        && random.nextDouble() < PROBABILIDAD_SIGUIENTE_VIDEO);
+
+                if (vistas % 1_000_000 == 0) {
+                    progreso.accept(String.format("visualizaciones: %,d / %,d", vistas, visualizaciones));
+                }
+            }
+            informar("visualizaciones", copia.terminar(), inicioCarga);
+        }
+
+        // ===== AGREGADOS =====
+        inicioCarga = System.nanoTime();
+        rellenarAgregados(conexion, baseVisualizacion);
+        try (Statement st = conexion.createStatement()) {
+            st.execute("ANALYZE usuarios, categorias, cursos, videos, calificaciones, visualizaciones, "
+                    + "vistas_diarias_video, espectadores_curso");
+        }
+        progreso.accept(String.format("agregados y ANALYZE en %,d ms",
+                (System.nanoTime() - inicioCarga) / 1_000_000));
+
+        return new ResumenDatos(config.prefijo(), config.password(), estudiantes, instructores, categoriaIds,
+                baseCurso + 1, categoriaPorCurso, primerVideo, videosPorCurso, publicado, vistasPorCurso,
+                vistas, generadas);
+    }
+
+    /**
+     * Particiones mensuales de visualizaciones para todo el rango, como hace ParticionVisualizacionesService
+     */
+    private static void crearParticiones(Connection conexion, LocalDate inicio) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement("SELECT crear_particion_visualizaciones(?)")) {
+            for (YearMonth mes = YearMonth.from(inicio); !mes.isAfter(YearMonth.now().plusMonths(1)); mes = mes.plusMonths(1)) {
+                ps.setObject(1, mes.atDay(1));
+                ps.execute();
+            }
+        }
+    }
+
+    /**
+     * Mismo cálculo que el relleno de V7__agregados_analitica.sql, limitado a las vistas nuevas; como
+     * histórico, los pares se dan por registrados en su primera vista (V13__registro_espectadores.sql)
+     */
+    private static void rellenarAgregados(Connection conexion, long desdeVisualizacion) throws SQLException {
+        try (PreparedStatement diarias = conexion.prepareStatement(
+                "INSERT INTO vistas_diarias_video (video_id, dia, vistas) " +
+                        "SELECT video_id, fecha_visualizacion::DATE, COUNT(*) FROM visualizaciones " +
+                        "WHERE id > ? GROUP BY video_id, fecha_visualizacion::DATE " +
+                        "ON CONFLICT (video_id, dia) DO UPDATE SET vistas = vistas_diarias_video.vistas + EXCLUDED.vistas");
+             PreparedStatement espectadores = conexion.prepareStatement(
+                     "INSERT INTO espectadores_curso (curso_id, usuario_id, primera_vista, registrado) " +
+                             "SELECT vi.curso_id, v.usuario_id, MIN(v.fecha_visualizacion), MIN(v.fecha_visualizacion) " +
+                             "FROM visualizaciones v JOIN videos vi ON vi.id = v.video_id " +
+                             "WHERE v.id > ? AND v.usuario_id IS NOT NULL GROUP BY vi.curso_id, v.usuario_id " +
+                             "ON CONFLICT (curso_id, usuario_id) DO UPDATE " +
+                             "SET primera_vista = LEAST(espectadores_curso.primera_vista, EXCLUDED.primera_vista)")) {
+            diarias.setLong(1, desdeVisualizacion);
+            diarias.executeUpdate();
+            espectadores.setLong(1, desdeVisualizacion);
+            espectadores.executeUpdate();
+        }
+    }
+
+    /**
+     * Reserva n ids de la tabla y devuelve el último ocupado antes de ellos: el COPY usa de base + 1
+     * a base + n. La base sale del mismo setval que adelanta la secuencia, a partir del mayor entre
+     * MAX(id) y el last_value (con secuencias pooled una aplicación en marcha usa ids hasta el
+     * last_value aunque aún no los haya insertado). setval no se deshace con la transacción de la
+     * carga, así que el siguiente bloque de la aplicación empieza después del rango aunque lo pida
+     * durante el COPY o la carga falle.
+     */
+    private static long reservarIds(Connection conexion, String tabla, long n) throws SQLException {
+        String secuencia = tabla + "_id_seq";
+        String ultimo = "GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + tabla + "), " +
+                "(SELECT last_value FROM " + secuencia + "))";
+        try (Statement st = conexion.createStatement();
+             // setval no admite 0: sin ids que reservar solo se lee
+             ResultSet rs = st.executeQuery(n > 0
+                     ? "SELECT setval('" + secuencia + "', " + ultimo + " + " + n + ")"
+                     : "SELECT " + ultimo)) {
+            rs.next();
+            return rs.getLong(1) - n;
+        }
+    }
+
+    private static int puntuacion(SplittableRandom random) {
+        double r = random.nextDouble();
+        for (int i = 0; i < PESO_PUNTUACION.length; i++) {
+            r -= PESO_PUNTUACION[i];
+            if (r < 0) {
+                return i + 1;
+            }
+        }
+        return PESO_PUNTUACION.length;
+    }
+
+    private static LocalDateTime momento(LocalDate inicio, LocalDateTime fin, SplittableRandom random) {
+        long segundos = Duration.between(inicio.atStartOfDay(), fin).toSeconds();
+        return inicio.atStartOfDay().plusSeconds(random.nextLong(Math.max(1, segundos)));
+    }
+
+    private void informar(String tabla, long filas, long inicioNanos) {
+        long ms = Math.max(1, (System.nanoTime() - inicioNanos) / 1_000_000);
+        progreso.accept(String.format("%s: %,d filas en %,d ms (%,d filas/s)", tabla, filas, ms, filas * 1000 / ms));
+    }
+
+    /**
+     * Días del rango con peso por día de la semana, inicio de semestre (febrero-marzo y
+     * agosto-septiembre, primeras dos semanas) y picos aleatorios; la hora sigue PESO_HORA
+     */
+    private static final class DiasPonderados {
+        private final LocalDate inicio;
+        private final LocalDateTime ahora = LocalDateTime.now();
+        private final double[] acumuladaDias;
+        private final double[] acumuladaHoras;
+
+        private DiasPonderados(LocalDate inicio, LocalDate fin, SplittableRandom random) {
+            this.inicio = inicio;
+            int numDias = (int) ChronoUnit.DAYS.between(inicio, fin) + 1;
+            acumuladaDias = new double[numDias];
+            double total = 0;
+            for (int d = 0; d < numDias; d++) {
+                LocalDate dia = inicio.plusDays(d);
+                double peso = switch (dia.getDayOfWeek()) {
+                    case MONDAY, TUESDAY, WEDNESDAY, THURSDAY -> 1.2;
+                    case FRIDAY -> 0.9;
+                    case SATURDAY -> 0.6;
+                    case SUNDAY -> 0.8;
+                };
+                if (dia.getDayOfMonth() <= 14 && Arrays.asList(2, 3, 8, 9).contains(dia.getMonthValue())) {
+                    peso *= 2.0;
+                }
+                if (random.nextDouble() < 0.03) {
+                    peso *= 3 + random.nextDouble() * 3;
+                }
+                total += peso;
+                acumuladaDias[d] = total;
+            }
+            for (int d = 0; d < numDias; d++) {
+                acumuladaDias[d] /= total;
+            }
+
+            acumuladaHoras = new double[PESO_HORA.length];
+            total = 0;
+            for (int h = 0; h < PESO_HORA.length; h++) {
+                total += PESO_HORA[h];
+                acumuladaHoras[h] = total;
+            }
+            for (int h = 0; h < PESO_HORA.length; h++) {
+                acumuladaHoras[h] /= total;
+            }
+        }
+
+        private LocalDateTime momento(SplittableRandom random) {
+            int dia = indice(acumuladaDias, random.nextDouble());
+            int hora = indice(acumuladaHoras, random.nextDouble());
+            LocalDateTime fecha = inicio.plusDays(dia).atTime(hora, random.nextInt(60), random.nextInt(60));
+            // El día de hoy solo hasta ahora
+            return fecha.isAfter(ahora) ? ahora.minusSeconds(random.nextInt(3600)) : fecha;
+        }
+
+        private static int indice(double[] acumulada, double r) {
+            int i = Arrays.binarySearch(acumulada, r);
+            return i >= 0 ? i : Math.min(-i - 1, acumulada.length - 1);
+        }
+    }
+}
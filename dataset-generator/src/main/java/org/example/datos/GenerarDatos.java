@@ -0,0 +1,63 @@
+package org.example.datos;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+/**
+ * Línea de comandos del generador:
+ *
+ * java org.example.datos.GenerarDatos -url jdbc:postgresql://localhost:5432/cursos -usuario postgres
+ *      [-password secreto] [-escala 1.0] [-semilla 42] [-meses 6] [-zipf 1.07]
+ *      [-password-usuarios datos123] [-prefijo s42]
+ *
+ * La base debe estar migrada (arrancar la API una vez basta).
+ */
+public class GenerarDatos {
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        String usuario = "postgres";
+        String password = "";
+        Configuracion config = Configuracion.porDefecto();
+
+        for (int i = 0; i < args.length; i++) {
+            String opcion = args[i];
+            if (i + 1 >= args.length) {
+                uso("Falta el valor de " + opcion);
+            }
+            String valor = args[++i];
+            switch (opcion) {
+                case "-url" -> url = valor;
+                case "-usuario" -> usuario = valor;
+                case "-password" -> password = valor;
+                case "-escala" -> config = config.conEscala(Double.parseDouble(valor));
+                case "-semilla" -> config = config.conSemilla(Long.parseLong(valor));
+                case "-meses" -> config = config.conMeses(Integer.parseInt(valor));
+                case "-zipf" -> config = config.conZipf(Double.parseDouble(valor));
+                case "-password-usuarios" -> config = config.conPassword(valor);
+                case "-prefijo" -> config = config.conPrefijo(valor);
+                default -> uso("Opción desconocida: " + opcion);
+            }
+        }
+        if (url == null) {
+            uso("Falta -url");
+        }
+
+        long inicio = System.nanoTime();
+        try (Connection conexion = DriverManager.getConnection(url, usuario, password)) {
+            ResumenDatos resumen = new GeneradorDatos(config)
+                    .conProgreso(System.out::println)
+                    .generar(conexion);
+            System.out.printf("Cargados %s en %,d s (contraseña de los usuarios: %s, emails %s)%n",
+                    resumen, (System.nanoTime() - inicio) / 1_000_000_000L,
+                    resumen.getPassword(), resumen.emailEstudiante(0));
+        }
+    }
+
+    private static void uso(String error) {
+        System.err.println(error);
+        System.err.println("Uso: GenerarDatos -url <jdbc> [-usuario u] [-password p] [-escala 1.0] [-semilla 42] "
+                + "[-meses 6] [-zipf 1.07] [-password-usuarios datos123] [-prefijo s42]");
+        System.exit(2);
+    }
+}
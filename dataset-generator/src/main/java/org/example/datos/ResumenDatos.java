@@ -0,0 +1,123 @@
+package org.example.datos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lo que se ha cargado, con los ids necesarios para construir peticiones sobre esos datos
+ * (emails para login, cursos y sus videos, vistas por curso)
+ */
+public final class ResumenDatos {
+
+    private final String prefijo;
+    private final String password;
+    private final int estudiantes;
+    private final int instructores;
+    private final List<Long> categoriaIds;
+    private final long primerCursoId;
+    private final long[] categoriaPorCurso;
+    private final long[] primerVideoPorCurso;
+    private final int[] videosPorCurso;
+    private final boolean[] publicado;
+    private final long[] vistasPorCurso;
+    private final long visualizaciones;
+    private final long calificaciones;
+
+    ResumenDatos(String prefijo, String password, int estudiantes, int instructores, List<Long> categoriaIds,
+                 long primerCursoId, long[] categoriaPorCurso, long[] primerVideoPorCurso, int[] videosPorCurso,
+                 boolean[] publicado, long[] vistasPorCurso, long visualizaciones, long calificaciones) {
+        this.prefijo = prefijo;
+        this.password = password;
+        this.estudiantes = estudiantes;
+        this.instructores = instructores;
+        this.categoriaIds = categoriaIds;
+        this.primerCursoId = primerCursoId;
+        this.categoriaPorCurso = categoriaPorCurso;
+        this.primerVideoPorCurso = primerVideoPorCurso;
+        this.videosPorCurso = videosPorCurso;
+        this.publicado = publicado;
+        this.vistasPorCurso = vistasPorCurso;
+        this.visualizaciones = visualizaciones;
+        this.calificaciones = calificaciones;
+    }
+
+    static String emailEstudiante(String prefijo, int i) {
+        return prefijo + "-estudiante" + i + "@datos.local";
+    }
+
+    static String emailInstructor(String prefijo, int i) {
+        return prefijo + "-instructor" + i + "@datos.local";
+    }
+
+    /**
+     * Contraseña en claro de todos los usuarios generados
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    public int getEstudiantes() {
+        return estudiantes;
+    }
+
+    public int getInstructores() {
+        return instructores;
+    }
+
+    public String emailEstudiante(int i) {
+        return emailEstudiante(prefijo, i);
+    }
+
+    public String emailInstructor(int i) {
+        return emailInstructor(prefijo, i);
+    }
+
+    public List<Long> getCategoriaIds() {
+        return categoriaIds;
+    }
+
+    public int getCursos() {
+        return videosPorCurso.length;
+    }
+
+    public long cursoId(int i) {
+        return primerCursoId + i;
+    }
+
+    public long categoriaId(int curso) {
+        return categoriaPorCurso[curso];
+    }
+
+    public boolean publicado(int curso) {
+        return publicado[curso];
+    }
+
+    public long vistas(int curso) {
+        return vistasPorCurso[curso];
+    }
+
+    public List<Long> videoIds(int curso) {
+        List<Long> ids = new ArrayList<>(videosPorCurso[curso]);
+        for (int v = 0; v < videosPorCurso[curso]; v++) {
+            ids.add(primerVideoPorCurso[curso] + v);
+        }
+        return ids;
+    }
+
+    public long getVisualizaciones() {
+        return visualizaciones;
+    }
+
+    public long getCalificaciones() {
+        return calificaciones;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d estudiantes, %d instructores, %d categorías, %d cursos, %d videos, "
+                        + "%d calificaciones, %d visualizaciones",
+                estudiantes, instructores, categoriaIds.size(), getCursos(),
+                Arrays.stream(videosPorCurso).asLongStream().sum(), calificaciones, visualizaciones);
+    }
+}
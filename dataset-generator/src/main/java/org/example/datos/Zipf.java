@@ -0,0 +1,46 @@
+package org.example.datos;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Muestreo Zipf sobre n elementos: el de rango k sale con probabilidad proporcional a 1 / k^s.
+ * Los rangos se asignan a índices con una permutación aleatoria, para que los elementos
+ * populares no sean siempre los de id más bajo.
+ */
+final class Zipf {
+
+    private final double[] acumulada;
+    private final int[] indicePorRango;
+
+    Zipf(int n, double s, SplittableRandom random) {
+        acumulada = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1.0 / Math.pow(k + 1, s);
+            acumulada[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            acumulada[k] /= total;
+        }
+
+        indicePorRango = new int[n];
+        for (int i = 0; i < n; i++) {
+            indicePorRango[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = indicePorRango[i];
+            indicePorRango[i] = indicePorRango[j];
+            indicePorRango[j] = tmp;
+        }
+    }
+
+    int muestra(SplittableRandom random) {
+        int rango = Arrays.binarySearch(acumulada, random.nextDouble());
+        if (rango < 0) {
+            rango = Math.min(-rango - 1, acumulada.length - 1);
+        }
+        return indicePorRango[rango];
+    }
+}
@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Throughput y latencia de InicioSemestreSimulation con hilos de plataforma y con el perfil
+# "virtual" de la API (application-virtual.properties), con los mismos datos y la misma carga.
+#
+# Preparación (desde la raíz del repositorio):
+#   mvn -B install -DskipTests
+#
+# Uso: load-tests/comparar-hilos.sh
+# Argumentos extra para ambas ejecuciones en ARGS_CARGA, p. ej.
+#   ARGS_CARGA="-Dcarga.factor=4 -Dcarga.duracion-s=300" load-tests/comparar-hilos.sh
+#
+# Lee js/stats.json del informe de Gatling de cada ejecución (requiere jq) y deja una fila por
+# variante y petición en load-tests/target/comparacion-hilos/hilos-<fecha>.csv. Una ejecución
+# que no cumple las aserciones de p99 se incluye igualmente: es justo lo que se quiere comparar.
+
+set -euo pipefail
+
+RAIZ="$(cd "$(dirname "$0")/.." && pwd)"
+INFORMES="$RAIZ/load-tests/target/gatling"
+SALIDA="$RAIZ/load-tests/target/comparacion-hilos"
+ARGS_CARGA="${ARGS_CARGA:-}"
+mkdir -p "$SALIDA"
+RESULTADOS="$SALIDA/hilos-$(date +%Y%m%d-%H%M%S).csv"
+echo "variante,peticion,total,ko,peticiones_s,p50_ms,p99_ms" > "$RESULTADOS"
+
+command -v jq > /dev/null || { echo "Se necesita jq para leer los informes de Gatling" >&2; exit 1; }
+
+for variante in plataforma virtual; do
+    perfil=""
+    if [ "$variante" = "virtual" ]; then
+        perfil="virtual"
+    fi
+
+    echo "== $variante"
+    # shellcheck disable=SC2086
+    if ! (cd "$RAIZ" && mvn -B -q -pl load-tests gatling:test -Dcarga.perfil="$perfil" $ARGS_CARGA); then
+        echo "$variante: la simulación terminó con aserciones incumplidas o con error" >&2
+    fi
+
+    informe="$(ls -td "$INFORMES"/*/ 2>/dev/null | head -1 || true)"
+    if [ -z "$informe" ] || [ ! -f "$informe/js/stats.json" ]; then
+        echo "$variante: no hay informe de Gatling en $INFORMES" >&2
+        exit 1
+    fi
+
+    # percentiles1 = p50 y percentiles3 = p99 (ver src/test/resources/gatling.conf)
+    jq -r --arg v "$variante" \
+        '([.stats] + [.contents[].stats])[]
+         | [$v, .name, .numberOfRequests.total, .numberOfRequests.ko,
+            .meanNumberOfRequestsPerSecond.total, .percentiles1.total, .percentiles3.total]
+         | @csv' "$informe/js/stats.json" | tr -d '"' >> "$RESULTADOS"
+done
+
+echo
+echo "Comparación ($RESULTADOS):"
+awk -F, 'NR > 1 { clave[$2] = 1; rps[$1, $2] = $5; p99[$1, $2] = $7; ko[$1, $2] = $4 }
+         END {
+             printf "  %-28s %12s %12s %10s %10s %8s %8s\n", "peticion", "req/s plat", "req/s virt", "p99 plat", "p99 virt", "ko plat", "ko virt"
+             for (p in clave)
+                 printf "  %-28s %12.1f %12.1f %10d %10d %8d %8d\n", p, rps["plataforma", p], rps["virtual", p],
+                        p99["plataforma", p], p99["virtual", p], ko["plataforma", p], ko["virtual", p]
+         }' "$RESULTADOS"
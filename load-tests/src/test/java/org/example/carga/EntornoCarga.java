@@ -0,0 +1,310 @@
+package org.example.carga;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.datos.Configuracion;
+import org.example.datos.GeneradorDatos;
+import org.example.datos.ResumenDatos;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Entorno de la prueba de carga: Postgres embebido, stubs de UPBolis y Snack, la API arrancada
+ * desde su jar ejecutable en un proceso aparte (para no compartir JVM con el generador de carga)
+ * y los datos iniciales del semestre.
+ *
+ * La API se lanza dos veces: la primera solo para que Flyway cree el esquema, y la segunda ya con
+ * los datos sembrados, porque al arrancar construye estado que no vuelve a leer de la base durante
+ * la prueba (recomendaciones, calentamiento de cachés).
+ *
+ * Propiedades (-D):
+ *   carga.api-jar          jar ejecutable de la API (por defecto API-*-exec.jar en API/target o ../API/target)
+ *   carga.api-jvm-args     argumentos de la JVM de la API (por defecto -Xmx1g)
+ *   carga.perfil           perfiles de Spring de la API, p. ej. "virtual"
+ *   carga.base-url         usar una API ya arrancada en lugar de lanzarla; entonces los datos se
+ *                          siembran en carga.jdbc-url / carga.jdbc-usuario / carga.jdbc-password
+ *                          con la API en marcha, y hay que reiniciarla después para que el estado
+ *                          que se construye al arrancar los incluya
+ *   carga.escala, carga.semilla  tamaño y semilla de los datos sintéticos (ver dataset-generator)
+ *   carga.directorio       directorio de trabajo de la API lanzada: su log, los archivos subidos y la
+ *                          instantánea de cachés (el pom lo pone en load-tests/target/carga)
+ */
+final class EntornoCarga implements AutoCloseable {
+
+    private static final Duration ESPERA_ARRANQUE = Duration.ofMinutes(3);
+    private static final Path DIRECTORIO = Path.of(System.getProperty("carga.directorio", "target/carga")).toAbsolutePath();
+    private static final Path LOG_API = DIRECTORIO.resolve("api.log");
+
+    private final List<AutoCloseable> recursos = new ArrayList<>();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<ServidorStub> stubs = new ArrayList<>();
+    private Process api;
+    private String baseUrl;
+    private String password;
+
+    private final List<Map<String, Object>> estudiantes = new ArrayList<>();
+    private final List<Map<String, Object>> instructores = new ArrayList<>();
+    private final List<Map<String, Object>> cursos = new ArrayList<>();
+    private final List<Map<String, Object>> categorias = new ArrayList<>();
+
+    private EntornoCarga() {
+    }
+
+    static EntornoCarga iniciar() throws Exception {
+        EntornoCarga entorno = new EntornoCarga();
+        try {
+            entorno.arrancar();
+            return entorno;
+        } catch (Exception e) {
+            entorno.close();
+            throw e;
+        }
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Contraseña común de los usuarios sembrados
+     */
+    String getPassword() {
+        return password;
+    }
+
+    List<Map<String, Object>> getEstudiantes() {
+        return estudiantes;
+    }
+
+    List<Map<String, Object>> getInstructores() {
+        return instructores;
+    }
+
+    /**
+     * Un registro por curso: cursoId, categoriaId y videoIds
+     */
+    List<Map<String, Object>> getCursos() {
+        return cursos;
+    }
+
+    List<Map<String, Object>> getCategorias() {
+        return categorias;
+    }
+
+    /**
+     * Llamadas que han recibido los stubs durante la prueba
+     */
+    List<String> resumenStubs() {
+        return stubs.stream().map(ServidorStub::resumen).toList();
+    }
+
+    private void arrancar() throws Exception {
+        String urlExterna = System.getProperty("carga.base-url");
+        String jdbcUrl;
+        String jdbcUsuario;
+        String jdbcPassword;
+
+        if (urlExterna != null) {
+            baseUrl = urlExterna;
+            jdbcUrl = requerida("carga.jdbc-url");
+            jdbcUsuario = requerida("carga.jdbc-usuario");
+            jdbcPassword = System.getProperty("carga.jdbc-password", "");
+        } else {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            recursos.add(postgres);
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            jdbcUsuario = "postgres";
+            jdbcPassword = "";
+
+            ServidorStub upbolis = ServidorStub.upbolis();
+            ServidorStub snack = ServidorStub.snack();
+            stubs.add(upbolis);
+            stubs.add(snack);
+            recursos.add(upbolis);
+            recursos.add(snack);
+
+            Files.deleteIfExists(LOG_API);
+            // Sin instantánea de cachés: la escribiría al parar, vacía, y la segunda la restauraría
+            lanzarApi(jdbcUrl, upbolis.getUrl(), snack.getUrl(),
+                    "--cache.instantanea.habilitada=false", "--calentamiento.iteraciones=0");
+            esperarApi();
+            detenerApi();
+        }
+
+        if (urlExterna != null) {
+            esperarApi();
+        }
+        try (Connection conexion = DriverManager.getConnection(jdbcUrl, jdbcUsuario, jdbcPassword)) {
+            sembrar(conexion);
+        }
+
+        if (urlExterna == null) {
+            lanzarApi(jdbcUrl, stubs.get(0).getUrl(), stubs.get(1).getUrl());
+            esperarApi();
+        }
+    }
+
+    private void lanzarApi(String jdbcUrl, String upbolisUrl, String snackUrl, String... extra) throws IOException {
+        int puerto;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            puerto = socket.getLocalPort();
+        }
+        baseUrl = "http://127.0.0.1:" + puerto;
+
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(Arrays.asList(System.getProperty("carga.api-jvm-args", "-Xmx1g").trim().split("\\s+")));
+        comando.add("-jar");
+        comando.add(buscarJarApi().toAbsolutePath().toString());
+        comando.add("--server.port=" + puerto);
+        comando.add("--management.server.port=0");
+        comando.add("--spring.datasource.url=" + jdbcUrl);
+        comando.add("--spring.datasource.username=postgres");
+        comando.add("--spring.datasource.password=");
+        comando.add("--spring.jpa.show-sql=false");
+        comando.add("--storage.location=" + DIRECTORIO.resolve("uploads"));
+        comando.add("--upbolis.api.base-url=" + upbolisUrl);
+        comando.add("--upbolis.api.username=carga@upbolis.local");
+        comando.add("--upbolis.api.password=carga");
+        comando.add("--snack.api.base-url=" + snackUrl);
+        String perfil = System.getProperty("carga.perfil");
+        if (perfil != null && !perfil.isBlank()) {
+            comando.add("--spring.profiles.active=" + perfil);
+        }
+        comando.addAll(Arrays.asList(extra));
+
+        Files.createDirectories(DIRECTORIO);
+        api = new ProcessBuilder(comando)
+                .directory(DIRECTORIO.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(LOG_API.toFile()))
+                .start();
+        System.out.println("API arrancando en " + baseUrl + " (log en " + LOG_API.toAbsolutePath() + ")");
+    }
+
+    private static Path buscarJarApi() throws IOException {
+        String configurado = System.getProperty("carga.api-jar");
+        if (configurado != null) {
+            return Path.of(configurado);
+        }
+        // Gatling arranca su JVM en el directorio desde el que se lanza Maven: la raíz (mvn -pl load-tests)
+        // o el propio módulo
+        List<Path> candidatos = List.of(Path.of("API", "target"), Path.of("..", "API", "target"));
+        for (Path target : candidatos) {
+            if (!Files.isDirectory(target)) {
+                continue;
+            }
+            try (Stream<Path> archivos = Files.list(target)) {
+                Optional<Path> jar = archivos
+                        .filter(p -> p.getFileName().toString().matches("API-.*-exec\\.jar"))
+                        .findFirst();
+                if (jar.isPresent()) {
+                    return jar.get();
+                }
+            }
+        }
+        throw new IllegalStateException("No se encontró el jar de la API en "
+                + candidatos.stream().map(p -> p.toAbsolutePath().normalize().toString()).toList()
+                + ": ejecuta antes mvn -pl API package");
+    }
+
+    private void esperarApi() throws Exception {
+        long limite = System.nanoTime() + ESPERA_ARRANQUE.toNanos();
+        // Una consulta sin caché: /api/categorias guardaría en la caché de consultas la lista vacía
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create(baseUrl + "/api/visualizaciones/curso/0/total"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+
+        while (System.nanoTime() < limite) {
+            if (api != null && !api.isAlive()) {
+                throw new IllegalStateException("La API terminó al arrancar (código " + api.exitValue()
+                        + "), revisa " + LOG_API);
+            }
+            try {
+                if (http.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Todavía no escucha
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("La API no respondió en " + ESPERA_ARRANQUE.toSeconds() + " s");
+    }
+
+    /**
+     * Datos del semestre con el generador sintético (COPY). Los cursos poco populares se quedan
+     * por debajo de 10 vistas, así que las vistas de la prueba cruzan el hito y llaman a Snack.
+     */
+    private void sembrar(Connection conexion) throws SQLException {
+        Configuracion config = Configuracion.porDefecto()
+                .conEscala(Double.parseDouble(System.getProperty("carga.escala", "0.02")))
+                .conSemilla(Long.getLong("carga.semilla", 42));
+        ResumenDatos resumen = new GeneradorDatos(config)
+                .conProgreso(mensaje -> System.out.println("Datos: " + mensaje))
+                .generar(conexion);
+        password = resumen.getPassword();
+
+        for (int i = 0; i < resumen.getEstudiantes(); i++) {
+            estudiantes.add(Map.of("email", resumen.emailEstudiante(i)));
+        }
+        for (int i = 0; i < resumen.getInstructores(); i++) {
+            instructores.add(Map.of("email", resumen.emailInstructor(i)));
+        }
+        for (Long categoriaId : resumen.getCategoriaIds()) {
+            categorias.add(Map.of("categoriaId", categoriaId));
+        }
+        for (int c = 0; c < resumen.getCursos(); c++) {
+            if (resumen.publicado(c)) {
+                cursos.add(Map.of("cursoId", resumen.cursoId(c), "categoriaId", resumen.categoriaId(c),
+                        "videoIds", resumen.videoIds(c)));
+            }
+        }
+
+        System.out.println("Datos sembrados: " + resumen);
+    }
+
+    private static String requerida(String propiedad) {
+        String valor = System.getProperty(propiedad);
+        if (valor == null) {
+            throw new IllegalStateException("Falta -D" + propiedad);
+        }
+        return valor;
+    }
+
+    private void detenerApi() throws InterruptedException {
+        api.destroy();
+        api.waitFor();
+        api = null;
+    }
+
+    @Override
+    public void close() {
+        if (api != null) {
+            try {
+                detenerApi();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (int i = recursos.size() - 1; i >= 0; i--) {
+            try {
+                recursos.get(i).close();
+            } catch (Exception e) {
+                System.err.println("Error al cerrar " + recursos.get(i) + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.carga;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.FeederBuilder;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * Inicio de semestre: tormenta de logins, estudiantes recorriendo el catálogo y el detalle de
+ * cursos, vistas que cruzan el hito de 10 (llamada a Snack) e instructores creando cursos,
+ * subiendo videos y publicando (llamadas a UPBolis), todo a la vez.
+ *
+ * Los informes de Gatling dan p50/p95/p99/p99.9 por petición (ver gatling.conf).
+ *
+ * Propiedades (-D), además de las de EntornoCarga:
+ *   carga.duracion-s     duración de la fase estable (por defecto 120)
+ *   carga.factor         multiplica todas las tasas de llegada (por defecto 1)
+ *   carga.p99-max-ms     p99 máximo aceptado por petición (por defecto 2000)
+ *   carga.tamano-video-kb  tamaño del video subido por los instructores (por defecto 512)
+ *   carga.tormenta-login  incluir la tormenta de logins (por defecto true); con false se obtiene
+ *                         la referencia para comparar el p99 del catálogo con y sin ella
+ */
+public class InicioSemestreSimulation extends Simulation {
+
+    private static final EntornoCarga ENTORNO = iniciarEntorno();
+
+    private static final long DURACION_S = Long.getLong("carga.duracion-s", 120);
+    private static final double FACTOR = Double.parseDouble(System.getProperty("carga.factor", "1"));
+    private static final int P99_MAX_MS = Integer.getInteger("carga.p99-max-ms", 2000);
+    private static final boolean TORMENTA_LOGIN = Boolean.parseBoolean(System.getProperty("carga.tormenta-login", "true"));
+
+    private static final byte[] PORTADA = bytesAleatorios(16 * 1024);
+    private static final byte[] VIDEO = bytesAleatorios(Integer.getInteger("carga.tamano-video-kb", 512) * 1024);
+
+    private final HttpProtocolBuilder protocolo = http
+            .baseUrl(ENTORNO.getBaseUrl())
+            .acceptHeader("application/json")
+            .userAgentHeader("carga-inicio-semestre");
+
+    private final FeederBuilder<Object> estudiantes = listFeeder(ENTORNO.getEstudiantes()).circular();
+    private final FeederBuilder<Object> instructores = listFeeder(ENTORNO.getInstructores()).circular();
+    private final FeederBuilder<Object> cursos = listFeeder(ENTORNO.getCursos()).random();
+    private final FeederBuilder<Object> categorias = listFeeder(ENTORNO.getCategorias()).random();
+
+    private final ChainBuilder login = exec(
+            http("login")
+                    .post("/api/auth/login")
+                    .body(StringBody("{\"email\":\"#{email}\",\"password\":\"" + ENTORNO.getPassword() + "\"}"))
+                    .asJson()
+                    .check(status().is(200), jmesPath("token").saveAs("token"))
+    );
+
+    // Logins en ráfaga, como al abrir la plataforma el primer día
+    private final ScenarioBuilder tormentaLogin = scenario("Tormenta de logins")
+            .feed(estudiantes)
+            .exec(login);
+
+    private final ScenarioBuilder estudiante = scenario("Estudiante")
+            .feed(estudiantes)
+            .exec(login)
+            .pause(1, 3)
+            .exec(http("catalogo publico").get("/api/cursos/publicos").check(status().is(200)))
+            .exec(http("categorias").get("/api/categorias").check(status().is(200)))
+            .pause(1, 3)
+            .feed(cursos)
+            .exec(http("cursos por categoria")
+                    .get("/api/cursos/categoria/#{categoriaId}")
+                    .header("Authorization", "Bearer #{token}")
+                    .check(status().is(200)))
+            .exec(http("buscar cursos")
+                    .get("/api/cursos/buscar")
+                    .queryParam("q", "carga")
+                    .header("Authorization", "Bearer #{token}")
+                    .check(status().is(200)))
+            .pause(1, 3)
+            .exec(http("detalle curso").get("/api/cursos/#{cursoId}").check(status().is(200)))
+            .exec(http("videos del curso")
+                    .get("/api/videos/curso/#{cursoId}")
+                    .header("Authorization", "Bearer #{token}")
+                    .check(status().is(200)))
+            .exec(http("cursos relacionados").get("/api/cursos/#{cursoId}/relacionados").check(status().is(200)))
+            .repeat(3).on(
+                    pause(2, 6)
+                            .exec(http("registrar vista")
+                                    .post("/api/visualizaciones/video/#{videoIds.random()}")
+                                    .header("Authorization", "Bearer #{token}")
+                                    .check(status().in(200, 201)))
+            );
+
+    // Vistas anónimas repartidas por todos los cursos: los que empiezan cerca de 10 cruzan el hito
+    private final ScenarioBuilder vistasAnonimas = scenario("Vistas anonimas")
+            .feed(cursos)
+            .exec(http("registrar vista anonima")
+                    .post("/api/visualizaciones/video/#{videoIds.random()}")
+                    .check(status().in(200, 201)));
+
+    private final ScenarioBuilder instructor = scenario("Instructor")
+            .feed(instructores)
+            .feed(categorias)
+            .exec(login)
+            .pause(1, 3)
+            .exec(http("crear curso")
+                    .post("/api/cursos")
+                    .header("Authorization", "Bearer #{token}")
+                    .bodyPart(StringBodyPart("titulo", "Curso nuevo de #{email}"))
+                    .bodyPart(StringBodyPart("descripcion", "Curso creado durante la prueba de carga de inicio de semestre"))
+                    .bodyPart(StringBodyPart("categoriaId", "#{categoriaId}"))
+                    .bodyPart(StringBodyPart("precio", "25"))
+                    .bodyPart(ByteArrayBodyPart("imagen", PORTADA).fileName("portada.png").contentType("image/png"))
+                    .asMultipartForm()
+                    .check(status().is(201), jmesPath("id").saveAs("nuevoCursoId")))
+            .pause(2, 5)
+            .exec(http("subir video")
+                    .post("/api/videos/curso/#{nuevoCursoId}")
+                    .header("Authorization", "Bearer #{token}")
+                    .bodyPart(StringBodyPart("titulo", "Introducción"))
+                    .bodyPart(StringBodyPart("orden", "1"))
+                    .bodyPart(StringBodyPart("duracionSegundos", "600"))
+                    .bodyPart(ByteArrayBodyPart("archivo", VIDEO).fileName("introduccion.mp4").contentType("video/mp4"))
+                    .asMultipartForm()
+                    .check(status().is(201)))
+            .pause(1, 3)
+            .exec(http("publicar curso")
+                    .post("/api/cursos/#{nuevoCursoId}/publicar")
+                    .header("Authorization", "Bearer #{token}")
+                    .check(status().is(200)));
+
+    {
+        Duration rampa = Duration.ofSeconds(30);
+        Duration estable = Duration.ofSeconds(DURACION_S);
+
+        List<PopulationBuilder> poblaciones = new ArrayList<>();
+        if (TORMENTA_LOGIN) {
+            poblaciones.add(tormentaLogin.injectOpen(
+                    rampUsersPerSec(1).to(60 * FACTOR).during(rampa),
+                    constantUsersPerSec(60 * FACTOR).during(rampa),
+                    rampUsersPerSec(60 * FACTOR).to(5 * FACTOR).during(rampa)));
+        }
+        poblaciones.add(estudiante.injectOpen(
+                rampUsersPerSec(1).to(20 * FACTOR).during(rampa),
+                constantUsersPerSec(20 * FACTOR).during(estable)));
+        poblaciones.add(vistasAnonimas.injectOpen(
+                nothingFor(rampa),
+                constantUsersPerSec(30 * FACTOR).during(estable)));
+        poblaciones.add(instructor.injectOpen(
+                rampUsers((int) Math.max(1, 40 * FACTOR)).during(rampa.plus(estable))));
+
+        setUp(poblaciones)
+                .protocols(protocolo)
+                .assertions(
+                        global().failedRequests().percent().lt(5.0),
+                        forAll().responseTime().percentile(99.0).lt(P99_MAX_MS)
+                );
+    }
+
+    @Override
+    public void after() {
+        ENTORNO.resumenStubs().forEach(resumen -> System.out.println("Stub " + resumen));
+        ENTORNO.close();
+    }
+
+    private static EntornoCarga iniciarEntorno() {
+        try {
+            return EntornoCarga.iniciar();
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo preparar el entorno de carga: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] bytesAleatorios(int tamano) {
+        byte[] bytes = new byte[tamano];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
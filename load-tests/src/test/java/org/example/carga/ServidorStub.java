@@ -0,0 +1,136 @@
+package org.example.carga;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Servidor HTTP en proceso que sustituye a una integración externa (UPBolis, Snack).
+ * Cada respuesta tarda latenciaMs ± jitterMs y una fracción tasaError de las peticiones
+ * responde 503, para ver cómo se comporta la API cuando el tercero va lento o falla.
+ */
+class ServidorStub implements AutoCloseable {
+
+    private final String nombre;
+    private final HttpServer servidor;
+    private final long latenciaMs;
+    private final long jitterMs;
+    private final double tasaError;
+    private final Map<String, AtomicLong> llamadas = new ConcurrentHashMap<>();
+
+    private ServidorStub(String nombre, long latenciaMs, long jitterMs, double tasaError) throws IOException {
+        this.nombre = nombre;
+        this.latenciaMs = latenciaMs;
+        this.jitterMs = jitterMs;
+        this.tasaError = tasaError;
+        this.servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // Cada petición en su hilo virtual: la latencia simulada no limita la concurrencia del stub
+        this.servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * UPBolis: login del vendedor y alta/cambio/baja de productos
+     */
+    static ServidorStub upbolis() throws IOException {
+        ServidorStub stub = new ServidorStub("upbolis",
+                Long.getLong("carga.upbolis.latencia-ms", 150),
+                Long.getLong("carga.upbolis.jitter-ms", 50),
+                Double.parseDouble(System.getProperty("carga.upbolis.tasa-error", "0.02")));
+
+        AtomicLong productos = new AtomicLong(1000);
+        stub.ruta("/auth/login", metodo -> "{\"token\":\"token-stub\"}");
+        stub.ruta("/seller/products", metodo -> producto(metodo.equals("POST") ? productos.incrementAndGet() : 1));
+        stub.servidor.start();
+        return stub;
+    }
+
+    /**
+     * Snack: generación de códigos de descuento al llegar un curso a 10 vistas
+     */
+    static ServidorStub snack() throws IOException {
+        ServidorStub stub = new ServidorStub("snack",
+                Long.getLong("carga.snack.latencia-ms", 300),
+                Long.getLong("carga.snack.jitter-ms", 100),
+                Double.parseDouble(System.getProperty("carga.snack.tasa-error", "0.05")));
+
+        AtomicLong codigos = new AtomicLong();
+        stub.ruta("/api/v1/codes/generate", metodo -> "{\"code\":\"SNACK-" + codigos.incrementAndGet() + "\"}");
+        stub.servidor.start();
+        return stub;
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+
+    /**
+     * Llamadas recibidas por ruta y método (las respondidas con error incluidas)
+     */
+    String resumen() {
+        return nombre + " " + new TreeMap<>(llamadas);
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+    }
+
+    private void ruta(String prefijo, Function<String, String> respuesta) {
+        servidor.createContext(prefijo, intercambio -> {
+            try {
+                String metodo = intercambio.getRequestMethod();
+                llamadas.computeIfAbsent(metodo + " " + prefijo, k -> new AtomicLong()).incrementAndGet();
+                intercambio.getRequestBody().readAllBytes();
+                esperar();
+
+                if (ThreadLocalRandom.current().nextDouble() < tasaError) {
+                    responder(intercambio, 503, "{\"error\":\"fallo simulado\"}");
+                } else if (metodo.equals("HEAD")) {
+                    intercambio.sendResponseHeaders(200, -1);
+                } else {
+                    responder(intercambio, metodo.equals("POST") && prefijo.equals("/seller/products") ? 201 : 200,
+                            respuesta.apply(metodo));
+                }
+            } finally {
+                intercambio.close();
+            }
+        });
+    }
+
+    private void esperar() {
+        long espera = latenciaMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(-jitterMs, jitterMs + 1) : 0);
+        if (espera > 0) {
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, String cuerpo) throws IOException {
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    private static String producto(long id) {
+        return "{\"id\":" + id + ",\"name\":\"Curso\",\"description\":\"Curso de carga\",\"price\":20.0,"
+                + "\"stock\":999,\"is_active\":true,\"seller_id\":1,"
+                + "\"created_at\":\"2025-01-01T00:00:00\",\"updated_at\":\"2025-01-01T00:00:00\"}";
+    }
+}